@@ -1,12 +1,61 @@
 package com.unir.template;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.unir.template.model.CsvImportResult;
+import com.unir.template.service.BooksBulkService;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication
 public class TemplateApplication {
 
+  /** Command importing a CSV file of books, after which the application exits. */
+  static final String IMPORT_BOOKS_COMMAND = "import-books";
+
   public static void main(String[] args) {
+    if (args.length > 0 && args[0].equals(IMPORT_BOOKS_COMMAND)) {
+      System.exit(importBooks(Arrays.copyOfRange(args, 1, args.length)));
+    }
     SpringApplication.run(TemplateApplication.class, args);
   }
+
+  /**
+   * Imports the CSV file given as first argument, or standard input for {@code -}, and prints the
+   * result as JSON. The other arguments are passed to Spring, like {@code --spring.datasource.url}.
+   *
+   * @return the exit status, 0 once the import is committed, whether rows were rejected or not
+   */
+  static int importBooks(String[] args) {
+    if (args.length == 0) {
+      System.err.println(
+          "Usage: " + IMPORT_BOOKS_COMMAND + " <file.csv | -> [--property=value...]");
+      return 2;
+    }
+    SpringApplication application = new SpringApplication(TemplateApplication.class);
+    application.setWebApplicationType(WebApplicationType.NONE);
+    try (ConfigurableApplicationContext context =
+            application.run(Arrays.copyOfRange(args, 1, args.length));
+        InputStream csv = open(args[0])) {
+      CsvImportResult result = context.getBean(BooksBulkService.class).importBooks(csv);
+      ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+      System.out.println(
+          objectMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValueAsString(result));
+      return 0;
+    } catch (IOException | IllegalArgumentException e) {
+      System.err.println("Books import failed: " + e.getMessage());
+      return 1;
+    }
+  }
+
+  private static InputStream open(String file) throws IOException {
+    return file.equals("-") ? System.in : Files.newInputStream(Path.of(file));
+  }
 }
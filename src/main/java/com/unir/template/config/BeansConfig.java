@@ -1,16 +1,224 @@
 package com.unir.template.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.unir.template.model.Book;
 import com.unir.template.repository.BooksRepository;
+import com.unir.template.service.BookChangeListener;
+import com.unir.template.service.BookChangesPublisher;
+import com.unir.template.service.BookInvalidationChannel;
+import com.unir.template.service.BooksBulkService;
+import com.unir.template.service.BooksBulkServiceImpl;
+import com.unir.template.service.BooksJsonCache;
 import com.unir.template.service.BooksService;
 import com.unir.template.service.BooksServiceImpl;
+import com.unir.template.service.CachingBooksService;
+import com.unir.template.service.CoalescingBooksService;
+import com.unir.template.service.HedgingBooksService;
+import com.unir.template.service.MeteredBooksService;
+import com.unir.template.service.PrimaryReadsBooksService;
+import com.unir.template.service.SingleFlightBooksService;
+import com.unir.template.service.StockDeltaBuffer;
+import com.unir.template.service.WriteBehindStockBooksService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
 
+/** Beans of the Spring MVC and JPA stack, see {@code ReactiveBooksConfig} for the reactive one. */
 @Configuration
+@Profile("!reactive")
+@EnableConfigurationProperties(BooksProperties.class)
 public class BeansConfig {
 
   @Bean
-  public BooksService booksService(BooksRepository booksRepository) {
-    return new BooksServiceImpl(booksRepository);
+  public BooksJsonCache booksJsonCache(ObjectMapper objectMapper, BooksProperties booksProperties) {
+    return new BooksJsonCache(objectMapper, booksProperties.getJsonCache());
+  }
+
+  @Bean
+  @ConditionalOnProperty(prefix = "books.cache", name = "enabled")
+  public Cache<UUID, Book> booksCache(
+      BooksProperties booksProperties, MeterRegistry meterRegistry) {
+    Cache<UUID, Book> cache =
+        Caffeine.newBuilder()
+            .maximumSize(booksProperties.getCache().getMaximumSize())
+            .expireAfterWrite(booksProperties.getCache().getTimeToLive())
+            .recordStats()
+            .build();
+    return CaffeineCacheMetrics.monitor(meterRegistry, cache, "books");
+  }
+
+  @Bean
+  public BooksService booksService(
+      BooksRepository booksRepository,
+      BooksJsonCache booksJsonCache,
+      MeterRegistry meterRegistry,
+      ObjectProvider<Cache<UUID, Book>> booksCache,
+      ObjectProvider<StockDeltaBuffer> stockDeltaBuffer,
+      BooksProperties booksProperties,
+      ObjectProvider<ReplicaRoutingDataSource> replicaRoutingDataSource,
+      ObjectProvider<BookInvalidationChannel> bookInvalidationChannel,
+      PlatformTransactionManager transactionManager) {
+    Cache<UUID, Book> cache = booksCache.getIfAvailable();
+    ReplicaRoutingDataSource pools = replicaRoutingDataSource.getIfAvailable();
+    // A cache filled from a lagging replica would keep a book that was just written stale
+    boolean cachedReadsOnPrimary = pools != null && (cache != null || booksJsonCache.isEnabled());
+    BooksService booksService =
+        new BooksServiceImpl(
+            booksRepository,
+            bookChangeListener(cache, booksJsonCache, bookInvalidationChannel.getIfAvailable()));
+    if (cachedReadsOnPrimary) {
+      booksService =
+          new PrimaryReadsBooksService(
+              booksService, transactionManager, cache != null, booksJsonCache.isEnabled());
+    }
+    if (booksProperties.getHedging().isEnabled()) {
+      if (pools == null) {
+        throw new IllegalStateException("books.hedging.enabled requires read-replicas.enabled");
+      }
+      if (cachedReadsOnPrimary) {
+        throw new IllegalStateException(
+            "books.hedging.enabled reads from the replicas, which cannot fill the book caches");
+      }
+      booksService =
+          new HedgingBooksService(
+              booksService,
+              pools,
+              Executors.newThreadPerTaskExecutor(
+                  Thread.ofVirtual().name("book-lookup-", 0).factory()),
+              booksProperties.getHedging(),
+              meterRegistry);
+    }
+    if (booksProperties.getCoalescing().isEnabled()) {
+      booksService =
+          new CoalescingBooksService(booksService, booksProperties.getCoalescing(), meterRegistry);
+    }
+    if (booksProperties.getSingleFlight().isEnabled()) {
+      booksService =
+          new SingleFlightBooksService(
+              booksService, booksProperties.getSingleFlight(), meterRegistry);
+    }
+    if (cache != null) {
+      booksService = new CachingBooksService(booksService, cache);
+    }
+    StockDeltaBuffer buffer = stockDeltaBuffer.getIfAvailable();
+    if (buffer != null) {
+      booksService = new WriteBehindStockBooksService(booksService, buffer);
+    }
+    return new MeteredBooksService(booksService, meterRegistry);
+  }
+
+  @Bean
+  @ConditionalOnProperty(prefix = "books.stock-write-behind", name = "enabled")
+  public StockDeltaBuffer stockDeltaBuffer(
+      BooksRepository booksRepository,
+      BooksJsonCache booksJsonCache,
+      BooksProperties booksProperties,
+      MeterRegistry meterRegistry,
+      ObjectProvider<Cache<UUID, Book>> booksCache,
+      ObjectProvider<BookInvalidationChannel> bookInvalidationChannel) {
+    return new StockDeltaBuffer(
+        booksRepository,
+        bookChangeListener(
+            booksCache.getIfAvailable(), booksJsonCache, bookInvalidationChannel.getIfAvailable()),
+        booksProperties.getStockWriteBehind().getFlushInterval(),
+        meterRegistry);
+  }
+
+  @Bean
+  public BooksBulkService booksBulkService(
+      BooksRepository booksRepository,
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      ObjectMapper objectMapper,
+      BooksProperties booksProperties,
+      BooksJsonCache booksJsonCache,
+      ObjectProvider<Cache<UUID, Book>> booksCache,
+      ObjectProvider<BookInvalidationChannel> bookInvalidationChannel) {
+    return new BooksBulkServiceImpl(
+        booksRepository,
+        jdbcTemplate,
+        transactionManager,
+        objectMapper,
+        booksProperties,
+        bookChangeListener(
+            booksCache.getIfAvailable(), booksJsonCache, bookInvalidationChannel.getIfAvailable()));
+  }
+
+  @Bean
+  @ConditionalOnProperty(prefix = "books.invalidation", name = "enabled")
+  public BookInvalidationChannel bookInvalidationChannel(
+      DataSourceProperties dataSourceProperties,
+      BooksJsonCache booksJsonCache,
+      ObjectProvider<Cache<UUID, Book>> booksCache,
+      BooksProperties booksProperties,
+      MeterRegistry meterRegistry) {
+    // Its own connection to the primary, as a listening session cannot go back to a pool
+    SimpleDriverDataSource dataSource =
+        dataSourceProperties
+            .initializeDataSourceBuilder()
+            .type(SimpleDriverDataSource.class)
+            .build();
+    Properties connectionProperties = new Properties();
+    connectionProperties.setProperty("ApplicationName", "book-invalidation");
+    dataSource.setConnectionProperties(connectionProperties);
+    BookChangeListener localListener =
+        bookChangeListener(booksCache.getIfAvailable(), booksJsonCache, null);
+    return new BookInvalidationChannel(
+        dataSource,
+        localListener,
+        localListener::onAllBooksChanged,
+        booksProperties.getInvalidation(),
+        meterRegistry);
+  }
+
+  @Bean
+  public BookChangesPublisher bookChangesPublisher(
+      BooksService booksService, BooksProperties booksProperties, MeterRegistry meterRegistry) {
+    return new BookChangesPublisher(
+        booksService,
+        booksProperties.getChanges().getPollInterval(),
+        booksProperties.getChanges().getPageSize(),
+        meterRegistry);
+  }
+
+  private static BookChangeListener bookChangeListener(
+      Cache<UUID, Book> booksCache,
+      BooksJsonCache booksJsonCache,
+      BookInvalidationChannel bookInvalidationChannel) {
+    BookChangeListener listener = booksJsonCache;
+    if (booksCache != null) {
+      // Cached books must be dropped before their JSON, otherwise a concurrent read could
+      // serialize a stale cached book again right after the JSON was invalidated
+      listener = evicting(booksCache).andThen(booksJsonCache);
+    }
+    return bookInvalidationChannel == null ? listener : listener.andThen(bookInvalidationChannel);
+  }
+
+  private static BookChangeListener evicting(Cache<UUID, Book> booksCache) {
+    return new BookChangeListener() {
+      @Override
+      public void onBookChanged(UUID id) {
+        booksCache.invalidate(id);
+      }
+
+      @Override
+      public void onAllBooksChanged() {
+        booksCache.invalidateAll();
+      }
+    };
   }
 }
@@ -0,0 +1,52 @@
+package com.unir.template.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Registers the CBOR and Smile converters with the application's Jackson settings, so that binary
+ * clients get the same fields as JSON ones. Spring MVC would otherwise add both with default
+ * mappers. {@code ReactiveBinaryFormatsConfig} does the same for the WebFlux codecs.
+ */
+@Configuration
+public class BinaryFormatsConfig {
+
+  /**
+   * Binary formats have no charset, but clients such as RestAssured still append one to the content
+   * type, and Jackson would then read the body through a text reader that its binary parsers
+   * reject. Reporting UTF-8 makes the converters always parse the raw bytes.
+   */
+  private static final Charset BINARY_INPUT = StandardCharsets.UTF_8;
+
+  @Bean
+  public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+      Jackson2ObjectMapperBuilder objectMapperBuilder) {
+    return new MappingJackson2CborHttpMessageConverter(
+        objectMapperBuilder.factory(new CBORFactory()).build()) {
+      @Override
+      protected Charset getCharset(MediaType contentType) {
+        return BINARY_INPUT;
+      }
+    };
+  }
+
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+      Jackson2ObjectMapperBuilder objectMapperBuilder) {
+    return new MappingJackson2SmileHttpMessageConverter(
+        objectMapperBuilder.factory(new SmileFactory()).build()) {
+      @Override
+      protected Charset getCharset(MediaType contentType) {
+        return BINARY_INPUT;
+      }
+    };
+  }
+}
@@ -0,0 +1,154 @@
+package com.unir.template.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "books")
+public class BooksProperties {
+
+  private Export export = new Export();
+
+  private Bulk bulk = new Bulk();
+
+  private CsvImport csvImport = new CsvImport();
+
+  private Cache cache = new Cache();
+
+  private JsonCache jsonCache = new JsonCache();
+
+  private StockWriteBehind stockWriteBehind = new StockWriteBehind();
+
+  private Hedging hedging = new Hedging();
+
+  private Coalescing coalescing = new Coalescing();
+
+  private SingleFlight singleFlight = new SingleFlight();
+
+  private Changes changes = new Changes();
+
+  private Invalidation invalidation = new Invalidation();
+
+  @Data
+  public static class Export {
+
+    /** Rows fetched per round trip by the export cursor. */
+    private int fetchSize = 1000;
+  }
+
+  @Data
+  public static class Bulk {
+
+    /** Books inserted per transaction by the bulk create endpoint. */
+    private int chunkSize = 1000;
+  }
+
+  @Data
+  public static class CsvImport {
+
+    /** Rejected rows listed in the report of a CSV import, the others being only counted. */
+    private int maxReportedRejections = 1000;
+  }
+
+  @Data
+  public static class Cache {
+
+    /** Whether book lookups by id go through the in-process cache. */
+    private boolean enabled = false;
+
+    /** Maximum number of books kept in the cache. */
+    private long maximumSize = 10_000;
+
+    /** Time after which a cached book is reloaded from the database. */
+    private Duration timeToLive = Duration.ofMinutes(10);
+  }
+
+  @Data
+  public static class JsonCache {
+
+    /** Whether book responses are served from their pre-serialized JSON bytes. */
+    private boolean enabled = false;
+
+    /** Maximum number of serialized books kept in memory. */
+    private long maximumSize = 10_000;
+
+    /** Maximum number of serialized book pages kept in memory. */
+    private long maximumPages = 100;
+  }
+
+  @Data
+  public static class StockWriteBehind {
+
+    /** Whether stock reservations are buffered in memory and written in batches. */
+    private boolean enabled = false;
+
+    /** Time between two writes of the buffered stock deltas. */
+    private Duration flushInterval = Duration.ofMillis(50);
+  }
+
+  @Data
+  public static class Hedging {
+
+    /** Whether book lookups by id are hedged across the read replicas. */
+    private boolean enabled = false;
+
+    /** Percentile of recent lookup latencies after which the lookup is sent to a second pool. */
+    private double percentile = 0.95;
+
+    /** Shortest wait before a lookup is hedged, however fast recent lookups were. */
+    private Duration minDelay = Duration.ofMillis(2);
+
+    /** Hedged lookups allowed per lookup, bounding the extra load put on the database. */
+    private double budget = 0.1;
+  }
+
+  @Data
+  public static class Coalescing {
+
+    /** Whether concurrent book lookups by id are merged into batched queries. */
+    private boolean enabled = false;
+
+    /** Time the first lookup of a batch waits for others to join it. */
+    private Duration window = Duration.ofMillis(2);
+
+    /** Distinct books after which a batch is loaded without waiting for the window to end. */
+    private int maxBatchSize = 100;
+  }
+
+  @Data
+  public static class SingleFlight {
+
+    /** Whether concurrent lookups of the same book share one database call. */
+    private boolean enabled = false;
+
+    /** Books whose lookup can be in flight and shared at once, bounding the memory used. */
+    private int maxInFlight = 10_000;
+  }
+
+  @Data
+  public static class Changes {
+
+    /** Time between two polls of the change feed for the clients streaming it. */
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    /** Changes sent at most per event to the clients streaming the change feed. */
+    private int pageSize = 100;
+
+    /** Time after which a change stream is closed, for the client to resume from its last event. */
+    private Duration streamTimeout = Duration.ofMinutes(30);
+  }
+
+  @Data
+  public static class Invalidation {
+
+    /** Whether cached books are evicted when other instances write them, over LISTEN/NOTIFY. */
+    private boolean enabled = false;
+
+    /** Longest wait for notifications, which also bounds how late written ids are sent. */
+    private Duration pollInterval = Duration.ofMillis(10);
+
+    /** First wait before reconnecting the listener, doubled on every failed attempt. */
+    private Duration reconnectDelay = Duration.ofSeconds(1);
+  }
+}
@@ -0,0 +1,33 @@
+package com.unir.template.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import javax.sql.DataSource;
+
+/**
+ * Puts a {@link ConnectionAdmissionDataSource} in front of each connection pool, sized to the pool
+ * unless a fixed concurrency is configured. The pools themselves stay plain {@link
+ * HikariDataSource} instances that the admission unwraps to.
+ */
+public class ConnectionAdmission {
+
+  private final int maxConcurrency;
+  private final MeterRegistry registry;
+
+  public ConnectionAdmission(int maxConcurrency, MeterRegistry registry) {
+    this.maxConcurrency = maxConcurrency;
+    this.registry = registry;
+  }
+
+  /** The pool behind its admission, published under the name of the pool or the given one. */
+  public DataSource admit(HikariDataSource pool, String defaultName) {
+    String name = pool.getPoolName() != null ? pool.getPoolName() : defaultName;
+    return new ConnectionAdmissionDataSource(
+        pool,
+        name,
+        maxConcurrency > 0 ? maxConcurrency : pool.getMaximumPoolSize(),
+        Duration.ofMillis(pool.getConnectionTimeout()),
+        registry);
+  }
+}
@@ -0,0 +1,118 @@
+package com.unir.template.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Bounds the number of connections handed out at once with a fair semaphore sized to the pool. With
+ * virtual threads thousands of requests can reach the data source together; they wait here in FIFO
+ * order, parked without holding a carrier, instead of all contending inside the pool. As a {@link
+ * DelegatingDataSource} it still unwraps to the pool, for the pool metrics and health checks.
+ */
+public class ConnectionAdmissionDataSource extends DelegatingDataSource {
+
+  private final Semaphore permits;
+  private final Duration timeout;
+  private final Timer waitTimer;
+
+  public ConnectionAdmissionDataSource(
+      DataSource targetDataSource,
+      String poolName,
+      int maxConcurrency,
+      Duration timeout,
+      MeterRegistry registry) {
+    super(targetDataSource);
+    this.permits = new Semaphore(maxConcurrency, true);
+    this.timeout = timeout;
+    this.waitTimer =
+        Timer.builder("db.admission.wait")
+            .description("Time spent waiting for a connection permit")
+            .tag("pool", poolName)
+            .register(registry);
+    Gauge.builder("db.admission.waiting", permits, Semaphore::getQueueLength)
+        .description("Threads waiting for a connection permit")
+        .tag("pool", poolName)
+        .register(registry);
+    Gauge.builder("db.admission.available", permits, Semaphore::availablePermits)
+        .description("Connection permits currently available")
+        .tag("pool", poolName)
+        .register(registry);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    acquire();
+    try {
+      return releasingOnClose(super.getConnection());
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    acquire();
+    try {
+      return releasingOnClose(super.getConnection(username, password));
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  private void acquire() throws SQLException {
+    long start = System.nanoTime();
+    try {
+      if (!permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+        throw new SQLTransientConnectionException(
+            "No connection permit available after " + timeout.toMillis() + "ms");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLTransientConnectionException("Interrupted waiting for a connection permit", e);
+    } finally {
+      waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private Connection releasingOnClose(Connection target) {
+    AtomicBoolean released = new AtomicBoolean();
+    return (Connection)
+        Proxy.newProxyInstance(
+            ConnectionAdmissionDataSource.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "equals" -> {
+                  return proxy == args[0];
+                }
+                case "hashCode" -> {
+                  return System.identityHashCode(proxy);
+                }
+                default -> {}
+              }
+              try {
+                return method.invoke(target, args);
+              } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+              } finally {
+                if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                  permits.release();
+                }
+              }
+            });
+  }
+}
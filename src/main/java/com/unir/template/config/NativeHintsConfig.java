@@ -0,0 +1,34 @@
+package com.unir.template.config;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BooksPage;
+import com.unir.template.model.BulkItemResult;
+import com.unir.template.model.CsvImportResult;
+import java.sql.Connection;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Reachability hints for a GraalVM native image that Spring AOT cannot infer from the bean
+ * definitions. The models are serialized behind {@code ResponseEntity<?>} and by the JSON cache
+ * straight through the {@code ObjectMapper}, and pooled connections are wrapped in a JDK proxy when
+ * connection admission is enabled. On the JVM these hints are ignored.
+ */
+@Configuration
+@RegisterReflectionForBinding({
+  Book.class, BooksPage.class, BulkItemResult.class, CsvImportResult.class
+})
+@ImportRuntimeHints(NativeHintsConfig.Hints.class)
+public class NativeHintsConfig {
+
+  static class Hints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+      hints.proxies().registerJdkProxy(Connection.class);
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package com.unir.template.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.unir.template.controller.BooksController;
+import java.util.List;
+import java.util.Map;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux counterpart of {@link BinaryFormatsConfig}. WebFlux would otherwise add Smile with a
+ * default mapper and no CBOR codecs at all.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveBinaryFormatsConfig {
+
+  private static final MediaType APPLICATION_SMILE =
+      MediaType.valueOf(BooksController.APPLICATION_SMILE_VALUE);
+
+  @Bean
+  public CodecCustomizer binaryFormatsCodecCustomizer(
+      Jackson2ObjectMapperBuilder objectMapperBuilder) {
+    ObjectMapper cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+    ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+    return configurer -> {
+      // Without explicit mime types the Jackson codecs default to the JSON ones
+      configurer
+          .customCodecs()
+          .register(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+      configurer.customCodecs().register(new SingleValueCborEncoder(cborMapper));
+      configurer
+          .defaultCodecs()
+          .jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, APPLICATION_SMILE));
+      configurer
+          .defaultCodecs()
+          .jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, APPLICATION_SMILE));
+    };
+  }
+
+  /**
+   * {@link Jackson2CborEncoder} only encodes single values, but WebFlux writes even a single value
+   * through the stream {@code encode} method, which that encoder rejects. Encodes a {@link Mono} as
+   * its value and any other publisher as one array of its elements.
+   */
+  static final class SingleValueCborEncoder extends Jackson2CborEncoder {
+
+    SingleValueCborEncoder(ObjectMapper mapper) {
+      super(mapper, MediaType.APPLICATION_CBOR);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(
+        Publisher<?> inputStream,
+        DataBufferFactory bufferFactory,
+        ResolvableType elementType,
+        MimeType mimeType,
+        Map<String, Object> hints) {
+      if (inputStream instanceof Mono<?> mono) {
+        return mono.map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints))
+            .flux();
+      }
+      ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+      return Flux.from(inputStream)
+          .collectList()
+          .map(values -> encodeValue(values, bufferFactory, listType, mimeType, hints))
+          .flux();
+    }
+  }
+}
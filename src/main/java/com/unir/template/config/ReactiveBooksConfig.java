@@ -0,0 +1,54 @@
+package com.unir.template.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unir.template.repository.ReactiveBooksRepository;
+import com.unir.template.service.MeteredReactiveBooksService;
+import com.unir.template.service.ReactiveBooksBulkService;
+import com.unir.template.service.ReactiveBooksBulkServiceImpl;
+import com.unir.template.service.ReactiveBooksService;
+import com.unir.template.service.ReactiveBooksServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Beans of the WebFlux and R2DBC stack, served instead of the {@link BeansConfig} ones under the
+ * {@code reactive} profile. No JDBC pool is started next to the R2DBC one, and the in-process
+ * caches, coalescing and hedging decorators of the blocking stack are not applied.
+ */
+@Configuration
+@Profile("reactive")
+@EnableConfigurationProperties(BooksProperties.class)
+public class ReactiveBooksConfig {
+
+  /** Runs WebFlux on Reactor Netty, which Spring Boot would otherwise skip for Tomcat. */
+  @Bean
+  public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+    return new NettyReactiveWebServerFactory();
+  }
+
+  @Bean
+  public ReactiveBooksRepository reactiveBooksRepository(DatabaseClient databaseClient) {
+    return new ReactiveBooksRepository(databaseClient);
+  }
+
+  @Bean
+  public ReactiveBooksService reactiveBooksService(
+      ReactiveBooksRepository reactiveBooksRepository, MeterRegistry meterRegistry) {
+    return new MeteredReactiveBooksService(
+        new ReactiveBooksServiceImpl(reactiveBooksRepository), meterRegistry);
+  }
+
+  @Bean
+  public ReactiveBooksBulkService reactiveBooksBulkService(
+      ReactiveBooksRepository reactiveBooksRepository,
+      BooksProperties booksProperties,
+      ObjectMapper objectMapper) {
+    return new ReactiveBooksBulkServiceImpl(
+        reactiveBooksRepository, booksProperties, objectMapper);
+  }
+}
@@ -0,0 +1,82 @@
+package com.unir.template.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+/**
+ * Sends read-only transactions to the read replicas and everything else to the primary. The
+ * application {@link DataSource} only fetches a physical connection on the first statement, once
+ * the transaction is known to be read-only or not, so that the routing can tell them apart.
+ * Repositories are read-only by default and declare their writes.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnBooleanProperty(name = "read-replicas.enabled")
+@EnableConfigurationProperties(ReadReplicasProperties.class)
+public class ReadReplicasConfig {
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+    return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+  }
+
+  @Bean
+  public ReplicaRoutingDataSource replicaRoutingDataSource(
+      @Qualifier("primaryDataSource") DataSource primaryDataSource,
+      DataSourceProperties dataSourceProperties,
+      ReadReplicasProperties properties,
+      Environment environment,
+      ObjectProvider<ConnectionAdmission> connectionAdmission,
+      MeterRegistry meterRegistry) {
+    List<DataSource> replicas = new ArrayList<>();
+    for (int i = 0; i < properties.getUrls().size(); i++) {
+      HikariDataSource replica =
+          dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+      // Same pool settings as the primary, with the replica's own url, name and credentials
+      Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+      replica.setJdbcUrl(properties.getUrls().get(i));
+      if (StringUtils.hasText(properties.getUsername())) {
+        replica.setUsername(properties.getUsername());
+        replica.setPassword(properties.getPassword());
+      }
+      replica.setPoolName("replica-" + i);
+      replica.setReadOnly(true);
+      replica.setMetricRegistry(meterRegistry);
+      // Not a bean, so the admission of the pool beans does not reach it
+      ConnectionAdmission admission = connectionAdmission.getIfAvailable();
+      replicas.add(admission != null ? admission.admit(replica, replica.getPoolName()) : replica);
+    }
+    return new ReplicaRoutingDataSource(
+        primaryDataSource,
+        replicas,
+        properties.getSelection(),
+        properties.getMaxLag(),
+        properties.getLagCheckInterval(),
+        meterRegistry);
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+    return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+  }
+}
@@ -0,0 +1,41 @@
+package com.unir.template.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/** Read replicas that read-only transactions are sent to instead of the primary database. */
+@Data
+@ConfigurationProperties(prefix = "read-replicas")
+public class ReadReplicasProperties {
+
+  /** Whether read-only transactions are routed to the replicas. */
+  private boolean enabled = false;
+
+  /** JDBC URLs of the replicas. */
+  private List<String> urls = new ArrayList<>();
+
+  /** Replica username, or empty to use the primary one. */
+  private String username;
+
+  /** Replica password, or empty to use the primary one. */
+  private String password;
+
+  /** How a replica is picked among the ones that are not lagging behind. */
+  private Selection selection = Selection.ROUND_ROBIN;
+
+  /** Replication lag above which a replica gets no reads until it catches up. */
+  private Duration maxLag = Duration.ofSeconds(5);
+
+  /** Time between two checks of the replication lag of every replica. */
+  private Duration lagCheckInterval = Duration.ofSeconds(1);
+
+  public enum Selection {
+    /** Each replica in turn. */
+    ROUND_ROBIN,
+    /** The replica with the fewest connections in use. */
+    LEAST_BUSY
+  }
+}
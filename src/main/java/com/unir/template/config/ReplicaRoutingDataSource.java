@@ -0,0 +1,239 @@
+package com.unir.template.config;
+
+import com.unir.template.config.ReadReplicasProperties.Selection;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Hands out connections of the primary, except inside read-only transactions, which get a
+ * connection of one of the read replicas, picked round-robin or by fewest connections in use among
+ * the replicas whose replication lag is within the limit. When every replica lags behind, or none
+ * could be checked yet, read-only transactions use the primary as well. The lag of every replica is
+ * checked in the background while the application runs.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource
+    implements SmartLifecycle, AutoCloseable {
+
+  /** Seconds since the last replayed transaction, 0 when replay is caught up, null if unknown. */
+  static final String LAG_QUERY =
+      """
+      SELECT CASE
+               WHEN NOT pg_is_in_recovery() THEN 0
+               WHEN pg_last_wal_receive_lsn() IS NULL THEN NULL
+               WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+               ELSE extract(epoch FROM now() - pg_last_xact_replay_timestamp())
+             END
+      """;
+
+  private static final long UNKNOWN_LAG = Long.MAX_VALUE;
+
+  private final DataSource primary;
+  private final List<Replica> replicas;
+  private final Selection selection;
+  private final long maxLagNanos;
+  private final Duration lagCheckInterval;
+  private final AtomicInteger nextReplica = new AtomicInteger();
+  private final Counter primaryFallbacks;
+  private ScheduledExecutorService scheduler;
+
+  public ReplicaRoutingDataSource(
+      DataSource primary,
+      List<DataSource> replicas,
+      Selection selection,
+      Duration maxLag,
+      Duration lagCheckInterval,
+      MeterRegistry registry) {
+    this.primary = primary;
+    this.selection = selection;
+    this.maxLagNanos = maxLag.toNanos();
+    this.lagCheckInterval = lagCheckInterval;
+    this.replicas = new ArrayList<>(replicas.size());
+    for (int i = 0; i < replicas.size(); i++) {
+      Replica replica = new Replica("replica-" + i, replicas.get(i));
+      this.replicas.add(replica);
+      Gauge.builder("db.replica.lag", replica, Replica::lagSeconds)
+          .description("Replication lag of the read replica, NaN while unknown")
+          .baseUnit("seconds")
+          .tag("replica", replica.name)
+          .register(registry);
+    }
+    this.primaryFallbacks =
+        Counter.builder("db.replica.fallback")
+            .description("Read-only connections taken from the primary as no replica was in sync")
+            .register(registry);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return route().getConnection();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return route().getConnection(username, password);
+  }
+
+  /** Queries the replication lag of every replica, marking the ones that fail as unknown. */
+  public void checkLag() {
+    for (Replica replica : replicas) {
+      try (Connection connection = replica.dataSource.getConnection();
+          Statement statement = connection.createStatement();
+          ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+        resultSet.next();
+        double lagSeconds = resultSet.getDouble(1);
+        replica.lagNanos = resultSet.wasNull() ? UNKNOWN_LAG : (long) (lagSeconds * 1e9);
+      } catch (SQLException | RuntimeException e) {
+        log.warn("Could not check the replication lag of {}", replica.name, e);
+        replica.lagNanos = UNKNOWN_LAG;
+      }
+    }
+  }
+
+  void recordLag(int replica, Duration lag) {
+    replicas.get(replica).lagNanos = lag.toNanos();
+  }
+
+  @Override
+  public void start() {
+    scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("replica-lag-check").daemon().factory());
+    scheduler.scheduleWithFixedDelay(
+        this::checkLag, 0, lagCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void stop() {
+    scheduler.shutdownNow();
+    scheduler = null;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return scheduler != null;
+  }
+
+  @Override
+  public int getPhase() {
+    // Know the replica lag before the web server takes requests
+    return DEFAULT_PHASE - 4096;
+  }
+
+  @Override
+  public void close() {
+    for (Replica replica : replicas) {
+      if (replica.dataSource instanceof AutoCloseable closeable) {
+        try {
+          closeable.close();
+        } catch (Exception e) {
+          log.warn("Could not close the pool of {}", replica.name, e);
+        }
+      }
+    }
+  }
+
+  private DataSource route() {
+    return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? select() : primary;
+  }
+
+  /** Picks the pool of a read-only transaction, the primary when no replica is in sync. */
+  public DataSource select() {
+    Replica selected = null;
+    if (selection == Selection.LEAST_BUSY) {
+      for (Replica replica : replicas) {
+        if (replica.inSync(maxLagNanos)
+            && (selected == null || replica.activeConnections() < selected.activeConnections())) {
+          selected = replica;
+        }
+      }
+    } else {
+      int start = nextReplica.getAndIncrement();
+      for (int i = 0; i < replicas.size() && selected == null; i++) {
+        Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+        if (replica.inSync(maxLagNanos)) {
+          selected = replica;
+        }
+      }
+    }
+    if (selected == null) {
+      primaryFallbacks.increment();
+      return primary;
+    }
+    return selected.dataSource;
+  }
+
+  /**
+   * Picks a pool other than {@code excluded} to send the same read to, another replica in sync if
+   * there is one, the primary otherwise, or null when {@code excluded} already is the primary.
+   */
+  public DataSource selectOther(DataSource excluded) {
+    int start = nextReplica.getAndIncrement();
+    for (int i = 0; i < replicas.size(); i++) {
+      Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+      if (replica.dataSource != excluded && replica.inSync(maxLagNanos)) {
+        return replica.dataSource;
+      }
+    }
+    return excluded == primary ? null : primary;
+  }
+
+  private static final class Replica {
+
+    private final String name;
+    private final DataSource dataSource;
+    private volatile long lagNanos = UNKNOWN_LAG;
+
+    Replica(String name, DataSource dataSource) {
+      this.name = name;
+      this.dataSource = dataSource;
+    }
+
+    boolean inSync(long maxLagNanos) {
+      return lagNanos <= maxLagNanos;
+    }
+
+    int activeConnections() {
+      HikariPoolMXBean pool = hikariPool();
+      return pool == null ? 0 : pool.getActiveConnections();
+    }
+
+    private HikariPoolMXBean hikariPool() {
+      if (dataSource instanceof HikariDataSource hikariDataSource) {
+        return hikariDataSource.getHikariPoolMXBean();
+      }
+      try {
+        // Such as a pool behind its connection admission
+        return dataSource.isWrapperFor(HikariDataSource.class)
+            ? dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean()
+            : null;
+      } catch (SQLException _) {
+        return null;
+      }
+    }
+
+    double lagSeconds() {
+      long lag = lagNanos;
+      return lag == UNKNOWN_LAG ? Double.NaN : lag / 1e9;
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package com.unir.template.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Streams {@code jdk.VirtualThreadPinned} JFR events while the application runs, logging where the
+ * virtual thread was pinned to its carrier and exposing how often and for how long it happens.
+ */
+@Slf4j
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+  static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+  private static final int LOGGED_FRAMES = 8;
+
+  private final Duration threshold;
+  private final Counter pinnedCounter;
+  private final Timer pinnedTimer;
+  private RecordingStream recordingStream;
+
+  public VirtualThreadPinningMonitor(Duration threshold, MeterRegistry registry) {
+    this.threshold = threshold;
+    this.pinnedCounter =
+        Counter.builder("jvm.threads.virtual.pinned")
+            .description("Virtual threads pinned to their carrier for longer than the threshold")
+            .register(registry);
+    this.pinnedTimer =
+        Timer.builder("jvm.threads.virtual.pinned.duration")
+            .description("Time virtual threads stayed pinned to their carrier")
+            .register(registry);
+  }
+
+  @Override
+  public synchronized void start() {
+    recordingStream = new RecordingStream();
+    recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+    recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+    recordingStream.startAsync();
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (recordingStream != null) {
+      recordingStream.close();
+      recordingStream = null;
+    }
+  }
+
+  @Override
+  public synchronized boolean isRunning() {
+    return recordingStream != null;
+  }
+
+  void onPinned(RecordedEvent event) {
+    pinnedCounter.increment();
+    pinnedTimer.record(event.getDuration());
+    log.warn(
+        "Virtual thread {} pinned its carrier for {}ms at{}",
+        event.getThread() != null ? event.getThread().getJavaName() : "unknown",
+        event.getDuration().toMillis(),
+        stackTrace(event));
+  }
+
+  private static String stackTrace(RecordedEvent event) {
+    if (event.getStackTrace() == null) {
+      return " unknown location";
+    }
+    List<RecordedFrame> frames = event.getStackTrace().getFrames();
+    return frames.stream()
+        .limit(LOGGED_FRAMES)
+        .map(
+            frame ->
+                "\n\t"
+                    + frame.getMethod().getType().getName()
+                    + "."
+                    + frame.getMethod().getName()
+                    + ":"
+                    + frame.getLineNumber())
+        .collect(Collectors.joining());
+  }
+}
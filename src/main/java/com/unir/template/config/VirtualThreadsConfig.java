@@ -0,0 +1,56 @@
+package com.unir.template.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Support beans for {@code spring.threads.virtual.enabled=true}, which already moves Tomcat request
+ * handling and the application task executor (used by async MVC and {@code @Async}) onto virtual
+ * threads.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@EnableConfigurationProperties(VirtualThreadsProperties.class)
+public class VirtualThreadsConfig {
+
+  @Bean
+  @ConditionalOnBooleanProperty(name = "virtual-threads.admission.enabled", matchIfMissing = true)
+  public ConnectionAdmission connectionAdmission(
+      VirtualThreadsProperties properties, MeterRegistry meterRegistry) {
+    return new ConnectionAdmission(properties.getAdmission().getMaxConcurrency(), meterRegistry);
+  }
+
+  /**
+   * Admits the connections of the pools defined as beans. The read replica pools are built inside
+   * {@link ReadReplicasConfig}, which admits them itself.
+   */
+  @Bean
+  @ConditionalOnBooleanProperty(name = "virtual-threads.admission.enabled", matchIfMissing = true)
+  public static BeanPostProcessor connectionAdmissionPostProcessor(
+      ObjectProvider<ConnectionAdmission> connectionAdmission) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof HikariDataSource hikariDataSource)) {
+          return bean;
+        }
+        return connectionAdmission.getObject().admit(hikariDataSource, beanName);
+      }
+    };
+  }
+
+  @Bean
+  @ConditionalOnBooleanProperty(name = "virtual-threads.pinning.enabled", matchIfMissing = true)
+  public VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+      VirtualThreadsProperties properties, MeterRegistry meterRegistry) {
+    return new VirtualThreadPinningMonitor(properties.getPinning().getThreshold(), meterRegistry);
+  }
+}
@@ -0,0 +1,35 @@
+package com.unir.template.config;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/** Settings that only apply when {@code spring.threads.virtual.enabled} is true. */
+@Data
+@ConfigurationProperties(prefix = "virtual-threads")
+public class VirtualThreadsProperties {
+
+  private Admission admission = new Admission();
+
+  private Pinning pinning = new Pinning();
+
+  @Data
+  public static class Admission {
+
+    /** Whether threads queue on a fair semaphore before asking the pool for a connection. */
+    private boolean enabled = true;
+
+    /** Connections handed out at once, or 0 to use the maximum size of the connection pool. */
+    private int maxConcurrency = 0;
+  }
+
+  @Data
+  public static class Pinning {
+
+    /** Whether jdk.VirtualThreadPinned events are recorded, logged and counted. */
+    private boolean enabled = true;
+
+    /** Shortest pinning that is reported. */
+    private Duration threshold = Duration.ofMillis(20);
+  }
+}
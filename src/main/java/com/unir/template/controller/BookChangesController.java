@@ -0,0 +1,143 @@
+package com.unir.template.controller;
+
+import static com.unir.template.controller.BooksController.APPLICATION_SMILE_VALUE;
+
+import com.unir.template.config.BooksProperties;
+import com.unir.template.model.BookChange;
+import com.unir.template.model.BookChangesPage;
+import com.unir.template.service.BookChangesPublisher;
+import com.unir.template.service.BooksService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.io.IOException;
+import java.time.Duration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/books/changes")
+@Profile("!reactive")
+@Tag(name = "Books", description = "Books management API endpoints")
+public class BookChangesController {
+
+  /** Name of the server-sent events carrying changes. */
+  public static final String CHANGES_EVENT = "changes";
+
+  private final BooksService booksService;
+  private final BookChangesPublisher bookChangesPublisher;
+  private final Duration streamTimeout;
+
+  public BookChangesController(
+      BooksService booksService,
+      BookChangesPublisher bookChangesPublisher,
+      BooksProperties booksProperties) {
+    this.booksService = booksService;
+    this.bookChangesPublisher = bookChangesPublisher;
+    this.streamTimeout = booksProperties.getChanges().getStreamTimeout();
+  }
+
+  @GetMapping(
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  @Operation(
+      summary = "Get book changes",
+      description =
+          "Retrieves the latest change of every book created, updated or deleted since the given"
+              + " cursor, oldest first. Without a cursor the first page starts from the first"
+              + " change, so following the cursors from there replays the whole catalog. Use the"
+              + " returned nextCursor as 'since' to fetch the following changes")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Changes retrieved successfully",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = BookChangesPage.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor", content = @Content)
+      })
+  public ResponseEntity<BookChangesPage> getChanges(
+      @Parameter(description = "Cursor returned as nextCursor by the previous page")
+          @RequestParam(value = "since", required = false)
+          String since,
+      @Parameter(description = "Maximum number of changes to return (at most 500)", example = "100")
+          @RequestParam(value = "limit", defaultValue = "100")
+          int limit) {
+    try {
+      return ResponseEntity.ok(booksService.getChanges(since, limit));
+    } catch (IllegalArgumentException _) {
+      return ResponseEntity.badRequest().build();
+    }
+  }
+
+  @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @Operation(
+      summary = "Stream book changes",
+      description =
+          "Pushes book changes as server-sent events named 'changes', each holding a JSON array of"
+              + " changes and identified by the cursor after them. Clients resume from their last"
+              + " event with the Last-Event-ID header, as EventSource does when it reconnects")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Stream of changes",
+            content =
+                @Content(
+                    mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                    array = @ArraySchema(schema = @Schema(implementation = BookChange.class)))),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor", content = @Content)
+      })
+  public ResponseEntity<SseEmitter> streamChanges(
+      @Parameter(description = "Cursor to start from, as returned by the change feed")
+          @RequestParam(value = "since", required = false)
+          String since,
+      @Parameter(description = "Identifier of the last event received, overriding 'since'")
+          @RequestHeader(value = "Last-Event-ID", required = false)
+          String lastEventId) {
+    SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+    BookChangesPublisher.Subscription subscription;
+    try {
+      subscription =
+          bookChangesPublisher.subscribe(
+              lastEventId != null ? lastEventId : since,
+              new BookChangesPublisher.Subscriber() {
+                @Override
+                public void onChanges(BookChangesPage page) throws IOException {
+                  emitter.send(
+                      SseEmitter.event()
+                          .id(page.getNextCursor())
+                          .name(CHANGES_EVENT)
+                          .data(page.getItems(), MediaType.APPLICATION_JSON));
+                }
+
+                @Override
+                public void onComplete() {
+                  emitter.complete();
+                }
+              });
+    } catch (IllegalArgumentException _) {
+      return ResponseEntity.badRequest().build();
+    }
+    emitter.onCompletion(subscription::cancel);
+    emitter.onError(_ -> subscription.cancel());
+    return ResponseEntity.ok(emitter);
+  }
+}
@@ -1,39 +1,81 @@
 package com.unir.template.controller;
 
 import com.unir.template.model.Book;
+import com.unir.template.model.BooksFilter;
+import com.unir.template.model.BooksPage;
+import com.unir.template.model.BooksSort;
+import com.unir.template.model.BulkItemResult;
+import com.unir.template.model.CsvImportResult;
+import com.unir.template.service.BookETags;
+import com.unir.template.service.BooksBulkService;
+import com.unir.template.service.BooksJsonCache;
 import com.unir.template.service.BooksService;
+import com.unir.template.service.CachedJson;
+import com.unir.template.service.OutOfStockException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.UUID;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/books")
+@Profile("!reactive")
 @Tag(name = "Books", description = "Books management API endpoints")
 public class BooksController {
 
+  /** Media type of Jackson's binary JSON format, negotiated next to JSON and CBOR. */
+  public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+  private static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+  /** Media type of the CSV body of a books import. */
+  public static final String TEXT_CSV_VALUE = "text/csv";
+
   private final BooksService booksService;
+  private final BooksBulkService booksBulkService;
+  private final BooksJsonCache booksJsonCache;
 
-  public BooksController(BooksService booksService) {
+  public BooksController(
+      BooksService booksService, BooksBulkService booksBulkService, BooksJsonCache booksJsonCache) {
     this.booksService = booksService;
+    this.booksBulkService = booksBulkService;
+    this.booksJsonCache = booksJsonCache;
   }
 
-  @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+  @GetMapping(
+      value = "/{id}",
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
   @Operation(
       summary = "Get book by ID",
       description = "Retrieves a specific book by its unique identifier")
@@ -46,38 +88,207 @@ public class BooksController {
                 @Content(
                     mediaType = MediaType.APPLICATION_JSON_VALUE,
                     schema = @Schema(implementation = Book.class))),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Book not modified since the given entity tag",
+            content = @Content),
         @ApiResponse(responseCode = "404", description = "Book not found", content = @Content)
       })
-  public ResponseEntity<Book> getBookById(
+  public ResponseEntity<?> getBookById(
       @Parameter(
               description = "Unique identifier of the book",
               example = "123e4567-e89b-12d3-a456-426614174000")
           @PathVariable("id")
-          UUID id) {
+          UUID id,
+      @Parameter(description = "Entity tag of the copy of the book held by the client")
+          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+          String ifNoneMatch,
+      @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+          String accept) {
     try {
-      return ResponseEntity.ok(booksService.getBookById(id));
+      MediaType format = negotiate(accept);
+      if (booksJsonCache.isEnabled() && MediaType.APPLICATION_JSON.equals(format)) {
+        CachedJson cachedBook = booksJsonCache.getBook(id, booksService::getBookById);
+        if (BookETags.matches(ifNoneMatch, cachedBook.eTag())) {
+          return notModified(cachedBook.eTag());
+        }
+        return ok(format, cachedBook.eTag()).body(cachedBook.json());
+      }
+      if (ifNoneMatch != null) {
+        String eTag = BookETags.of(booksService.getBookVersion(id), format);
+        if (BookETags.matches(ifNoneMatch, eTag)) {
+          return notModified(eTag);
+        }
+      }
+      Book book = booksService.getBookById(id);
+      return ok(format, BookETags.of(book, format)).body(book);
     } catch (RuntimeException _) {
       return ResponseEntity.notFound().build();
     }
   }
 
-  @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-  @Operation(summary = "Get all books", description = "Retrieves a list of all books in the system")
+  @GetMapping(
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  @Operation(
+      summary = "Get all books",
+      description =
+          "Retrieves a page of books, optionally filtered by price range, minimum stock and"
+              + " name prefix. Sorting by price or stock leaves out books without that value. Use"
+              + " the returned nextCursor as 'after' to fetch the following page")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Books retrieved successfully",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = BooksPage.class))),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Page not modified since the given entity tag",
+            content = @Content),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid cursor or sort",
+            content = @Content)
+      })
+  public ResponseEntity<?> getAllBooks(
+      @Parameter(description = "Cursor returned as nextCursor by the previous page")
+          @RequestParam(value = "after", required = false)
+          String after,
+      @Parameter(description = "Maximum number of books to return (at most 500)", example = "50")
+          @RequestParam(value = "limit", defaultValue = "50")
+          int limit,
+      @Parameter(description = "Lowest price, inclusive", example = "10")
+          @RequestParam(value = "minPrice", required = false)
+          Double minPrice,
+      @Parameter(description = "Highest price, inclusive", example = "30")
+          @RequestParam(value = "maxPrice", required = false)
+          Double maxPrice,
+      @Parameter(description = "Lowest number of books in stock, inclusive", example = "1")
+          @RequestParam(value = "minStock", required = false)
+          Integer minStock,
+      @Parameter(description = "Case-sensitive prefix of the book name", example = "Spring")
+          @RequestParam(value = "namePrefix", required = false)
+          String namePrefix,
+      @Parameter(
+              description = "Sort order, one of id, price, -price, stock, -stock",
+              example = "-price")
+          @RequestParam(value = "sort", defaultValue = "id")
+          String sort,
+      @Parameter(description = "Entity tag of the copy of the page held by the client")
+          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+          String ifNoneMatch,
+      @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+          String accept) {
+    try {
+      MediaType format = negotiate(accept);
+      BooksFilter filter = new BooksFilter(minPrice, maxPrice, minStock, namePrefix);
+      BooksSort booksSort = BooksSort.fromParameter(sort);
+      if (!filter.isEmpty() || booksSort != BooksSort.ID) {
+        BooksPage page = booksService.findBooks(filter, booksSort, after, limit);
+        String eTag = BookETags.of(page, format);
+        if (BookETags.matches(ifNoneMatch, eTag)) {
+          return notModified(eTag);
+        }
+        return ok(format, eTag).body(page);
+      }
+      if (booksJsonCache.isEnabled() && MediaType.APPLICATION_JSON.equals(format)) {
+        CachedJson cachedPage =
+            booksJsonCache.getPage(after, limit, () -> booksService.getAllBooks(after, limit));
+        if (BookETags.matches(ifNoneMatch, cachedPage.eTag())) {
+          return notModified(cachedPage.eTag());
+        }
+        return ok(format, cachedPage.eTag()).body(cachedPage.json());
+      }
+      BooksPage page = booksService.getAllBooks(after, limit);
+      String eTag = BookETags.of(page, format);
+      if (BookETags.matches(ifNoneMatch, eTag)) {
+        return notModified(eTag);
+      }
+      return ok(format, eTag).body(page);
+    } catch (IllegalArgumentException _) {
+      return ResponseEntity.badRequest().build();
+    }
+  }
+
+  @GetMapping(
+      value = "/search",
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  @Operation(
+      summary = "Search books",
+      description =
+          "Full-text search over book name and description, most relevant first. Supports quoted"
+              + " phrases, 'or' and '-term'. Use the returned nextCursor as 'after' to fetch the"
+              + " following page")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Matching books retrieved successfully",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = BooksPage.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Missing query or invalid cursor",
+            content = @Content)
+      })
+  public ResponseEntity<BooksPage> searchBooks(
+      @Parameter(description = "Search terms", example = "spring boot", required = true)
+          @RequestParam(value = "q", required = false)
+          String query,
+      @Parameter(description = "Cursor returned as nextCursor by the previous page")
+          @RequestParam(value = "after", required = false)
+          String after,
+      @Parameter(description = "Maximum number of books to return (at most 500)", example = "20")
+          @RequestParam(value = "limit", defaultValue = "20")
+          int limit) {
+    try {
+      return ResponseEntity.ok(booksService.searchBooks(query, after, limit));
+    } catch (IllegalArgumentException _) {
+      return ResponseEntity.badRequest().build();
+    }
+  }
+
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  @Operation(
+      summary = "Export all books",
+      description = "Streams every book in the system as newline-delimited JSON, one book per line")
   @ApiResponse(
       responseCode = "200",
-      description = "Books retrieved successfully",
+      description = "Books exported successfully",
       content =
           @Content(
-              mediaType = MediaType.APPLICATION_JSON_VALUE,
+              mediaType = MediaType.APPLICATION_NDJSON_VALUE,
               schema = @Schema(implementation = Book.class)))
-  public ResponseEntity<List<Book>> getAllBooks() {
-    List<Book> books = booksService.getAllBooks();
-    return ResponseEntity.ok(books);
+  public ResponseEntity<StreamingResponseBody> exportBooks() {
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .body(booksBulkService::exportBooks);
   }
 
   @PostMapping(
-      consumes = MediaType.APPLICATION_JSON_VALUE,
-      produces = MediaType.APPLICATION_JSON_VALUE)
+      consumes = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      },
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
   @Operation(summary = "Create a new book", description = "Creates a new book in the system")
   @ApiResponse(
       responseCode = "200",
@@ -92,13 +303,175 @@ public class BooksController {
     return booksService.createBook(book);
   }
 
+  @PostMapping(
+      value = "/_bulk",
+      consumes = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      },
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  @Operation(
+      summary = "Create books in bulk",
+      description =
+          "Creates the books of a JSON array in batched inserts and reports the outcome of each"
+              + " one")
+  @ApiResponse(
+      responseCode = "200",
+      description = "Bulk request processed, see the result of each item",
+      content =
+          @Content(
+              mediaType = MediaType.APPLICATION_JSON_VALUE,
+              array = @ArraySchema(schema = @Schema(implementation = BulkItemResult.class))))
+  public ResponseEntity<List<BulkItemResult>> createBooks(
+      @Parameter(description = "Books to be created", required = true) @RequestBody
+          List<Book> books) {
+    return ResponseEntity.ok(booksBulkService.createBooks(books));
+  }
+
+  @PostMapping(
+      value = "/_bulk",
+      consumes = MediaType.APPLICATION_NDJSON_VALUE,
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  @Operation(
+      summary = "Create books in bulk from NDJSON",
+      description =
+          "Creates the books of a newline-delimited JSON body in batched inserts and reports the"
+              + " outcome of each one")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Bulk request processed, see the result of each item",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    array = @ArraySchema(schema = @Schema(implementation = BulkItemResult.class)))),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Request body could not be read",
+            content = @Content)
+      })
+  public ResponseEntity<List<BulkItemResult>> createBooksFromNdjson(InputStream ndjson) {
+    try {
+      return ResponseEntity.ok(booksBulkService.createBooks(ndjson));
+    } catch (IOException _) {
+      return ResponseEntity.badRequest().build();
+    }
+  }
+
+  @PostMapping(
+      value = "/_import",
+      consumes = TEXT_CSV_VALUE,
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  @Operation(
+      summary = "Import books from CSV",
+      description =
+          "Streams a UTF-8 CSV body with an id,name,description,price,stock header into the"
+              + " database with COPY and upserts its valid rows in one statement. Rows with the id"
+              + " of an existing book update it, rows without an id create a book, and invalid rows"
+              + " are counted and reported without failing the import")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Books imported, see the counts and the rejected rows",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = CsvImportResult.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Malformed CSV or unexpected header, nothing was imported",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class)))
+      })
+  public ResponseEntity<?> importBooks(InputStream csv) {
+    try {
+      return ResponseEntity.ok(booksBulkService.importBooks(csv));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.of(
+              ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage()))
+          .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_PROBLEM_JSON_VALUE)
+          .build();
+    } catch (IOException _) {
+      return ResponseEntity.badRequest().build();
+    }
+  }
+
+  @PostMapping(
+      value = "/_batchGet",
+      consumes = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      },
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  @Operation(
+      summary = "Get books by IDs",
+      description =
+          "Retrieves the books of a list of identifiers in a single query, in the order they were"
+              + " requested. Identifiers of books that do not exist are left out")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Books found retrieved successfully",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    array = @ArraySchema(schema = @Schema(implementation = Book.class)))),
+        @ApiResponse(
+            responseCode = "400",
+            description = "More than 500 distinct identifiers",
+            content = @Content)
+      })
+  public ResponseEntity<List<Book>> getBooksByIds(
+      @Parameter(description = "Identifiers of the books (at most 500)", required = true)
+          @RequestBody
+          List<UUID> ids) {
+    try {
+      return ResponseEntity.ok(booksService.getBooksByIds(ids));
+    } catch (IllegalArgumentException _) {
+      return ResponseEntity.badRequest().build();
+    }
+  }
+
   @PutMapping(
       value = "/{id}",
-      consumes = MediaType.APPLICATION_JSON_VALUE,
-      produces = MediaType.APPLICATION_JSON_VALUE)
+      consumes = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      },
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
   @Operation(
       summary = "Update an existing book",
-      description = "Updates an existing book by its unique identifier")
+      description =
+          "Updates an existing book by its unique identifier. With If-Match the update only"
+              + " applies if the book still has the given entity tag")
   @ApiResponses(
       value = {
         @ApiResponse(
@@ -108,7 +481,15 @@ public class BooksController {
                 @Content(
                     mediaType = MediaType.APPLICATION_JSON_VALUE,
                     schema = @Schema(implementation = Book.class))),
-        @ApiResponse(responseCode = "404", description = "Book not found", content = @Content)
+        @ApiResponse(responseCode = "404", description = "Book not found", content = @Content),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Book modified concurrently",
+            content = @Content),
+        @ApiResponse(
+            responseCode = "412",
+            description = "Book does not match the If-Match entity tag",
+            content = @Content)
       })
   public ResponseEntity<Book> updateBook(
       @Parameter(
@@ -116,18 +497,148 @@ public class BooksController {
               example = "123e4567-e89b-12d3-a456-426614174000")
           @PathVariable("id")
           UUID id,
-      @Parameter(description = "Updated book object", required = true) @RequestBody Book book) {
+      @Parameter(description = "Entity tag the book must still have for the update to apply")
+          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+          String ifMatch,
+      @Parameter(description = "Updated book object", required = true) @RequestBody Book book,
+      @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+          String accept) {
+    MediaType format = negotiate(accept);
+    List<Long> expectedVersions;
+    try {
+      expectedVersions = ifMatch != null ? BookETags.parseVersions(ifMatch) : null;
+    } catch (IllegalArgumentException _) {
+      return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
     try {
-      return ResponseEntity.ok(booksService.updateBook(id, book));
+      Book updatedBook =
+          expectedVersions != null
+              ? booksService.updateBook(id, book, expectedVersion(id, expectedVersions))
+              : booksService.updateBook(id, book);
+      return ok(format, BookETags.of(updatedBook, format)).body(updatedBook);
+    } catch (OptimisticLockingFailureException _) {
+      return ResponseEntity.status(
+              ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT)
+          .build();
     } catch (RuntimeException _) {
       return ResponseEntity.notFound().build();
     }
   }
 
-  @DeleteMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+  @PostMapping(
+      value = "/{id}/reserve",
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  @Operation(
+      summary = "Reserve stock of a book",
+      description =
+          "Atomically takes the given quantity out of the stock of a book, only if there is enough"
+              + " stock left")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Stock reserved, returns the book with its remaining stock",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = Book.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid quantity", content = @Content),
+        @ApiResponse(responseCode = "404", description = "Book not found", content = @Content),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Not enough stock left",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_PROBLEM_JSON_VALUE,
+                    schema = @Schema(implementation = ProblemDetail.class)))
+      })
+  public ResponseEntity<?> reserveStock(
+      @Parameter(
+              description = "Unique identifier of the book to reserve",
+              example = "123e4567-e89b-12d3-a456-426614174000")
+          @PathVariable("id")
+          UUID id,
+      @Parameter(description = "Number of books to reserve", example = "1")
+          @RequestParam(value = "quantity", defaultValue = "1")
+          int quantity,
+      @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+          String accept) {
+    try {
+      MediaType format = negotiate(accept);
+      Book book = booksService.reserveStock(id, quantity);
+      return ok(format, BookETags.of(book, format)).body(book);
+    } catch (IllegalArgumentException _) {
+      return ResponseEntity.badRequest().build();
+    } catch (OutOfStockException e) {
+      return ResponseEntity.of(
+              ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage()))
+          .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_PROBLEM_JSON_VALUE)
+          .build();
+    } catch (RuntimeException _) {
+      return ResponseEntity.notFound().build();
+    }
+  }
+
+  @PostMapping(
+      value = "/{id}/release",
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  @Operation(
+      summary = "Release stock of a book",
+      description = "Atomically puts the given quantity back in the stock of a book")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Stock released, returns the book with its new stock",
+            content =
+                @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = Book.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid quantity", content = @Content),
+        @ApiResponse(responseCode = "404", description = "Book not found", content = @Content)
+      })
+  public ResponseEntity<Book> releaseStock(
+      @Parameter(
+              description = "Unique identifier of the book to release",
+              example = "123e4567-e89b-12d3-a456-426614174000")
+          @PathVariable("id")
+          UUID id,
+      @Parameter(description = "Number of books to release", example = "1")
+          @RequestParam(value = "quantity", defaultValue = "1")
+          int quantity,
+      @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+          String accept) {
+    try {
+      MediaType format = negotiate(accept);
+      Book book = booksService.releaseStock(id, quantity);
+      return ok(format, BookETags.of(book, format)).body(book);
+    } catch (IllegalArgumentException _) {
+      return ResponseEntity.badRequest().build();
+    } catch (RuntimeException _) {
+      return ResponseEntity.notFound().build();
+    }
+  }
+
+  @DeleteMapping(
+      value = "/{id}",
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
   @Operation(
       summary = "Delete a book",
-      description = "Deletes a book from the system by its unique identifier")
+      description =
+          "Deletes a book from the system by its unique identifier. With If-Match the book is only"
+              + " deleted if it still has the given entity tag")
   @ApiResponses(
       value = {
         @ApiResponse(
@@ -137,18 +648,91 @@ public class BooksController {
                 @Content(
                     mediaType = MediaType.APPLICATION_JSON_VALUE,
                     schema = @Schema(implementation = Book.class))),
-        @ApiResponse(responseCode = "404", description = "Book not found", content = @Content)
+        @ApiResponse(responseCode = "404", description = "Book not found", content = @Content),
+        @ApiResponse(
+            responseCode = "412",
+            description = "Book does not match the If-Match entity tag",
+            content = @Content)
       })
   public ResponseEntity<Book> deleteBook(
       @Parameter(
               description = "Unique identifier of the book to delete",
               example = "123e4567-e89b-12d3-a456-426614174000")
           @PathVariable("id")
-          UUID id) {
+          UUID id,
+      @Parameter(description = "Entity tag the book must still have for the delete to apply")
+          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+          String ifMatch) {
+    List<Long> expectedVersions;
+    try {
+      expectedVersions = ifMatch != null ? BookETags.parseVersions(ifMatch) : null;
+    } catch (IllegalArgumentException _) {
+      return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
     try {
-      return ResponseEntity.ok(booksService.deleteBook(id));
+      return ResponseEntity.ok(
+          expectedVersions != null
+              ? booksService.deleteBook(id, expectedVersion(id, expectedVersions))
+              : booksService.deleteBook(id));
+    } catch (OptimisticLockingFailureException _) {
+      return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
     } catch (RuntimeException _) {
       return ResponseEntity.notFound().build();
     }
   }
+
+  /**
+   * Version among those of an If-Match header that the book still has, for the write to be
+   * conditional on. A single version is left for the write itself to check, while several need the
+   * current version of the book to tell which one the write must still find.
+   *
+   * @throws OptimisticLockingFailureException if the book has none of the versions
+   */
+  private long expectedVersion(UUID id, List<Long> expectedVersions) {
+    if (expectedVersions.size() == 1) {
+      return expectedVersions.getFirst();
+    }
+    long version = booksService.getBookVersion(id);
+    if (!expectedVersions.contains(version)) {
+      throw new OptimisticLockingFailureException("Book " + id + " does not match If-Match");
+    }
+    return version;
+  }
+
+  /**
+   * Format negotiated for the given Accept header, JSON unless CBOR or Smile is preferred. The
+   * entity tag depends on it, so the responses that carry one set it as their content type rather
+   * than leaving the choice to the message converters.
+   */
+  static MediaType negotiate(String accept) {
+    if (accept == null) {
+      return MediaType.APPLICATION_JSON;
+    }
+    List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+    MimeTypeUtils.sortBySpecificity(mediaTypes);
+    for (MediaType mediaType : mediaTypes) {
+      if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+        return MediaType.APPLICATION_JSON;
+      }
+      if (mediaType.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+        return MediaType.APPLICATION_CBOR;
+      }
+      if (mediaType.isCompatibleWith(APPLICATION_SMILE)) {
+        return APPLICATION_SMILE;
+      }
+    }
+    return MediaType.APPLICATION_JSON;
+  }
+
+  /** A response in the negotiated format, which caches must keep apart by Accept header. */
+  private static ResponseEntity.BodyBuilder ok(MediaType format, String eTag) {
+    return ResponseEntity.ok().contentType(format).eTag(eTag).varyBy(HttpHeaders.ACCEPT);
+  }
+
+  private static ResponseEntity<Void> notModified(String eTag) {
+    return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+        .eTag(eTag)
+        .varyBy(HttpHeaders.ACCEPT)
+        .build();
+  }
 }
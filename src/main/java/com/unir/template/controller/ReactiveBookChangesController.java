@@ -0,0 +1,104 @@
+package com.unir.template.controller;
+
+import static com.unir.template.controller.BookChangesController.CHANGES_EVENT;
+import static com.unir.template.controller.BooksController.APPLICATION_SMILE_VALUE;
+
+import com.unir.template.config.BooksProperties;
+import com.unir.template.model.BookChange;
+import com.unir.template.model.BookChangesPage;
+import com.unir.template.service.ReactiveBooksService;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux version of {@link BookChangesController}. Each stream polls the change feed on its own,
+ * skipping the polls that come while it is still sending earlier changes to a slow client.
+ */
+@RestController
+@RequestMapping("/api/books/changes")
+@Profile("reactive")
+public class ReactiveBookChangesController {
+
+  private final ReactiveBooksService booksService;
+  private final BooksProperties.Changes properties;
+
+  public ReactiveBookChangesController(
+      ReactiveBooksService booksService, BooksProperties booksProperties) {
+    this.booksService = booksService;
+    this.properties = booksProperties.getChanges();
+  }
+
+  @GetMapping(
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  public Mono<ResponseEntity<BookChangesPage>> getChanges(
+      @RequestParam(value = "since", required = false) String since,
+      @RequestParam(value = "limit", defaultValue = "100") int limit) {
+    return booksService
+        .getChanges(since, limit)
+        .map(ResponseEntity::ok)
+        .onErrorResume(
+            IllegalArgumentException.class, _ -> Mono.just(ResponseEntity.badRequest().build()));
+  }
+
+  @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Mono<ResponseEntity<Flux<ServerSentEvent<List<BookChange>>>>> streamChanges(
+      @RequestParam(value = "since", required = false) String since,
+      @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+    // The first page is read up front, so that an invalid cursor is still answered with a 400
+    return booksService
+        .getChanges(lastEventId != null ? lastEventId : since, properties.getPageSize())
+        .map(first -> ResponseEntity.ok(events(first)))
+        .onErrorResume(
+            IllegalArgumentException.class, _ -> Mono.just(ResponseEntity.badRequest().build()));
+  }
+
+  /**
+   * The first page and the ones right after it, then the pages polled each interval from where the
+   * previous ones ended, until the stream times out.
+   */
+  private Flux<ServerSentEvent<List<BookChange>>> events(BookChangesPage first) {
+    AtomicReference<String> cursor = new AtomicReference<>();
+    Duration interval = properties.getPollInterval();
+    return catchUp(Mono.just(first))
+        .concatWith(
+            Flux.interval(interval, interval)
+                .onBackpressureDrop()
+                .concatMap(
+                    _ -> catchUp(booksService.getChanges(cursor.get(), properties.getPageSize())),
+                    1))
+        .doOnNext(page -> cursor.set(page.getNextCursor()))
+        .filter(page -> !page.getItems().isEmpty())
+        .map(
+            page ->
+                ServerSentEvent.builder(page.getItems())
+                    .id(page.getNextCursor())
+                    .event(CHANGES_EVENT)
+                    .build())
+        .take(properties.getStreamTimeout());
+  }
+
+  /** The given page followed by the next ones, for as long as there are more right away. */
+  private Flux<BookChangesPage> catchUp(Mono<BookChangesPage> page) {
+    return page.expand(
+        current ->
+            current.isHasMore()
+                ? booksService.getChanges(current.getNextCursor(), properties.getPageSize())
+                : Mono.empty());
+  }
+}
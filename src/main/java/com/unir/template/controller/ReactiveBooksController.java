@@ -0,0 +1,369 @@
+package com.unir.template.controller;
+
+import static com.unir.template.controller.BooksController.APPLICATION_SMILE_VALUE;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BooksFilter;
+import com.unir.template.model.BooksPage;
+import com.unir.template.model.BooksSort;
+import com.unir.template.model.BulkItemResult;
+import com.unir.template.service.BookETags;
+import com.unir.template.service.OutOfStockException;
+import com.unir.template.service.ReactiveBooksBulkService;
+import com.unir.template.service.ReactiveBooksService;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux version of {@link BooksController} with the same endpoints, status codes and entity tags,
+ * served under the {@code reactive} profile. See {@link BooksController} for the OpenAPI
+ * description of each endpoint. Bodies negotiable as CBOR are sent as single values, as the CBOR
+ * codec cannot encode a stream.
+ */
+@RestController
+@RequestMapping("/api/books")
+@Profile("reactive")
+public class ReactiveBooksController {
+
+  private final ReactiveBooksService booksService;
+  private final ReactiveBooksBulkService booksBulkService;
+
+  public ReactiveBooksController(
+      ReactiveBooksService booksService, ReactiveBooksBulkService booksBulkService) {
+    this.booksService = booksService;
+    this.booksBulkService = booksBulkService;
+  }
+
+  @GetMapping(
+      value = "/{id}",
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  public Mono<ResponseEntity<?>> getBookById(
+      @PathVariable("id") UUID id,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+    MediaType format = BooksController.negotiate(accept);
+    Mono<ResponseEntity<?>> response =
+        ifNoneMatch == null
+            ? okBook(id, format)
+            : booksService
+                .getBookVersion(id)
+                .map(version -> BookETags.of(version, format))
+                .flatMap(
+                    eTag ->
+                        BookETags.matches(ifNoneMatch, eTag)
+                            ? notModified(eTag)
+                            : okBook(id, format));
+    return response.onErrorResume(
+        RuntimeException.class, _ -> Mono.just(ResponseEntity.notFound().build()));
+  }
+
+  @GetMapping(
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  public Mono<ResponseEntity<?>> getAllBooks(
+      @RequestParam(value = "after", required = false) String after,
+      @RequestParam(value = "limit", defaultValue = "50") int limit,
+      @RequestParam(value = "minPrice", required = false) Double minPrice,
+      @RequestParam(value = "maxPrice", required = false) Double maxPrice,
+      @RequestParam(value = "minStock", required = false) Integer minStock,
+      @RequestParam(value = "namePrefix", required = false) String namePrefix,
+      @RequestParam(value = "sort", defaultValue = "id") String sort,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+    MediaType format = BooksController.negotiate(accept);
+    return Mono.defer(
+            () -> {
+              BooksFilter filter = new BooksFilter(minPrice, maxPrice, minStock, namePrefix);
+              BooksSort booksSort = BooksSort.fromParameter(sort);
+              return !filter.isEmpty() || booksSort != BooksSort.ID
+                  ? booksService.findBooks(filter, booksSort, after, limit)
+                  : booksService.getAllBooks(after, limit);
+            })
+        .flatMap(
+            page -> {
+              String eTag = BookETags.of(page, format);
+              if (BookETags.matches(ifNoneMatch, eTag)) {
+                return notModified(eTag);
+              }
+              return Mono.just(ok(format, eTag).body(page));
+            })
+        .onErrorResume(
+            IllegalArgumentException.class, _ -> Mono.just(ResponseEntity.badRequest().build()));
+  }
+
+  @GetMapping(
+      value = "/search",
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  public Mono<ResponseEntity<BooksPage>> searchBooks(
+      @RequestParam(value = "q", required = false) String query,
+      @RequestParam(value = "after", required = false) String after,
+      @RequestParam(value = "limit", defaultValue = "20") int limit) {
+    return booksService
+        .searchBooks(query, after, limit)
+        .map(ResponseEntity::ok)
+        .onErrorResume(
+            IllegalArgumentException.class, _ -> Mono.just(ResponseEntity.badRequest().build()));
+  }
+
+  /** Streams the books as they are read, so a slow client slows down the database cursor. */
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<Book> exportBooks() {
+    return booksBulkService.exportBooks();
+  }
+
+  @PostMapping(
+      consumes = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      },
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  public Mono<Book> createBook(@RequestBody Book book) {
+    return booksService.createBook(book);
+  }
+
+  @PostMapping(
+      value = "/_bulk",
+      consumes = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      },
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  public Mono<ResponseEntity<List<BulkItemResult>>> createBooks(@RequestBody List<Book> books) {
+    return booksBulkService.createBooks(books).collectList().map(ResponseEntity::ok);
+  }
+
+  /**
+   * Books are created while the body is still being read, one line per book. A line that is not a
+   * book fails as its own item.
+   */
+  @PostMapping(
+      value = "/_bulk",
+      consumes = MediaType.APPLICATION_NDJSON_VALUE,
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  public Mono<ResponseEntity<List<BulkItemResult>>> createBooksFromNdjson(
+      @RequestBody Flux<String> lines) {
+    return booksBulkService
+        .createBooksFromNdjson(lines)
+        .collectList()
+        .map(ResponseEntity::ok)
+        .onErrorResume(
+            DecodingException.class, _ -> Mono.just(ResponseEntity.badRequest().build()));
+  }
+
+  @PostMapping(
+      value = "/_batchGet",
+      consumes = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      },
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  public Mono<ResponseEntity<List<Book>>> getBooksByIds(@RequestBody List<UUID> ids) {
+    return booksService
+        .getBooksByIds(ids)
+        .collectList()
+        .map(ResponseEntity::ok)
+        .onErrorResume(
+            IllegalArgumentException.class, _ -> Mono.just(ResponseEntity.badRequest().build()));
+  }
+
+  @PutMapping(
+      value = "/{id}",
+      consumes = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      },
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  public Mono<ResponseEntity<Book>> updateBook(
+      @PathVariable("id") UUID id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestBody Book book,
+      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+    MediaType format = BooksController.negotiate(accept);
+    List<Long> expectedVersions;
+    try {
+      expectedVersions = ifMatch != null ? BookETags.parseVersions(ifMatch) : null;
+    } catch (IllegalArgumentException _) {
+      return Mono.just(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build());
+    }
+    Mono<Book> updatedBook =
+        expectedVersions != null
+            ? expectedVersion(id, expectedVersions)
+                .flatMap(version -> booksService.updateBook(id, book, version))
+            : booksService.updateBook(id, book);
+    return updatedBook
+        .map(updated -> ok(format, BookETags.of(updated, format)).body(updated))
+        .onErrorResume(
+            OptimisticLockingFailureException.class,
+            _ ->
+                Mono.just(
+                    ResponseEntity.status(
+                            ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT)
+                        .build()))
+        .onErrorResume(RuntimeException.class, _ -> Mono.just(ResponseEntity.notFound().build()));
+  }
+
+  @PostMapping(
+      value = "/{id}/reserve",
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  public Mono<ResponseEntity<?>> reserveStock(
+      @PathVariable("id") UUID id,
+      @RequestParam(value = "quantity", defaultValue = "1") int quantity,
+      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+    MediaType format = BooksController.negotiate(accept);
+    return booksService
+        .reserveStock(id, quantity)
+        .<ResponseEntity<?>>map(book -> ok(format, BookETags.of(book, format)).body(book))
+        .onErrorResume(
+            IllegalArgumentException.class, _ -> Mono.just(ResponseEntity.badRequest().build()))
+        .onErrorResume(
+            OutOfStockException.class,
+            e ->
+                Mono.just(
+                    ResponseEntity.of(
+                            ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage()))
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_PROBLEM_JSON_VALUE)
+                        .build()))
+        .onErrorResume(RuntimeException.class, _ -> Mono.just(ResponseEntity.notFound().build()));
+  }
+
+  @PostMapping(
+      value = "/{id}/release",
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  public Mono<ResponseEntity<Book>> releaseStock(
+      @PathVariable("id") UUID id,
+      @RequestParam(value = "quantity", defaultValue = "1") int quantity,
+      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+    MediaType format = BooksController.negotiate(accept);
+    return booksService
+        .releaseStock(id, quantity)
+        .map(book -> ok(format, BookETags.of(book, format)).body(book))
+        .onErrorResume(
+            IllegalArgumentException.class, _ -> Mono.just(ResponseEntity.badRequest().build()))
+        .onErrorResume(RuntimeException.class, _ -> Mono.just(ResponseEntity.notFound().build()));
+  }
+
+  @DeleteMapping(
+      value = "/{id}",
+      produces = {
+        MediaType.APPLICATION_JSON_VALUE,
+        MediaType.APPLICATION_CBOR_VALUE,
+        APPLICATION_SMILE_VALUE
+      })
+  public Mono<ResponseEntity<Book>> deleteBook(
+      @PathVariable("id") UUID id,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    List<Long> expectedVersions;
+    try {
+      expectedVersions = ifMatch != null ? BookETags.parseVersions(ifMatch) : null;
+    } catch (IllegalArgumentException _) {
+      return Mono.just(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build());
+    }
+    Mono<Book> deletedBook =
+        expectedVersions != null
+            ? expectedVersion(id, expectedVersions)
+                .flatMap(version -> booksService.deleteBook(id, version))
+            : booksService.deleteBook(id);
+    return deletedBook
+        .map(ResponseEntity::ok)
+        .onErrorResume(
+            OptimisticLockingFailureException.class,
+            _ -> Mono.just(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build()))
+        .onErrorResume(RuntimeException.class, _ -> Mono.just(ResponseEntity.notFound().build()));
+  }
+
+  /** Non-blocking counterpart of the version lookup of {@link BooksController}. */
+  private Mono<Long> expectedVersion(UUID id, List<Long> expectedVersions) {
+    if (expectedVersions.size() == 1) {
+      return Mono.just(expectedVersions.getFirst());
+    }
+    return booksService
+        .getBookVersion(id)
+        .filter(expectedVersions::contains)
+        .switchIfEmpty(
+            Mono.error(
+                () ->
+                    new OptimisticLockingFailureException(
+                        "Book " + id + " does not match If-Match")));
+  }
+
+  private Mono<ResponseEntity<?>> okBook(UUID id, MediaType format) {
+    return booksService
+        .getBookById(id)
+        .map(book -> ok(format, BookETags.of(book, format)).body(book));
+  }
+
+  private static ResponseEntity.BodyBuilder ok(MediaType format, String eTag) {
+    return ResponseEntity.ok().contentType(format).eTag(eTag).varyBy(HttpHeaders.ACCEPT);
+  }
+
+  private static Mono<ResponseEntity<?>> notModified(String eTag) {
+    return Mono.just(
+        ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+            .eTag(eTag)
+            .varyBy(HttpHeaders.ACCEPT)
+            .build());
+  }
+}
@@ -1,11 +1,13 @@
 package com.unir.template.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.util.UUID;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -41,4 +43,12 @@ public class Book {
 
   @Schema(description = "Number of books available in stock", example = "100")
   private Integer stock;
+
+  @Version
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  @Schema(
+      description = "Version of the book, incremented on every update and used as its ETag",
+      example = "0",
+      accessMode = Schema.AccessMode.READ_ONLY)
+  private Long version;
 }
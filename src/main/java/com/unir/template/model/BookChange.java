@@ -0,0 +1,49 @@
+package com.unir.template.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.Instant;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Schema(description = "Latest change of a book, either its current state or its deletion")
+public class BookChange {
+
+  @Schema(
+      description = "Identifier of the changed book",
+      example = "123e4567-e89b-12d3-a456-426614174000")
+  private UUID id;
+
+  @Schema(description = "Whether the book was created or updated, or deleted", example = "UPSERTED")
+  private Type type;
+
+  @Schema(
+      description = "Position of the change in the feed, increasing with the writing transaction",
+      example = "4711")
+  private long sequence;
+
+  @Schema(description = "Time of the change", example = "2025-01-31T10:15:30.123456Z")
+  private Instant changedAt;
+
+  @Schema(description = "Book as it is now, null when it was deleted")
+  private Book book;
+
+  public static BookChange upserted(long sequence, Instant changedAt, Book book) {
+    return new BookChange(book.getId(), Type.UPSERTED, sequence, changedAt, book);
+  }
+
+  public static BookChange deleted(UUID id, long sequence, Instant changedAt) {
+    return new BookChange(id, Type.DELETED, sequence, changedAt, null);
+  }
+
+  public enum Type {
+    UPSERTED,
+    DELETED
+  }
+}
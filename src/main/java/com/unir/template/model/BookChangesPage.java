@@ -0,0 +1,31 @@
+package com.unir.template.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Schema(description = "Page of book changes together with the cursor to fetch the following ones")
+public class BookChangesPage {
+
+  @Schema(
+      description =
+          "Latest change of every book changed since the cursor, in the order they were made")
+  private List<BookChange> items;
+
+  @Schema(
+      description =
+          "Opaque cursor to send as 'since' to fetch the following changes, the given one when"
+              + " there are none yet",
+      example = "NDcxMToxMjNlNDU2Ny1lODliLTEyZDMtYTQ1Ni00MjY2MTQxNzQwMDA")
+  private String nextCursor;
+
+  @Schema(description = "Whether more changes can be fetched right away with nextCursor")
+  private boolean hasMore;
+}
@@ -0,0 +1,31 @@
+package com.unir.template.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Schema(description = "Conditions a book must meet to be listed, unset conditions are ignored")
+public class BooksFilter {
+
+  @Schema(description = "Lowest price, inclusive", example = "10")
+  private Double minPrice;
+
+  @Schema(description = "Highest price, inclusive", example = "30")
+  private Double maxPrice;
+
+  @Schema(description = "Lowest number of books in stock, inclusive", example = "1")
+  private Integer minStock;
+
+  @Schema(description = "Case-sensitive prefix of the book name", example = "Spring")
+  private String namePrefix;
+
+  public boolean isEmpty() {
+    return minPrice == null && maxPrice == null && minStock == null && namePrefix == null;
+  }
+}
@@ -0,0 +1,26 @@
+package com.unir.template.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Schema(description = "Page of books together with the cursor to fetch the next one")
+public class BooksPage {
+
+  @Schema(description = "Books in this page")
+  private List<Book> items;
+
+  @Schema(
+      description =
+          "Opaque cursor to send as 'after' to fetch the next page, null when this is the last"
+              + " page",
+      example = "123e4567-e89b-12d3-a456-426614174000")
+  private String nextCursor;
+}
@@ -0,0 +1,36 @@
+package com.unir.template.model;
+
+import java.util.Arrays;
+
+/** Orders the book list can be returned in, each one ending with the id to be total. */
+public enum BooksSort {
+  ID("id", false),
+  PRICE("price", false),
+  PRICE_DESC("-price", true),
+  STOCK("stock", false),
+  STOCK_DESC("-stock", true);
+
+  private final String parameter;
+  private final boolean descending;
+
+  BooksSort(String parameter, boolean descending) {
+    this.parameter = parameter;
+    this.descending = descending;
+  }
+
+  public String getParameter() {
+    return parameter;
+  }
+
+  public boolean isDescending() {
+    return descending;
+  }
+
+  /** Parses a sort request parameter such as {@code price} or {@code -stock}. */
+  public static BooksSort fromParameter(String parameter) {
+    return Arrays.stream(values())
+        .filter(sort -> sort.parameter.equals(parameter))
+        .findFirst()
+        .orElseThrow(() -> new IllegalArgumentException("Unsupported sort: " + parameter));
+  }
+}
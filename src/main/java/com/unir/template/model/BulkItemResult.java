@@ -0,0 +1,43 @@
+package com.unir.template.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Schema(description = "Outcome of one item of a bulk request")
+public class BulkItemResult {
+
+  @Schema(description = "Position of the item in the request body", example = "0")
+  private int index;
+
+  @Schema(description = "Whether the item was processed", example = "CREATED")
+  private Status status;
+
+  @Schema(
+      description = "Identifier of the created book",
+      example = "123e4567-e89b-12d3-a456-426614174000")
+  private UUID id;
+
+  @Schema(description = "Reason why the item failed", example = "Book name is required")
+  private String error;
+
+  public static BulkItemResult created(int index, UUID id) {
+    return BulkItemResult.builder().index(index).status(Status.CREATED).id(id).build();
+  }
+
+  public static BulkItemResult failed(int index, String error) {
+    return BulkItemResult.builder().index(index).status(Status.FAILED).error(error).build();
+  }
+
+  public enum Status {
+    CREATED,
+    FAILED
+  }
+}
@@ -0,0 +1,37 @@
+package com.unir.template.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Schema(description = "Outcome of a CSV import of books")
+public class CsvImportResult {
+
+  @Schema(description = "Rows read from the CSV body, without its header", example = "1000000")
+  private long rows;
+
+  @Schema(description = "Books created, from rows without an id or with an unknown one")
+  private long inserted;
+
+  @Schema(description = "Existing books whose name, description, price or stock changed")
+  private long updated;
+
+  @Schema(
+      description =
+          "Valid rows that left their book as it was, including the ones overridden by a later"
+              + " row with the same id")
+  private long unchanged;
+
+  @Schema(description = "Rows rejected as invalid, none of which was written")
+  private long rejected;
+
+  @Schema(description = "First rejected rows, with the position of the row among the data rows")
+  private List<BulkItemResult> rejections;
+}
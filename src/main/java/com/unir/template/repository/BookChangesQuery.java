@@ -0,0 +1,76 @@
+package com.unir.template.repository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Native SQL for a page of the change feed: books and tombstones written after a position, in the
+ * order they were written. Both are stamped by triggers with the id of the writing transaction as
+ * {@code change_seq}, and each side is a range scan of its index on (change_seq, id).
+ *
+ * <p>Transaction ids are handed out when a transaction starts writing, not when it commits, so a
+ * change can become visible after changes with a higher sequence. Changes are only returned once
+ * every older transaction has ended, below the {@code xmin} of the current snapshot, so that a
+ * client never moves its cursor past a change it has not seen yet.
+ */
+public final class BookChangesQuery {
+
+  /** Columns of books and tombstones alike, the book columns being null for the latter. */
+  private static final String COLUMNS =
+      "id, change_seq, changed_at, deleted, name, description, price, stock, version";
+
+  private static final String HORIZON = "pg_snapshot_xmin(pg_current_snapshot())::text::bigint";
+
+  private final String sql;
+  private final Map<String, Object> parameters;
+
+  private BookChangesQuery(String sql, Map<String, Object> parameters) {
+    this.sql = sql;
+    this.parameters = parameters;
+  }
+
+  /**
+   * @param afterSeq sequence of the last change already seen, ignored without {@code afterId}
+   * @param afterId id of the book of the last change already seen, or null to start from the first
+   *     change
+   */
+  public static BookChangesQuery of(long afterSeq, UUID afterId, int limit) {
+    Map<String, Object> parameters = new LinkedHashMap<>();
+    String after = "";
+    if (afterId != null) {
+      after = " AND (%s.change_seq, %s.id) > (:afterSeq, :afterId)";
+      parameters.put("afterSeq", afterSeq);
+      parameters.put("afterId", afterId);
+    }
+    parameters.put("limit", limit);
+    String sql =
+        """
+        SELECT %s FROM (
+          (SELECT b.id, b.change_seq, b.updated_at AS changed_at, false AS deleted,
+                  b.name, b.description, b.price, b.stock, b.version
+           FROM books b
+           WHERE b.change_seq < %s%s
+           ORDER BY b.change_seq, b.id LIMIT :limit)
+          UNION ALL
+          (SELECT t.id, t.change_seq, t.deleted_at, true,
+                  NULL, NULL, NULL, NULL, NULL
+           FROM book_tombstones t
+           WHERE t.change_seq < %s%s
+           ORDER BY t.change_seq, t.id LIMIT :limit)
+        ) c
+        ORDER BY c.change_seq, c.id LIMIT :limit
+        """
+            .formatted(
+                COLUMNS, HORIZON, after.formatted("b", "b"), HORIZON, after.formatted("t", "t"));
+    return new BookChangesQuery(sql, parameters);
+  }
+
+  public String sql() {
+    return sql;
+  }
+
+  public Map<String, Object> parameters() {
+    return parameters;
+  }
+}
@@ -0,0 +1,112 @@
+package com.unir.template.repository;
+
+import com.unir.template.model.BooksFilter;
+import com.unir.template.model.BooksSort;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Native SQL for a filtered, sorted and keyset-paginated page of books. Every sort is backed by an
+ * index on (sort column, id), and books without a value in the sort column are left out so that
+ * those indexes can be partial and the keyset condition a plain row comparison.
+ */
+public final class BooksFilterQuery {
+
+  private final String sql;
+  private final Map<String, Object> parameters;
+
+  private BooksFilterQuery(String sql, Map<String, Object> parameters) {
+    this.sql = sql;
+    this.parameters = parameters;
+  }
+
+  /**
+   * @param afterValue sort column value of the last book of the previous page, ignored for {@link
+   *     BooksSort#ID}
+   * @param afterId id of the last book of the previous page, or null for the first page
+   */
+  public static BooksFilterQuery of(
+      BooksFilter filter, BooksSort sort, Object afterValue, UUID afterId, int limit) {
+    List<String> conditions = new ArrayList<>();
+    Map<String, Object> parameters = new LinkedHashMap<>();
+    if (filter.getMinPrice() != null) {
+      conditions.add("b.price >= CAST(:minPrice AS numeric)");
+      parameters.put("minPrice", filter.getMinPrice());
+    }
+    if (filter.getMaxPrice() != null) {
+      conditions.add("b.price <= CAST(:maxPrice AS numeric)");
+      parameters.put("maxPrice", filter.getMaxPrice());
+    }
+    if (filter.getMinStock() != null) {
+      conditions.add("b.stock >= :minStock");
+      parameters.put("minStock", filter.getMinStock());
+    }
+    if (filter.getNamePrefix() != null) {
+      conditions.add("b.name LIKE :namePrefix");
+      parameters.put("namePrefix", escapeLike(filter.getNamePrefix()) + "%");
+    }
+
+    String column = column(sort);
+    String comparison = sort.isDescending() ? "<" : ">";
+    if (sort != BooksSort.ID) {
+      conditions.add(column + " IS NOT NULL");
+    }
+    if (afterId != null) {
+      if (sort == BooksSort.ID) {
+        conditions.add("b.id > :afterId");
+      } else {
+        conditions.add(
+            "(%s, b.id) %s (CAST(:afterValue AS %s), :afterId)"
+                .formatted(column, comparison, columnType(sort)));
+        parameters.put("afterValue", afterValue);
+      }
+      parameters.put("afterId", afterId);
+    }
+    parameters.put("limit", limit);
+
+    String direction = sort.isDescending() ? " DESC" : "";
+    StringBuilder sql =
+        new StringBuilder(
+            "SELECT b.id, b.name, b.description, b.price, b.stock, b.version FROM books b");
+    if (!conditions.isEmpty()) {
+      sql.append(" WHERE ").append(String.join(" AND ", conditions));
+    }
+    sql.append(" ORDER BY ");
+    if (sort != BooksSort.ID) {
+      sql.append(column).append(direction).append(", ");
+    }
+    sql.append("b.id").append(direction).append(" LIMIT :limit");
+    return new BooksFilterQuery(sql.toString(), parameters);
+  }
+
+  public String sql() {
+    return sql;
+  }
+
+  public Map<String, Object> parameters() {
+    return parameters;
+  }
+
+  private static String column(BooksSort sort) {
+    return switch (sort) {
+      case ID -> "b.id";
+      case PRICE, PRICE_DESC -> "b.price";
+      case STOCK, STOCK_DESC -> "b.stock";
+    };
+  }
+
+  private static String columnType(BooksSort sort) {
+    return switch (sort) {
+      case ID -> "uuid";
+      case PRICE, PRICE_DESC -> "numeric";
+      case STOCK, STOCK_DESC -> "integer";
+    };
+  }
+
+  private static String escapeLike(String value) {
+    return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+}
@@ -1,9 +1,88 @@
 package com.unir.template.repository;
 
 import com.unir.template.model.Book;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Queries run in read-only transactions, which are served by a read replica when replicas are
+ * configured. Writes, and the reads that a write depends on, declare a read-write transaction so
+ * that they always go to the primary database.
+ */
 @Repository
-public interface BooksRepository extends JpaRepository<Book, UUID> {}
+@Transactional(readOnly = true)
+public interface BooksRepository extends JpaRepository<Book, UUID>, BooksRepositoryCustom {
+
+  List<Book> findAllByOrderByIdAsc(Limit limit);
+
+  List<Book> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
+
+  /**
+   * Takes {@code quantity} books out of stock in a single statement, which only matches while there
+   * is enough stock left. Concurrent reservations of the same book queue on its row lock for just
+   * this statement and never oversell.
+   */
+  @Transactional
+  @Query(
+      value =
+          """
+          UPDATE books SET stock = stock - :quantity, version = version + 1
+          WHERE id = :id AND stock >= :quantity
+          RETURNING id, name, description, price, stock, version
+          """,
+      nativeQuery = true)
+  Optional<Book> reserveStock(@Param("id") UUID id, @Param("quantity") int quantity);
+
+  /** Puts {@code quantity} books back in stock, starting from zero for books without stock. */
+  @Transactional
+  @Query(
+      value =
+          """
+          UPDATE books SET stock = coalesce(stock, 0) + :quantity, version = version + 1
+          WHERE id = :id
+          RETURNING id, name, description, price, stock, version
+          """,
+      nativeQuery = true)
+  Optional<Book> releaseStock(@Param("id") UUID id, @Param("quantity") int quantity);
+
+  /** Same as {@link #findById} on the primary database, for reads that precede a write. */
+  @Transactional
+  @Query("select b from Book b where b.id = :id")
+  Optional<Book> findOnPrimaryById(@Param("id") UUID id);
+
+  /** Same as {@link #existsById} on the primary database, for reads that follow a write. */
+  @Transactional
+  @Query("select count(b) > 0 from Book b where b.id = :id")
+  boolean existsOnPrimaryById(@Param("id") UUID id);
+
+  @Query("select b.version from Book b where b.id = :id")
+  Optional<Long> findVersionById(@Param("id") UUID id);
+
+  @Transactional
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(
+      """
+      update Book b
+      set b.name = :#{#book.name},
+          b.description = :#{#book.description},
+          b.price = :#{#book.price},
+          b.stock = :#{#book.stock},
+          b.version = b.version + 1
+      where b.id = :id and b.version = :version
+      """)
+  int updateByIdAndVersion(
+      @Param("id") UUID id, @Param("version") long version, @Param("book") Book book);
+
+  @Transactional
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("delete from Book b where b.id = :id and b.version = :version")
+  int deleteByIdAndVersion(@Param("id") UUID id, @Param("version") long version);
+}
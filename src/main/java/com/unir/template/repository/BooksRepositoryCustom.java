@@ -0,0 +1,41 @@
+package com.unir.template.repository;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BookChange;
+import com.unir.template.model.BooksFilter;
+import com.unir.template.model.BooksSort;
+import java.util.List;
+import java.util.UUID;
+
+public interface BooksRepositoryCustom {
+
+  /** Book matching a search, with its relevance rank, which its page's cursor is made of. */
+  record RankedBook(Book book, float rank) {}
+
+  /** Runs {@link BooksFilterQuery#of} as a single native query. */
+  List<Book> findFiltered(
+      BooksFilter filter, BooksSort sort, Object afterValue, UUID afterId, int limit);
+
+  /**
+   * Runs {@link BooksSearchQuery#of} as a single native query: books matching a web-search style
+   * query (quoted phrases, {@code or}, {@code -term}) ranked by relevance, with matches in the name
+   * weighted above matches in the description.
+   */
+  List<RankedBook> search(String query, float afterRank, UUID afterId, int limit);
+
+  /**
+   * Books with any of the given ids, in no particular order. The ids are bound as one array, so
+   * that the statement and its plan are the same whatever their number, unlike the {@code IN} list
+   * of {@code findAllById}.
+   */
+  List<Book> findByIds(List<UUID> ids);
+
+  /**
+   * Adds {@code deltas[i]} to the stock of book {@code ids[i]} for every book in one statement.
+   * Books that no longer exist are skipped.
+   */
+  int addStock(List<UUID> ids, List<Integer> deltas);
+
+  /** Runs {@link BookChangesQuery#of} as a single native query. */
+  List<BookChange> findChanges(long afterSeq, UUID afterId, int limit);
+}
@@ -0,0 +1,135 @@
+package com.unir.template.repository;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BookChange;
+import com.unir.template.model.BooksFilter;
+import com.unir.template.model.BooksSort;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.transaction.annotation.Transactional;
+
+class BooksRepositoryCustomImpl implements BooksRepositoryCustom {
+
+  @PersistenceContext private EntityManager entityManager;
+
+  @Override
+  @Transactional(readOnly = true)
+  @SuppressWarnings("unchecked")
+  public List<Book> findFiltered(
+      BooksFilter filter, BooksSort sort, Object afterValue, UUID afterId, int limit) {
+    BooksFilterQuery filterQuery = BooksFilterQuery.of(filter, sort, afterValue, afterId, limit);
+    Query query = entityManager.createNativeQuery(filterQuery.sql(), Book.class);
+    filterQuery.parameters().forEach(query::setParameter);
+    return query.getResultList();
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  @SuppressWarnings("unchecked")
+  public List<RankedBook> search(String query, float afterRank, UUID afterId, int limit) {
+    BooksSearchQuery searchQuery = BooksSearchQuery.of(query, afterRank, afterId, limit);
+    NativeQuery<Object[]> nativeQuery =
+        entityManager
+            .createNativeQuery(searchQuery.sql())
+            .unwrap(NativeQuery.class)
+            .addScalar("id", StandardBasicTypes.UUID)
+            .addScalar("name", StandardBasicTypes.STRING)
+            .addScalar("description", StandardBasicTypes.STRING)
+            .addScalar("price", StandardBasicTypes.DOUBLE)
+            .addScalar("stock", StandardBasicTypes.INTEGER)
+            .addScalar("version", StandardBasicTypes.LONG)
+            .addScalar("rank", StandardBasicTypes.FLOAT);
+    searchQuery.parameters().forEach(nativeQuery::setParameter);
+    return nativeQuery.getResultList().stream()
+        .map(BooksRepositoryCustomImpl::toRankedBook)
+        .toList();
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  @SuppressWarnings("unchecked")
+  public List<Book> findByIds(List<UUID> ids) {
+    return entityManager
+        .createNativeQuery(
+            "SELECT id, name, description, price, stock, version FROM books WHERE id = ANY(:ids)",
+            Book.class)
+        .setParameter("ids", ids.toArray(UUID[]::new))
+        .getResultList();
+  }
+
+  @Override
+  @Transactional
+  public int addStock(List<UUID> ids, List<Integer> deltas) {
+    return entityManager
+        .createNativeQuery(
+            """
+            UPDATE books b SET stock = coalesce(b.stock, 0) + d.delta, version = b.version + 1
+            FROM unnest(:ids, :deltas) AS d(id, delta)
+            WHERE b.id = d.id
+            """)
+        .setParameter("ids", ids.toArray(UUID[]::new))
+        .setParameter("deltas", deltas.toArray(Integer[]::new))
+        .executeUpdate();
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  @SuppressWarnings("unchecked")
+  public List<BookChange> findChanges(long afterSeq, UUID afterId, int limit) {
+    BookChangesQuery changesQuery = BookChangesQuery.of(afterSeq, afterId, limit);
+    NativeQuery<Object[]> query =
+        entityManager
+            .createNativeQuery(changesQuery.sql())
+            .unwrap(NativeQuery.class)
+            .addScalar("id", StandardBasicTypes.UUID)
+            .addScalar("change_seq", StandardBasicTypes.LONG)
+            .addScalar("changed_at", StandardBasicTypes.INSTANT)
+            .addScalar("deleted", StandardBasicTypes.BOOLEAN)
+            .addScalar("name", StandardBasicTypes.STRING)
+            .addScalar("description", StandardBasicTypes.STRING)
+            .addScalar("price", StandardBasicTypes.DOUBLE)
+            .addScalar("stock", StandardBasicTypes.INTEGER)
+            .addScalar("version", StandardBasicTypes.LONG);
+    changesQuery.parameters().forEach(query::setParameter);
+    return query.getResultList().stream().map(BooksRepositoryCustomImpl::toBookChange).toList();
+  }
+
+  private static RankedBook toRankedBook(Object[] row) {
+    return new RankedBook(
+        Book.builder()
+            .id((UUID) row[0])
+            .name((String) row[1])
+            .description((String) row[2])
+            .price((Double) row[3])
+            .stock((Integer) row[4])
+            .version((Long) row[5])
+            .build(),
+        (Float) row[6]);
+  }
+
+  private static BookChange toBookChange(Object[] row) {
+    UUID id = (UUID) row[0];
+    long sequence = (Long) row[1];
+    Instant changedAt = (Instant) row[2];
+    if ((Boolean) row[3]) {
+      return BookChange.deleted(id, sequence, changedAt);
+    }
+    return BookChange.upserted(
+        sequence,
+        changedAt,
+        Book.builder()
+            .id(id)
+            .name((String) row[4])
+            .description((String) row[5])
+            .price((Double) row[6])
+            .stock((Integer) row[7])
+            .version((Long) row[8])
+            .build());
+  }
+}
@@ -0,0 +1,63 @@
+package com.unir.template.repository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Native SQL for a keyset-paginated page of full-text search results, ranked by relevance. The
+ * keyset is the (rank, id) pair the results are ordered by, so a page only sorts the matches ranked
+ * after the previous one, however deep it is, and does not shift when books are written between
+ * pages the way an offset does.
+ */
+public final class BooksSearchQuery {
+
+  private final String sql;
+  private final Map<String, Object> parameters;
+
+  private BooksSearchQuery(String sql, Map<String, Object> parameters) {
+    this.sql = sql;
+    this.parameters = parameters;
+  }
+
+  /**
+   * @param afterRank rank of the last book of the previous page, ignored without {@code afterId}
+   * @param afterId id of the last book of the previous page, or null for the first page
+   */
+  public static BooksSearchQuery of(String query, float afterRank, UUID afterId, int limit) {
+    Map<String, Object> parameters = new LinkedHashMap<>();
+    parameters.put("query", query);
+    String after = "";
+    if (afterId != null) {
+      // Ranks are real, and the cursor keeps the exact value, so equal ranks compare as equal
+      after =
+          "WHERE r.rank < CAST(:afterRank AS real)"
+              + " OR (r.rank = CAST(:afterRank AS real) AND r.id > :afterId)";
+      parameters.put("afterRank", afterRank);
+      parameters.put("afterId", afterId);
+    }
+    parameters.put("limit", limit);
+    String sql =
+        """
+        SELECT r.id, r.name, r.description, r.price, r.stock, r.version, r.rank FROM (
+          SELECT b.id, b.name, b.description, b.price, b.stock, b.version,
+                 ts_rank_cd(b.search_vector, q) AS rank
+          FROM books b, websearch_to_tsquery('english', :query) q
+          WHERE b.search_vector @@ q
+        ) r
+        %s
+        ORDER BY r.rank DESC, r.id
+        LIMIT :limit
+        """
+            .formatted(after);
+    return new BooksSearchQuery(sql, parameters);
+  }
+
+  public String sql() {
+    return sql;
+  }
+
+  public Map<String, Object> parameters() {
+    return parameters;
+  }
+}
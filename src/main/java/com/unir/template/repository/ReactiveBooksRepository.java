@@ -0,0 +1,265 @@
+package com.unir.template.repository;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BookChange;
+import com.unir.template.model.BooksFilter;
+import com.unir.template.model.BooksSort;
+import io.r2dbc.spi.Readable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC counterpart of {@link BooksRepository} over the same books table, for the reactive stack.
+ * Every write is a single statement, so none of them needs a transaction, and the ones that return
+ * the book read it back with {@code RETURNING} instead of a second query.
+ */
+public class ReactiveBooksRepository {
+
+  private static final String COLUMNS = "id, name, description, price, stock, version";
+
+  private final DatabaseClient databaseClient;
+
+  public ReactiveBooksRepository(DatabaseClient databaseClient) {
+    this.databaseClient = databaseClient;
+  }
+
+  /** Same query as {@link BooksRepositoryCustom#findFiltered}. */
+  public Flux<Book> findFiltered(
+      BooksFilter filter, BooksSort sort, Object afterValue, UUID afterId, int limit) {
+    BooksFilterQuery filterQuery = BooksFilterQuery.of(filter, sort, afterValue, afterId, limit);
+    DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(filterQuery.sql());
+    for (Map.Entry<String, Object> parameter : filterQuery.parameters().entrySet()) {
+      spec = spec.bind(parameter.getKey(), parameter.getValue());
+    }
+    return spec.map(ReactiveBooksRepository::toBook).all();
+  }
+
+  /** Same query as {@link BooksRepositoryCustom#search}. */
+  public Flux<BooksRepositoryCustom.RankedBook> search(
+      String query, float afterRank, UUID afterId, int limit) {
+    BooksSearchQuery searchQuery = BooksSearchQuery.of(query, afterRank, afterId, limit);
+    DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(searchQuery.sql());
+    for (Map.Entry<String, Object> parameter : searchQuery.parameters().entrySet()) {
+      spec = spec.bind(parameter.getKey(), parameter.getValue());
+    }
+    return spec.map(
+            row ->
+                new BooksRepositoryCustom.RankedBook(toBook(row), row.get("rank", Float.class)))
+        .all();
+  }
+
+  /** Same query as {@link BooksRepositoryCustom#findChanges}. */
+  public Flux<BookChange> findChanges(long afterSeq, UUID afterId, int limit) {
+    BookChangesQuery changesQuery = BookChangesQuery.of(afterSeq, afterId, limit);
+    DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(changesQuery.sql());
+    for (Map.Entry<String, Object> parameter : changesQuery.parameters().entrySet()) {
+      spec = spec.bind(parameter.getKey(), parameter.getValue());
+    }
+    return spec.map(ReactiveBooksRepository::toBookChange).all();
+  }
+
+  public Mono<Book> findById(UUID id) {
+    return databaseClient
+        .sql("SELECT " + COLUMNS + " FROM books WHERE id = :id")
+        .bind("id", id)
+        .map(ReactiveBooksRepository::toBook)
+        .one();
+  }
+
+  public Flux<Book> findByIds(List<UUID> ids) {
+    return databaseClient
+        .sql("SELECT " + COLUMNS + " FROM books WHERE id = ANY(:ids)")
+        .bind("ids", ids.toArray(UUID[]::new))
+        .map(ReactiveBooksRepository::toBook)
+        .all();
+  }
+
+  public Mono<Long> findVersionById(UUID id) {
+    return databaseClient
+        .sql("SELECT version FROM books WHERE id = :id")
+        .bind("id", id)
+        .map(row -> row.get("version", Long.class))
+        .one();
+  }
+
+  public Mono<Boolean> existsById(UUID id) {
+    return databaseClient
+        .sql("SELECT EXISTS (SELECT 1 FROM books WHERE id = :id) AS found")
+        .bind("id", id)
+        .map(row -> row.get("found", Boolean.class))
+        .one();
+  }
+
+  /**
+   * Streams every book with the given fetch size, so that rows are only read from the database as
+   * fast as the subscriber requests them.
+   */
+  public Flux<Book> findAll(int fetchSize) {
+    return databaseClient
+        .sql("SELECT " + COLUMNS + " FROM books")
+        .filter(statement -> statement.fetchSize(fetchSize))
+        .map(ReactiveBooksRepository::toBook)
+        .all();
+  }
+
+  /** Inserts a book with its id already set, starting at version 0. */
+  public Mono<Book> insert(Book book) {
+    return bindBook(
+            databaseClient.sql(
+                """
+                INSERT INTO books (id, name, description, price, stock, version)
+                VALUES (:id, :name, :description, :price, :stock, 0)
+                RETURNING id, name, description, price, stock, version
+                """),
+            book)
+        .bind("id", book.getId())
+        .map(ReactiveBooksRepository::toBook)
+        .one();
+  }
+
+  /**
+   * Inserts books with their ids already set in a single statement, so that either all of them or
+   * none are created.
+   */
+  public Mono<Long> insertAll(List<Book> books) {
+    return databaseClient
+        .sql(
+            """
+            INSERT INTO books (id, name, description, price, stock, version)
+            SELECT id, name, description, price, stock, 0
+            FROM unnest(:ids, :names, :descriptions, :prices, :stocks)
+                AS b(id, name, description, price, stock)
+            """)
+        .bind("ids", books.stream().map(Book::getId).toArray(UUID[]::new))
+        .bind("names", books.stream().map(Book::getName).toArray(String[]::new))
+        .bind("descriptions", books.stream().map(Book::getDescription).toArray(String[]::new))
+        .bind("prices", books.stream().map(Book::getPrice).toArray(Double[]::new))
+        .bind("stocks", books.stream().map(Book::getStock).toArray(Integer[]::new))
+        .fetch()
+        .rowsUpdated();
+  }
+
+  public Mono<Book> update(UUID id, Book book) {
+    return bindBook(
+            databaseClient.sql(
+                """
+                UPDATE books
+                SET name = :name, description = :description, price = :price, stock = :stock,
+                    version = version + 1
+                WHERE id = :id
+                RETURNING id, name, description, price, stock, version
+                """),
+            book)
+        .bind("id", id)
+        .map(ReactiveBooksRepository::toBook)
+        .one();
+  }
+
+  /** Updates the book only while it still has the given version, empty otherwise. */
+  public Mono<Book> updateByIdAndVersion(UUID id, long version, Book book) {
+    return bindBook(
+            databaseClient.sql(
+                """
+                UPDATE books
+                SET name = :name, description = :description, price = :price, stock = :stock,
+                    version = version + 1
+                WHERE id = :id AND version = :version
+                RETURNING id, name, description, price, stock, version
+                """),
+            book)
+        .bind("id", id)
+        .bind("version", version)
+        .map(ReactiveBooksRepository::toBook)
+        .one();
+  }
+
+  /** Same statement as {@link BooksRepository#reserveStock}. */
+  public Mono<Book> reserveStock(UUID id, int quantity) {
+    return databaseClient
+        .sql(
+            """
+            UPDATE books SET stock = stock - :quantity, version = version + 1
+            WHERE id = :id AND stock >= :quantity
+            RETURNING id, name, description, price, stock, version
+            """)
+        .bind("id", id)
+        .bind("quantity", quantity)
+        .map(ReactiveBooksRepository::toBook)
+        .one();
+  }
+
+  /** Same statement as {@link BooksRepository#releaseStock}. */
+  public Mono<Book> releaseStock(UUID id, int quantity) {
+    return databaseClient
+        .sql(
+            """
+            UPDATE books SET stock = coalesce(stock, 0) + :quantity, version = version + 1
+            WHERE id = :id
+            RETURNING id, name, description, price, stock, version
+            """)
+        .bind("id", id)
+        .bind("quantity", quantity)
+        .map(ReactiveBooksRepository::toBook)
+        .one();
+  }
+
+  /** Deletes the book and returns it as it was, empty if it does not exist. */
+  public Mono<Book> deleteById(UUID id) {
+    return databaseClient
+        .sql("DELETE FROM books WHERE id = :id RETURNING " + COLUMNS)
+        .bind("id", id)
+        .map(ReactiveBooksRepository::toBook)
+        .one();
+  }
+
+  /** Deletes the book only while it still has the given version, empty otherwise. */
+  public Mono<Book> deleteByIdAndVersion(UUID id, long version) {
+    return databaseClient
+        .sql("DELETE FROM books WHERE id = :id AND version = :version RETURNING " + COLUMNS)
+        .bind("id", id)
+        .bind("version", version)
+        .map(ReactiveBooksRepository::toBook)
+        .one();
+  }
+
+  private static DatabaseClient.GenericExecuteSpec bindBook(
+      DatabaseClient.GenericExecuteSpec spec, Book book) {
+    spec = bindNullable(spec, "name", book.getName(), String.class);
+    spec = bindNullable(spec, "description", book.getDescription(), String.class);
+    spec = bindNullable(spec, "price", book.getPrice(), Double.class);
+    return bindNullable(spec, "stock", book.getStock(), Integer.class);
+  }
+
+  private static DatabaseClient.GenericExecuteSpec bindNullable(
+      DatabaseClient.GenericExecuteSpec spec, String name, Object value, Class<?> type) {
+    return value == null ? spec.bindNull(name, type) : spec.bind(name, value);
+  }
+
+  private static BookChange toBookChange(Readable row) {
+    long sequence = row.get("change_seq", Long.class);
+    Instant changedAt = row.get("changed_at", Instant.class);
+    if (Boolean.TRUE.equals(row.get("deleted", Boolean.class))) {
+      return BookChange.deleted(row.get("id", UUID.class), sequence, changedAt);
+    }
+    return BookChange.upserted(sequence, changedAt, toBook(row));
+  }
+
+  private static Book toBook(Readable row) {
+    // price is numeric(10,2), read exactly and narrowed to the entity's double
+    BigDecimal price = row.get("price", BigDecimal.class);
+    return Book.builder()
+        .id(row.get("id", UUID.class))
+        .name(row.get("name", String.class))
+        .description(row.get("description", String.class))
+        .price(price == null ? null : price.doubleValue())
+        .stock(row.get("stock", Integer.class))
+        .version(row.get("version", Long.class))
+        .build();
+  }
+}
@@ -0,0 +1,32 @@
+package com.unir.template.service;
+
+import java.util.UUID;
+
+/** Notified after a write to the books table has been committed. */
+@FunctionalInterface
+public interface BookChangeListener {
+
+  BookChangeListener NONE = _ -> {};
+
+  void onBookChanged(UUID id);
+
+  /** Notified instead of each book when a write changed books it does not list, like an import. */
+  default void onAllBooksChanged() {}
+
+  default BookChangeListener andThen(BookChangeListener next) {
+    BookChangeListener first = this;
+    return new BookChangeListener() {
+      @Override
+      public void onBookChanged(UUID id) {
+        first.onBookChanged(id);
+        next.onBookChanged(id);
+      }
+
+      @Override
+      public void onAllBooksChanged() {
+        first.onAllBooksChanged();
+        next.onAllBooksChanged();
+      }
+    };
+  }
+}
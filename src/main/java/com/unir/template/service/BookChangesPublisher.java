@@ -0,0 +1,171 @@
+package com.unir.template.service;
+
+import com.unir.template.model.BookChangesPage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Pushes the change feed to live subscribers. A background task polls the feed each interval, once
+ * per distinct cursor rather than once per subscriber: subscribers that are caught up all wait at
+ * the same cursor, so an idle feed costs one query per interval however many are listening.
+ *
+ * <p>Pages are delivered on a virtual thread per subscriber, which then keeps reading the feed on
+ * its own until it is caught up. A subscriber that is still busy with its previous pages is
+ * skipped, so a slow client never holds up the others or the polling.
+ */
+@Slf4j
+public class BookChangesPublisher implements SmartLifecycle {
+
+  private final BooksService booksService;
+  private final Duration pollInterval;
+  private final int pageSize;
+  private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+  private ScheduledExecutorService scheduler;
+  private ExecutorService deliveries;
+
+  public BookChangesPublisher(
+      BooksService booksService, Duration pollInterval, int pageSize, MeterRegistry registry) {
+    this.booksService = booksService;
+    this.pollInterval = pollInterval;
+    this.pageSize = pageSize;
+    Gauge.builder("books.changes.subscribers", subscriptions, Set::size)
+        .description("Clients currently streaming the change feed")
+        .register(registry);
+  }
+
+  /** Receives the pages of changes of one subscription, one at a time and in order. */
+  public interface Subscriber {
+
+    void onChanges(BookChangesPage page) throws IOException;
+
+    /** Called when the publisher ends the subscription, as the application stops. */
+    void onComplete();
+  }
+
+  /**
+   * Starts delivering the changes made since the given cursor, from the first change without one.
+   *
+   * @throws IllegalArgumentException if the cursor was not issued by the change feed
+   */
+  public Subscription subscribe(String since, Subscriber subscriber) {
+    BookCursors.decodeChange(since);
+    Subscription subscription = new Subscription(since, subscriber);
+    subscriptions.add(subscription);
+    return subscription;
+  }
+
+  /** Polls the feed once for every subscriber that is not busy. */
+  public void poll() {
+    Map<String, List<Subscription>> byCursor =
+        subscriptions.stream()
+            .filter(subscription -> !subscription.busy.get())
+            .collect(Collectors.groupingBy(subscription -> Objects.toString(subscription.cursor)));
+    byCursor.forEach(
+        (_, waiting) -> {
+          BookChangesPage page = booksService.getChanges(waiting.getFirst().cursor, pageSize);
+          if (page.getItems().isEmpty()) {
+            return;
+          }
+          for (Subscription subscription : waiting) {
+            if (subscription.busy.compareAndSet(false, true)) {
+              deliveries.execute(() -> subscription.deliver(page));
+            }
+          }
+        });
+  }
+
+  @Override
+  public void start() {
+    scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("book-changes").daemon().factory());
+    deliveries =
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("book-changes-", 0).factory());
+    long intervalMillis = pollInterval.toMillis();
+    scheduler.scheduleWithFixedDelay(
+        this::pollQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void stop() {
+    scheduler.shutdownNow();
+    deliveries.shutdownNow();
+    scheduler = null;
+    deliveries = null;
+    subscriptions.forEach(
+        subscription -> {
+          subscription.cancel();
+          subscription.subscriber.onComplete();
+        });
+  }
+
+  @Override
+  public boolean isRunning() {
+    return scheduler != null;
+  }
+
+  @Override
+  public int getPhase() {
+    // Stop before the graceful shutdown of the web server, which waits for the open streams
+    return DEFAULT_PHASE - 512;
+  }
+
+  private void pollQuietly() {
+    try {
+      poll();
+    } catch (RuntimeException e) {
+      log.warn("Could not poll the book change feed, retrying on the next interval", e);
+    }
+  }
+
+  /** Cursor of one subscriber, only moved by the thread delivering its pages. */
+  public final class Subscription {
+
+    private final Subscriber subscriber;
+    private final AtomicBoolean busy = new AtomicBoolean();
+    private volatile String cursor;
+
+    private Subscription(String cursor, Subscriber subscriber) {
+      this.cursor = cursor;
+      this.subscriber = subscriber;
+    }
+
+    /** Stops the deliveries, to be called once the client is gone. */
+    public void cancel() {
+      subscriptions.remove(this);
+    }
+
+    private void deliver(BookChangesPage page) {
+      try {
+        while (true) {
+          subscriber.onChanges(page);
+          cursor = page.getNextCursor();
+          if (!page.isHasMore() || !subscriptions.contains(this)) {
+            return;
+          }
+          page = booksService.getChanges(cursor, pageSize);
+        }
+      } catch (IOException | RuntimeException e) {
+        log.debug("Dropping a book change subscriber", e);
+        cancel();
+      } finally {
+        busy.set(false);
+      }
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package com.unir.template.service;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BookChange;
+import com.unir.template.model.BooksSort;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset cursors of the sorted book list, of the search results and of the change feed. Sorting by
+ * id uses the id of the last book as is, other sorts encode (sort, sort value, id) so that a cursor
+ * cannot be replayed against another sort, and the search results and the change feed encode
+ * (search, rank, id) and (changes, sequence, id) the same way.
+ */
+final class BookCursors {
+
+  private static final String SEARCH = "search";
+  private static final String CHANGES = "changes";
+
+  private BookCursors() {}
+
+  /**
+   * Position after which the next page starts, with a null id for the first page.
+   *
+   * @param value sort column value of the last book of the previous page, null when sorting by id
+   */
+  record Position(Object value, UUID id) {
+
+    static final Position FIRST = new Position(null, null);
+  }
+
+  /**
+   * Position in the search results after which the next page starts, with a null id for the first.
+   */
+  record SearchPosition(float rank, UUID id) {
+
+    static final SearchPosition FIRST = new SearchPosition(0, null);
+  }
+
+  /**
+   * Position in the change feed after which the next changes start, with a null id for the first.
+   */
+  record ChangePosition(long sequence, UUID id) {
+
+    static final ChangePosition FIRST = new ChangePosition(0, null);
+  }
+
+  static String encode(BooksSort sort, Book last) {
+    if (sort == BooksSort.ID) {
+      return last.getId().toString();
+    }
+    String value =
+        switch (sort) {
+          case PRICE, PRICE_DESC -> BigDecimal.valueOf(last.getPrice()).toPlainString();
+          default -> last.getStock().toString();
+        };
+    return encode(sort.getParameter() + ":" + value + ":" + last.getId());
+  }
+
+  /** The rank is written as the shortest decimal that parses back to the same float. */
+  static String encodeSearch(float lastRank, UUID lastId) {
+    return encode(SEARCH + ":" + lastRank + ":" + lastId);
+  }
+
+  static String encodeChange(BookChange last) {
+    return encode(CHANGES + ":" + last.getSequence() + ":" + last.getId());
+  }
+
+  /**
+   * @throws IllegalArgumentException if the cursor is malformed or was issued for another sort
+   */
+  static Position decode(BooksSort sort, String cursor) {
+    if (cursor == null) {
+      return Position.FIRST;
+    }
+    if (sort == BooksSort.ID) {
+      return new Position(null, UUID.fromString(cursor));
+    }
+    String[] position = decode(sort.getParameter(), cursor);
+    return new Position(parseSortValue(sort, position[1]), UUID.fromString(position[2]));
+  }
+
+  /**
+   * @throws IllegalArgumentException if the cursor is malformed or was not issued by the search
+   */
+  static SearchPosition decodeSearch(String cursor) {
+    if (cursor == null) {
+      return SearchPosition.FIRST;
+    }
+    String[] position = decode(SEARCH, cursor);
+    return new SearchPosition(Float.parseFloat(position[1]), UUID.fromString(position[2]));
+  }
+
+  /**
+   * @throws IllegalArgumentException if the cursor is malformed or was not issued by the change
+   *     feed
+   */
+  static ChangePosition decodeChange(String cursor) {
+    if (cursor == null) {
+      return ChangePosition.FIRST;
+    }
+    String[] position = decode(CHANGES, cursor);
+    return new ChangePosition(Long.parseLong(position[1]), UUID.fromString(position[2]));
+  }
+
+  private static String encode(String position) {
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String[] decode(String kind, String cursor) {
+    // Base64 decoding failures are IllegalArgumentExceptions as well
+    String[] position =
+        new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+    if (position.length != 3 || !position[0].equals(kind)) {
+      throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+    return position;
+  }
+
+  private static Object parseSortValue(BooksSort sort, String value) {
+    return switch (sort) {
+      case PRICE, PRICE_DESC -> new BigDecimal(value);
+      default -> Integer.valueOf(value);
+    };
+  }
+}
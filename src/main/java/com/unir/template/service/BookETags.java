@@ -0,0 +1,106 @@
+package com.unir.template.service;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BooksPage;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.springframework.http.MediaType;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Strong entity tags for books and book pages, derived from the book versions. A strong tag
+ * promises identical bytes, so the tags of the CBOR and Smile bodies carry the format after the
+ * version, as in {@code "3-cbor"}, while the JSON ones are the bare version.
+ */
+public final class BookETags {
+
+  private BookETags() {}
+
+  public static String of(long version) {
+    return of(version, MediaType.APPLICATION_JSON);
+  }
+
+  public static String of(long version, MediaType format) {
+    return "\"" + version + suffix(format) + "\"";
+  }
+
+  public static String of(Book book) {
+    return of(book, MediaType.APPLICATION_JSON);
+  }
+
+  public static String of(Book book, MediaType format) {
+    return of(Objects.requireNonNullElse(book.getVersion(), 0L), format);
+  }
+
+  public static String of(BooksPage page) {
+    return of(page, MediaType.APPLICATION_JSON);
+  }
+
+  public static String of(BooksPage page, MediaType format) {
+    StringBuilder content = new StringBuilder();
+    for (Book book : page.getItems()) {
+      content.append(book.getId()).append(':').append(book.getVersion()).append(';');
+    }
+    content.append(page.getNextCursor());
+    return "\""
+        + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8))
+        + suffix(format)
+        + "\"";
+  }
+
+  /** Whether an If-None-Match or If-Match header value matches the given entity tag. */
+  public static boolean matches(String header, String eTag) {
+    if (header == null) {
+      return false;
+    }
+    for (String candidate : header.split(",")) {
+      String value = candidate.trim();
+      if (value.equals("*") || value.equals(eTag) || value.equals("W/" + eTag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Parses the book versions of an If-Match header, in any format, or returns null for {@code *},
+   * which matches any version. Weak tags and tags that are not book versions can never match, so
+   * they are left out, and a header made only of those yields no version at all.
+   *
+   * @throws IllegalArgumentException if the header is not a list of entity tags
+   */
+  public static List<Long> parseVersions(String header) {
+    if (header.trim().equals("*")) {
+      return null;
+    }
+    List<Long> versions = new ArrayList<>();
+    for (String candidate : header.split(",")) {
+      String value = candidate.trim();
+      boolean weak = value.startsWith("W/");
+      if (weak) {
+        value = value.substring(2);
+      }
+      if (value.length() < 2 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+        throw new IllegalArgumentException("Invalid entity tag: " + candidate);
+      }
+      String tag = value.substring(1, value.length() - 1);
+      int format = tag.indexOf('-');
+      String version = format < 0 ? tag : tag.substring(0, format);
+      if (!weak && !version.isEmpty() && version.chars().allMatch(Character::isDigit)) {
+        versions.add(Long.parseLong(version));
+      }
+    }
+    return versions;
+  }
+
+  /** Nothing for JSON, the last part of the subtype otherwise, like -cbor or -smile. */
+  private static String suffix(MediaType format) {
+    if (format.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+      return "";
+    }
+    String subtype = format.getSubtype();
+    return "-" + subtype.substring(subtype.lastIndexOf('-') + 1);
+  }
+}
@@ -0,0 +1,310 @@
+package com.unir.template.service;
+
+import com.unir.template.config.BooksProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Evicts the books written by other instances from the local caches, over PostgreSQL LISTEN/NOTIFY.
+ * Each instance keeps one connection of its own, outside the pools, which listens on the channel
+ * and sends the ids of the books written locally, batched into messages of up to {@value
+ * #MAX_IDS_PER_MESSAGE} ids. Notifying from the write transactions instead would make every write
+ * take the database-wide lock PostgreSQL holds while committing notifications.
+ *
+ * <p>PostgreSQL delivers every notification committed while a session listens, in commit order, so
+ * messages are only missed while this instance is not listening, or when a sender failed to send
+ * some. Each message carries the id of its sender and a sequence number the sender bumps for every
+ * message, sent or lost, starting at 1. After connecting, and whenever a sequence number does not
+ * follow the previous one of its sender, or 0 for a sender not heard from yet, every cached book is
+ * dropped rather than risk serving a stale one. That costs one more flush for every sender that was
+ * already running when this instance connected. A sender that stays quiet for the keep-alive
+ * interval sends a numbered message without ids, so that losing the last message before a quiet
+ * period is noticed within that interval as well.
+ */
+@Slf4j
+public class BookInvalidationChannel implements BookChangeListener, SmartLifecycle {
+
+  static final String CHANNEL = "books_invalidation";
+
+  /** Ids per message, keeping the payload under the 8000 bytes PostgreSQL accepts. */
+  static final int MAX_IDS_PER_MESSAGE = 150;
+
+  private static final int OUTBOX_CAPACITY = 10_000;
+  private static final Duration MAX_RECONNECT_DELAY = Duration.ofSeconds(30);
+  private static final Duration KEEP_ALIVE_INTERVAL = Duration.ofSeconds(10);
+
+  private final DataSource dataSource;
+  private final BookChangeListener localListener;
+  private final Runnable flush;
+  private final Duration pollInterval;
+  private final Duration reconnectDelay;
+  private final String instanceId = UUID.randomUUID().toString();
+  private final BlockingQueue<UUID> outbox = new ArrayBlockingQueue<>(OUTBOX_CAPACITY);
+  private final AtomicBoolean outboxOverflowed = new AtomicBoolean();
+  private final AtomicBoolean listening = new AtomicBoolean();
+  private final Counter sentMessages;
+  private final Counter receivedIds;
+  private final Counter connectFlushes;
+  private final Counter gapFlushes;
+
+  /** Last sequence number received from each sender, only used by the channel thread. */
+  private final Map<String, Long> lastSequences = new HashMap<>();
+
+  /** Sequence number of the last message of this instance, only used by the channel thread. */
+  private long sequence;
+
+  /** When the last message of this instance was sent, only used by the channel thread. */
+  private long lastSentAt;
+
+  private volatile boolean running;
+  private Thread thread;
+
+  /**
+   * @param dataSource opens the listening connection, which it must not take from a pool
+   * @param localListener evicts a book from the local caches
+   * @param flush drops every book from the local caches
+   */
+  public BookInvalidationChannel(
+      DataSource dataSource,
+      BookChangeListener localListener,
+      Runnable flush,
+      BooksProperties.Invalidation properties,
+      MeterRegistry registry) {
+    this.dataSource = dataSource;
+    this.localListener = localListener;
+    this.flush = flush;
+    this.pollInterval = properties.getPollInterval();
+    this.reconnectDelay = properties.getReconnectDelay();
+    this.sentMessages =
+        Counter.builder("books.invalidation.sent")
+            .description("Invalidation messages sent to the other instances")
+            .register(registry);
+    this.receivedIds =
+        Counter.builder("books.invalidation.received")
+            .description("Books evicted because another instance wrote them")
+            .register(registry);
+    this.connectFlushes = flushCounter(registry, "connect");
+    this.gapFlushes = flushCounter(registry, "gap");
+    Gauge.builder("books.invalidation.listening", listening, value -> value.get() ? 1 : 0)
+        .description("Whether the invalidation listener is connected")
+        .register(registry);
+  }
+
+  /** Queues the id for the other instances, the local caches being evicted by the writer. */
+  @Override
+  public void onBookChanged(UUID id) {
+    if (!outbox.offer(id)) {
+      outboxOverflowed.set(true);
+    }
+  }
+
+  /** Makes the other instances drop every cached book, the changed ones not being known. */
+  @Override
+  public void onAllBooksChanged() {
+    outboxOverflowed.set(true);
+  }
+
+  @Override
+  public void start() {
+    running = true;
+    thread = Thread.ofPlatform().name("book-invalidation").daemon().start(this::listen);
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    try {
+      // A connected channel first sends the ids still queued, which takes one poll interval
+      if (!listening.get()) {
+        thread.interrupt();
+      }
+      thread.join(Duration.ofSeconds(5));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    thread = null;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return thread != null;
+  }
+
+  private void listen() {
+    Duration delay = reconnectDelay;
+    while (running) {
+      try (Connection connection = dataSource.getConnection()) {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("LISTEN " + CHANNEL);
+        }
+        // Anything sent before LISTEN may have been missed
+        lastSequences.clear();
+        flush(connectFlushes);
+        listening.set(true);
+        delay = reconnectDelay;
+        exchange(connection);
+      } catch (SQLException e) {
+        if (!running) {
+          return;
+        }
+        log.warn("Book invalidation listener disconnected, reconnecting in {}", delay, e);
+      } finally {
+        listening.set(false);
+      }
+      if (!running) {
+        return;
+      }
+      try {
+        Thread.sleep(delay);
+      } catch (InterruptedException _) {
+        return;
+      }
+      Duration doubled = delay.multipliedBy(2);
+      delay = doubled.compareTo(MAX_RECONNECT_DELAY) < 0 ? doubled : MAX_RECONNECT_DELAY;
+    }
+  }
+
+  /** Sends the queued ids and applies the received messages until stopped or disconnected. */
+  private void exchange(Connection connection) throws SQLException {
+    PGConnection pgConnection = connection.unwrap(PGConnection.class);
+    long lastActivity = System.nanoTime();
+    while (running) {
+      send(connection);
+      if (sequence > 0 && System.nanoTime() - lastSentAt > KEEP_ALIVE_INTERVAL.toNanos()) {
+        // Numbered like any message, so a gap before it is noticed without waiting for a write
+        notify(connection, Set.of());
+      }
+      PGNotification[] notifications = pgConnection.getNotifications((int) pollInterval.toMillis());
+      if (notifications != null && notifications.length > 0) {
+        for (PGNotification notification : notifications) {
+          receive(notification.getParameter());
+        }
+        lastActivity = System.nanoTime();
+      } else if (System.nanoTime() - lastActivity > KEEP_ALIVE_INTERVAL.toNanos()) {
+        // A silent channel looks the same as a dead connection until something is sent on it
+        if (!connection.isValid((int) KEEP_ALIVE_INTERVAL.toSeconds())) {
+          throw new SQLException("Book invalidation connection is no longer valid");
+        }
+        lastActivity = System.nanoTime();
+      }
+    }
+    send(connection);
+  }
+
+  private void send(Connection connection) throws SQLException {
+    // Skipping a number makes the other instances drop everything, ids lost included, once
+    // they receive the next message, which is sent even without ids for them to do it now
+    boolean skipped = outboxOverflowed.getAndSet(false);
+    if (skipped) {
+      sequence++;
+    }
+    Set<UUID> ids = new LinkedHashSet<>();
+    UUID id;
+    while ((id = outbox.poll()) != null) {
+      ids.add(id);
+      if (ids.size() == MAX_IDS_PER_MESSAGE) {
+        notify(connection, ids);
+        ids.clear();
+        skipped = false;
+      }
+    }
+    if (!ids.isEmpty() || skipped) {
+      notify(connection, ids);
+    }
+  }
+
+  private void notify(Connection connection, Set<UUID> ids) throws SQLException {
+    // Numbered before sending, so that a message lost with the connection leaves a gap
+    String payload = encode(instanceId, ++sequence, ids);
+    try (PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+      statement.setString(1, CHANNEL);
+      statement.setString(2, payload);
+      statement.execute();
+    }
+    lastSentAt = System.nanoTime();
+    sentMessages.increment();
+  }
+
+  /** Evicts the books of a message, or every book when messages of its sender were missed. */
+  void receive(String payload) {
+    Message message;
+    try {
+      message = decode(payload);
+    } catch (IllegalArgumentException e) {
+      log.warn("Ignoring malformed book invalidation message: {}", payload, e);
+      flush(gapFlushes);
+      return;
+    }
+    if (message.instanceId().equals(instanceId)) {
+      return;
+    }
+    // A sender seen for the first time may have lost its first messages too, unless it starts at 1
+    long previous = lastSequences.getOrDefault(message.instanceId(), 0L);
+    lastSequences.put(message.instanceId(), message.sequence());
+    if (message.sequence() != previous + 1) {
+      flush(gapFlushes);
+      return;
+    }
+    message.ids().forEach(localListener::onBookChanged);
+    receivedIds.increment(message.ids().size());
+  }
+
+  private void flush(Counter reason) {
+    flush.run();
+    reason.increment();
+  }
+
+  static String encode(String instanceId, long sequence, Set<UUID> ids) {
+    return instanceId
+        + ":"
+        + sequence
+        + ":"
+        + ids.stream().map(UUID::toString).collect(Collectors.joining(","));
+  }
+
+  /**
+   * @throws IllegalArgumentException if the payload was not written by {@link #encode}
+   */
+  static Message decode(String payload) {
+    String[] parts = payload.split(":", 3);
+    if (parts.length != 3) {
+      throw new IllegalArgumentException("Invalid book invalidation message: " + payload);
+    }
+    List<UUID> ids =
+        parts[2].isEmpty()
+            ? List.of()
+            : Arrays.stream(parts[2].split(",")).map(UUID::fromString).toList();
+    return new Message(parts[0], Long.parseLong(parts[1]), ids);
+  }
+
+  private static Counter flushCounter(MeterRegistry registry, String reason) {
+    return Counter.builder("books.invalidation.flushes")
+        .description("Times every cached book was dropped as invalidations may have been missed")
+        .tag("reason", reason)
+        .register(registry);
+  }
+
+  record Message(String instanceId, long sequence, List<UUID> ids) {}
+}
@@ -0,0 +1,34 @@
+package com.unir.template.service;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BulkItemResult;
+import com.unir.template.model.CsvImportResult;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+public interface BooksBulkService {
+
+  void exportBooks(OutputStream outputStream) throws IOException;
+
+  List<BulkItemResult> createBooks(List<Book> books);
+
+  /**
+   * Creates the books of an NDJSON body, saving them a chunk at a time as the lines are read. A
+   * line that is not a book fails as an item of its own, and blank lines are skipped.
+   *
+   * @throws IOException if the body cannot be read, in which case the chunks read before are kept
+   */
+  List<BulkItemResult> createBooks(InputStream ndjson) throws IOException;
+
+  /**
+   * Upserts the books of a UTF-8 CSV body whose header is {@code id,name,description,price,stock},
+   * streaming it to the database without holding it in memory. Rows with the id of an existing book
+   * update it, other rows create a book, and invalid rows are rejected without failing the others.
+   *
+   * @throws IllegalArgumentException if the body is not such a CSV, in which case nothing is
+   *     written
+   */
+  CsvImportResult importBooks(InputStream csv) throws IOException;
+}
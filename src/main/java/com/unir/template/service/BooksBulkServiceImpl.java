@@ -0,0 +1,350 @@
+package com.unir.template.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.unir.template.config.BooksProperties;
+import com.unir.template.model.Book;
+import com.unir.template.model.BulkItemResult;
+import com.unir.template.model.CsvImportResult;
+import com.unir.template.repository.BooksRepository;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.postgresql.PGConnection;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class BooksBulkServiceImpl implements BooksBulkService {
+
+  private static final String EXPORT_QUERY =
+      "SELECT id, name, description, price, stock, version FROM books";
+
+  private static final String BOOK_NAME_REQUIRED_MESSAGE = "Book name is required";
+  private static final String MALFORMED_LINE_MESSAGE = "Malformed NDJSON line: ";
+
+  /** Staging table of a CSV import, all text so that invalid values reach it as well. */
+  private static final String IMPORT_STAGING_TABLE =
+      """
+      CREATE TEMPORARY TABLE books_import (
+        item_index bigint GENERATED ALWAYS AS IDENTITY (MINVALUE 0 START WITH 0),
+        id text, name text, description text, price text, stock text
+      ) ON COMMIT DROP
+      """;
+
+  private static final String IMPORT_COPY =
+      "COPY books_import (id, name, description, price, stock) FROM STDIN"
+          + " WITH (FORMAT csv, HEADER MATCH)";
+
+  /** Why a staged row cannot be written, or null if it can. */
+  private static final String IMPORT_ERROR =
+      """
+      CASE
+        WHEN nullif(btrim(id), '') IS NOT NULL AND NOT pg_input_is_valid(btrim(id), 'uuid')
+          THEN 'Invalid id: ' || (pg_input_error_info(btrim(id), 'uuid')).message
+        WHEN name IS NULL OR btrim(name) = '' THEN '%s'
+        WHEN length(name) > 255 THEN 'Book name is longer than 255 characters'
+        WHEN length(description) > 1024 THEN 'Book description is longer than 1024 characters'
+        WHEN nullif(btrim(price), '') IS NOT NULL
+            AND NOT pg_input_is_valid(btrim(price), 'numeric(10,2)')
+          THEN 'Invalid price: ' || (pg_input_error_info(btrim(price), 'numeric(10,2)')).message
+        WHEN nullif(btrim(stock), '') IS NOT NULL AND NOT pg_input_is_valid(btrim(stock), 'integer')
+          THEN 'Invalid stock: ' || (pg_input_error_info(btrim(stock), 'integer')).message
+      END
+      """
+          .formatted(BOOK_NAME_REQUIRED_MESSAGE);
+
+  private static final String IMPORT_REJECTED_COUNT =
+      "SELECT count(*) FROM books_import WHERE (%s) IS NOT NULL".formatted(IMPORT_ERROR);
+
+  private static final String IMPORT_REJECTIONS =
+      """
+      SELECT item_index, error FROM (SELECT item_index, %s AS error FROM books_import) r
+      WHERE error IS NOT NULL
+      ORDER BY item_index
+      LIMIT ?
+      """
+          .formatted(IMPORT_ERROR);
+
+  /**
+   * Writes every valid staged row in one statement. The last row of an id wins, updates that would
+   * not change a book are skipped rather than bumping its version, and a book created with the id
+   * of a deleted one drops its tombstone, for the change feed not to report both.
+   */
+  private static final String IMPORT_UPSERT =
+      """
+      WITH upserted AS (
+        INSERT INTO books (id, name, description, price, stock)
+        SELECT DISTINCT ON (v.id) v.id, v.name, v.description, v.price, v.stock
+        FROM (
+          SELECT coalesce(nullif(btrim(id), '')::uuid, gen_random_uuid()) AS id, item_index,
+                 name, description, nullif(btrim(price), '')::numeric(10,2) AS price,
+                 nullif(btrim(stock), '')::integer AS stock
+          FROM books_import
+          WHERE (%s) IS NULL
+        ) v
+        ORDER BY v.id, v.item_index DESC
+        ON CONFLICT (id) DO UPDATE
+        SET name = EXCLUDED.name, description = EXCLUDED.description, price = EXCLUDED.price,
+            stock = EXCLUDED.stock, version = books.version + 1
+        WHERE (books.name, books.description, books.price, books.stock)
+            IS DISTINCT FROM (EXCLUDED.name, EXCLUDED.description, EXCLUDED.price, EXCLUDED.stock)
+        RETURNING id, xmax = 0 AS inserted
+      ),
+      revived AS (
+        DELETE FROM book_tombstones t USING upserted u WHERE t.id = u.id AND u.inserted
+      )
+      SELECT count(*) FILTER (WHERE inserted) AS inserted,
+             count(*) FILTER (WHERE NOT inserted) AS updated
+      FROM upserted
+      """
+          .formatted(IMPORT_ERROR);
+
+  private final BooksRepository booksRepository;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transaction;
+  private final TransactionTemplate readOnlyTransaction;
+  private final ObjectMapper objectMapper;
+  private final BooksProperties booksProperties;
+  private final BookChangeListener bookChangeListener;
+
+  public BooksBulkServiceImpl(
+      BooksRepository booksRepository,
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      ObjectMapper objectMapper,
+      BooksProperties booksProperties,
+      BookChangeListener bookChangeListener) {
+    this.booksRepository = booksRepository;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.objectMapper = objectMapper;
+    this.booksProperties = booksProperties;
+    this.bookChangeListener = bookChangeListener;
+  }
+
+  @Override
+  public void exportBooks(OutputStream outputStream) throws IOException {
+    try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      generator.setRootValueSeparator(new SerializedString("\n"));
+      // PostgreSQL only honours the fetch size, instead of buffering the whole result set,
+      // when the statement runs inside a transaction
+      readOnlyTransaction.executeWithoutResult(
+          _ ->
+              jdbcTemplate.query(
+                  connection -> {
+                    PreparedStatement statement =
+                        connection.prepareStatement(
+                            EXPORT_QUERY, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(booksProperties.getExport().getFetchSize());
+                    return statement;
+                  },
+                  (RowCallbackHandler) resultSet -> writeBook(generator, resultSet)));
+      generator.writeRaw('\n');
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  @Override
+  public List<BulkItemResult> createBooks(InputStream ndjson) throws IOException {
+    // Each chunk is saved as soon as its lines are read, so a large upload never sits in memory.
+    // Lines are parsed one by one, so that a malformed one fails alone instead of the whole rest.
+    ObjectReader bookReader = objectMapper.readerFor(Book.class);
+    ChunkedCreate create = new ChunkedCreate();
+    try (BufferedReader lines =
+        new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = lines.readLine()) != null) {
+        if (line.isBlank()) {
+          continue;
+        }
+        try {
+          create.add(bookReader.readValue(line));
+        } catch (JsonProcessingException e) {
+          create.fail(MALFORMED_LINE_MESSAGE + e.getOriginalMessage());
+        }
+      }
+    }
+    return create.finish();
+  }
+
+  @Override
+  public List<BulkItemResult> createBooks(List<Book> books) {
+    ChunkedCreate create = new ChunkedCreate();
+    books.forEach(create::add);
+    return create.finish();
+  }
+
+  @Override
+  public CsvImportResult importBooks(InputStream csv) throws IOException {
+    CsvImportResult result;
+    try {
+      result = transaction.execute(_ -> importStaged(csv));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    if (result.getInserted() + result.getUpdated() > 0) {
+      bookChangeListener.onAllBooksChanged();
+    }
+    return result;
+  }
+
+  private CsvImportResult importStaged(InputStream csv) {
+    jdbcTemplate.execute(IMPORT_STAGING_TABLE);
+    long rows =
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> copyIn(connection, csv));
+    jdbcTemplate.execute("ANALYZE books_import");
+    long rejected = jdbcTemplate.queryForObject(IMPORT_REJECTED_COUNT, Long.class);
+    List<BulkItemResult> rejections =
+        jdbcTemplate.query(
+            IMPORT_REJECTIONS,
+            (resultSet, _) ->
+                BulkItemResult.failed(resultSet.getInt("item_index"), resultSet.getString("error")),
+            booksProperties.getCsvImport().getMaxReportedRejections());
+    return jdbcTemplate.queryForObject(
+        IMPORT_UPSERT,
+        (resultSet, _) -> {
+          long inserted = resultSet.getLong("inserted");
+          long updated = resultSet.getLong("updated");
+          return CsvImportResult.builder()
+              .rows(rows)
+              .inserted(inserted)
+              .updated(updated)
+              .unchanged(rows - rejected - inserted - updated)
+              .rejected(rejected)
+              .rejections(rejections)
+              .build();
+        });
+  }
+
+  private static long copyIn(Connection connection, InputStream csv) throws SQLException {
+    try {
+      return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(IMPORT_COPY, csv);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (SQLException e) {
+      // Data exceptions are about the body, such as a wrong header or an unterminated quote
+      if (e.getSQLState() != null && e.getSQLState().startsWith("22")) {
+        throw new IllegalArgumentException(e.getMessage(), e);
+      }
+      throw e;
+    }
+  }
+
+  private void saveChunk(List<Book> chunk, List<Integer> indexes, List<BulkItemResult> results) {
+    try {
+      transaction.executeWithoutResult(_ -> booksRepository.saveAll(chunk));
+      for (int i = 0; i < chunk.size(); i++) {
+        results.set(indexes.get(i), BulkItemResult.created(indexes.get(i), chunk.get(i).getId()));
+        bookChangeListener.onBookChanged(chunk.get(i).getId());
+      }
+    } catch (RuntimeException _) {
+      // One bad row rolls back the whole chunk, so retry its items one by one to isolate it
+      for (int i = 0; i < chunk.size(); i++) {
+        results.set(indexes.get(i), saveOne(indexes.get(i), chunk.get(i)));
+      }
+    }
+  }
+
+  private BulkItemResult saveOne(int index, Book book) {
+    // The failed chunk may have assigned an id and version that were rolled back
+    book.setId(null);
+    book.setVersion(null);
+    try {
+      Book savedBook = transaction.execute(_ -> booksRepository.save(book));
+      bookChangeListener.onBookChanged(savedBook.getId());
+      return BulkItemResult.created(index, savedBook.getId());
+    } catch (RuntimeException e) {
+      return BulkItemResult.failed(
+          index, NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+    }
+  }
+
+  /** Results of a bulk create whose valid books are saved a chunk at a time as they arrive. */
+  private final class ChunkedCreate {
+
+    private final int chunkSize = booksProperties.getBulk().getChunkSize();
+    private final List<BulkItemResult> results = new ArrayList<>();
+    private final List<Book> chunk = new ArrayList<>(chunkSize);
+    private final List<Integer> indexes = new ArrayList<>(chunkSize);
+
+    void fail(String error) {
+      results.add(BulkItemResult.failed(results.size(), error));
+    }
+
+    void add(Book book) {
+      int index = results.size();
+      if (book == null || book.getName() == null || book.getName().isBlank()) {
+        results.add(BulkItemResult.failed(index, BOOK_NAME_REQUIRED_MESSAGE));
+        return;
+      }
+      results.add(null);
+      // Ids are always generated so that every item is a plain, batchable insert
+      book.setId(null);
+      book.setVersion(null);
+      chunk.add(book);
+      indexes.add(index);
+      if (chunk.size() == chunkSize) {
+        flush();
+      }
+    }
+
+    List<BulkItemResult> finish() {
+      flush();
+      return results;
+    }
+
+    private void flush() {
+      if (!chunk.isEmpty()) {
+        saveChunk(List.copyOf(chunk), List.copyOf(indexes), results);
+        chunk.clear();
+        indexes.clear();
+      }
+    }
+  }
+
+  private static void writeBook(JsonGenerator generator, ResultSet resultSet) throws SQLException {
+    try {
+      generator.writeStartObject();
+      generator.writeStringField("id", resultSet.getString("id"));
+      generator.writeStringField("name", resultSet.getString("name"));
+      generator.writeStringField("description", resultSet.getString("description"));
+      double price = resultSet.getDouble("price");
+      if (resultSet.wasNull()) {
+        generator.writeNullField("price");
+      } else {
+        generator.writeNumberField("price", price);
+      }
+      int stock = resultSet.getInt("stock");
+      if (resultSet.wasNull()) {
+        generator.writeNullField("stock");
+      } else {
+        generator.writeNumberField("stock", stock);
+      }
+      generator.writeNumberField("version", resultSet.getLong("version"));
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
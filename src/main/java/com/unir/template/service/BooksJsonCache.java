@@ -0,0 +1,82 @@
+package com.unir.template.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.unir.template.config.BooksProperties;
+import com.unir.template.model.Book;
+import com.unir.template.model.BooksPage;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the UTF-8 JSON encoding of books and book pages, along with their entity tags, so that hot
+ * reads are written to the response without running Jackson again. Pages are keyed by a list
+ * version that every book change bumps, so a page computed concurrently with a write is never
+ * served afterwards.
+ */
+public class BooksJsonCache implements BookChangeListener {
+
+  private final ObjectMapper objectMapper;
+  private final boolean enabled;
+  private final Cache<UUID, CachedJson> books;
+  private final Cache<PageKey, CachedJson> pages;
+  private final AtomicLong listVersion = new AtomicLong();
+
+  public BooksJsonCache(ObjectMapper objectMapper, BooksProperties.JsonCache properties) {
+    this.objectMapper = objectMapper;
+    this.enabled = properties.isEnabled();
+    this.books = Caffeine.newBuilder().maximumSize(properties.getMaximumSize()).build();
+    this.pages = Caffeine.newBuilder().maximumSize(properties.getMaximumPages()).build();
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public CachedJson getBook(UUID id, Function<UUID, Book> loader) {
+    return books.get(
+        id,
+        key -> {
+          Book book = loader.apply(key);
+          return new CachedJson(serialize(book), BookETags.of(book));
+        });
+  }
+
+  public CachedJson getPage(String after, int limit, Supplier<BooksPage> loader) {
+    return pages.get(
+        new PageKey(listVersion.get(), after, limit),
+        _ -> {
+          BooksPage page = loader.get();
+          return new CachedJson(serialize(page), BookETags.of(page));
+        });
+  }
+
+  @Override
+  public void onBookChanged(UUID id) {
+    books.invalidate(id);
+    listVersion.incrementAndGet();
+    pages.invalidateAll();
+  }
+
+  @Override
+  public void onAllBooksChanged() {
+    books.invalidateAll();
+    listVersion.incrementAndGet();
+    pages.invalidateAll();
+  }
+
+  private byte[] serialize(Object value) {
+    try {
+      return objectMapper.writeValueAsBytes(value);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private record PageKey(long version, String after, int limit) {}
+}
@@ -1,18 +1,50 @@
 package com.unir.template.service;
 
 import com.unir.template.model.Book;
+import com.unir.template.model.BookChangesPage;
+import com.unir.template.model.BooksFilter;
+import com.unir.template.model.BooksPage;
+import com.unir.template.model.BooksSort;
 import java.util.List;
 import java.util.UUID;
 
 public interface BooksService {
 
-  List<Book> getAllBooks();
+  BooksPage getAllBooks(String after, int limit);
+
+  BooksPage findBooks(BooksFilter filter, BooksSort sort, String after, int limit);
+
+  BooksPage searchBooks(String query, String after, int limit);
 
   Book getBookById(UUID id);
 
+  /**
+   * Books with the given ids, in the order of their first occurrence. Ids of books that do not
+   * exist are left out.
+   */
+  List<Book> getBooksByIds(List<UUID> ids);
+
+  long getBookVersion(UUID id);
+
   Book createBook(Book book);
 
   Book updateBook(UUID id, Book book);
 
+  Book updateBook(UUID id, Book book, long expectedVersion);
+
+  Book reserveStock(UUID id, int quantity);
+
+  Book releaseStock(UUID id, int quantity);
+
   Book deleteBook(UUID id);
+
+  Book deleteBook(UUID id, long expectedVersion);
+
+  /**
+   * Latest change of every book created, updated or deleted since the given change feed cursor,
+   * oldest first, starting from the first change without a cursor.
+   *
+   * @throws IllegalArgumentException if the cursor was not issued by the change feed
+   */
+  BookChangesPage getChanges(String since, int limit);
 }
@@ -1,23 +1,92 @@
 package com.unir.template.service;
 
 import com.unir.template.model.Book;
+import com.unir.template.model.BookChange;
+import com.unir.template.model.BookChangesPage;
+import com.unir.template.model.BooksFilter;
+import com.unir.template.model.BooksPage;
+import com.unir.template.model.BooksSort;
 import com.unir.template.repository.BooksRepository;
+import com.unir.template.repository.BooksRepositoryCustom.RankedBook;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 
 public class BooksServiceImpl implements BooksService {
 
-  private static final String BOOK_NOT_FOUND_MESSAGE = "Book not found with id: ";
+  static final String BOOK_NOT_FOUND_MESSAGE = "Book not found with id: ";
+  static final String BOOK_VERSION_MISMATCH_MESSAGE =
+      "Book has been modified since version %d, id: %s";
+
+  static final String OUT_OF_STOCK_MESSAGE = "Not enough stock to reserve %d, id: %s";
+
+  static final int MAX_PAGE_SIZE = 500;
 
   private final BooksRepository booksRepository;
+  private final BookChangeListener bookChangeListener;
 
   public BooksServiceImpl(BooksRepository booksRepository) {
+    this(booksRepository, BookChangeListener.NONE);
+  }
+
+  public BooksServiceImpl(BooksRepository booksRepository, BookChangeListener bookChangeListener) {
     this.booksRepository = booksRepository;
+    this.bookChangeListener = bookChangeListener;
+  }
+
+  @Override
+  public BooksPage getAllBooks(String after, int limit) {
+    int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+    // Fetch one extra row to know whether there is a next page without a count query
+    Limit fetchLimit = Limit.of(pageSize + 1);
+    List<Book> books =
+        after == null
+            ? booksRepository.findAllByOrderByIdAsc(fetchLimit)
+            : booksRepository.findByIdGreaterThanOrderByIdAsc(UUID.fromString(after), fetchLimit);
+
+    if (books.size() <= pageSize) {
+      return new BooksPage(books, null);
+    }
+    List<Book> items = books.subList(0, pageSize);
+    return new BooksPage(items, items.getLast().getId().toString());
   }
 
   @Override
-  public List<Book> getAllBooks() {
-    return booksRepository.findAll();
+  public BooksPage findBooks(BooksFilter filter, BooksSort sort, String after, int limit) {
+    int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+    BookCursors.Position position = BookCursors.decode(sort, after);
+    List<Book> books =
+        booksRepository.findFiltered(filter, sort, position.value(), position.id(), pageSize + 1);
+
+    if (books.size() <= pageSize) {
+      return new BooksPage(books, null);
+    }
+    List<Book> items = books.subList(0, pageSize);
+    return new BooksPage(items, BookCursors.encode(sort, items.getLast()));
+  }
+
+  @Override
+  public BooksPage searchBooks(String query, String after, int limit) {
+    if (query == null || query.isBlank()) {
+      throw new IllegalArgumentException("Search query is required");
+    }
+    int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+    BookCursors.SearchPosition position = BookCursors.decodeSearch(after);
+    List<RankedBook> results =
+        booksRepository.search(query, position.rank(), position.id(), pageSize + 1);
+    List<Book> books = results.stream().map(RankedBook::book).toList();
+
+    if (books.size() <= pageSize) {
+      return new BooksPage(books, null);
+    }
+    RankedBook last = results.get(pageSize - 1);
+    return new BooksPage(
+        books.subList(0, pageSize), BookCursors.encodeSearch(last.rank(), last.book().getId()));
   }
 
   @Override
@@ -27,35 +96,149 @@ public class BooksServiceImpl implements BooksService {
         .orElseThrow(() -> new RuntimeException(BOOK_NOT_FOUND_MESSAGE + id));
   }
 
+  @Override
+  public List<Book> getBooksByIds(List<UUID> ids) {
+    if (ids == null) {
+      throw new IllegalArgumentException("Book ids are required");
+    }
+    List<UUID> distinctIds = ids.stream().distinct().toList();
+    if (distinctIds.size() > MAX_PAGE_SIZE) {
+      throw new IllegalArgumentException(
+          "At most %d books can be fetched at once".formatted(MAX_PAGE_SIZE));
+    }
+    if (distinctIds.isEmpty()) {
+      return List.of();
+    }
+    Map<UUID, Book> books =
+        booksRepository.findByIds(distinctIds).stream()
+            .collect(Collectors.toMap(Book::getId, Function.identity()));
+    return distinctIds.stream().map(books::get).filter(Objects::nonNull).toList();
+  }
+
+  @Override
+  public long getBookVersion(UUID id) {
+    return booksRepository
+        .findVersionById(id)
+        .orElseThrow(() -> new RuntimeException(BOOK_NOT_FOUND_MESSAGE + id));
+  }
+
   @Override
   public Book createBook(Book book) {
-    return booksRepository.save(book);
+    Book createdBook = booksRepository.save(book);
+    bookChangeListener.onBookChanged(createdBook.getId());
+    return createdBook;
   }
 
   @Override
   public Book updateBook(UUID id, Book book) {
     return booksRepository
-        .findById(id)
+        .findOnPrimaryById(id)
         .map(
             existingBook -> {
               existingBook.setName(book.getName());
               existingBook.setDescription(book.getDescription());
               existingBook.setPrice(book.getPrice());
               existingBook.setStock(book.getStock());
-              return booksRepository.save(existingBook);
+              Book updatedBook = booksRepository.save(existingBook);
+              bookChangeListener.onBookChanged(id);
+              return updatedBook;
             })
         .orElseThrow(() -> new RuntimeException(BOOK_NOT_FOUND_MESSAGE + id));
   }
 
+  @Override
+  public Book updateBook(UUID id, Book book, long expectedVersion) {
+    if (booksRepository.updateByIdAndVersion(id, expectedVersion, book) == 0) {
+      throw versionMismatchOrNotFound(id, expectedVersion);
+    }
+    bookChangeListener.onBookChanged(id);
+    return booksRepository
+        .findOnPrimaryById(id)
+        .orElseThrow(() -> new RuntimeException(BOOK_NOT_FOUND_MESSAGE + id));
+  }
+
+  @Override
+  public Book reserveStock(UUID id, int quantity) {
+    requirePositive(quantity);
+    Book book =
+        booksRepository
+            .reserveStock(id, quantity)
+            .orElseThrow(
+                () ->
+                    booksRepository.existsOnPrimaryById(id)
+                        ? new OutOfStockException(OUT_OF_STOCK_MESSAGE.formatted(quantity, id))
+                        : new RuntimeException(BOOK_NOT_FOUND_MESSAGE + id));
+    bookChangeListener.onBookChanged(id);
+    return book;
+  }
+
+  @Override
+  public Book releaseStock(UUID id, int quantity) {
+    requirePositive(quantity);
+    Book book =
+        booksRepository
+            .releaseStock(id, quantity)
+            .orElseThrow(() -> new RuntimeException(BOOK_NOT_FOUND_MESSAGE + id));
+    bookChangeListener.onBookChanged(id);
+    return book;
+  }
+
   @Override
   public Book deleteBook(UUID id) {
     return booksRepository
-        .findById(id)
+        .findOnPrimaryById(id)
         .map(
             existingBook -> {
               booksRepository.deleteById(id);
+              bookChangeListener.onBookChanged(id);
               return existingBook;
             })
         .orElseThrow(() -> new RuntimeException(BOOK_NOT_FOUND_MESSAGE + id));
   }
+
+  @Override
+  public Book deleteBook(UUID id, long expectedVersion) {
+    Book existingBook =
+        booksRepository
+            .findOnPrimaryById(id)
+            .orElseThrow(() -> new RuntimeException(BOOK_NOT_FOUND_MESSAGE + id));
+    if (booksRepository.deleteByIdAndVersion(id, expectedVersion) == 0) {
+      throw versionMismatchOrNotFound(id, expectedVersion);
+    }
+    bookChangeListener.onBookChanged(id);
+    return existingBook;
+  }
+
+  @Override
+  public BookChangesPage getChanges(String since, int limit) {
+    int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+    BookCursors.ChangePosition position = BookCursors.decodeChange(since);
+    List<BookChange> changes =
+        booksRepository.findChanges(position.sequence(), position.id(), pageSize + 1);
+    return changesPage(changes, since, pageSize);
+  }
+
+  /** Page of the first {@code pageSize} changes, given one more to know whether there are more. */
+  static BookChangesPage changesPage(List<BookChange> changes, String since, int pageSize) {
+    if (changes.size() <= pageSize) {
+      String nextCursor = changes.isEmpty() ? since : BookCursors.encodeChange(changes.getLast());
+      return new BookChangesPage(changes, nextCursor, false);
+    }
+    List<BookChange> items = changes.subList(0, pageSize);
+    return new BookChangesPage(items, BookCursors.encodeChange(items.getLast()), true);
+  }
+
+  private static void requirePositive(int quantity) {
+    if (quantity < 1) {
+      throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+    }
+  }
+
+  private RuntimeException versionMismatchOrNotFound(UUID id, long expectedVersion) {
+    if (booksRepository.existsOnPrimaryById(id)) {
+      return new OptimisticLockingFailureException(
+          BOOK_VERSION_MISMATCH_MESSAGE.formatted(expectedVersion, id));
+    }
+    return new RuntimeException(BOOK_NOT_FOUND_MESSAGE + id);
+  }
 }
@@ -0,0 +1,4 @@
+package com.unir.template.service;
+
+/** Pre-serialized JSON of a book or book page together with its entity tag. */
+public record CachedJson(byte[] json, String eTag) {}
@@ -0,0 +1,120 @@
+package com.unir.template.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.unir.template.model.Book;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache in front of {@link BooksService#getBookById(UUID)}. Writes made through this
+ * service refresh or invalidate the cached entry of the affected book, a refresh never replacing a
+ * newer version of the book.
+ */
+public class CachingBooksService extends DelegatingBooksService {
+
+  private final Cache<UUID, Book> cache;
+
+  public CachingBooksService(BooksService delegate, Cache<UUID, Book> cache) {
+    super(delegate);
+    this.cache = cache;
+  }
+
+  @Override
+  public Book getBookById(UUID id) {
+    return cache.get(id, delegate::getBookById);
+  }
+
+  @Override
+  public List<Book> getBooksByIds(List<UUID> ids) {
+    if (ids == null || ids.size() > BooksServiceImpl.MAX_PAGE_SIZE) {
+      // Rejected by the delegate, unless enough of the ids are repeated
+      return delegate.getBooksByIds(ids);
+    }
+    // Only the books missing from the cache are fetched, all of them in one call
+    Map<UUID, Book> books =
+        cache.getAll(
+            ids,
+            missingIds ->
+                delegate.getBooksByIds(List.copyOf(missingIds)).stream()
+                    .collect(Collectors.toMap(Book::getId, Function.identity())));
+    return ids.stream().distinct().map(books::get).filter(Objects::nonNull).toList();
+  }
+
+  @Override
+  public long getBookVersion(UUID id) {
+    Book cachedBook = cache.getIfPresent(id);
+    if (cachedBook != null && cachedBook.getVersion() != null) {
+      return cachedBook.getVersion();
+    }
+    return delegate.getBookVersion(id);
+  }
+
+  @Override
+  public Book createBook(Book book) {
+    Book createdBook = delegate.createBook(book);
+    cache.put(createdBook.getId(), createdBook);
+    return createdBook;
+  }
+
+  @Override
+  public Book updateBook(UUID id, Book book) {
+    return refresh(id, () -> delegate.updateBook(id, book));
+  }
+
+  @Override
+  public Book updateBook(UUID id, Book book, long expectedVersion) {
+    return refresh(id, () -> delegate.updateBook(id, book, expectedVersion));
+  }
+
+  @Override
+  public Book reserveStock(UUID id, int quantity) {
+    return refresh(id, () -> delegate.reserveStock(id, quantity));
+  }
+
+  @Override
+  public Book releaseStock(UUID id, int quantity) {
+    return refresh(id, () -> delegate.releaseStock(id, quantity));
+  }
+
+  @Override
+  public Book deleteBook(UUID id) {
+    try {
+      return delegate.deleteBook(id);
+    } finally {
+      cache.invalidate(id);
+    }
+  }
+
+  @Override
+  public Book deleteBook(UUID id, long expectedVersion) {
+    try {
+      return delegate.deleteBook(id, expectedVersion);
+    } finally {
+      cache.invalidate(id);
+    }
+  }
+
+  private static Book newer(Book cachedBook, Book updatedBook) {
+    if (cachedBook.getVersion() == null || updatedBook.getVersion() == null) {
+      return updatedBook;
+    }
+    return updatedBook.getVersion() >= cachedBook.getVersion() ? updatedBook : cachedBook;
+  }
+
+  private Book refresh(UUID id, Supplier<Book> update) {
+    try {
+      Book updatedBook = update.get();
+      // Concurrent writes can return in any order, and the last to land must not be the oldest
+      cache.asMap().merge(id, updatedBook, CachingBooksService::newer);
+      return updatedBook;
+    } catch (RuntimeException e) {
+      cache.invalidate(id);
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package com.unir.template.service;
+
+import com.unir.template.config.BooksProperties;
+import com.unir.template.model.Book;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Coalesces concurrent {@link #getBookById} calls into batched lookups, the way a DataLoader does.
+ * The first lookup to arrive opens a batch and waits for the window to pass, or for the batch to
+ * fill up, while the lookups arriving meanwhile join it. It then loads every book of the batch with
+ * one {@link BooksService#getBooksByIds} call and hands each caller its own, so that a burst of
+ * lookups costs one query per window instead of one per lookup, for at most a window of latency.
+ */
+public class CoalescingBooksService extends DelegatingBooksService {
+
+  private final long windowNanos;
+  private final int maxBatchSize;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final DistributionSummary batchSizes;
+  private Batch open;
+
+  public CoalescingBooksService(
+      BooksService delegate, BooksProperties.Coalescing properties, MeterRegistry registry) {
+    super(delegate);
+    this.windowNanos = properties.getWindow().toNanos();
+    this.maxBatchSize = Math.clamp(properties.getMaxBatchSize(), 1, BooksServiceImpl.MAX_PAGE_SIZE);
+    this.batchSizes =
+        DistributionSummary.builder("books.coalescing.batch.size")
+            .description("Distinct books loaded by each coalesced lookup")
+            .register(registry);
+  }
+
+  @Override
+  public Book getBookById(UUID id) {
+    Batch batch;
+    CompletableFuture<Book> book;
+    boolean leader = false;
+    lock.lock();
+    try {
+      if (open == null) {
+        open = new Batch();
+        leader = true;
+      }
+      batch = open;
+      book = batch.add(id);
+      if (batch.size() == maxBatchSize) {
+        open = null;
+        batch.full.countDown();
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (leader) {
+      batch.awaitFull(windowNanos);
+      close(batch);
+      load(batch);
+    }
+    try {
+      return book.join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof RuntimeException cause ? cause : e;
+    }
+  }
+
+  private void close(Batch batch) {
+    lock.lock();
+    try {
+      if (open == batch) {
+        open = null;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void load(Batch batch) {
+    batchSizes.record(batch.size());
+    Map<UUID, Book> books;
+    try {
+      books =
+          delegate.getBooksByIds(List.copyOf(batch.lookups.keySet())).stream()
+              .collect(Collectors.toMap(Book::getId, Function.identity()));
+    } catch (RuntimeException e) {
+      batch.lookups.values().forEach(lookup -> lookup.completeExceptionally(e));
+      return;
+    }
+    batch.lookups.forEach(
+        (id, lookup) -> {
+          Book book = books.get(id);
+          if (book == null) {
+            lookup.completeExceptionally(
+                new RuntimeException(BooksServiceImpl.BOOK_NOT_FOUND_MESSAGE + id));
+          } else {
+            lookup.complete(book);
+          }
+        });
+  }
+
+  /** Lookups of one window, a single one per distinct id. Only changed under the lock. */
+  private static final class Batch {
+
+    private final Map<UUID, CompletableFuture<Book>> lookups = new LinkedHashMap<>();
+    private final CountDownLatch full = new CountDownLatch(1);
+
+    private CompletableFuture<Book> add(UUID id) {
+      return lookups.computeIfAbsent(id, _ -> new CompletableFuture<>());
+    }
+
+    private int size() {
+      return lookups.size();
+    }
+
+    private void awaitFull(long nanos) {
+      try {
+        full.await(nanos, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        // The batch is still loaded, the other callers of the window are waiting for it
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
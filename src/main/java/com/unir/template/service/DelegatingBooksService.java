@@ -0,0 +1,89 @@
+package com.unir.template.service;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BookChangesPage;
+import com.unir.template.model.BooksFilter;
+import com.unir.template.model.BooksPage;
+import com.unir.template.model.BooksSort;
+import java.util.List;
+import java.util.UUID;
+
+/** Base class for {@link BooksService} decorators, forwarding every call to the delegate. */
+public abstract class DelegatingBooksService implements BooksService {
+
+  protected final BooksService delegate;
+
+  protected DelegatingBooksService(BooksService delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public BooksPage getAllBooks(String after, int limit) {
+    return delegate.getAllBooks(after, limit);
+  }
+
+  @Override
+  public BooksPage findBooks(BooksFilter filter, BooksSort sort, String after, int limit) {
+    return delegate.findBooks(filter, sort, after, limit);
+  }
+
+  @Override
+  public BooksPage searchBooks(String query, String after, int limit) {
+    return delegate.searchBooks(query, after, limit);
+  }
+
+  @Override
+  public Book getBookById(UUID id) {
+    return delegate.getBookById(id);
+  }
+
+  @Override
+  public List<Book> getBooksByIds(List<UUID> ids) {
+    return delegate.getBooksByIds(ids);
+  }
+
+  @Override
+  public long getBookVersion(UUID id) {
+    return delegate.getBookVersion(id);
+  }
+
+  @Override
+  public Book createBook(Book book) {
+    return delegate.createBook(book);
+  }
+
+  @Override
+  public Book updateBook(UUID id, Book book) {
+    return delegate.updateBook(id, book);
+  }
+
+  @Override
+  public Book updateBook(UUID id, Book book, long expectedVersion) {
+    return delegate.updateBook(id, book, expectedVersion);
+  }
+
+  @Override
+  public Book reserveStock(UUID id, int quantity) {
+    return delegate.reserveStock(id, quantity);
+  }
+
+  @Override
+  public Book releaseStock(UUID id, int quantity) {
+    return delegate.releaseStock(id, quantity);
+  }
+
+  @Override
+  public Book deleteBook(UUID id) {
+    return delegate.deleteBook(id);
+  }
+
+  @Override
+  public Book deleteBook(UUID id, long expectedVersion) {
+    return delegate.deleteBook(id, expectedVersion);
+  }
+
+  @Override
+  public BookChangesPage getChanges(String since, int limit) {
+    return delegate.getChanges(since, limit);
+  }
+}
@@ -0,0 +1,290 @@
+package com.unir.template.service;
+
+import com.unir.template.config.BooksProperties;
+import com.unir.template.config.ReplicaRoutingDataSource;
+import com.unir.template.model.Book;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.UncategorizedSQLException;
+
+/**
+ * Hedges {@link #getBookById} across the read pools. The lookup is sent to one pool and, when it
+ * has not answered within the configured percentile of recent lookups, the same query is sent to a
+ * second pool. The first answer wins and the statement of the other one is cancelled. Every lookup
+ * adds a fraction of a hedge to a budget and every hedge takes a whole one, so hedges never add
+ * more than that fraction of queries to the database.
+ */
+@Slf4j
+public class HedgingBooksService extends DelegatingBooksService {
+
+  static final String SELECT_BOOK =
+      "SELECT id, name, description, price, stock, version FROM books WHERE id = ?";
+
+  /** Latencies of the last lookups the hedging delay is computed from. */
+  private static final int SAMPLES = 1024;
+
+  /** Lookups recorded between two computations of the hedging delay, and before the first one. */
+  private static final int SAMPLES_PER_UPDATE = 128;
+
+  /** Hedges the budget can hold, so that a burst of slow lookups is not hedged all at once. */
+  private static final long MAX_BUDGET = 10;
+
+  private static final long HEDGE_COST = 1000;
+
+  private final ReplicaRoutingDataSource pools;
+  private final Executor executor;
+  private final double percentile;
+  private final long minDelayNanos;
+  private final long budgetPerLookup;
+  private final AtomicLong budget = new AtomicLong();
+  private final AtomicLong recorded = new AtomicLong();
+  private final AtomicLongArray latencies = new AtomicLongArray(SAMPLES);
+  private volatile long delayNanos = Long.MAX_VALUE;
+  private final Counter hedges;
+  private final Counter hedgeWins;
+  private final Counter budgetExhausted;
+
+  public HedgingBooksService(
+      BooksService delegate,
+      ReplicaRoutingDataSource pools,
+      Executor executor,
+      BooksProperties.Hedging properties,
+      MeterRegistry registry) {
+    super(delegate);
+    this.pools = pools;
+    this.executor = executor;
+    this.percentile = properties.getPercentile();
+    this.minDelayNanos = properties.getMinDelay().toNanos();
+    this.budgetPerLookup = Math.round(properties.getBudget() * HEDGE_COST);
+    this.hedges =
+        Counter.builder("books.hedging.hedges")
+            .description("Book lookups sent to a second pool as the first one was slow")
+            .register(registry);
+    this.hedgeWins =
+        Counter.builder("books.hedging.wins")
+            .description("Hedged book lookups answered by the second pool first")
+            .register(registry);
+    this.budgetExhausted =
+        Counter.builder("books.hedging.budget.exhausted")
+            .description("Slow book lookups not hedged as the hedging budget was used up")
+            .register(registry);
+    Gauge.builder("books.hedging.delay", this, HedgingBooksService::delaySeconds)
+        .description("Wait before a book lookup is hedged, NaN until enough lookups were seen")
+        .baseUnit("seconds")
+        .register(registry);
+  }
+
+  @Override
+  public Book getBookById(UUID id) {
+    budget.accumulateAndGet(
+        budgetPerLookup, (tokens, deposit) -> Math.min(MAX_BUDGET * HEDGE_COST, tokens + deposit));
+    DataSource pool = pools.select();
+    Lookup first = new Lookup(pool, id);
+    executor.execute(first::run);
+    long delay = delayNanos;
+    Optional<Book> book;
+    try {
+      book =
+          delay == Long.MAX_VALUE
+              ? first.result.get()
+              : first.result.get(delay, TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      book = hedge(first, pool, id);
+    } catch (InterruptedException | ExecutionException e) {
+      first.cancel();
+      throw failure(e);
+    }
+    return book.orElseThrow(
+        () -> new RuntimeException(BooksServiceImpl.BOOK_NOT_FOUND_MESSAGE + id));
+  }
+
+  private Optional<Book> hedge(Lookup first, DataSource firstPool, UUID id) {
+    DataSource pool = pools.selectOther(firstPool);
+    if (pool != null && !withdrawHedge()) {
+      budgetExhausted.increment();
+      pool = null;
+    }
+    if (pool == null) {
+      return await(first.result, first);
+    }
+    hedges.increment();
+    Lookup second = new Lookup(pool, id);
+    CompletableFuture<Optional<Book>> winner = new CompletableFuture<>();
+    AtomicInteger failures = new AtomicInteger();
+    first.result.whenComplete(
+        (book, error) -> complete(winner, failures, book, error, second, false));
+    second.result.whenComplete(
+        (book, error) -> complete(winner, failures, book, error, first, true));
+    executor.execute(second::run);
+    return await(winner, first, second);
+  }
+
+  private void complete(
+      CompletableFuture<Optional<Book>> winner,
+      AtomicInteger failures,
+      Optional<Book> book,
+      Throwable error,
+      Lookup other,
+      boolean hedge) {
+    if (error == null) {
+      if (winner.complete(book)) {
+        other.cancel();
+        if (hedge) {
+          hedgeWins.increment();
+          // The slow lookup never finishes, and leaving it out would only keep the fast ones, so
+          // the time it has taken so far stands in for its latency
+          recordLatency(System.nanoTime() - other.submittedAt);
+        }
+      }
+    } else if (failures.incrementAndGet() == 2) {
+      winner.completeExceptionally(error);
+    }
+  }
+
+  private boolean withdrawHedge() {
+    long tokens;
+    do {
+      tokens = budget.get();
+      if (tokens < HEDGE_COST) {
+        return false;
+      }
+    } while (!budget.compareAndSet(tokens, tokens - HEDGE_COST));
+    return true;
+  }
+
+  private static Optional<Book> await(CompletableFuture<Optional<Book>> result, Lookup... lookups) {
+    try {
+      return result.get();
+    } catch (InterruptedException | ExecutionException e) {
+      for (Lookup lookup : lookups) {
+        lookup.cancel();
+      }
+      throw failure(e);
+    }
+  }
+
+  private static RuntimeException failure(Exception e) {
+    if (e instanceof InterruptedException) {
+      Thread.currentThread().interrupt();
+      return new IllegalStateException("Interrupted while looking up a book", e);
+    }
+    Throwable cause = e.getCause();
+    if (cause instanceof RuntimeException runtimeException) {
+      return runtimeException;
+    }
+    if (cause instanceof SQLException sqlException) {
+      return new UncategorizedSQLException("Book lookup", SELECT_BOOK, sqlException);
+    }
+    return new IllegalStateException(cause);
+  }
+
+  private void recordLatency(long nanos) {
+    long count = recorded.incrementAndGet();
+    latencies.set((int) ((count - 1) % SAMPLES), nanos);
+    if (count % SAMPLES_PER_UPDATE == 0) {
+      long[] sorted = new long[(int) Math.min(count, SAMPLES)];
+      for (int i = 0; i < sorted.length; i++) {
+        sorted[i] = latencies.get(i);
+      }
+      Arrays.sort(sorted);
+      int index = (int) Math.ceil(percentile * sorted.length) - 1;
+      delayNanos = Math.max(minDelayNanos, sorted[Math.clamp(index, 0, sorted.length - 1)]);
+    }
+  }
+
+  private double delaySeconds() {
+    long delay = delayNanos;
+    return delay == Long.MAX_VALUE ? Double.NaN : delay / 1e9;
+  }
+
+  private static Book mapBook(ResultSet resultSet) throws SQLException {
+    BigDecimal price = resultSet.getBigDecimal("price");
+    return Book.builder()
+        .id(resultSet.getObject("id", UUID.class))
+        .name(resultSet.getString("name"))
+        .description(resultSet.getString("description"))
+        .price(price == null ? null : price.doubleValue())
+        .stock(resultSet.getObject("stock", Integer.class))
+        .version(resultSet.getLong("version"))
+        .build();
+  }
+
+  /** One attempt at the lookup on a given pool, whose running statement can be cancelled. */
+  private final class Lookup {
+
+    private final DataSource pool;
+    private final UUID id;
+    private final CompletableFuture<Optional<Book>> result = new CompletableFuture<>();
+    private final long submittedAt = System.nanoTime();
+    private volatile Statement statement;
+    private volatile boolean cancelled;
+
+    private Lookup(DataSource pool, UUID id) {
+      this.pool = pool;
+      this.id = id;
+    }
+
+    private void run() {
+      if (cancelled) {
+        result.cancel(false);
+        return;
+      }
+      long start = System.nanoTime();
+      try (Connection connection = pool.getConnection();
+          PreparedStatement preparedStatement = connection.prepareStatement(SELECT_BOOK)) {
+        statement = preparedStatement;
+        if (cancelled) {
+          result.cancel(false);
+          return;
+        }
+        preparedStatement.setObject(1, id);
+        Optional<Book> book;
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+          book = resultSet.next() ? Optional.of(mapBook(resultSet)) : Optional.empty();
+        }
+        statement = null;
+        if (!cancelled) {
+          recordLatency(System.nanoTime() - start);
+        }
+        result.complete(book);
+      } catch (SQLException | RuntimeException e) {
+        result.completeExceptionally(e);
+      } finally {
+        statement = null;
+      }
+    }
+
+    private void cancel() {
+      // Either run() sees the flag before executing, or the statement is visible here
+      cancelled = true;
+      Statement running = statement;
+      if (running != null) {
+        try {
+          running.cancel();
+        } catch (SQLException e) {
+          log.debug("Could not cancel the losing book lookup", e);
+        }
+      }
+    }
+  }
+}
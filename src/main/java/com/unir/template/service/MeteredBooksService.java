@@ -0,0 +1,157 @@
+package com.unir.template.service;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BookChangesPage;
+import com.unir.template.model.BooksFilter;
+import com.unir.template.model.BooksPage;
+import com.unir.template.model.BooksSort;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Records the latency of every {@link BooksService} call in the {@code books.service} timer, tagged
+ * with the method and whether it succeeded. Timers are resolved once up front so that the hot path
+ * does not look them up in the registry.
+ */
+public class MeteredBooksService extends DelegatingBooksService {
+
+  static final String TIMER_NAME = "books.service";
+
+  private final MethodTimers getAllBooks;
+  private final MethodTimers findBooks;
+  private final MethodTimers searchBooks;
+  private final MethodTimers getBookById;
+  private final MethodTimers getBooksByIds;
+  private final MethodTimers getBookVersion;
+  private final MethodTimers createBook;
+  private final MethodTimers updateBook;
+  private final MethodTimers conditionalUpdateBook;
+  private final MethodTimers reserveStock;
+  private final MethodTimers releaseStock;
+  private final MethodTimers deleteBook;
+  private final MethodTimers conditionalDeleteBook;
+  private final MethodTimers getChanges;
+
+  public MeteredBooksService(BooksService delegate, MeterRegistry registry) {
+    super(delegate);
+    this.getAllBooks = new MethodTimers(registry, "getAllBooks");
+    this.findBooks = new MethodTimers(registry, "findBooks");
+    this.searchBooks = new MethodTimers(registry, "searchBooks");
+    this.getBookById = new MethodTimers(registry, "getBookById");
+    this.getBooksByIds = new MethodTimers(registry, "getBooksByIds");
+    this.getBookVersion = new MethodTimers(registry, "getBookVersion");
+    this.createBook = new MethodTimers(registry, "createBook");
+    this.updateBook = new MethodTimers(registry, "updateBook");
+    this.conditionalUpdateBook = new MethodTimers(registry, "conditionalUpdateBook");
+    this.reserveStock = new MethodTimers(registry, "reserveStock");
+    this.releaseStock = new MethodTimers(registry, "releaseStock");
+    this.deleteBook = new MethodTimers(registry, "deleteBook");
+    this.conditionalDeleteBook = new MethodTimers(registry, "conditionalDeleteBook");
+    this.getChanges = new MethodTimers(registry, "getChanges");
+  }
+
+  @Override
+  public BooksPage getAllBooks(String after, int limit) {
+    return getAllBooks.record(() -> delegate.getAllBooks(after, limit));
+  }
+
+  @Override
+  public BooksPage findBooks(BooksFilter filter, BooksSort sort, String after, int limit) {
+    return findBooks.record(() -> delegate.findBooks(filter, sort, after, limit));
+  }
+
+  @Override
+  public BooksPage searchBooks(String query, String after, int limit) {
+    return searchBooks.record(() -> delegate.searchBooks(query, after, limit));
+  }
+
+  @Override
+  public Book getBookById(UUID id) {
+    return getBookById.record(() -> delegate.getBookById(id));
+  }
+
+  @Override
+  public List<Book> getBooksByIds(List<UUID> ids) {
+    return getBooksByIds.record(() -> delegate.getBooksByIds(ids));
+  }
+
+  @Override
+  public long getBookVersion(UUID id) {
+    return getBookVersion.record(() -> delegate.getBookVersion(id));
+  }
+
+  @Override
+  public Book createBook(Book book) {
+    return createBook.record(() -> delegate.createBook(book));
+  }
+
+  @Override
+  public Book updateBook(UUID id, Book book) {
+    return updateBook.record(() -> delegate.updateBook(id, book));
+  }
+
+  @Override
+  public Book updateBook(UUID id, Book book, long expectedVersion) {
+    return conditionalUpdateBook.record(() -> delegate.updateBook(id, book, expectedVersion));
+  }
+
+  @Override
+  public Book reserveStock(UUID id, int quantity) {
+    return reserveStock.record(() -> delegate.reserveStock(id, quantity));
+  }
+
+  @Override
+  public Book releaseStock(UUID id, int quantity) {
+    return releaseStock.record(() -> delegate.releaseStock(id, quantity));
+  }
+
+  @Override
+  public Book deleteBook(UUID id) {
+    return deleteBook.record(() -> delegate.deleteBook(id));
+  }
+
+  @Override
+  public Book deleteBook(UUID id, long expectedVersion) {
+    return conditionalDeleteBook.record(() -> delegate.deleteBook(id, expectedVersion));
+  }
+
+  @Override
+  public BookChangesPage getChanges(String since, int limit) {
+    return getChanges.record(() -> delegate.getChanges(since, limit));
+  }
+
+  private static final class MethodTimers {
+
+    private final Timer success;
+    private final Timer error;
+
+    private MethodTimers(MeterRegistry registry, String method) {
+      this.success = timer(registry, method, "success");
+      this.error = timer(registry, method, "error");
+    }
+
+    private static Timer timer(MeterRegistry registry, String method, String outcome) {
+      return Timer.builder(TIMER_NAME)
+          .description("Latency of the books service methods")
+          .tag("method", method)
+          .tag("outcome", outcome)
+          .register(registry);
+    }
+
+    private <T> T record(Supplier<T> call) {
+      long start = System.nanoTime();
+      try {
+        T result = call.get();
+        success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+      } catch (RuntimeException e) {
+        error.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        throw e;
+      }
+    }
+  }
+}
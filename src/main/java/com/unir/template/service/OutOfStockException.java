@@ -0,0 +1,9 @@
+package com.unir.template.service;
+
+/** Thrown when a book does not have enough stock left for a reservation. */
+public class OutOfStockException extends RuntimeException {
+
+  public OutOfStockException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,60 @@
+package com.unir.template.service;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BooksPage;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the reads that fill the book caches in a read-write transaction, which the read-only
+ * queries of the delegate join, so that they are served by the primary database rather than by a
+ * read replica. A replica can lag behind a write that has just invalidated a cached book, and
+ * caching its copy would keep serving the old book long after the replica caught up. Single books
+ * fill both caches, while lists of books are only pinned when the cache they fill is enabled, so
+ * the other reads keep spreading across the replicas. The delegate must run its queries on the
+ * calling thread.
+ */
+public class PrimaryReadsBooksService extends DelegatingBooksService {
+
+  private final TransactionTemplate transaction;
+  private final boolean booksCached;
+  private final boolean pagesCached;
+
+  /**
+   * @param booksCached whether books looked up by id are cached, as the book cache does
+   * @param pagesCached whether pages of books are cached, as the JSON cache does
+   */
+  public PrimaryReadsBooksService(
+      BooksService delegate,
+      PlatformTransactionManager transactionManager,
+      boolean booksCached,
+      boolean pagesCached) {
+    super(delegate);
+    this.transaction = new TransactionTemplate(transactionManager);
+    this.booksCached = booksCached;
+    this.pagesCached = pagesCached;
+  }
+
+  @Override
+  public BooksPage getAllBooks(String after, int limit) {
+    if (!pagesCached) {
+      return delegate.getAllBooks(after, limit);
+    }
+    return transaction.execute(_ -> delegate.getAllBooks(after, limit));
+  }
+
+  @Override
+  public Book getBookById(UUID id) {
+    return transaction.execute(_ -> delegate.getBookById(id));
+  }
+
+  @Override
+  public List<Book> getBooksByIds(List<UUID> ids) {
+    if (!booksCached) {
+      return delegate.getBooksByIds(ids);
+    }
+    return transaction.execute(_ -> delegate.getBooksByIds(ids));
+  }
+}
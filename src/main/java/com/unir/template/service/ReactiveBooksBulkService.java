@@ -0,0 +1,24 @@
+package com.unir.template.service;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BulkItemResult;
+import java.util.List;
+import reactor.core.publisher.Flux;
+
+/** Non-blocking counterpart of {@link BooksBulkService}. */
+public interface ReactiveBooksBulkService {
+
+  /** Every book, read from the database only as fast as the subscriber consumes them. */
+  Flux<Book> exportBooks();
+
+  Flux<BulkItemResult> createBooks(List<Book> books);
+
+  /** Creates the books as they arrive, one chunk at a time, in the order they were sent. */
+  Flux<BulkItemResult> createBooks(Flux<Book> books);
+
+  /**
+   * Creates the books of an NDJSON body like {@link #createBooks(Flux)}. A line that is not a book
+   * fails as its own item and the lines after it are still created.
+   */
+  Flux<BulkItemResult> createBooksFromNdjson(Flux<String> lines);
+}
@@ -0,0 +1,117 @@
+package com.unir.template.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.unir.template.config.BooksProperties;
+import com.unir.template.model.Book;
+import com.unir.template.model.BulkItemResult;
+import com.unir.template.repository.ReactiveBooksRepository;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import org.springframework.core.NestedExceptionUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class ReactiveBooksBulkServiceImpl implements ReactiveBooksBulkService {
+
+  private static final String BOOK_NAME_REQUIRED_MESSAGE = "Book name is required";
+  private static final String MALFORMED_LINE_MESSAGE = "Malformed NDJSON line: ";
+
+  private final ReactiveBooksRepository booksRepository;
+  private final BooksProperties booksProperties;
+  private final ObjectReader bookReader;
+
+  public ReactiveBooksBulkServiceImpl(
+      ReactiveBooksRepository booksRepository,
+      BooksProperties booksProperties,
+      ObjectMapper objectMapper) {
+    this.booksRepository = booksRepository;
+    this.booksProperties = booksProperties;
+    this.bookReader = objectMapper.readerFor(Book.class);
+  }
+
+  @Override
+  public Flux<Book> exportBooks() {
+    return booksRepository.findAll(booksProperties.getExport().getFetchSize());
+  }
+
+  @Override
+  public Flux<BulkItemResult> createBooks(List<Book> books) {
+    // A Flux cannot carry the nulls of a JSON array, which fail validation like a nameless book
+    return createBooks(
+        Flux.fromStream(
+            () -> books.stream().map(book -> Objects.requireNonNullElseGet(book, Book::new))));
+  }
+
+  @Override
+  public Flux<BulkItemResult> createBooks(Flux<Book> books) {
+    return createItems(
+        books.index().map(book -> new Item(Math.toIntExact(book.getT1()), book.getT2(), null)));
+  }
+
+  @Override
+  public Flux<BulkItemResult> createBooksFromNdjson(Flux<String> lines) {
+    return createItems(
+        lines
+            .filter(line -> !line.isBlank())
+            .index()
+            .map(line -> parse(Math.toIntExact(line.getT1()), line.getT2())));
+  }
+
+  private Item parse(int index, String line) {
+    try {
+      return new Item(index, bookReader.readValue(line), null);
+    } catch (JsonProcessingException e) {
+      return new Item(index, null, MALFORMED_LINE_MESSAGE + e.getOriginalMessage());
+    }
+  }
+
+  private Flux<BulkItemResult> createItems(Flux<Item> items) {
+    // Chunks are requested from the body one at a time, so a large upload never sits in memory
+    return items.buffer(booksProperties.getBulk().getChunkSize()).concatMap(this::saveChunk);
+  }
+
+  private Flux<BulkItemResult> saveChunk(List<Item> chunk) {
+    List<Book> validBooks = chunk.stream().filter(Item::isValid).map(Item::book).toList();
+    // Ids are always generated so that every item is a plain, batchable insert
+    validBooks.forEach(book -> book.setId(UUID.randomUUID()));
+    Mono<Long> insert = validBooks.isEmpty() ? Mono.empty() : booksRepository.insertAll(validBooks);
+    return insert
+        .thenMany(Flux.fromIterable(chunk).map(Item::result))
+        // One bad row fails the whole statement, so retry its items one by one to isolate it
+        .onErrorResume(_ -> Flux.fromIterable(chunk).concatMap(this::saveOne));
+  }
+
+  private Mono<BulkItemResult> saveOne(Item item) {
+    if (!item.isValid()) {
+      return Mono.just(item.result());
+    }
+    return booksRepository
+        .insert(item.book())
+        .map(book -> BulkItemResult.created(item.index(), book.getId()))
+        .onErrorResume(
+            e ->
+                Mono.just(
+                    BulkItemResult.failed(
+                        item.index(), NestedExceptionUtils.getMostSpecificCause(e).getMessage())));
+  }
+
+  /** A book to create, or the reason its line could not be read as one. */
+  private record Item(int index, Book book, String error) {
+
+    boolean isValid() {
+      return error == null && book.getName() != null && !book.getName().isBlank();
+    }
+
+    BulkItemResult result() {
+      if (error != null) {
+        return BulkItemResult.failed(index, error);
+      }
+      return isValid()
+          ? BulkItemResult.created(index, book.getId())
+          : BulkItemResult.failed(index, BOOK_NAME_REQUIRED_MESSAGE);
+    }
+  }
+}
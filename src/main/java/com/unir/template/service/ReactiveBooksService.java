@@ -0,0 +1,52 @@
+package com.unir.template.service;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BookChangesPage;
+import com.unir.template.model.BooksFilter;
+import com.unir.template.model.BooksPage;
+import com.unir.template.model.BooksSort;
+import java.util.List;
+import java.util.UUID;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link BooksService}, with the same contract: lookups of missing
+ * books fail with a {@link RuntimeException}, invalid arguments with an {@link
+ * IllegalArgumentException}, both signalled as errors rather than thrown.
+ */
+public interface ReactiveBooksService {
+
+  Mono<BooksPage> getAllBooks(String after, int limit);
+
+  Mono<BooksPage> findBooks(BooksFilter filter, BooksSort sort, String after, int limit);
+
+  Mono<BooksPage> searchBooks(String query, String after, int limit);
+
+  Mono<Book> getBookById(UUID id);
+
+  /**
+   * Books with the given ids, in the order of their first occurrence. Ids of books that do not
+   * exist are left out.
+   */
+  Flux<Book> getBooksByIds(List<UUID> ids);
+
+  Mono<Long> getBookVersion(UUID id);
+
+  Mono<Book> createBook(Book book);
+
+  Mono<Book> updateBook(UUID id, Book book);
+
+  Mono<Book> updateBook(UUID id, Book book, long expectedVersion);
+
+  Mono<Book> reserveStock(UUID id, int quantity);
+
+  Mono<Book> releaseStock(UUID id, int quantity);
+
+  Mono<Book> deleteBook(UUID id);
+
+  Mono<Book> deleteBook(UUID id, long expectedVersion);
+
+  /** See {@link BooksService#getChanges}. */
+  Mono<BookChangesPage> getChanges(String since, int limit);
+}
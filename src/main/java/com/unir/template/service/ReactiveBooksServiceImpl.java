@@ -0,0 +1,224 @@
+package com.unir.template.service;
+
+import static com.unir.template.service.BooksServiceImpl.BOOK_NOT_FOUND_MESSAGE;
+import static com.unir.template.service.BooksServiceImpl.BOOK_VERSION_MISMATCH_MESSAGE;
+import static com.unir.template.service.BooksServiceImpl.MAX_PAGE_SIZE;
+import static com.unir.template.service.BooksServiceImpl.OUT_OF_STOCK_MESSAGE;
+import static com.unir.template.service.BooksServiceImpl.changesPage;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BookChangesPage;
+import com.unir.template.model.BooksFilter;
+import com.unir.template.model.BooksPage;
+import com.unir.template.model.BooksSort;
+import com.unir.template.repository.BooksRepositoryCustom.RankedBook;
+import com.unir.template.repository.ReactiveBooksRepository;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import org.springframework.dao.OptimisticLockingFailureException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Same behaviour as {@link BooksServiceImpl} on top of {@link ReactiveBooksRepository}. Invalid
+ * arguments are returned as error signals rather than thrown, like every other failure.
+ */
+public class ReactiveBooksServiceImpl implements ReactiveBooksService {
+
+  private final ReactiveBooksRepository booksRepository;
+
+  public ReactiveBooksServiceImpl(ReactiveBooksRepository booksRepository) {
+    this.booksRepository = booksRepository;
+  }
+
+  @Override
+  public Mono<BooksPage> getAllBooks(String after, int limit) {
+    return findBooks(new BooksFilter(), BooksSort.ID, after, limit);
+  }
+
+  @Override
+  public Mono<BooksPage> findBooks(BooksFilter filter, BooksSort sort, String after, int limit) {
+    return Mono.defer(
+        () -> {
+          int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+          BookCursors.Position position = BookCursors.decode(sort, after);
+          // Fetch one extra row to know whether there is a next page without a count query
+          return booksRepository
+              .findFiltered(filter, sort, position.value(), position.id(), pageSize + 1)
+              .collectList()
+              .map(
+                  books -> {
+                    if (books.size() <= pageSize) {
+                      return new BooksPage(books, null);
+                    }
+                    List<Book> items = books.subList(0, pageSize);
+                    return new BooksPage(items, BookCursors.encode(sort, items.getLast()));
+                  });
+        });
+  }
+
+  @Override
+  public Mono<BooksPage> searchBooks(String query, String after, int limit) {
+    return Mono.defer(
+        () -> {
+          if (query == null || query.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Search query is required"));
+          }
+          int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+          BookCursors.SearchPosition position = BookCursors.decodeSearch(after);
+          return booksRepository
+              .search(query, position.rank(), position.id(), pageSize + 1)
+              .collectList()
+              .map(
+                  results -> {
+                    List<Book> books = results.stream().map(RankedBook::book).toList();
+                    if (books.size() <= pageSize) {
+                      return new BooksPage(books, null);
+                    }
+                    RankedBook last = results.get(pageSize - 1);
+                    return new BooksPage(
+                        books.subList(0, pageSize),
+                        BookCursors.encodeSearch(last.rank(), last.book().getId()));
+                  });
+        });
+  }
+
+  @Override
+  public Mono<Book> getBookById(UUID id) {
+    return booksRepository.findById(id).switchIfEmpty(notFound(id));
+  }
+
+  @Override
+  public Flux<Book> getBooksByIds(List<UUID> ids) {
+    return Flux.defer(
+        () -> {
+          if (ids == null) {
+            return Flux.error(new IllegalArgumentException("Book ids are required"));
+          }
+          List<UUID> distinctIds = ids.stream().distinct().toList();
+          if (distinctIds.size() > MAX_PAGE_SIZE) {
+            return Flux.error(
+                new IllegalArgumentException(
+                    "At most %d books can be fetched at once".formatted(MAX_PAGE_SIZE)));
+          }
+          if (distinctIds.isEmpty()) {
+            return Flux.empty();
+          }
+          return booksRepository
+              .findByIds(distinctIds)
+              .collectMap(Book::getId, Function.identity())
+              .flatMapIterable(books -> inRequestOrder(distinctIds, books));
+        });
+  }
+
+  @Override
+  public Mono<Long> getBookVersion(UUID id) {
+    return booksRepository.findVersionById(id).switchIfEmpty(notFound(id));
+  }
+
+  @Override
+  public Mono<Book> createBook(Book book) {
+    return Mono.defer(
+        () -> {
+          // Ids are generated here rather than by the database, as the JPA stack does
+          book.setId(UUID.randomUUID());
+          return booksRepository.insert(book);
+        });
+  }
+
+  @Override
+  public Mono<Book> updateBook(UUID id, Book book) {
+    return booksRepository.update(id, book).switchIfEmpty(notFound(id));
+  }
+
+  @Override
+  public Mono<Book> updateBook(UUID id, Book book, long expectedVersion) {
+    return booksRepository
+        .updateByIdAndVersion(id, expectedVersion, book)
+        .switchIfEmpty(versionMismatchOrNotFound(id, expectedVersion));
+  }
+
+  @Override
+  public Mono<Book> reserveStock(UUID id, int quantity) {
+    if (quantity < 1) {
+      return invalidQuantity(quantity);
+    }
+    return booksRepository
+        .reserveStock(id, quantity)
+        .switchIfEmpty(
+            Mono.defer(
+                () ->
+                    booksRepository
+                        .existsById(id)
+                        .flatMap(
+                            exists ->
+                                Mono.error(
+                                    exists
+                                        ? new OutOfStockException(
+                                            OUT_OF_STOCK_MESSAGE.formatted(quantity, id))
+                                        : new RuntimeException(BOOK_NOT_FOUND_MESSAGE + id)))));
+  }
+
+  @Override
+  public Mono<Book> releaseStock(UUID id, int quantity) {
+    if (quantity < 1) {
+      return invalidQuantity(quantity);
+    }
+    return booksRepository.releaseStock(id, quantity).switchIfEmpty(notFound(id));
+  }
+
+  @Override
+  public Mono<Book> deleteBook(UUID id) {
+    return booksRepository.deleteById(id).switchIfEmpty(notFound(id));
+  }
+
+  @Override
+  public Mono<Book> deleteBook(UUID id, long expectedVersion) {
+    return booksRepository
+        .deleteByIdAndVersion(id, expectedVersion)
+        .switchIfEmpty(versionMismatchOrNotFound(id, expectedVersion));
+  }
+
+  @Override
+  public Mono<BookChangesPage> getChanges(String since, int limit) {
+    return Mono.defer(
+        () -> {
+          int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+          BookCursors.ChangePosition position = BookCursors.decodeChange(since);
+          return booksRepository
+              .findChanges(position.sequence(), position.id(), pageSize + 1)
+              .collectList()
+              .map(changes -> changesPage(changes, since, pageSize));
+        });
+  }
+
+  private static List<Book> inRequestOrder(List<UUID> ids, Map<UUID, Book> books) {
+    return ids.stream().map(books::get).filter(Objects::nonNull).toList();
+  }
+
+  private static <T> Mono<T> invalidQuantity(int quantity) {
+    return Mono.error(new IllegalArgumentException("Quantity must be positive: " + quantity));
+  }
+
+  private static <T> Mono<T> notFound(UUID id) {
+    return Mono.error(() -> new RuntimeException(BOOK_NOT_FOUND_MESSAGE + id));
+  }
+
+  /** Checked lazily, only once the conditional statement has matched no row. */
+  private Mono<Book> versionMismatchOrNotFound(UUID id, long expectedVersion) {
+    return Mono.defer(
+        () ->
+            booksRepository
+                .existsById(id)
+                .flatMap(
+                    exists ->
+                        Mono.error(
+                            exists
+                                ? new OptimisticLockingFailureException(
+                                    BOOK_VERSION_MISMATCH_MESSAGE.formatted(expectedVersion, id))
+                                : new RuntimeException(BOOK_NOT_FOUND_MESSAGE + id))));
+  }
+}
@@ -0,0 +1,102 @@
+package com.unir.template.service;
+
+import com.unir.template.config.BooksProperties;
+import com.unir.template.model.Book;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shares one in-flight {@link #getBookById} call between concurrent lookups of the same book. The
+ * first lookup of an id calls the delegate, and the lookups of that id arriving before it returns
+ * wait for it and get its book, or its exception. Only lookups still in flight are tracked, and no
+ * more than {@code maxInFlight} of them: past that, lookups of ids not already in flight go
+ * straight to the delegate.
+ */
+public class SingleFlightBooksService extends DelegatingBooksService {
+
+  private final int maxInFlight;
+  private final Map<UUID, CompletableFuture<Book>> inFlight = new ConcurrentHashMap<>();
+  private final AtomicInteger inFlightCount = new AtomicInteger();
+  private final Counter executed;
+  private final Counter shared;
+  private final Counter bypassed;
+
+  public SingleFlightBooksService(
+      BooksService delegate, BooksProperties.SingleFlight properties, MeterRegistry registry) {
+    super(delegate);
+    this.maxInFlight = properties.getMaxInFlight();
+    this.executed = lookups(registry, "executed");
+    this.shared = lookups(registry, "shared");
+    this.bypassed = lookups(registry, "bypassed");
+    Gauge.builder("books.singleflight.inflight", inFlightCount, AtomicInteger::get)
+        .description("Book lookups by id currently in flight and shared")
+        .register(registry);
+    Gauge.builder("books.singleflight.dedup.ratio", this, SingleFlightBooksService::dedupRatio)
+        .description("Share of book lookups by id answered by another in-flight lookup")
+        .register(registry);
+  }
+
+  @Override
+  public Book getBookById(UUID id) {
+    CompletableFuture<Book> running = inFlight.get(id);
+    if (running != null) {
+      return await(running);
+    }
+    if (inFlightCount.incrementAndGet() > maxInFlight) {
+      inFlightCount.decrementAndGet();
+      bypassed.increment();
+      return delegate.getBookById(id);
+    }
+    CompletableFuture<Book> call = new CompletableFuture<>();
+    running = inFlight.putIfAbsent(id, call);
+    if (running != null) {
+      inFlightCount.decrementAndGet();
+      return await(running);
+    }
+    executed.increment();
+    try {
+      Book book = delegate.getBookById(id);
+      call.complete(book);
+      return book;
+    } catch (Throwable e) {
+      // Errors too, or the callers sharing this lookup would wait for it forever
+      call.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(id, call);
+      inFlightCount.decrementAndGet();
+    }
+  }
+
+  private Book await(CompletableFuture<Book> running) {
+    shared.increment();
+    try {
+      return running.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw e.getCause() instanceof RuntimeException cause ? cause : e;
+    }
+  }
+
+  private double dedupRatio() {
+    double sharedCount = shared.count();
+    double total = sharedCount + executed.count() + bypassed.count();
+    return total == 0 ? 0 : sharedCount / total;
+  }
+
+  private static Counter lookups(MeterRegistry registry, String outcome) {
+    return Counter.builder("books.singleflight.lookups")
+        .description("Book lookups by id, by whether they called the database or shared a call")
+        .tag("outcome", outcome)
+        .register(registry);
+  }
+}
@@ -0,0 +1,440 @@
+package com.unir.template.service;
+
+import com.unir.template.model.Book;
+import com.unir.template.repository.BooksRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Write-behind stock for hot books. Reservations and releases are applied to an in-memory ledger
+ * per book, and a background task writes the accumulated deltas of every book in one batched
+ * statement each flush interval, so that a flash sale on a book costs one row update per interval
+ * instead of one per buyer.
+ *
+ * <p>A ledger starts from the stock in the database and is the floor reservations are checked
+ * against, so nothing is oversold as long as this instance is the only one changing the stock of
+ * the book. Updates and deletes through {@link WriteBehindStockBooksService} write the pending
+ * delta and drop the ledger first, and changes of the stock wait for them to complete before
+ * reloading it. Ledgers idle for a whole interval are dropped as well, and every
+ * pending delta is written when the application stops.
+ */
+@Slf4j
+public class StockDeltaBuffer implements SmartLifecycle {
+
+  private static final String BOOK_NOT_FOUND_MESSAGE = "Book not found with id: ";
+  private static final String OUT_OF_STOCK_MESSAGE = "Not enough stock to reserve %d, id: %s";
+
+  private final BooksRepository booksRepository;
+  private final BookChangeListener bookChangeListener;
+  private final Duration flushInterval;
+  private final Map<UUID, Ledger> ledgers = new ConcurrentHashMap<>();
+  private final Timer flushTimer;
+  private ScheduledExecutorService scheduler;
+
+  public StockDeltaBuffer(
+      BooksRepository booksRepository,
+      BookChangeListener bookChangeListener,
+      Duration flushInterval,
+      MeterRegistry registry) {
+    this.booksRepository = booksRepository;
+    this.bookChangeListener = bookChangeListener;
+    this.flushInterval = flushInterval;
+    this.flushTimer =
+        Timer.builder("books.stock.flush")
+            .description("Time taken to write the buffered stock deltas to the database")
+            .register(registry);
+    Gauge.builder("books.stock.ledgers", ledgers, Map::size)
+        .description("Books whose stock is currently buffered in memory")
+        .register(registry);
+  }
+
+  public Book reserve(UUID id, int quantity) {
+    requirePositive(quantity);
+    while (true) {
+      Ledger ledger = ledger(id);
+      long remaining = ledger.reserve(quantity);
+      if (remaining == Ledger.OUT_OF_STOCK) {
+        throw new OutOfStockException(OUT_OF_STOCK_MESSAGE.formatted(quantity, id));
+      }
+      if (remaining != Ledger.RETIRED) {
+        return ledger.book(remaining);
+      }
+      dropRetired(id, ledger);
+    }
+  }
+
+  public Book release(UUID id, int quantity) {
+    requirePositive(quantity);
+    while (true) {
+      Ledger ledger = ledger(id);
+      long remaining = ledger.release(quantity);
+      if (remaining != Ledger.RETIRED) {
+        return ledger.book(remaining);
+      }
+      dropRetired(id, ledger);
+    }
+  }
+
+  /**
+   * Writes the pending delta of a book and drops its ledger, so the next change reloads it. The
+   * ledger stays in place until the delta is written, and changes that find it retired wait for
+   * that, so that they never reload the stock the delta is not in yet.
+   */
+  public void forget(UUID id) {
+    Ledger ledger = ledgers.get(id);
+    if (ledger != null && !ledger.blocking) {
+      forget(id, ledger);
+    }
+  }
+
+  /**
+   * Runs a write that may change the stock of a book, after writing its pending delta. Until the
+   * write returns, the book has a blocking ledger that changes of its stock wait on, so that none
+   * is checked against the stock the write is replacing. They then reload the written stock.
+   */
+  public <T> T writeBook(UUID id, Supplier<T> write) {
+    Ledger blocker = Ledger.blocking();
+    Ledger current;
+    while ((current = ledgers.putIfAbsent(id, blocker)) != null) {
+      if (current.blocking) {
+        // Another write of the book is under way
+        current.retired.join();
+        ledgers.remove(id, current);
+      } else {
+        forget(id, current);
+      }
+    }
+    try {
+      return write.get();
+    } finally {
+      ledgers.remove(id, blocker);
+      blocker.unblock();
+    }
+  }
+
+  private void forget(UUID id, Ledger ledger) {
+    try {
+      int delta = ledger.retireAndDrain();
+      if (delta != 0) {
+        write(List.of(id), List.of(delta));
+      }
+    } finally {
+      ledgers.remove(id, ledger);
+      ledger.retired.complete(null);
+    }
+  }
+
+  /** Writes the pending deltas of every book and drops the ledgers that saw no change. */
+  public void flush() {
+    flushTimer.record(
+        () -> {
+          List<UUID> ids = new ArrayList<>();
+          List<Integer> deltas = new ArrayList<>();
+          ledgers.forEach(
+              (id, ledger) -> {
+                int delta = ledger.drain();
+                if (delta != 0) {
+                  ids.add(id);
+                  deltas.add(delta);
+                } else if (ledger.retireIfIdle()) {
+                  ledgers.remove(id, ledger);
+                  ledger.retired.complete(null);
+                }
+              });
+          write(ids, deltas);
+        });
+  }
+
+  @Override
+  public void start() {
+    scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("stock-write-behind").daemon().factory());
+    long intervalMillis = flushInterval.toMillis();
+    scheduler.scheduleWithFixedDelay(
+        this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void stop() {
+    scheduler.shutdown();
+    try {
+      scheduler.awaitTermination(flushInterval.toMillis() * 10, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException _) {
+      Thread.currentThread().interrupt();
+    }
+    scheduler = null;
+    // Drain the deltas left since the last scheduled flush
+    flush();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return scheduler != null;
+  }
+
+  @Override
+  public int getPhase() {
+    // Stop after the web server, so that no reservation arrives once the last deltas are written
+    return DEFAULT_PHASE - 4096;
+  }
+
+  private Ledger ledger(UUID id) {
+    Ledger ledger = ledgers.get(id);
+    if (ledger == null) {
+      Ledger created = new Ledger();
+      ledger = ledgers.putIfAbsent(id, created);
+      if (ledger == null) {
+        // Loaded outside the map, whose bin lock would block other books for the whole query
+        try {
+          created.load(
+              booksRepository
+                  .findOnPrimaryById(id)
+                  .orElseThrow(() -> new RuntimeException(BOOK_NOT_FOUND_MESSAGE + id)));
+        } catch (RuntimeException e) {
+          ledgers.remove(id, created);
+          created.failLoad(e);
+          throw e;
+        }
+        return created;
+      }
+    }
+    ledger.awaitLoad();
+    return ledger;
+  }
+
+  /** Waits for the delta of a retired ledger to be written, then drops it. */
+  private void dropRetired(UUID id, Ledger ledger) {
+    ledger.retired.join();
+    ledgers.remove(id, ledger);
+  }
+
+  private void write(List<UUID> ids, List<Integer> deltas) {
+    if (ids.isEmpty()) {
+      return;
+    }
+    try {
+      booksRepository.addStock(ids, deltas);
+    } catch (RuntimeException e) {
+      // Put the deltas back so that the next flush retries them
+      for (int i = 0; i < ids.size(); i++) {
+        Ledger ledger = ledgers.get(ids.get(i));
+        if (ledger != null) {
+          ledger.undrain(deltas.get(i));
+        }
+      }
+      throw e;
+    }
+    ids.forEach(bookChangeListener::onBookChanged);
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      log.warn("Could not write buffered stock deltas, retrying on the next flush", e);
+    }
+  }
+
+  private static void requirePositive(int quantity) {
+    if (quantity < 1) {
+      throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+    }
+  }
+
+  /**
+   * Stock of one book: {@code available} is the exact floor reservations are checked against, and
+   * {@code pending} the striped sum of the changes not yet written. Changes add to {@code pending}
+   * before touching {@code available}, so a ledger that is retired while idle can not lose one, and
+   * count themselves in {@code inFlight}, so that a ledger retired while busy is only drained once
+   * the changes under way have either completed or backed out.
+   */
+  private static final class Ledger {
+
+    static final long RETIRED = Long.MIN_VALUE;
+    static final long OUT_OF_STOCK = Long.MIN_VALUE + 1;
+    private static final long LOADING = Long.MIN_VALUE + 2;
+
+    private final AtomicLong available = new AtomicLong(LOADING);
+
+    /** Whether the ledger only holds the stock changes back while the book is being written. */
+    final boolean blocking;
+    private final LongAdder pending = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /** Version of the book in the database, bumped by every write of a delta. */
+    private final AtomicLong version = new AtomicLong();
+
+    private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+
+    /** Completed once the ledger is retired and its last delta written, or given up on. */
+    final CompletableFuture<Void> retired = new CompletableFuture<>();
+
+    private volatile Book book;
+
+    Ledger() {
+      this(false);
+    }
+
+    private Ledger(boolean blocking) {
+      this.blocking = blocking;
+    }
+
+    static Ledger blocking() {
+      return new Ledger(true);
+    }
+
+    /** Lets the changes waiting on a blocking ledger go on, which then find it retired. */
+    void unblock() {
+      available.set(RETIRED);
+      loaded.complete(null);
+      retired.complete(null);
+    }
+
+    void load(Book book) {
+      this.book = book;
+      version.set(book.getVersion() == null ? 0 : book.getVersion());
+      // A ledger forgotten while loading stays retired
+      available.compareAndSet(LOADING, book.getStock() == null ? 0 : book.getStock());
+      loaded.complete(null);
+    }
+
+    void failLoad(RuntimeException e) {
+      available.set(RETIRED);
+      loaded.completeExceptionally(e);
+      retired.complete(null);
+    }
+
+    void awaitLoad() {
+      try {
+        loaded.join();
+      } catch (CompletionException e) {
+        throw (RuntimeException) e.getCause();
+      }
+    }
+
+    long reserve(int quantity) {
+      inFlight.incrementAndGet();
+      try {
+        // Checked before adding to pending, as the ledger may already have been drained
+        if (available.get() == RETIRED) {
+          return RETIRED;
+        }
+        pending.add(-quantity);
+        while (true) {
+          long current = available.get();
+          if (current == RETIRED || current < quantity) {
+            pending.add(quantity);
+            return current == RETIRED ? RETIRED : OUT_OF_STOCK;
+          }
+          if (available.compareAndSet(current, current - quantity)) {
+            return current - quantity;
+          }
+        }
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    }
+
+    long release(int quantity) {
+      inFlight.incrementAndGet();
+      try {
+        if (available.get() == RETIRED) {
+          return RETIRED;
+        }
+        pending.add(quantity);
+        while (true) {
+          long current = available.get();
+          if (current == RETIRED) {
+            pending.add(-quantity);
+            return RETIRED;
+          }
+          if (available.compareAndSet(current, current + quantity)) {
+            return current + quantity;
+          }
+        }
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    }
+
+    /**
+     * Takes the pending delta, leaving in place whatever is added concurrently, and counts the
+     * version bump that writing it will cause.
+     */
+    int drain() {
+      int delta = (int) pending.sum();
+      if (delta != 0) {
+        pending.add(-delta);
+        version.incrementAndGet();
+      }
+      return delta;
+    }
+
+    /** Gives back a delta whose write failed, for the next flush to retry it. */
+    void undrain(int delta) {
+      version.decrementAndGet();
+      pending.add(delta);
+    }
+
+    boolean retireIfIdle() {
+      long current = available.get();
+      return current != RETIRED
+          && current != LOADING
+          && pending.sum() == 0
+          && available.compareAndSet(current, RETIRED);
+    }
+
+    /**
+     * Retires the ledger and takes its pending delta once no change is under way. Changes that
+     * start after the retirement back out before touching {@code pending}, so none can be lost
+     * between the wait and the drain.
+     */
+    int retireAndDrain() {
+      available.set(RETIRED);
+      while (inFlight.get() != 0) {
+        Thread.onSpinWait();
+      }
+      return drain();
+    }
+
+    /**
+     * The book with the given stock and the version it has once the pending delta is written. The
+     * version is read on both sides of {@code pending}, which a drain empties before bumping it, so
+     * that a drain in between is retried rather than counted twice.
+     */
+    Book book(long stock) {
+      long bookVersion;
+      boolean unwritten;
+      do {
+        bookVersion = version.get();
+        unwritten = pending.sum() != 0;
+      } while (version.get() != bookVersion);
+      return new Book(
+          book.getId(),
+          book.getName(),
+          book.getDescription(),
+          book.getPrice(),
+          (int) stock,
+          unwritten ? bookVersion + 1 : bookVersion);
+    }
+  }
+}
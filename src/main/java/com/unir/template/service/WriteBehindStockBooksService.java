@@ -0,0 +1,49 @@
+package com.unir.template.service;
+
+import com.unir.template.model.Book;
+import java.util.UUID;
+
+/**
+ * Routes stock reservations and releases through a {@link StockDeltaBuffer} instead of updating the
+ * book row on every call. Other writes first write the pending stock delta of the book, and hold
+ * its stock changes back until they complete.
+ */
+public class WriteBehindStockBooksService extends DelegatingBooksService {
+
+  private final StockDeltaBuffer stockDeltaBuffer;
+
+  public WriteBehindStockBooksService(BooksService delegate, StockDeltaBuffer stockDeltaBuffer) {
+    super(delegate);
+    this.stockDeltaBuffer = stockDeltaBuffer;
+  }
+
+  @Override
+  public Book reserveStock(UUID id, int quantity) {
+    return stockDeltaBuffer.reserve(id, quantity);
+  }
+
+  @Override
+  public Book releaseStock(UUID id, int quantity) {
+    return stockDeltaBuffer.release(id, quantity);
+  }
+
+  @Override
+  public Book updateBook(UUID id, Book book) {
+    return stockDeltaBuffer.writeBook(id, () -> delegate.updateBook(id, book));
+  }
+
+  @Override
+  public Book updateBook(UUID id, Book book, long expectedVersion) {
+    return stockDeltaBuffer.writeBook(id, () -> delegate.updateBook(id, book, expectedVersion));
+  }
+
+  @Override
+  public Book deleteBook(UUID id) {
+    return stockDeltaBuffer.writeBook(id, () -> delegate.deleteBook(id));
+  }
+
+  @Override
+  public Book deleteBook(UUID id, long expectedVersion) {
+    return stockDeltaBuffer.writeBook(id, () -> delegate.deleteBook(id, expectedVersion));
+  }
+}
@@ -0,0 +1,83 @@
+package com.unir.template.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.unir.template.model.Book;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Encoding and decoding of a list of 10,000 {@link Book}s in each format the books API negotiates.
+ * The payload size of every format is printed when the benchmark is set up.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BookFormatsBenchmark {
+
+  private static final int BOOKS = 10_000;
+
+  @Param({"json", "cbor", "smile"})
+  public String format;
+
+  private ObjectWriter writer;
+  private ObjectReader reader;
+  private List<Book> books;
+  private byte[] payload;
+
+  @Setup
+  public void setUp() throws IOException {
+    ObjectMapper objectMapper =
+        switch (format) {
+          case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+          case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+          default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+    writer = objectMapper.writerFor(new TypeReference<List<Book>>() {});
+    reader = objectMapper.readerFor(new TypeReference<List<Book>>() {});
+    books = new ArrayList<>(BOOKS);
+    for (int i = 0; i < BOOKS; i++) {
+      books.add(
+          Book.builder()
+              .id(UUID.randomUUID())
+              .name("Spring Boot in Action, volume " + i)
+              .description("A comprehensive guide to Spring Boot development")
+              .price(10 + i % 9000 / 100.0)
+              .stock(i % 250)
+              .version((long) i % 7)
+              .build());
+    }
+    payload = writer.writeValueAsBytes(books);
+    System.out.printf("%s payload of %d books: %d bytes%n", format, BOOKS, payload.length);
+  }
+
+  @Benchmark
+  public byte[] encode() throws IOException {
+    return writer.writeValueAsBytes(books);
+  }
+
+  @Benchmark
+  public List<Book> decode() throws IOException {
+    return reader.readValue(payload);
+  }
+}
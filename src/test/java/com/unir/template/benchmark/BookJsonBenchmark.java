@@ -0,0 +1,62 @@
+package com.unir.template.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.unir.template.model.Book;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/** Jackson serialization and deserialization of a single {@link Book}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BookJsonBenchmark {
+
+  private ObjectWriter writer;
+  private ObjectReader reader;
+  private Book book;
+  private byte[] json;
+
+  @Setup
+  public void setUp() throws IOException {
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    writer = objectMapper.writerFor(Book.class);
+    reader = objectMapper.readerFor(Book.class);
+    book =
+        Book.builder()
+            .id(UUID.randomUUID())
+            .name("Spring Boot in Action")
+            .description("A comprehensive guide to Spring Boot development")
+            .price(29.99)
+            .stock(100)
+            .version(3L)
+            .build();
+    json = writer.writeValueAsBytes(book);
+  }
+
+  @Benchmark
+  public byte[] serialize() throws IOException {
+    return writer.writeValueAsBytes(book);
+  }
+
+  @Benchmark
+  public Book deserialize() throws IOException {
+    return reader.readValue(json);
+  }
+}
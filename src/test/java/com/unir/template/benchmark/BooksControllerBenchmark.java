@@ -0,0 +1,109 @@
+package com.unir.template.benchmark;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unir.template.config.BooksProperties;
+import com.unir.template.controller.BooksController;
+import com.unir.template.model.Book;
+import com.unir.template.model.BooksPage;
+import com.unir.template.service.BooksBulkService;
+import com.unir.template.service.BooksJsonCache;
+import com.unir.template.service.BooksService;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Full {@code DispatcherServlet} dispatch of the books read endpoints through {@link MockMvc}, with
+ * the services stubbed in memory: handler mapping, argument resolution, the controller and message
+ * conversion, but no HTTP server or database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BooksControllerBenchmark {
+
+  private static final int PAGE_SIZE = 50;
+
+  private MockMvc mockMvc;
+  private String bookPath;
+  private String missingBookPath;
+
+  @Setup
+  public void setUp() {
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    BooksService booksService = mock(BooksService.class, withSettings().stubOnly());
+    List<Book> books =
+        IntStream.range(0, PAGE_SIZE)
+            .mapToObj(
+                i ->
+                    Book.builder()
+                        .id(UUID.randomUUID())
+                        .name("Book " + i)
+                        .description("Description of book " + i)
+                        .price(10.0 + i)
+                        .stock(i)
+                        .version(0L)
+                        .build())
+            .toList();
+    Book book = books.getFirst();
+    UUID missingId = UUID.randomUUID();
+    when(booksService.getBookById(book.getId())).thenReturn(book);
+    when(booksService.getBookById(missingId))
+        .thenAnswer(
+            _ -> {
+              throw new RuntimeException("Book not found with id: " + missingId);
+            });
+    when(booksService.getAllBooks(null, PAGE_SIZE))
+        .thenReturn(new BooksPage(books, books.getLast().getId().toString()));
+    BooksController booksController =
+        new BooksController(
+            booksService,
+            mock(BooksBulkService.class, withSettings().stubOnly()),
+            new BooksJsonCache(objectMapper, new BooksProperties.JsonCache()));
+    mockMvc =
+        MockMvcBuilders.standaloneSetup(booksController)
+            .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+            .build();
+    bookPath = "/api/books/" + book.getId();
+    missingBookPath = "/api/books/" + missingId;
+  }
+
+  @Benchmark
+  public MvcResult getBookById() throws Exception {
+    return mockMvc.perform(get(bookPath)).andReturn();
+  }
+
+  @Benchmark
+  public MvcResult getBookByIdNotFound() throws Exception {
+    return mockMvc.perform(get(missingBookPath)).andReturn();
+  }
+
+  @Benchmark
+  public MvcResult getAllBooks() throws Exception {
+    return mockMvc.perform(get("/api/books").param("limit", String.valueOf(PAGE_SIZE))).andReturn();
+  }
+}
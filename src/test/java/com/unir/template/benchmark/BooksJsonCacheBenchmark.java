@@ -0,0 +1,107 @@
+package com.unir.template.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unir.template.config.BooksProperties;
+import com.unir.template.model.Book;
+import com.unir.template.model.BooksPage;
+import com.unir.template.service.BooksJsonCache;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+/**
+ * Compares writing a book, and a page of books, to the response through the Jackson message
+ * converter (what {@code ResponseEntity<Book>} does) against writing the bytes kept by {@link
+ * BooksJsonCache}. Run with {@code -prof gc} to see the allocation per request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BooksJsonCacheBenchmark {
+
+  private static final int PAGE_SIZE = 50;
+
+  private MappingJackson2HttpMessageConverter jsonConverter;
+  private ByteArrayHttpMessageConverter bytesConverter;
+  private BooksJsonCache booksJsonCache;
+  private Book book;
+  private BooksPage page;
+
+  @Setup
+  public void setUp() {
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    jsonConverter = new MappingJackson2HttpMessageConverter(objectMapper);
+    bytesConverter = new ByteArrayHttpMessageConverter();
+    BooksProperties.JsonCache properties = new BooksProperties.JsonCache();
+    properties.setEnabled(true);
+    booksJsonCache = new BooksJsonCache(objectMapper, properties);
+    List<Book> books =
+        IntStream.range(0, PAGE_SIZE).mapToObj(BooksJsonCacheBenchmark::book).toList();
+    book = books.getFirst();
+    page = new BooksPage(books, books.getLast().getId().toString());
+  }
+
+  @Benchmark
+  public MockHttpOutputMessage serializeBook() throws IOException {
+    MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+    jsonConverter.write(book, MediaType.APPLICATION_JSON, outputMessage);
+    return outputMessage;
+  }
+
+  @Benchmark
+  public MockHttpOutputMessage cachedBook() throws IOException {
+    MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+    bytesConverter.write(
+        booksJsonCache.getBook(book.getId(), _ -> book).json(),
+        MediaType.APPLICATION_JSON,
+        outputMessage);
+    return outputMessage;
+  }
+
+  @Benchmark
+  public MockHttpOutputMessage serializePage() throws IOException {
+    MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+    jsonConverter.write(page, MediaType.APPLICATION_JSON, outputMessage);
+    return outputMessage;
+  }
+
+  @Benchmark
+  public MockHttpOutputMessage cachedPage() throws IOException {
+    MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+    bytesConverter.write(
+        booksJsonCache.getPage(null, PAGE_SIZE, () -> page).json(),
+        MediaType.APPLICATION_JSON,
+        outputMessage);
+    return outputMessage;
+  }
+
+  private static Book book(int index) {
+    return Book.builder()
+        .id(UUID.randomUUID())
+        .name("Book " + index)
+        .description("A comprehensive guide to Spring Boot development, volume " + index)
+        .price(29.99 + index)
+        .stock(100 + index)
+        .build();
+  }
+}
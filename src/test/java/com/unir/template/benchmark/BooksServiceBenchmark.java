@@ -0,0 +1,111 @@
+package com.unir.template.benchmark;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BooksPage;
+import com.unir.template.repository.BooksRepository;
+import com.unir.template.service.BooksServiceImpl;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Limit;
+
+/**
+ * {@link BooksServiceImpl} against a repository stub that answers from memory, so only the service
+ * logic is measured. {@link #getBookByIdNotFound()} covers the exception built for a missing book.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BooksServiceBenchmark {
+
+  private static final int PAGE_SIZE = 50;
+
+  private BooksServiceImpl booksService;
+  private Book book;
+  private UUID missingId;
+
+  @Setup
+  public void setUp() {
+    List<Book> books =
+        IntStream.range(0, PAGE_SIZE + 1)
+            .mapToObj(
+                i ->
+                    Book.builder()
+                        .id(UUID.randomUUID())
+                        .name("Book " + i)
+                        .price(10.0 + i)
+                        .stock(i)
+                        .version(0L)
+                        .build())
+            .toList();
+    book = books.getFirst();
+    missingId = UUID.randomUUID();
+    booksService = new BooksServiceImpl(stubRepository(books));
+  }
+
+  /**
+   * A proxy rather than a Mockito mock, whose invocation matching would cost more than the service
+   * code being measured.
+   */
+  static BooksRepository stubRepository(List<Book> books) {
+    Map<UUID, Book> booksById =
+        books.stream().collect(Collectors.toMap(Book::getId, Function.identity()));
+    return (BooksRepository)
+        Proxy.newProxyInstance(
+            BooksRepository.class.getClassLoader(),
+            new Class<?>[] {BooksRepository.class},
+            (_, method, args) ->
+                switch (method.getName()) {
+                  case "findById", "findOnPrimaryById" ->
+                      Optional.ofNullable(booksById.get((UUID) args[0]));
+                  case "existsOnPrimaryById" -> booksById.containsKey((UUID) args[0]);
+                  case "findAllByOrderByIdAsc" -> books.subList(0, ((Limit) args[0]).max());
+                  case "save" -> args[0];
+                  default -> throw new UnsupportedOperationException(method.getName());
+                });
+  }
+
+  @Benchmark
+  public Book getBookById() {
+    return booksService.getBookById(book.getId());
+  }
+
+  @Benchmark
+  public RuntimeException getBookByIdNotFound() {
+    try {
+      booksService.getBookById(missingId);
+      throw new IllegalStateException("Book " + missingId + " should not exist");
+    } catch (RuntimeException e) {
+      return e;
+    }
+  }
+
+  @Benchmark
+  public BooksPage getAllBooks() {
+    return booksService.getAllBooks(null, PAGE_SIZE);
+  }
+
+  @Benchmark
+  public Book updateBook() {
+    return booksService.updateBook(book.getId(), book);
+  }
+}
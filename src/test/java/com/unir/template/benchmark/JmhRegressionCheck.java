@@ -0,0 +1,126 @@
+package com.unir.template.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result against a baseline recorded from an earlier run and fails when a
+ * benchmark got slower, or allocates more per operation, by more than the given fraction.
+ *
+ * <p>Usage: {@code JmhRegressionCheck <baseline.json> <result.json> <threshold> [record]}, for
+ * example a threshold of {@code 0.10} tolerates changes up to 10%. A missing baseline fails the
+ * check, as a gate without one would pass whatever the results, unless {@code record} is {@code
+ * true}, in which case the result is recorded as the new baseline instead of being compared.
+ */
+public final class JmhRegressionCheck {
+
+  private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+  private JmhRegressionCheck() {}
+
+  public static void main(String[] args) throws IOException {
+    Path baselinePath = Path.of(args[0]);
+    Path resultPath = Path.of(args[1]);
+    double threshold = Double.parseDouble(args[2]);
+    boolean record = args.length > 3 && Boolean.parseBoolean(args[3]);
+    if (record) {
+      Files.createDirectories(baselinePath.toAbsolutePath().getParent());
+      Files.copy(resultPath, baselinePath, StandardCopyOption.REPLACE_EXISTING);
+      System.out.println("Recorded " + resultPath + " as the JMH baseline at " + baselinePath);
+      return;
+    }
+    if (!Files.exists(baselinePath)) {
+      System.out.println(
+          "No JMH baseline at "
+              + baselinePath
+              + ", run again with -Djmh.record-baseline=true to record one");
+      System.exit(1);
+    }
+    ObjectMapper objectMapper = new ObjectMapper();
+    List<String> regressions =
+        regressions(
+            objectMapper.readTree(baselinePath.toFile()),
+            objectMapper.readTree(resultPath.toFile()),
+            threshold);
+    if (!regressions.isEmpty()) {
+      regressions.forEach(System.out::println);
+      System.exit(1);
+    }
+    System.out.printf("No JMH regression beyond %.0f%% of %s%n", threshold * 100, baselinePath);
+  }
+
+  static List<String> regressions(JsonNode baseline, JsonNode result, double threshold) {
+    Map<String, JsonNode> baselineRuns = byKey(baseline);
+    List<String> regressions = new ArrayList<>();
+    byKey(result)
+        .forEach(
+            (key, run) -> {
+              JsonNode baselineRun = baselineRuns.get(key);
+              if (baselineRun == null) {
+                return;
+              }
+              double baselineScore = baselineRun.at("/primaryMetric/score").asDouble();
+              double score = run.at("/primaryMetric/score").asDouble();
+              boolean higherIsBetter = run.path("mode").asText().equals("thrpt");
+              double change = (score - baselineScore) / baselineScore;
+              if (higherIsBetter ? change < -threshold : change > threshold) {
+                regressions.add(describe(key, baselineRun.at("/primaryMetric"), score, change));
+              }
+              JsonNode baselineAllocation = allocation(baselineRun);
+              JsonNode allocation = allocation(run);
+              if (baselineAllocation != null && allocation != null) {
+                double baselineBytes = baselineAllocation.path("score").asDouble();
+                double bytes = allocation.path("score").asDouble();
+                // Escape analysis makes a few bytes come and go, so tiny baselines are ignored
+                if (baselineBytes >= 1 && (bytes - baselineBytes) / baselineBytes > threshold) {
+                  regressions.add(
+                      describe(
+                          key + " " + ALLOCATION_METRIC,
+                          baselineAllocation,
+                          bytes,
+                          (bytes - baselineBytes) / baselineBytes));
+                }
+              }
+            });
+    return regressions;
+  }
+
+  private static Map<String, JsonNode> byKey(JsonNode runs) {
+    Map<String, JsonNode> byKey = new LinkedHashMap<>();
+    for (JsonNode run : runs) {
+      String key = run.path("benchmark").asText() + " " + run.path("mode").asText();
+      if (run.has("params")) {
+        key += " " + run.get("params");
+      }
+      byKey.put(key, run);
+    }
+    return byKey;
+  }
+
+  private static JsonNode allocation(JsonNode run) {
+    for (Map.Entry<String, JsonNode> metric : run.path("secondaryMetrics").properties()) {
+      if (metric.getKey().endsWith(ALLOCATION_METRIC)) {
+        return metric.getValue();
+      }
+    }
+    return null;
+  }
+
+  private static String describe(String key, JsonNode baselineMetric, double score, double change) {
+    return String.format(
+        "REGRESSION %s: %.3f -> %.3f %s (%+.1f%%)",
+        key,
+        baselineMetric.path("score").asDouble(),
+        score,
+        baselineMetric.path("scoreUnit").asText(),
+        change * 100);
+  }
+}
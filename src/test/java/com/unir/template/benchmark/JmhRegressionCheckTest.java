@@ -0,0 +1,64 @@
+package com.unir.template.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class JmhRegressionCheckTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void givenSlowerAverageTime_whenCheckingRegressions_thenRegressionIsReported()
+      throws IOException {
+    List<String> regressions =
+        JmhRegressionCheck.regressions(run("avgt", 100, 64), run("avgt", 120, 64), 0.10);
+
+    assertEquals(1, regressions.size());
+    assertTrue(regressions.getFirst().contains("+20.0%"));
+  }
+
+  @Test
+  void givenChangeWithinThreshold_whenCheckingRegressions_thenNothingIsReported()
+      throws IOException {
+    assertTrue(
+        JmhRegressionCheck.regressions(run("avgt", 100, 64), run("avgt", 105, 64), 0.10).isEmpty());
+    assertTrue(
+        JmhRegressionCheck.regressions(run("thrpt", 100, 64), run("thrpt", 150, 64), 0.10)
+            .isEmpty());
+  }
+
+  @Test
+  void givenLowerThroughput_whenCheckingRegressions_thenRegressionIsReported() throws IOException {
+    assertEquals(
+        1,
+        JmhRegressionCheck.regressions(run("thrpt", 100, 64), run("thrpt", 80, 64), 0.10).size());
+  }
+
+  @Test
+  void givenMoreAllocation_whenCheckingRegressions_thenRegressionIsReported() throws IOException {
+    List<String> regressions =
+        JmhRegressionCheck.regressions(run("avgt", 100, 64), run("avgt", 100, 128), 0.10);
+
+    assertEquals(1, regressions.size());
+    assertTrue(regressions.getFirst().contains("gc.alloc.rate.norm"));
+  }
+
+  private JsonNode run(String mode, double score, double allocatedBytes) throws IOException {
+    return objectMapper.readTree(
+        """
+        [{
+          "benchmark": "com.unir.template.benchmark.BookJsonBenchmark.serialize",
+          "mode": "%s",
+          "primaryMetric": {"score": %s, "scoreUnit": "ns/op"},
+          "secondaryMetrics": {"gc.alloc.rate.norm": {"score": %s, "scoreUnit": "B/op"}}
+        }]
+        """
+            .formatted(mode, score, allocatedBytes));
+  }
+}
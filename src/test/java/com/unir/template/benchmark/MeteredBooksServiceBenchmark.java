@@ -0,0 +1,88 @@
+package com.unir.template.benchmark;
+
+import com.unir.template.model.Book;
+import com.unir.template.service.BooksService;
+import com.unir.template.service.BooksServiceImpl;
+import com.unir.template.service.MeteredBooksService;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Overhead of {@link MeteredBooksService} on the cheapest service call, recording into a Prometheus
+ * registry with the same histogram and SLO buckets as application.yml and nobody scraping it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MeteredBooksServiceBenchmark {
+
+  private BooksService plainBooksService;
+  private BooksService meteredBooksService;
+  private UUID id;
+
+  @Setup
+  public void setUp() {
+    Book book = Book.builder().id(UUID.randomUUID()).name("Book").price(10.0).stock(1).build();
+    id = book.getId();
+    plainBooksService = new BooksServiceImpl(BooksServiceBenchmark.stubRepository(List.of(book)));
+    PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    registry
+        .config()
+        .meterFilter(
+            new MeterFilter() {
+              @Override
+              public DistributionStatisticConfig configure(
+                  Meter.Id meterId, DistributionStatisticConfig config) {
+                return DistributionStatisticConfig.builder()
+                    .percentilesHistogram(true)
+                    .serviceLevelObjectives(
+                        millis(1),
+                        millis(5),
+                        millis(10),
+                        millis(25),
+                        millis(50),
+                        millis(100),
+                        millis(250))
+                    .minimumExpectedValue(1e5)
+                    .maximumExpectedValue(5e9)
+                    .build()
+                    .merge(config);
+              }
+            });
+    meteredBooksService = new MeteredBooksService(plainBooksService, registry);
+  }
+
+  @Benchmark
+  public Book plainGetBookById() {
+    return plainBooksService.getBookById(id);
+  }
+
+  @Benchmark
+  public Book meteredGetBookById() {
+    return meteredBooksService.getBookById(id);
+  }
+
+  private static double millis(long millis) {
+    return Duration.ofMillis(millis).toNanos();
+  }
+}
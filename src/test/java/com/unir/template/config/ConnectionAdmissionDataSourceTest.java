@@ -0,0 +1,81 @@
+package com.unir.template.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ConnectionAdmissionDataSourceTest {
+
+  @Mock private DataSource targetDataSource;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private ConnectionAdmissionDataSource dataSource;
+
+  @BeforeEach
+  void setUp() {
+    dataSource =
+        new ConnectionAdmissionDataSource(
+            targetDataSource, "test", 1, Duration.ofMillis(50), meterRegistry);
+  }
+
+  @Test
+  void givenAllPermitsTaken_whenGetConnection_thenTimesOut() throws SQLException {
+    given(targetDataSource.getConnection()).willReturn(mock(Connection.class));
+    dataSource.getConnection();
+
+    assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+  }
+
+  @Test
+  void givenClosedConnection_whenGetConnection_thenPermitIsReused() throws SQLException {
+    Connection target = mock(Connection.class);
+    given(targetDataSource.getConnection()).willReturn(target);
+
+    Connection connection = dataSource.getConnection();
+    connection.close();
+    connection.close();
+    dataSource.getConnection();
+
+    verify(target, times(2)).close();
+    assertEquals(0.0, meterRegistry.get("db.admission.available").gauge().value());
+  }
+
+  @Test
+  void givenPoolFailure_whenGetConnection_thenPermitIsReleased() throws SQLException {
+    given(targetDataSource.getConnection()).willThrow(new SQLException("Pool exhausted"));
+
+    assertThrows(SQLException.class, dataSource::getConnection);
+
+    assertEquals(1.0, meterRegistry.get("db.admission.available").gauge().value());
+  }
+
+  @Test
+  void givenHikariPool_whenUnwrap_thenPoolIsReturned() throws SQLException {
+    HikariDataSource pool = new HikariDataSource();
+    ConnectionAdmissionDataSource admitted =
+        new ConnectionAdmissionDataSource(pool, "hikari", 1, Duration.ofMillis(50), meterRegistry);
+
+    assertTrue(admitted.isWrapperFor(HikariDataSource.class));
+    assertSame(pool, admitted.unwrap(HikariDataSource.class));
+  }
+}
@@ -0,0 +1,164 @@
+package com.unir.template.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import com.unir.template.config.ReadReplicasProperties.Selection;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+  private static final Duration MAX_LAG = Duration.ofSeconds(5);
+
+  @Mock private DataSource primary;
+  @Mock private HikariDataSource firstReplica;
+  @Mock private HikariDataSource secondReplica;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void givenReplicasInSync_whenSelect_thenReplicasTakeTurns() {
+    ReplicaRoutingDataSource dataSource = routingDataSource(Selection.ROUND_ROBIN);
+    dataSource.recordLag(0, Duration.ZERO);
+    dataSource.recordLag(1, Duration.ofSeconds(1));
+
+    List<DataSource> selected =
+        List.of(dataSource.select(), dataSource.select(), dataSource.select());
+
+    assertEquals(List.of(firstReplica, secondReplica, firstReplica), selected);
+  }
+
+  @Test
+  void givenReplicaLaggingBehind_whenSelect_thenOnlyReplicaInSyncIsUsed() {
+    ReplicaRoutingDataSource dataSource = routingDataSource(Selection.ROUND_ROBIN);
+    dataSource.recordLag(0, Duration.ofSeconds(30));
+    dataSource.recordLag(1, Duration.ZERO);
+
+    assertSame(secondReplica, dataSource.select());
+    assertSame(secondReplica, dataSource.select());
+  }
+
+  @Test
+  void givenEveryReplicaLaggingBehind_whenSelect_thenPrimaryIsUsed() {
+    ReplicaRoutingDataSource dataSource = routingDataSource(Selection.LEAST_BUSY);
+    dataSource.recordLag(0, Duration.ofSeconds(30));
+
+    assertSame(primary, dataSource.select());
+    assertEquals(1, meterRegistry.get("db.replica.fallback").counter().count());
+  }
+
+  @Test
+  void givenOneReplicaInSync_whenSelectOther_thenPrimaryIsTheOtherPool() {
+    ReplicaRoutingDataSource dataSource = routingDataSource(Selection.ROUND_ROBIN);
+    dataSource.recordLag(0, Duration.ZERO);
+
+    assertSame(primary, dataSource.selectOther(firstReplica));
+    assertSame(firstReplica, dataSource.selectOther(primary));
+  }
+
+  @Test
+  void givenNoReplicaInSync_whenSelectOtherThanPrimary_thenNothingIsLeft() {
+    ReplicaRoutingDataSource dataSource = routingDataSource(Selection.ROUND_ROBIN);
+
+    assertNull(dataSource.selectOther(primary));
+  }
+
+  @Test
+  void givenLeastBusySelection_whenSelect_thenReplicaWithFewestActiveConnectionsIsUsed() {
+    HikariPoolMXBean busyPool = mock(HikariPoolMXBean.class);
+    HikariPoolMXBean idlePool = mock(HikariPoolMXBean.class);
+    given(busyPool.getActiveConnections()).willReturn(8);
+    given(idlePool.getActiveConnections()).willReturn(2);
+    given(firstReplica.getHikariPoolMXBean()).willReturn(busyPool);
+    given(secondReplica.getHikariPoolMXBean()).willReturn(idlePool);
+    ReplicaRoutingDataSource dataSource = routingDataSource(Selection.LEAST_BUSY);
+    dataSource.recordLag(0, Duration.ZERO);
+    dataSource.recordLag(1, Duration.ZERO);
+
+    assertSame(secondReplica, dataSource.select());
+  }
+
+  @Test
+  void givenAdmittedReplicas_whenSelectLeastBusy_thenPoolsAreUnwrapped() throws SQLException {
+    HikariPoolMXBean busyPool = mock(HikariPoolMXBean.class);
+    HikariPoolMXBean idlePool = mock(HikariPoolMXBean.class);
+    given(busyPool.getActiveConnections()).willReturn(8);
+    given(idlePool.getActiveConnections()).willReturn(2);
+    DataSource busyReplica = admitted(firstReplica, busyPool);
+    DataSource idleReplica = admitted(secondReplica, idlePool);
+    ReplicaRoutingDataSource dataSource =
+        new ReplicaRoutingDataSource(
+            primary,
+            List.of(busyReplica, idleReplica),
+            Selection.LEAST_BUSY,
+            MAX_LAG,
+            Duration.ofSeconds(1),
+            meterRegistry);
+    dataSource.recordLag(0, Duration.ZERO);
+    dataSource.recordLag(1, Duration.ZERO);
+
+    assertSame(idleReplica, dataSource.select());
+  }
+
+  @Test
+  void givenReadOnlyTransaction_whenGetConnection_thenReplicaConnectionIsReturned()
+      throws SQLException {
+    Connection replicaConnection = mock(Connection.class);
+    given(firstReplica.getConnection()).willReturn(replicaConnection);
+    ReplicaRoutingDataSource dataSource = routingDataSource(Selection.ROUND_ROBIN);
+    dataSource.recordLag(0, Duration.ZERO);
+
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    try {
+      assertSame(replicaConnection, dataSource.getConnection());
+    } finally {
+      TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+  }
+
+  @Test
+  void givenNoReadOnlyTransaction_whenGetConnection_thenPrimaryConnectionIsReturned()
+      throws SQLException {
+    Connection primaryConnection = mock(Connection.class);
+    given(primary.getConnection()).willReturn(primaryConnection);
+    ReplicaRoutingDataSource dataSource = routingDataSource(Selection.ROUND_ROBIN);
+    dataSource.recordLag(0, Duration.ZERO);
+
+    assertSame(primaryConnection, dataSource.getConnection());
+  }
+
+  private DataSource admitted(HikariDataSource replica, HikariPoolMXBean pool)
+      throws SQLException {
+    given(replica.isWrapperFor(HikariDataSource.class)).willReturn(true);
+    given(replica.unwrap(HikariDataSource.class)).willReturn(replica);
+    given(replica.getHikariPoolMXBean()).willReturn(pool);
+    return new ConnectionAdmissionDataSource(
+        replica, replica.toString(), 10, Duration.ofSeconds(1), meterRegistry);
+  }
+
+  private ReplicaRoutingDataSource routingDataSource(Selection selection) {
+    return new ReplicaRoutingDataSource(
+        primary,
+        List.of(firstReplica, secondReplica),
+        selection,
+        MAX_LAG,
+        Duration.ofSeconds(1),
+        meterRegistry);
+  }
+}
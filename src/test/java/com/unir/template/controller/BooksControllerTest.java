@@ -1,32 +1,68 @@
 package com.unir.template.controller;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unir.template.config.BooksProperties;
 import com.unir.template.model.Book;
+import com.unir.template.model.BooksFilter;
+import com.unir.template.model.BooksPage;
+import com.unir.template.model.BooksSort;
+import com.unir.template.model.BulkItemResult;
+import com.unir.template.model.CsvImportResult;
+import com.unir.template.service.BookETags;
+import com.unir.template.service.BooksBulkService;
+import com.unir.template.service.BooksJsonCache;
 import com.unir.template.service.BooksService;
+import com.unir.template.service.OutOfStockException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.UUID;
 import org.instancio.Instancio;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 class BooksControllerTest {
 
   private BooksService booksService;
+  private BooksBulkService booksBulkService;
   private BooksController booksController;
 
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
   @BeforeEach
   void setUp() {
     booksService = mock(BooksService.class);
-    booksController = new BooksController(booksService);
+    booksBulkService = mock(BooksBulkService.class);
+    booksController =
+        new BooksController(
+            booksService,
+            booksBulkService,
+            new BooksJsonCache(objectMapper, new BooksProperties.JsonCache()));
   }
 
   @Test
@@ -35,7 +71,7 @@ class BooksControllerTest {
     UUID id = book.getId();
     when(booksService.getBookById(id)).thenReturn(book);
 
-    ResponseEntity<Book> response = booksController.getBookById(id);
+    ResponseEntity<?> response = booksController.getBookById(id, null, null);
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
     assertEquals(book, response.getBody());
@@ -46,24 +82,161 @@ class BooksControllerTest {
     UUID id = UUID.randomUUID();
     when(booksService.getBookById(id)).thenThrow(new RuntimeException("Not found"));
 
-    ResponseEntity<Book> response = booksController.getBookById(id);
+    ResponseEntity<?> response = booksController.getBookById(id, null, null);
 
     assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     assertNull(response.getBody());
   }
 
+  @Test
+  void givenJsonCacheEnabled_whenGetBookById_thenReturnSerializedBookOnce() throws IOException {
+    BooksController booksController = jsonCachingController();
+    Book book = Instancio.create(Book.class);
+    when(booksService.getBookById(book.getId())).thenReturn(book);
+
+    booksController.getBookById(book.getId(), null, null);
+    ResponseEntity<?> response = booksController.getBookById(book.getId(), null, null);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+    assertArrayEquals(objectMapper.writeValueAsBytes(book), (byte[]) response.getBody());
+    assertEquals(BookETags.of(book), response.getHeaders().getETag());
+    verify(booksService, times(1)).getBookById(book.getId());
+  }
+
+  @Test
+  void givenJsonCacheEnabled_whenGetAllBooks_thenReturnSerializedPage() throws IOException {
+    BooksController booksController = jsonCachingController();
+    BooksPage page = new BooksPage(Instancio.ofList(Book.class).size(2).create(), null);
+    when(booksService.getAllBooks(null, 2)).thenReturn(page);
+
+    ResponseEntity<?> response =
+        booksController.getAllBooks(null, 2, null, null, null, null, "id", null, null);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertArrayEquals(objectMapper.writeValueAsBytes(page), (byte[]) response.getBody());
+  }
+
+  @Test
+  void givenJsonCacheEnabledAndCborAccepted_whenGetBookById_thenReturnBookForConverter() {
+    BooksController booksController = jsonCachingController();
+    Book book = Instancio.create(Book.class);
+    when(booksService.getBookById(book.getId())).thenReturn(book);
+
+    ResponseEntity<?> response =
+        booksController.getBookById(
+            book.getId(), null, MediaType.APPLICATION_CBOR_VALUE + ", */*;q=0.1");
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(book, response.getBody());
+    assertEquals(BookETags.of(book), response.getHeaders().getETag());
+  }
+
+  @Test
+  void givenJsonCacheEnabledAndSmilePreferred_whenGetAllBooks_thenReturnPageForConverter() {
+    BooksController booksController = jsonCachingController();
+    BooksPage page = new BooksPage(Instancio.ofList(Book.class).size(2).create(), null);
+    when(booksService.getAllBooks(null, 2)).thenReturn(page);
+
+    ResponseEntity<?> response =
+        booksController.getAllBooks(
+            null,
+            2,
+            null,
+            null,
+            null,
+            null,
+            "id",
+            null,
+            "application/json;q=0.5, " + BooksController.APPLICATION_SMILE_VALUE);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(page, response.getBody());
+  }
+
   @SuppressWarnings("null")
   @Test
-  void whenGetAllBooks_thenReturnBooksList() {
+  void whenGetAllBooks_thenReturnBooksPage() {
     List<Book> books = Instancio.ofList(Book.class).size(2).create();
-    when(booksService.getAllBooks()).thenReturn(books);
+    BooksPage page = new BooksPage(books, books.getLast().getId().toString());
+    when(booksService.getAllBooks(null, 2)).thenReturn(page);
 
-    ResponseEntity<List<Book>> response = booksController.getAllBooks();
+    ResponseEntity<?> response =
+        booksController.getAllBooks(null, 2, null, null, null, null, "id", null, null);
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
     assertNotNull(response.getBody());
-    assertEquals(2, response.getBody().size());
-    assertEquals(books, response.getBody());
+    assertEquals(page, response.getBody());
+  }
+
+  @Test
+  void givenInvalidCursor_whenGetAllBooks_thenReturnBadRequest() {
+    when(booksService.getAllBooks("not-a-cursor", 50))
+        .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+    ResponseEntity<?> response =
+        booksController.getAllBooks("not-a-cursor", 50, null, null, null, null, "id", null, null);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertNull(response.getBody());
+  }
+
+  @Test
+  void givenFilterAndSort_whenGetAllBooks_thenReturnFilteredPage() {
+    BooksPage page = new BooksPage(Instancio.ofList(Book.class).size(2).create(), null);
+    BooksFilter filter = new BooksFilter(10.0, 30.0, 1, "Spring");
+    when(booksService.findBooks(filter, BooksSort.PRICE_DESC, null, 2)).thenReturn(page);
+
+    ResponseEntity<?> response =
+        booksController.getAllBooks(null, 2, 10.0, 30.0, 1, "Spring", "-price", null, null);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(page, response.getBody());
+    assertEquals(BookETags.of(page), response.getHeaders().getETag());
+    verify(booksService, never()).getAllBooks(any(), eq(2));
+  }
+
+  @Test
+  void givenUnsupportedSort_whenGetAllBooks_thenReturnBadRequest() {
+    ResponseEntity<?> response =
+        booksController.getAllBooks(null, 50, null, null, null, null, "name", null, null);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    verify(booksService, never()).findBooks(any(), any(), any(), eq(50));
+  }
+
+  @Test
+  void whenSearchBooks_thenReturnMatchingPage() {
+    BooksPage page = new BooksPage(Instancio.ofList(Book.class).size(2).create(), "2");
+    when(booksService.searchBooks("spring", null, 2)).thenReturn(page);
+
+    ResponseEntity<BooksPage> response = booksController.searchBooks("spring", null, 2);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(page, response.getBody());
+  }
+
+  @Test
+  void givenMissingQuery_whenSearchBooks_thenReturnBadRequest() {
+    when(booksService.searchBooks(null, null, 20))
+        .thenThrow(new IllegalArgumentException("Search query is required"));
+
+    ResponseEntity<BooksPage> response = booksController.searchBooks(null, null, 20);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+  }
+
+  @SuppressWarnings("null")
+  @Test
+  void whenExportBooks_thenStreamBooksAsNdjson() throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    ResponseEntity<StreamingResponseBody> response = booksController.exportBooks();
+    response.getBody().writeTo(outputStream);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+    verify(booksBulkService).exportBooks(outputStream);
   }
 
   @Test
@@ -76,13 +249,106 @@ class BooksControllerTest {
     assertEquals(book, result);
   }
 
+  @Test
+  void whenCreateBooks_thenReturnItemResults() {
+    List<Book> books = Instancio.ofList(Book.class).size(2).create();
+    List<BulkItemResult> results =
+        List.of(
+            BulkItemResult.created(0, books.get(0).getId()),
+            BulkItemResult.failed(1, "Book name is required"));
+    when(booksBulkService.createBooks(books)).thenReturn(results);
+
+    ResponseEntity<List<BulkItemResult>> response = booksController.createBooks(books);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(results, response.getBody());
+  }
+
+  @Test
+  void givenNdjson_whenCreateBooksFromNdjson_thenReturnItemResults() throws IOException {
+    InputStream ndjson = new ByteArrayInputStream(new byte[0]);
+    List<BulkItemResult> results = List.of(BulkItemResult.created(0, UUID.randomUUID()));
+    when(booksBulkService.createBooks(ndjson)).thenReturn(results);
+
+    ResponseEntity<List<BulkItemResult>> response = booksController.createBooksFromNdjson(ndjson);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(results, response.getBody());
+  }
+
+  @Test
+  void givenMalformedNdjson_whenCreateBooksFromNdjson_thenReturnBadRequest() throws IOException {
+    InputStream ndjson = new ByteArrayInputStream(new byte[0]);
+    when(booksBulkService.createBooks(ndjson)).thenThrow(new IOException("Malformed"));
+
+    ResponseEntity<List<BulkItemResult>> response = booksController.createBooksFromNdjson(ndjson);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertNull(response.getBody());
+  }
+
+  @Test
+  void givenCsv_whenImportBooks_thenReturnImportResult() throws IOException {
+    InputStream csv = new ByteArrayInputStream(new byte[0]);
+    CsvImportResult result =
+        CsvImportResult.builder()
+            .rows(2)
+            .inserted(1)
+            .rejected(1)
+            .rejections(List.of(BulkItemResult.failed(1, "Book name is required")))
+            .build();
+    when(booksBulkService.importBooks(csv)).thenReturn(result);
+
+    ResponseEntity<?> response = booksController.importBooks(csv);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(result, response.getBody());
+  }
+
+  @Test
+  void givenMalformedCsv_whenImportBooks_thenReturnBadRequestProblem() throws IOException {
+    InputStream csv = new ByteArrayInputStream(new byte[0]);
+    when(booksBulkService.importBooks(csv))
+        .thenThrow(new IllegalArgumentException("unterminated CSV quoted field"));
+
+    ResponseEntity<?> response = booksController.importBooks(csv);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    ProblemDetail problem = (ProblemDetail) response.getBody();
+    assertNotNull(problem);
+    assertEquals("unterminated CSV quoted field", problem.getDetail());
+  }
+
+  @Test
+  void givenIds_whenGetBooksByIds_thenReturnFoundBooks() {
+    List<Book> books = Instancio.ofList(Book.class).size(2).create();
+    List<UUID> ids = List.of(books.get(0).getId(), UUID.randomUUID(), books.get(1).getId());
+    when(booksService.getBooksByIds(ids)).thenReturn(books);
+
+    ResponseEntity<List<Book>> response = booksController.getBooksByIds(ids);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(books, response.getBody());
+  }
+
+  @Test
+  void givenTooManyIds_whenGetBooksByIds_thenReturnBadRequest() {
+    List<UUID> ids = Instancio.ofList(UUID.class).size(501).create();
+    when(booksService.getBooksByIds(ids))
+        .thenThrow(new IllegalArgumentException("At most 500 books can be fetched at once"));
+
+    ResponseEntity<List<Book>> response = booksController.getBooksByIds(ids);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+  }
+
   @Test
   void givenValidId_whenUpdateBook_thenReturnUpdatedBook() {
     Book book = Instancio.create(Book.class);
     UUID id = book.getId();
     when(booksService.updateBook(eq(id), any(Book.class))).thenReturn(book);
 
-    ResponseEntity<Book> response = booksController.updateBook(id, book);
+    ResponseEntity<Book> response = booksController.updateBook(id, null, book, null);
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
     assertEquals(book, response.getBody());
@@ -95,7 +361,7 @@ class BooksControllerTest {
     when(booksService.updateBook(eq(id), any(Book.class)))
         .thenThrow(new RuntimeException("Not found"));
 
-    ResponseEntity<Book> response = booksController.updateBook(id, book);
+    ResponseEntity<Book> response = booksController.updateBook(id, null, book, null);
 
     assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     assertNull(response.getBody());
@@ -107,7 +373,7 @@ class BooksControllerTest {
     UUID id = book.getId();
     when(booksService.deleteBook(id)).thenReturn(book);
 
-    ResponseEntity<Book> response = booksController.deleteBook(id);
+    ResponseEntity<Book> response = booksController.deleteBook(id, null);
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
     assertEquals(book, response.getBody());
@@ -118,9 +384,256 @@ class BooksControllerTest {
     UUID id = UUID.randomUUID();
     when(booksService.deleteBook(id)).thenThrow(new RuntimeException("Not found"));
 
-    ResponseEntity<Book> response = booksController.deleteBook(id);
+    ResponseEntity<Book> response = booksController.deleteBook(id, null);
 
     assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     assertNull(response.getBody());
   }
+
+  @Test
+  void givenMatchingIfNoneMatch_whenGetBookById_thenReturnNotModifiedWithoutLoadingBook() {
+    UUID id = UUID.randomUUID();
+    when(booksService.getBookVersion(id)).thenReturn(3L);
+
+    ResponseEntity<?> response = booksController.getBookById(id, "\"3\"", null);
+
+    assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    assertEquals("\"3\"", response.getHeaders().getETag());
+    assertNull(response.getBody());
+    verify(booksService, never()).getBookById(id);
+  }
+
+  @Test
+  void givenStaleIfNoneMatch_whenGetBookById_thenReturnBookWithETag() {
+    Book book = Instancio.create(Book.class);
+    book.setVersion(4L);
+    when(booksService.getBookVersion(book.getId())).thenReturn(4L);
+    when(booksService.getBookById(book.getId())).thenReturn(book);
+
+    ResponseEntity<?> response = booksController.getBookById(book.getId(), "\"3\"", null);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("\"4\"", response.getHeaders().getETag());
+    assertEquals(book, response.getBody());
+  }
+
+  @Test
+  void givenJsonCacheEnabledAndMatchingIfNoneMatch_whenGetBookById_thenReturnNotModified() {
+    BooksController booksController = jsonCachingController();
+    Book book = Instancio.create(Book.class);
+    when(booksService.getBookById(book.getId())).thenReturn(book);
+
+    ResponseEntity<?> response =
+        booksController.getBookById(book.getId(), BookETags.of(book), null);
+
+    assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    assertNull(response.getBody());
+  }
+
+  @Test
+  void givenMatchingIfNoneMatch_whenGetAllBooks_thenReturnNotModified() {
+    BooksPage page = new BooksPage(Instancio.ofList(Book.class).size(2).create(), null);
+    when(booksService.getAllBooks(null, 2)).thenReturn(page);
+
+    ResponseEntity<?> response =
+        booksController.getAllBooks(
+            null, 2, null, null, null, null, "id", BookETags.of(page), null);
+
+    assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    assertEquals(BookETags.of(page), response.getHeaders().getETag());
+    assertNull(response.getBody());
+  }
+
+  @Test
+  void givenIfMatch_whenUpdateBook_thenUpdateExpectedVersion() {
+    Book book = Instancio.create(Book.class);
+    book.setVersion(3L);
+    UUID id = book.getId();
+    when(booksService.updateBook(eq(id), any(Book.class), eq(2L))).thenReturn(book);
+
+    ResponseEntity<Book> response = booksController.updateBook(id, "\"2\"", book, null);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("\"3\"", response.getHeaders().getETag());
+    assertEquals(book, response.getBody());
+  }
+
+  @Test
+  void givenCborAccept_whenGetBookById_thenReturnCborETagVaryingByAccept() {
+    Book book = Instancio.create(Book.class);
+    book.setVersion(4L);
+    when(booksService.getBookVersion(book.getId())).thenReturn(4L);
+    when(booksService.getBookById(book.getId())).thenReturn(book);
+
+    ResponseEntity<?> response =
+        booksController.getBookById(
+            book.getId(), "\"4\"", MediaType.APPLICATION_CBOR_VALUE + ", application/json;q=0.5");
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("\"4-cbor\"", response.getHeaders().getETag());
+    assertEquals(MediaType.APPLICATION_CBOR, response.getHeaders().getContentType());
+    assertEquals(List.of(HttpHeaders.ACCEPT), response.getHeaders().getVary());
+    assertEquals(book, response.getBody());
+  }
+
+  @Test
+  void givenSmileIfMatch_whenUpdateBook_thenUpdateExpectedVersion() {
+    Book book = Instancio.create(Book.class);
+    book.setVersion(3L);
+    UUID id = book.getId();
+    when(booksService.updateBook(eq(id), any(Book.class), eq(2L))).thenReturn(book);
+
+    ResponseEntity<Book> response =
+        booksController.updateBook(
+            id, "\"2-smile\"", book, BooksController.APPLICATION_SMILE_VALUE);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("\"3-smile\"", response.getHeaders().getETag());
+    assertEquals(List.of(HttpHeaders.ACCEPT), response.getHeaders().getVary());
+  }
+
+  @Test
+  void givenStaleIfMatch_whenUpdateBook_thenReturnPreconditionFailed() {
+    Book book = Instancio.create(Book.class);
+    UUID id = book.getId();
+    when(booksService.updateBook(eq(id), any(Book.class), eq(2L)))
+        .thenThrow(new OptimisticLockingFailureException("Modified"));
+
+    ResponseEntity<Book> response = booksController.updateBook(id, "\"2\"", book, null);
+
+    assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+    assertNull(response.getBody());
+  }
+
+  @Test
+  void givenConcurrentModification_whenUpdateBookWithoutIfMatch_thenReturnConflict() {
+    Book book = Instancio.create(Book.class);
+    UUID id = book.getId();
+    when(booksService.updateBook(eq(id), any(Book.class)))
+        .thenThrow(new OptimisticLockingFailureException("Modified"));
+
+    ResponseEntity<Book> response = booksController.updateBook(id, null, book, null);
+
+    assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+  }
+
+  @Test
+  void givenWeakIfMatch_whenUpdateBook_thenReturnPreconditionFailed() {
+    Book book = Instancio.create(Book.class);
+    when(booksService.getBookVersion(book.getId())).thenReturn(2L);
+
+    ResponseEntity<Book> response =
+        booksController.updateBook(book.getId(), "W/\"2\"", book, null);
+
+    assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+  }
+
+  @Test
+  void givenMalformedIfMatch_whenUpdateBook_thenReturnPreconditionFailed() {
+    Book book = Instancio.create(Book.class);
+
+    ResponseEntity<Book> response = booksController.updateBook(book.getId(), "2", book, null);
+
+    assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+  }
+
+  @Test
+  void givenIfMatchList_whenUpdateBook_thenUpdateTheCurrentVersion() {
+    Book book = Instancio.create(Book.class);
+    book.setVersion(5L);
+    UUID id = book.getId();
+    when(booksService.getBookVersion(id)).thenReturn(4L);
+    when(booksService.updateBook(eq(id), any(Book.class), eq(4L))).thenReturn(book);
+
+    ResponseEntity<Book> response = booksController.updateBook(id, "\"3\", \"4\"", book, null);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("\"5\"", response.getHeaders().getETag());
+  }
+
+  @Test
+  void givenIfMatchAny_whenUpdateBook_thenUpdateWithoutVersion() {
+    Book book = Instancio.create(Book.class);
+    UUID id = book.getId();
+    when(booksService.updateBook(eq(id), any(Book.class))).thenReturn(book);
+
+    ResponseEntity<Book> response = booksController.updateBook(id, "*", book, null);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+  }
+
+  @Test
+  void givenInvalidAccept_whenUpdateBook_thenPreconditionIsNotBlamed() {
+    Book book = Instancio.create(Book.class);
+
+    assertThrows(
+        InvalidMediaTypeException.class,
+        () -> booksController.updateBook(book.getId(), "\"2\"", book, "not a media type"));
+    verifyNoInteractions(booksService);
+  }
+
+  @Test
+  void givenStaleIfMatch_whenDeleteBook_thenReturnPreconditionFailed() {
+    UUID id = UUID.randomUUID();
+    when(booksService.deleteBook(id, 2L))
+        .thenThrow(new OptimisticLockingFailureException("Modified"));
+
+    ResponseEntity<Book> response = booksController.deleteBook(id, "\"2\"");
+
+    assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+  }
+
+  @Test
+  void givenIfMatchListWithoutCurrentVersion_whenDeleteBook_thenReturnPreconditionFailed() {
+    UUID id = UUID.randomUUID();
+    when(booksService.getBookVersion(id)).thenReturn(5L);
+
+    ResponseEntity<Book> response = booksController.deleteBook(id, "\"3\", \"4\"");
+
+    assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+    verify(booksService, never()).deleteBook(eq(id), anyLong());
+  }
+
+  private BooksController jsonCachingController() {
+    BooksProperties.JsonCache jsonCacheProperties = new BooksProperties.JsonCache();
+    jsonCacheProperties.setEnabled(true);
+    return new BooksController(
+        booksService, booksBulkService, new BooksJsonCache(objectMapper, jsonCacheProperties));
+  }
+
+  @Test
+  void givenEnoughStock_whenReserveStock_thenReturnBookWithETag() {
+    Book book = Instancio.create(Book.class);
+    when(booksService.reserveStock(book.getId(), 2)).thenReturn(book);
+
+    ResponseEntity<?> response = booksController.reserveStock(book.getId(), 2, null);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(book, response.getBody());
+    assertEquals(BookETags.of(book), response.getHeaders().getETag());
+  }
+
+  @Test
+  void givenNotEnoughStock_whenReserveStock_thenReturnConflictProblem() {
+    UUID id = UUID.randomUUID();
+    when(booksService.reserveStock(id, 3))
+        .thenThrow(new OutOfStockException("Not enough stock to reserve 3, id: " + id));
+
+    ResponseEntity<?> response = booksController.reserveStock(id, 3, null);
+
+    assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    ProblemDetail problem = (ProblemDetail) response.getBody();
+    assertNotNull(problem);
+    assertEquals("Not enough stock to reserve 3, id: " + id, problem.getDetail());
+  }
+
+  @Test
+  void givenInvalidId_whenReleaseStock_thenReturnNotFound() {
+    UUID id = UUID.randomUUID();
+    when(booksService.releaseStock(id, 1)).thenThrow(new RuntimeException("Not found"));
+
+    ResponseEntity<Book> response = booksController.releaseStock(id, 1, null);
+
+    assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+  }
 }
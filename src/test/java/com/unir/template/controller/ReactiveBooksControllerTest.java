@@ -0,0 +1,249 @@
+package com.unir.template.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BooksFilter;
+import com.unir.template.model.BooksPage;
+import com.unir.template.model.BooksSort;
+import com.unir.template.model.BulkItemResult;
+import com.unir.template.service.OutOfStockException;
+import com.unir.template.service.ReactiveBooksBulkService;
+import com.unir.template.service.ReactiveBooksService;
+import java.util.List;
+import java.util.UUID;
+import org.instancio.Instancio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class ReactiveBooksControllerTest {
+
+  private ReactiveBooksService booksService;
+  private ReactiveBooksBulkService booksBulkService;
+  private ReactiveBooksController booksController;
+
+  @BeforeEach
+  void setUp() {
+    booksService = mock(ReactiveBooksService.class);
+    booksBulkService = mock(ReactiveBooksBulkService.class);
+    booksController = new ReactiveBooksController(booksService, booksBulkService);
+  }
+
+  @Test
+  void givenValidId_whenGetBookById_thenReturnBookWithETag() {
+    Book book = Instancio.create(Book.class);
+    book.setVersion(2L);
+    when(booksService.getBookById(book.getId())).thenReturn(Mono.just(book));
+
+    ResponseEntity<?> response = booksController.getBookById(book.getId(), null, null).block();
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("\"2\"", response.getHeaders().getETag());
+    assertEquals(book, response.getBody());
+  }
+
+  @Test
+  void givenInvalidId_whenGetBookById_thenReturnNotFound() {
+    UUID id = UUID.randomUUID();
+    when(booksService.getBookById(id)).thenReturn(Mono.error(new RuntimeException("Not found")));
+
+    ResponseEntity<?> response = booksController.getBookById(id, null, null).block();
+
+    assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+  }
+
+  @Test
+  void givenMatchingIfNoneMatch_whenGetBookById_thenReturnNotModifiedWithoutLoadingBook() {
+    UUID id = UUID.randomUUID();
+    when(booksService.getBookVersion(id)).thenReturn(Mono.just(3L));
+
+    ResponseEntity<?> response = booksController.getBookById(id, "\"3\"", null).block();
+
+    assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+    assertEquals("\"3\"", response.getHeaders().getETag());
+    assertNull(response.getBody());
+    verify(booksService, never()).getBookById(id);
+  }
+
+  @Test
+  void givenFilterAndSort_whenGetAllBooks_thenReturnFilteredPage() {
+    BooksPage page = new BooksPage(Instancio.ofList(Book.class).size(2).create(), null);
+    BooksFilter filter = new BooksFilter(10.0, null, 1, null);
+    when(booksService.findBooks(filter, BooksSort.PRICE_DESC, null, 50))
+        .thenReturn(Mono.just(page));
+
+    ResponseEntity<?> response =
+        booksController.getAllBooks(null, 50, 10.0, null, 1, null, "-price", null, null).block();
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(page, response.getBody());
+    verify(booksService, never()).getAllBooks(any(), eq(50));
+  }
+
+  @Test
+  void givenUnsupportedSort_whenGetAllBooks_thenReturnBadRequest() {
+    ResponseEntity<?> response =
+        booksController.getAllBooks(null, 50, null, null, null, null, "name", null, null).block();
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+  }
+
+  @Test
+  void givenInvalidCursor_whenGetAllBooks_thenReturnBadRequest() {
+    when(booksService.getAllBooks("not-a-cursor", 50))
+        .thenReturn(Mono.error(new IllegalArgumentException("Invalid cursor")));
+
+    ResponseEntity<?> response =
+        booksController
+            .getAllBooks("not-a-cursor", 50, null, null, null, null, "id", null, null)
+            .block();
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+  }
+
+  @Test
+  void givenUndecodableNdjson_whenCreateBooksFromNdjson_thenReturnBadRequest() {
+    Flux<String> lines = Flux.error(new DecodingException("Undecodable NDJSON"));
+    when(booksBulkService.createBooksFromNdjson(lines))
+        .thenReturn(Flux.error(new DecodingException("")));
+
+    ResponseEntity<List<BulkItemResult>> response =
+        booksController.createBooksFromNdjson(lines).block();
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+  }
+
+  @Test
+  void givenTooManyIds_whenGetBooksByIds_thenReturnBadRequest() {
+    List<UUID> ids = List.of(UUID.randomUUID());
+    when(booksService.getBooksByIds(ids))
+        .thenReturn(Flux.error(new IllegalArgumentException("Too many ids")));
+
+    ResponseEntity<List<Book>> response = booksController.getBooksByIds(ids).block();
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+  }
+
+  @Test
+  void givenIfMatch_whenUpdateBook_thenUpdateExpectedVersion() {
+    Book book = Instancio.create(Book.class);
+    book.setVersion(6L);
+    when(booksService.updateBook(book.getId(), book, 5L)).thenReturn(Mono.just(book));
+
+    ResponseEntity<Book> response =
+        booksController.updateBook(book.getId(), "\"5\"", book, null).block();
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("\"6\"", response.getHeaders().getETag());
+  }
+
+  @Test
+  void givenStaleIfMatch_whenUpdateBook_thenReturnPreconditionFailed() {
+    Book book = Instancio.create(Book.class);
+    when(booksService.updateBook(book.getId(), book, 5L))
+        .thenReturn(Mono.error(new OptimisticLockingFailureException("Stale")));
+
+    ResponseEntity<Book> response =
+        booksController.updateBook(book.getId(), "\"5\"", book, null).block();
+
+    assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+  }
+
+  @Test
+  void givenIfMatchList_whenUpdateBook_thenUpdateTheCurrentVersion() {
+    Book book = Instancio.create(Book.class);
+    book.setVersion(6L);
+    when(booksService.getBookVersion(book.getId())).thenReturn(Mono.just(5L));
+    when(booksService.updateBook(book.getId(), book, 5L)).thenReturn(Mono.just(book));
+
+    ResponseEntity<Book> response =
+        booksController.updateBook(book.getId(), "\"4\", \"5\"", book, null).block();
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("\"6\"", response.getHeaders().getETag());
+  }
+
+  @Test
+  void givenConcurrentModification_whenUpdateBookWithoutIfMatch_thenReturnConflict() {
+    Book book = Instancio.create(Book.class);
+    when(booksService.updateBook(book.getId(), book))
+        .thenReturn(Mono.error(new OptimisticLockingFailureException("Concurrent update")));
+
+    ResponseEntity<Book> response =
+        booksController.updateBook(book.getId(), null, book, null).block();
+
+    assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+  }
+
+  @Test
+  void givenMalformedIfMatch_whenDeleteBook_thenReturnPreconditionFailed() {
+    UUID id = UUID.randomUUID();
+
+    ResponseEntity<Book> response = booksController.deleteBook(id, "not-an-etag").block();
+
+    assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+    verify(booksService, never()).deleteBook(id);
+  }
+
+  @Test
+  void givenIfMatchAny_whenDeleteBook_thenDeleteWithoutVersion() {
+    Book book = Instancio.create(Book.class);
+    when(booksService.deleteBook(book.getId())).thenReturn(Mono.just(book));
+
+    ResponseEntity<Book> response = booksController.deleteBook(book.getId(), "*").block();
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(book, response.getBody());
+  }
+
+  @Test
+  void givenInvalidId_whenDeleteBook_thenReturnNotFound() {
+    UUID id = UUID.randomUUID();
+    when(booksService.deleteBook(id)).thenReturn(Mono.error(new RuntimeException("Not found")));
+
+    ResponseEntity<Book> response = booksController.deleteBook(id, null).block();
+
+    assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+  }
+
+  @Test
+  void givenNotEnoughStock_whenReserveStock_thenReturnConflictProblem() {
+    UUID id = UUID.randomUUID();
+    when(booksService.reserveStock(id, 3))
+        .thenReturn(
+            Mono.error(new OutOfStockException("Not enough stock to reserve 3, id: " + id)));
+
+    ResponseEntity<?> response = booksController.reserveStock(id, 3, null).block();
+
+    assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    ProblemDetail problem = (ProblemDetail) response.getBody();
+    assertNotNull(problem);
+    assertEquals("Not enough stock to reserve 3, id: " + id, problem.getDetail());
+  }
+
+  @Test
+  void givenNonPositiveQuantity_whenReleaseStock_thenReturnBadRequest() {
+    UUID id = UUID.randomUUID();
+    when(booksService.releaseStock(id, 0))
+        .thenReturn(Mono.error(new IllegalArgumentException("Quantity must be positive: 0")));
+
+    ResponseEntity<Book> response = booksController.releaseStock(id, 0, null).block();
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+  }
+}
@@ -0,0 +1,866 @@
+package com.unir.template.e2e;
+
+import static io.restassured.RestAssured.given;
+import static io.restassured.config.EncoderConfig.encoderConfig;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.unir.template.controller.BooksController;
+import com.unir.template.e2e.common.E2EContainer;
+import com.unir.template.model.Book;
+import com.unir.template.model.BulkItemResult;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import io.restassured.response.ExtractableResponse;
+import io.restassured.response.Response;
+import io.restassured.response.ValidatableResponse;
+import io.restassured.specification.RequestSpecification;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * End-to-end tests of the books API over HTTP. Subclasses start the application, on the JVM or as a
+ * native image, against the shared PostgreSQL container and tell where it listens.
+ */
+abstract class BooksE2ETestBase extends E2EContainer {
+
+  /** Port of the books API. */
+  abstract int port();
+
+  /** Port of the actuator endpoints. */
+  abstract int managementPort();
+
+  String host() {
+    return "localhost";
+  }
+
+  /** Prefixes of the metrics the database access layer of the stack under test exposes. */
+  List<String> dataAccessMetrics() {
+    return List.of("hikaricp_connections_acquire_seconds", "hibernate_");
+  }
+
+  @BeforeEach
+  void setUp() {
+    // Set the base URI for Rest Assured
+    RestAssured.port = port();
+    RestAssured.baseURI = "http://" + host();
+  }
+
+  @Test
+  void givenValidBookData_whenCreatingBook_thenBookIsCreatedAndCanBeRetrieved() {
+    // Given
+    String bookJson =
+        """
+        {
+          "name": "The Great Gatsby",
+          "description": "A classic American novel",
+          "price": 19.99,
+          "stock": 10
+        }
+        """;
+
+    // When & Then - Create book
+    String bookId =
+        given()
+            .contentType(ContentType.JSON)
+            .body(bookJson)
+            .when()
+            .post("/api/books")
+            .then()
+            .statusCode(200)
+            .body("name", equalTo("The Great Gatsby"))
+            .body("description", equalTo("A classic American novel"))
+            .body("price", equalTo(19.99f))
+            .body("stock", equalTo(10))
+            .body("id", notNullValue())
+            .extract()
+            .path("id");
+
+    // When & Then - Retrieve the created book
+    given()
+        .when()
+        .get("/api/books/" + bookId)
+        .then()
+        .statusCode(200)
+        .body("name", equalTo("The Great Gatsby"))
+        .body("description", equalTo("A classic American novel"))
+        .body("price", equalTo(19.99f))
+        .body("stock", equalTo(10));
+  }
+
+  @Test
+  void givenNonExistentBookId_whenRetrievingBook_thenReturns404() {
+    // Given
+    UUID nonExistentId = UUID.randomUUID();
+
+    // When & Then
+    given().when().get("/api/books/" + nonExistentId).then().statusCode(404);
+  }
+
+  @Test
+  void givenBooks_whenBatchGettingByIds_thenFoundBooksAreReturnedInRequestOrder() {
+    // Given
+    String firstId =
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"name\": \"Batch 1\", \"price\": 9.99}")
+            .when()
+            .post("/api/books")
+            .then()
+            .statusCode(200)
+            .extract()
+            .path("id");
+    String secondId =
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"name\": \"Batch 2\", \"price\": 9.99}")
+            .when()
+            .post("/api/books")
+            .then()
+            .statusCode(200)
+            .extract()
+            .path("id");
+    String missingId = UUID.randomUUID().toString();
+
+    // When & Then
+    given()
+        .contentType(ContentType.JSON)
+        .body(List.of(secondId, missingId, firstId))
+        .when()
+        .post("/api/books/_batchGet")
+        .then()
+        .statusCode(200)
+        .body("id", contains(secondId, firstId))
+        .body("name", contains("Batch 2", "Batch 1"));
+  }
+
+  @Test
+  void givenMultipleBooks_whenGettingAllBooks_thenReturnsAllBooks() {
+    // Given - Create multiple books
+    String book1Json =
+        """
+        {
+          "name": "Book 1",
+          "description": "First book",
+          "price": 15.99,
+          "stock": 5
+        }
+        """;
+
+    String book2Json =
+        """
+        {
+          "name": "Book 2",
+          "description": "Second book",
+          "price": 25.99,
+          "stock": 8
+        }
+        """;
+
+    // Create first book
+    given()
+        .contentType(ContentType.JSON)
+        .body(book1Json)
+        .when()
+        .post("/api/books")
+        .then()
+        .statusCode(200);
+
+    // Create second book
+    given()
+        .contentType(ContentType.JSON)
+        .body(book2Json)
+        .when()
+        .post("/api/books")
+        .then()
+        .statusCode(200);
+
+    // When & Then - Get all books
+    given()
+        .queryParam("limit", 500)
+        .when()
+        .get("/api/books")
+        .then()
+        .statusCode(200)
+        .body("items.size()", greaterThanOrEqualTo(2))
+        .body("items.name", hasItems("Book 1", "Book 2"));
+  }
+
+  @Test
+  void givenMoreBooksThanLimit_whenGettingAllBooks_thenPagesAreLinkedByCursor() {
+    // Given - Create three books
+    for (int i = 1; i <= 3; i++) {
+      given()
+          .contentType(ContentType.JSON)
+          .body(
+              """
+              {
+                "name": "Paged Book %d",
+                "price": 9.99,
+                "stock": 1
+              }
+              """
+                  .formatted(i))
+          .when()
+          .post("/api/books")
+          .then()
+          .statusCode(200);
+    }
+
+    // When - Get the first page
+    String nextCursor =
+        given()
+            .queryParam("limit", 2)
+            .when()
+            .get("/api/books")
+            .then()
+            .statusCode(200)
+            .body("items.size()", equalTo(2))
+            .body("nextCursor", notNullValue())
+            .extract()
+            .path("nextCursor");
+
+    // Then - The next page starts after the cursor
+    given()
+        .queryParam("limit", 2)
+        .queryParam("after", nextCursor)
+        .when()
+        .get("/api/books")
+        .then()
+        .statusCode(200)
+        .body("items.size()", greaterThanOrEqualTo(1))
+        .body("items.id", everyItem(greaterThan(nextCursor)));
+  }
+
+  @Test
+  void givenInvalidCursor_whenGettingAllBooks_thenReturns400() {
+    given().queryParam("after", "not-a-cursor").when().get("/api/books").then().statusCode(400);
+  }
+
+  @Test
+  void givenBooksArray_whenCreatingBooksInBulk_thenEachItemIsReported() {
+    // Given
+    String booksJson =
+        """
+        [
+          { "name": "Bulk Book 1", "price": 11.99, "stock": 1 },
+          { "description": "Missing name" },
+          { "name": "Bulk Book 2", "price": 12.99, "stock": 2 }
+        ]
+        """;
+
+    // When & Then
+    String bookId =
+        given()
+            .contentType(ContentType.JSON)
+            .body(booksJson)
+            .when()
+            .post("/api/books/_bulk")
+            .then()
+            .statusCode(200)
+            .body("size()", equalTo(3))
+            .body("status", contains("CREATED", "FAILED", "CREATED"))
+            .body("[1].error", equalTo("Book name is required"))
+            .extract()
+            .path("[0].id");
+
+    given()
+        .when()
+        .get("/api/books/" + bookId)
+        .then()
+        .statusCode(200)
+        .body("name", equalTo("Bulk Book 1"));
+  }
+
+  @Test
+  void givenSmileBooks_whenCreatingInBulkAndReadingAsCbor_thenBinaryFormatsAreNegotiated()
+      throws IOException {
+    // Given
+    ObjectMapper smileMapper = new SmileMapper();
+    byte[] books =
+        smileMapper.writeValueAsBytes(
+            List.of(
+                Book.builder().name("Smile Book 1").price(15.99).stock(5).build(),
+                Book.builder().name("Smile Book 2").price(16.99).stock(6).build()));
+
+    // When
+    byte[] results =
+        given()
+            .contentType(BooksController.APPLICATION_SMILE_VALUE)
+            .accept(BooksController.APPLICATION_SMILE_VALUE)
+            .body(books)
+            .when()
+            .post("/api/books/_bulk")
+            .then()
+            .statusCode(200)
+            .contentType(BooksController.APPLICATION_SMILE_VALUE)
+            .extract()
+            .asByteArray();
+
+    // Then
+    List<BulkItemResult> created = smileMapper.readValue(results, new TypeReference<>() {});
+    assertThat(created, everyItem(hasProperty("status", equalTo(BulkItemResult.Status.CREATED))));
+    byte[] book =
+        given()
+            .accept("application/cbor")
+            .when()
+            .get("/api/books/" + created.getFirst().getId())
+            .then()
+            .statusCode(200)
+            .contentType("application/cbor")
+            .extract()
+            .asByteArray();
+    assertThat(new CBORMapper().readValue(book, Book.class).getName(), equalTo("Smile Book 1"));
+  }
+
+  @Test
+  void givenNdjsonBody_whenCreatingBooksInBulk_thenBooksAreCreated() {
+    // Given
+    String booksNdjson =
+        """
+        { "name": "Ndjson Book 1", "price": 13.99, "stock": 3 }
+        { "name": "Ndjson Book 2", "price": 14.99, "stock": 4 }
+        """;
+
+    // When & Then
+    given()
+        .config(
+            RestAssured.config()
+                .encoderConfig(
+                    encoderConfig().encodeContentTypeAs("application/x-ndjson", ContentType.TEXT)))
+        .contentType("application/x-ndjson")
+        .body(booksNdjson)
+        .when()
+        .post("/api/books/_bulk")
+        .then()
+        .statusCode(200)
+        .body("status", contains("CREATED", "CREATED"))
+        .body("id", everyItem(notNullValue()));
+  }
+
+  @Test
+  void givenMalformedNdjsonLine_whenCreatingBooksInBulk_thenOnlyThatLineFails() {
+    // Given
+    String booksNdjson =
+        """
+        { "name": "Ndjson Book 1", "price": 13.99, "stock": 3 }
+        { "name": "Ndjson Book 2", "price":
+        { "name": "Ndjson Book 3", "price": 15.99, "stock": 5 }
+        """;
+
+    // When & Then
+    given()
+        .config(
+            RestAssured.config()
+                .encoderConfig(
+                    encoderConfig().encodeContentTypeAs("application/x-ndjson", ContentType.TEXT)))
+        .contentType("application/x-ndjson")
+        .body(booksNdjson)
+        .when()
+        .post("/api/books/_bulk")
+        .then()
+        .statusCode(200)
+        .body("status", contains("CREATED", "FAILED", "CREATED"));
+  }
+
+  @Test
+  void givenExistingBook_whenUpdatingBook_thenBookIsUpdated() {
+    // Given - Create a book first
+    String createBookJson =
+        """
+        {
+          "name": "Original Name",
+          "description": "Original description",
+          "price": 10.99,
+          "stock": 3
+        }
+        """;
+
+    String bookId =
+        given()
+            .contentType(ContentType.JSON)
+            .body(createBookJson)
+            .when()
+            .post("/api/books")
+            .then()
+            .statusCode(200)
+            .extract()
+            .path("id");
+
+    // Update book
+    String updateBookJson =
+        """
+        {
+          "name": "Updated Name",
+          "description": "Updated description",
+          "price": 20.99,
+          "stock": 7
+        }
+        """;
+
+    // When & Then - Update the book
+    given()
+        .contentType(ContentType.JSON)
+        .body(updateBookJson)
+        .when()
+        .put("/api/books/" + bookId)
+        .then()
+        .statusCode(200)
+        .body("name", equalTo("Updated Name"))
+        .body("description", equalTo("Updated description"))
+        .body("price", equalTo(20.99f))
+        .body("stock", equalTo(7));
+
+    // Verify the update by retrieving the book
+    given()
+        .when()
+        .get("/api/books/" + bookId)
+        .then()
+        .statusCode(200)
+        .body("name", equalTo("Updated Name"))
+        .body("description", equalTo("Updated description"));
+  }
+
+  @Test
+  void givenExistingBook_whenDeletingBook_thenBookIsDeleted() {
+    // Given - Create a book first
+    String bookJson =
+        """
+        {
+          "name": "Book to Delete",
+          "description": "This book will be deleted",
+          "price": 12.99,
+          "stock": 2
+        }
+        """;
+
+    String bookId =
+        given()
+            .contentType(ContentType.JSON)
+            .body(bookJson)
+            .when()
+            .post("/api/books")
+            .then()
+            .statusCode(200)
+            .extract()
+            .path("id");
+
+    // When & Then - Delete the book
+    given()
+        .when()
+        .delete("/api/books/" + bookId)
+        .then()
+        .statusCode(200)
+        .body("name", equalTo("Book to Delete"));
+
+    // Verify the book is deleted
+    given().when().get("/api/books/" + bookId).then().statusCode(404);
+  }
+
+  @Test
+  void givenNonExistentBookId_whenUpdatingBook_thenReturns404() {
+    // Given
+    UUID nonExistentId = UUID.randomUUID();
+    String updateBookJson =
+        """
+        {
+          "name": "Updated Name",
+          "description": "Updated description",
+          "price": 20.99,
+          "stock": 7
+        }
+        """;
+
+    // When & Then
+    given()
+        .contentType(ContentType.JSON)
+        .body(updateBookJson)
+        .when()
+        .put("/api/books/" + nonExistentId)
+        .then()
+        .statusCode(404);
+  }
+
+  @Test
+  void givenNonExistentBookId_whenDeletingBook_thenReturns404() {
+    // Given
+    UUID nonExistentId = UUID.randomUUID();
+
+    // When & Then
+    given().when().delete("/api/books/" + nonExistentId).then().statusCode(404);
+  }
+
+  @Test
+  void givenExistingBook_whenRetrievingWithCurrentETag_thenReturns304() {
+    // Given
+    String bookId =
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"name\": \"Tagged Book\", \"price\": 9.99, \"stock\": 1}")
+            .when()
+            .post("/api/books")
+            .then()
+            .statusCode(200)
+            .extract()
+            .path("id");
+    String eTag =
+        given()
+            .when()
+            .get("/api/books/" + bookId)
+            .then()
+            .statusCode(200)
+            .header("ETag", equalTo("\"0\""))
+            .extract()
+            .header("ETag");
+
+    // When & Then
+    given()
+        .header("If-None-Match", eTag)
+        .when()
+        .get("/api/books/" + bookId)
+        .then()
+        .statusCode(304)
+        .header("ETag", equalTo(eTag));
+  }
+
+  @Test
+  void givenStaleETag_whenUpdatingBookWithIfMatch_thenReturns412() {
+    // Given
+    String bookId =
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"name\": \"Contended Book\", \"price\": 9.99, \"stock\": 1}")
+            .when()
+            .post("/api/books")
+            .then()
+            .statusCode(200)
+            .extract()
+            .path("id");
+    String updateBookJson = "{\"name\": \"First Writer\", \"price\": 9.99, \"stock\": 2}";
+
+    given()
+        .contentType(ContentType.JSON)
+        .header("If-Match", "\"0\"")
+        .body(updateBookJson)
+        .when()
+        .put("/api/books/" + bookId)
+        .then()
+        .statusCode(200)
+        .header("ETag", equalTo("\"1\""))
+        .body("version", equalTo(1));
+
+    // When & Then - A second writer still holding version 0 loses
+    given()
+        .contentType(ContentType.JSON)
+        .header("If-Match", "\"0\"")
+        .body("{\"name\": \"Second Writer\", \"price\": 9.99, \"stock\": 3}")
+        .when()
+        .put("/api/books/" + bookId)
+        .then()
+        .statusCode(412);
+    given()
+        .header("If-Match", "\"0\"")
+        .when()
+        .delete("/api/books/" + bookId)
+        .then()
+        .statusCode(412);
+    given().when().get("/api/books/" + bookId).then().body("name", equalTo("First Writer"));
+  }
+
+  @Test
+  void givenServedRequests_whenScrapingPrometheus_thenHotPathMetricsAreExposed() {
+    // Given
+    given().when().get("/api/books/" + UUID.randomUUID()).then().statusCode(404);
+
+    // When
+    ValidatableResponse response =
+        given()
+            .port(managementPort())
+            .when()
+            .get("/actuator/prometheus")
+            .then()
+            .statusCode(200)
+            .body(containsString("http_server_requests_seconds_bucket"))
+            .body(containsString("uri=\"/api/books/{id}\""))
+            .body(containsString("books_service_seconds_bucket"))
+            .body(containsString("jvm_gc_memory_allocated_bytes_total"));
+
+    // Then
+    for (String metric : dataAccessMetrics()) {
+      response.body(containsString(metric));
+    }
+  }
+
+  @Test
+  void givenBooks_whenSearching_thenMatchingBooksArePaginated() {
+    // Given
+    // Digits are mapped to letters rather than dropped, so that every run searches its own word
+    String term =
+        "zebra"
+            + UUID.randomUUID()
+                .toString()
+                .substring(0, 8)
+                .chars()
+                .map(c -> Character.isDigit(c) ? c - '0' + 'g' : c)
+                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append);
+    for (int i = 0; i < 3; i++) {
+      given()
+          .contentType(ContentType.JSON)
+          .body(
+              "{\"name\": \"Book "
+                  + i
+                  + "\", \"description\": \"About "
+                  + term
+                  + "\", \"price\": 9.99, \"stock\": 1}")
+          .when()
+          .post("/api/books")
+          .then()
+          .statusCode(200);
+    }
+
+    // When & Then
+    String nextCursor =
+        given()
+            .queryParam("q", term)
+            .queryParam("limit", 2)
+            .when()
+            .get("/api/books/search")
+            .then()
+            .statusCode(200)
+            .body("items", hasSize(2))
+            .body("nextCursor", notNullValue())
+            .extract()
+            .path("nextCursor");
+    given()
+        .queryParam("q", term)
+        .queryParam("limit", 2)
+        .queryParam("after", nextCursor)
+        .when()
+        .get("/api/books/search")
+        .then()
+        .statusCode(200)
+        .body("items", hasSize(1))
+        .body("nextCursor", nullValue());
+    given().when().get("/api/books/search").then().statusCode(400);
+  }
+
+  @Test
+  void givenBooks_whenFilteringAndSortingByPrice_thenPagesFollowThePriceOrder() {
+    // Given
+    String prefix = "Sorted " + UUID.randomUUID().toString().substring(0, 8);
+    double[] prices = {15.0, 5.0, 25.0, 35.0};
+    for (int i = 0; i < prices.length; i++) {
+      given()
+          .contentType(ContentType.JSON)
+          .body(
+              "{\"name\": \""
+                  + prefix
+                  + " "
+                  + i
+                  + "\", \"price\": "
+                  + prices[i]
+                  + ", \"stock\": 1}")
+          .when()
+          .post("/api/books")
+          .then()
+          .statusCode(200);
+    }
+
+    // When & Then
+    String nextCursor =
+        given()
+            .queryParam("namePrefix", prefix)
+            .queryParam("minPrice", 10)
+            .queryParam("sort", "-price")
+            .queryParam("limit", 2)
+            .when()
+            .get("/api/books")
+            .then()
+            .statusCode(200)
+            .body("items.name", contains(prefix + " 3", prefix + " 2"))
+            .body("nextCursor", notNullValue())
+            .extract()
+            .path("nextCursor");
+    given()
+        .queryParam("namePrefix", prefix)
+        .queryParam("minPrice", 10)
+        .queryParam("sort", "-price")
+        .queryParam("limit", 2)
+        .queryParam("after", nextCursor)
+        .when()
+        .get("/api/books")
+        .then()
+        .statusCode(200)
+        .body("items.name", contains(prefix + " 0"))
+        .body("nextCursor", nullValue());
+    given().queryParam("sort", "name").when().get("/api/books").then().statusCode(400);
+  }
+
+  @Test
+  void givenBookInStock_whenReservingMoreThanLeft_thenReturns409() {
+    // Given
+    String bookId =
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"name\": \"Reserved Book\", \"price\": 12.5, \"stock\": 3}")
+            .when()
+            .post("/api/books")
+            .then()
+            .statusCode(200)
+            .extract()
+            .path("id");
+
+    // When & Then
+    given()
+        .queryParam("quantity", 2)
+        .when()
+        .post("/api/books/" + bookId + "/reserve")
+        .then()
+        .statusCode(200)
+        .body("stock", equalTo(1));
+    given()
+        .queryParam("quantity", 2)
+        .when()
+        .post("/api/books/" + bookId + "/reserve")
+        .then()
+        .statusCode(409)
+        .contentType("application/problem+json")
+        .body("detail", containsString("Not enough stock"));
+    given()
+        .queryParam("quantity", 2)
+        .when()
+        .post("/api/books/" + bookId + "/release")
+        .then()
+        .statusCode(200)
+        .body("stock", equalTo(3));
+  }
+
+  @Test
+  void givenCursor_whenGettingChanges_thenOnlyLaterWritesAreReturned() {
+    // Given
+    String updatedId = createBook("Changed Book");
+    String deletedId = createBook("Deleted Book");
+    String since = latestChangesCursor();
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"name\": \"Changed Book v2\", \"price\": 11.5, \"stock\": 2}")
+        .when()
+        .put("/api/books/" + updatedId)
+        .then()
+        .statusCode(200);
+    given().when().delete("/api/books/" + deletedId).then().statusCode(200);
+
+    // When & Then
+    given()
+        .queryParam("since", since)
+        .when()
+        .get("/api/books/changes")
+        .then()
+        .statusCode(200)
+        .body("items.id", contains(updatedId, deletedId))
+        .body("items.type", contains("UPSERTED", "DELETED"))
+        .body("items[0].book.name", equalTo("Changed Book v2"))
+        .body("items[1].book", nullValue())
+        .body("hasMore", equalTo(false));
+    given()
+        .queryParam("since", "not-a-cursor")
+        .when()
+        .get("/api/books/changes")
+        .then()
+        .statusCode(400);
+  }
+
+  @Test
+  void givenOpenStream_whenCreatingBook_thenChangeIsPushed() throws Exception {
+    // Given
+    String since = latestChangesCursor();
+    HttpRequest request =
+        HttpRequest.newBuilder(
+                URI.create(
+                    "http://%s:%d/api/books/changes/stream%s"
+                        .formatted(host(), port(), since == null ? "" : "?since=" + since)))
+            .header("Accept", "text/event-stream")
+            .build();
+    try (HttpClient client = HttpClient.newHttpClient()) {
+      // Headers may only come with the first event, so the stream is opened asynchronously
+      CompletableFuture<HttpResponse<Stream<String>>> stream =
+          client.sendAsync(request, HttpResponse.BodyHandlers.ofLines());
+
+      // When
+      String bookId = createBook("Streamed Book");
+
+      // Then
+      HttpResponse<Stream<String>> response = stream.get(10, TimeUnit.SECONDS);
+      try (Stream<String> lines = response.body()) {
+        List<String> event =
+            CompletableFuture.supplyAsync(() -> eventContaining(lines.iterator(), bookId))
+                .get(10, TimeUnit.SECONDS);
+        assertThat(response.statusCode(), equalTo(200));
+        assertThat(event, hasItem(matchesPattern("event: ?changes")));
+        assertThat(event, hasItem(startsWith("id:")));
+      }
+    }
+  }
+
+  private String createBook(String name) {
+    return given()
+        .contentType(ContentType.JSON)
+        .body("{\"name\": \"" + name + "\", \"price\": 10.0, \"stock\": 1}")
+        .when()
+        .post("/api/books")
+        .then()
+        .statusCode(200)
+        .extract()
+        .path("id");
+  }
+
+  /** Follows the change feed to its end, as a client does before listening for new changes. */
+  private String latestChangesCursor() {
+    String cursor = null;
+    boolean hasMore = true;
+    while (hasMore) {
+      RequestSpecification request = given().queryParam("limit", 500);
+      if (cursor != null) {
+        request.queryParam("since", cursor);
+      }
+      ExtractableResponse<Response> page =
+          request.when().get("/api/books/changes").then().statusCode(200).extract();
+      cursor = page.path("nextCursor");
+      hasMore = page.path("hasMore");
+    }
+    return cursor;
+  }
+
+  /** Lines of the first server-sent event whose data mentions the given text. */
+  private static List<String> eventContaining(Iterator<String> lines, String text) {
+    List<String> event = new ArrayList<>();
+    while (lines.hasNext()) {
+      String line = lines.next();
+      if (!line.isEmpty()) {
+        event.add(line);
+      } else if (event.stream()
+          .anyMatch(field -> field.startsWith("data:") && field.contains(text))) {
+        return event;
+      } else {
+        event.clear();
+      }
+    }
+    throw new AssertionError("Stream ended before a change mentioning " + text);
+  }
+}
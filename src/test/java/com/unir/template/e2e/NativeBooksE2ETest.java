@@ -0,0 +1,56 @@
+package com.unir.template.e2e;
+
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.testcontainers.Testcontainers;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Runs the end-to-end tests against the native image, started from the image built with {@code
+ * Dockerfile.native} and named by the {@code e2e.native.image} system property. Skipped when it is
+ * not set.
+ */
+@org.testcontainers.junit.jupiter.Testcontainers
+@EnabledIfSystemProperty(named = "e2e.native.image", matches = ".+")
+class NativeBooksE2ETest extends BooksE2ETestBase {
+
+  private static final int PORT = 8080;
+  private static final int MANAGEMENT_PORT = 8081;
+
+  static {
+    // The application container reaches the shared PostgreSQL container through its host port
+    Testcontainers.exposeHostPorts(postgreSQLContainer.getFirstMappedPort());
+  }
+
+  @Container
+  static GenericContainer<?> application =
+      new GenericContainer<>(DockerImageName.parse(System.getProperty("e2e.native.image")))
+          .withAccessToHost(true)
+          .withEnv(
+              "DB_URL",
+              "jdbc:postgresql://host.testcontainers.internal:"
+                  + postgreSQLContainer.getFirstMappedPort()
+                  + "/"
+                  + postgreSQLContainer.getDatabaseName())
+          .withEnv("DB_USERNAME", postgreSQLContainer.getUsername())
+          .withEnv("DB_PASSWORD", postgreSQLContainer.getPassword())
+          .withExposedPorts(PORT, MANAGEMENT_PORT)
+          .waitingFor(Wait.forHttp("/actuator/health").forPort(MANAGEMENT_PORT));
+
+  @Override
+  int port() {
+    return application.getMappedPort(PORT);
+  }
+
+  @Override
+  int managementPort() {
+    return application.getMappedPort(MANAGEMENT_PORT);
+  }
+
+  @Override
+  String host() {
+    return application.getHost();
+  }
+}
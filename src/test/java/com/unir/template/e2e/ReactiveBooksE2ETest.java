@@ -0,0 +1,64 @@
+package com.unir.template.e2e;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.emptyArray;
+
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/** Runs the end-to-end tests against the WebFlux and R2DBC stack of the reactive profile. */
+@AutoConfigureObservability
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "reactive"})
+class ReactiveBooksE2ETest extends BooksE2ETestBase {
+
+  @LocalServerPort private int port;
+
+  @LocalManagementPort private int managementPort;
+
+  @Autowired private ApplicationContext applicationContext;
+
+  @DynamicPropertySource
+  static void configureR2dbc(DynamicPropertyRegistry registry) {
+    registry.add(
+        "spring.r2dbc.url",
+        () ->
+            "r2dbc:postgresql://%s:%d/%s"
+                .formatted(
+                    postgreSQLContainer.getHost(),
+                    postgreSQLContainer.getFirstMappedPort(),
+                    postgreSQLContainer.getDatabaseName()));
+    registry.add("spring.r2dbc.username", postgreSQLContainer::getUsername);
+    registry.add("spring.r2dbc.password", postgreSQLContainer::getPassword);
+  }
+
+  @Test
+  void givenReactiveProfile_whenStarted_thenNoJdbcDataSourceIsCreated() {
+    assertThat(applicationContext.getBeanNamesForType(DataSource.class), emptyArray());
+  }
+
+  @Override
+  int port() {
+    return port;
+  }
+
+  @Override
+  int managementPort() {
+    return managementPort;
+  }
+
+  @Override
+  List<String> dataAccessMetrics() {
+    return List.of("r2dbc_pool_");
+  }
+}
@@ -0,0 +1,143 @@
+package com.unir.template.it;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.unir.template.TemplateApplication;
+import com.unir.template.model.Book;
+import com.unir.template.service.BooksService;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Runs two instances of the application with the books cache against one database, checking that
+ * the writes of one instance evict the books cached by the other.
+ */
+@Testcontainers
+class BookInvalidationIT {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:16.8-alpine")
+          .withDatabaseName("test_db")
+          .withUsername("test_user")
+          .withPassword("test_password");
+
+  private static ConfigurableApplicationContext writer;
+  private static ConfigurableApplicationContext reader;
+
+  @BeforeAll
+  static void startInstances() {
+    writer = startInstance();
+    reader = startInstance();
+  }
+
+  @AfterAll
+  static void stopInstances() {
+    reader.close();
+    writer.close();
+  }
+
+  @Test
+  void givenBookCachedByReader_whenWriterUpdatesIt_thenReaderReturnsUpdate() {
+    // Given
+    Book book = writerService().createBook(book("Before"));
+    assertThat(readerService().getBookById(book.getId()).getName()).isEqualTo("Before");
+
+    // When
+    writerService().updateBook(book.getId(), book("After"));
+
+    // Then
+    awaitTrue(() -> "After".equals(readerService().getBookById(book.getId()).getName()));
+  }
+
+  @Test
+  void givenBookCachedByReader_whenWriterDeletesIt_thenReaderNoLongerFindsIt() {
+    // Given
+    Book book = writerService().createBook(book("Deleted"));
+    readerService().getBookById(book.getId());
+
+    // When
+    writerService().deleteBook(book.getId());
+
+    // Then
+    awaitTrue(() -> isMissing(book));
+  }
+
+  @Test
+  void givenListenerDisconnected_whenItReconnects_thenWritesItMissedAreNotServed() {
+    // Given
+    Book book = writerService().createBook(book("Cached"));
+    readerService().getBookById(book.getId());
+    JdbcTemplate jdbcTemplate = writer.getBean(JdbcTemplate.class);
+    // Written behind the back of both instances, as if the notification had been lost
+    jdbcTemplate.update("UPDATE books SET name = 'Missed' WHERE id = ?", book.getId());
+
+    // When
+    jdbcTemplate.queryForList(
+        "SELECT pg_terminate_backend(pid) FROM pg_stat_activity"
+            + " WHERE application_name = 'book-invalidation'");
+
+    // Then
+    awaitTrue(() -> "Missed".equals(readerService().getBookById(book.getId()).getName()));
+  }
+
+  private static ConfigurableApplicationContext startInstance() {
+    return new SpringApplicationBuilder(TemplateApplication.class)
+        .web(WebApplicationType.NONE)
+        .profiles("test")
+        .properties(
+            "spring.datasource.url=" + postgres.getJdbcUrl(),
+            "spring.datasource.username=" + postgres.getUsername(),
+            "spring.datasource.password=" + postgres.getPassword(),
+            "books.cache.enabled=true",
+            "books.invalidation.enabled=true",
+            "books.invalidation.reconnect-delay=100ms")
+        .run();
+  }
+
+  private static BooksService writerService() {
+    return writer.getBean(BooksService.class);
+  }
+
+  private static BooksService readerService() {
+    return reader.getBean(BooksService.class);
+  }
+
+  private static Book book(String name) {
+    return Book.builder().name(name).price(10.0).stock(1).build();
+  }
+
+  private static boolean isMissing(Book book) {
+    try {
+      readerService().getBookById(book.getId());
+      return false;
+    } catch (RuntimeException _) {
+      return true;
+    }
+  }
+
+  private static void awaitTrue(BooleanSupplier condition) {
+    long deadline = System.nanoTime() + TIMEOUT.toNanos();
+    while (!condition.getAsBoolean()) {
+      assertThat(System.nanoTime()).as("condition met within %s", TIMEOUT).isLessThan(deadline);
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,252 @@
+package com.unir.template.it;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BulkItemResult;
+import com.unir.template.model.CsvImportResult;
+import com.unir.template.service.BooksBulkService;
+import com.unir.template.service.BooksService;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+class BooksCsvImportIT {
+
+  private static final String HEADER = "id,name,description,price,stock\n";
+  private static final int BOOKS_COUNT = 1_000_000;
+  private static final int HEAP_SAMPLE_INTERVAL = 100_000;
+  private static final long MAX_HEAP_GROWTH_BYTES = 64L * 1024 * 1024;
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:16.8-alpine")
+          .withDatabaseName("test_db")
+          .withUsername("test_user")
+          .withPassword("test_password");
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+  }
+
+  @Autowired private BooksBulkService booksBulkService;
+
+  @Autowired private BooksService booksService;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @AfterEach
+  void tearDown() {
+    jdbcTemplate.execute("TRUNCATE TABLE books, book_tombstones");
+  }
+
+  @Test
+  void givenNewAndExistingBooks_whenImportBooks_thenBooksAreUpserted() throws IOException {
+    // Given
+    Book changed = booksService.createBook(book("Old name", 10));
+    Book unchanged = booksService.createBook(book("Same", 5));
+
+    // When
+    CsvImportResult result =
+        booksBulkService.importBooks(
+            csv(
+                HEADER
+                    + ",New book,\"A description, with a comma\",12.50,3\n"
+                    + changed.getId()
+                    + ",New name,,20,7\n"
+                    + unchanged.getId()
+                    + ",Same,,10.00,5\n"));
+
+    // Then
+    assertThat(result.getRows()).isEqualTo(3);
+    assertThat(result.getInserted()).isEqualTo(1);
+    assertThat(result.getUpdated()).isEqualTo(1);
+    assertThat(result.getUnchanged()).isEqualTo(1);
+    assertThat(result.getRejected()).isZero();
+    Book updated = booksService.getBookById(changed.getId());
+    assertThat(updated.getName()).isEqualTo("New name");
+    assertThat(updated.getStock()).isEqualTo(7);
+    assertThat(updated.getVersion()).isEqualTo(changed.getVersion() + 1);
+    assertThat(booksService.getBookById(unchanged.getId()).getVersion())
+        .isEqualTo(unchanged.getVersion());
+  }
+
+  @Test
+  void givenInvalidRows_whenImportBooks_thenOnlyValidRowsAreWrittenAndOthersReported()
+      throws IOException {
+    // When
+    CsvImportResult result =
+        booksBulkService.importBooks(
+            csv(
+                HEADER
+                    + ",Valid,,1,1\n"
+                    + ",,missing name,1,1\n"
+                    + "not-a-uuid,Bad id,,1,1\n"
+                    + ",Bad price,,abc,1\n"
+                    + ",Bad stock,,1,12.5\n"));
+
+    // Then
+    assertThat(result.getRows()).isEqualTo(5);
+    assertThat(result.getInserted()).isEqualTo(1);
+    assertThat(result.getRejected()).isEqualTo(4);
+    assertThat(result.getRejections())
+        .extracting(BulkItemResult::getIndex, BulkItemResult::getStatus)
+        .containsExactly(
+            tuple(1, BulkItemResult.Status.FAILED),
+            tuple(2, BulkItemResult.Status.FAILED),
+            tuple(3, BulkItemResult.Status.FAILED),
+            tuple(4, BulkItemResult.Status.FAILED));
+    assertThat(result.getRejections().getFirst().getError()).isEqualTo("Book name is required");
+    assertThat(result.getRejections().get(1).getError()).startsWith("Invalid id");
+    assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM books", Long.class)).isOne();
+  }
+
+  @Test
+  void givenSameIdTwice_whenImportBooks_thenLastRowWins() throws IOException {
+    // Given
+    UUID id = UUID.randomUUID();
+
+    // When
+    CsvImportResult result =
+        booksBulkService.importBooks(csv(HEADER + id + ",First,,1,1\n" + id + ",Last,,2,2\n"));
+
+    // Then
+    assertThat(result.getInserted()).isEqualTo(1);
+    assertThat(result.getUnchanged()).isEqualTo(1);
+    assertThat(booksService.getBookById(id).getName()).isEqualTo("Last");
+  }
+
+  @Test
+  void givenDeletedBook_whenImportedAgain_thenItsTombstoneIsDropped() throws IOException {
+    // Given
+    Book book = booksService.createBook(book("Deleted", 1));
+    booksService.deleteBook(book.getId());
+
+    // When
+    booksBulkService.importBooks(csv(HEADER + book.getId() + ",Back,,1,1\n"));
+
+    // Then
+    assertThat(
+            jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM book_tombstones WHERE id = ?", Long.class, book.getId()))
+        .isZero();
+  }
+
+  @Test
+  void givenMalformedCsv_whenImportBooks_thenNothingIsWritten() {
+    // When & Then
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> booksBulkService.importBooks(csv("name,price\nValid,1\n")));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> booksBulkService.importBooks(csv(HEADER + ",Valid,,1,1\n,\"Unterminated,,1,1\n")));
+    assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM books", Long.class)).isZero();
+  }
+
+  @Test
+  void givenMillionRows_whenImportBooks_thenAllBooksAreImportedWithFlatHeap() throws IOException {
+    // Given
+    HeapSamplingCsvInputStream csv = new HeapSamplingCsvInputStream(BOOKS_COUNT);
+
+    // When
+    CsvImportResult result = booksBulkService.importBooks(csv);
+
+    // Then
+    assertThat(result.getInserted()).isEqualTo(BOOKS_COUNT);
+    assertThat(csv.maxHeapUsed - csv.baselineHeapUsed).isLessThan(MAX_HEAP_GROWTH_BYTES);
+  }
+
+  private static Book book(String name, int stock) {
+    return Book.builder().name(name).price(10.0).stock(stock).build();
+  }
+
+  private static InputStream csv(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Generates the rows of a CSV body as they are read, sampling the live heap every {@link
+   * #HEAP_SAMPLE_INTERVAL} rows.
+   */
+  private static class HeapSamplingCsvInputStream extends InputStream {
+
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final long baselineHeapUsed = liveHeapUsed();
+    private final int rows;
+    private long maxHeapUsed = baselineHeapUsed;
+    private int row = -1;
+    private byte[] line = HEADER.getBytes(StandardCharsets.UTF_8);
+    private int position;
+
+    HeapSamplingCsvInputStream(int rows) {
+      this.rows = rows;
+    }
+
+    @Override
+    public int read() {
+      if (position == line.length && !nextLine()) {
+        return -1;
+      }
+      return line[position++];
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      int count = 0;
+      while (count < len && (position < line.length || nextLine())) {
+        int chunk = Math.min(len - count, line.length - position);
+        System.arraycopy(line, position, b, off + count, chunk);
+        position += chunk;
+        count += chunk;
+      }
+      return count == 0 ? -1 : count;
+    }
+
+    private boolean nextLine() {
+      if (++row == rows) {
+        return false;
+      }
+      if (row % HEAP_SAMPLE_INTERVAL == 0) {
+        maxHeapUsed = Math.max(maxHeapUsed, liveHeapUsed());
+      }
+      line =
+          ",Book %d,Description of book %d,%d.%02d,%d\n"
+              .formatted(row, row, row % 100, row % 100, row % 500)
+              .getBytes(StandardCharsets.UTF_8);
+      position = 0;
+      return true;
+    }
+
+    private long liveHeapUsed() {
+      memoryBean.gc();
+      return memoryBean.getHeapMemoryUsage().getUsed();
+    }
+  }
+}
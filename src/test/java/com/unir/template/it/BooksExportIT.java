@@ -0,0 +1,107 @@
+package com.unir.template.it;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.unir.template.service.BooksBulkService;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+class BooksExportIT {
+
+  private static final int BOOKS_COUNT = 1_000_000;
+  private static final int HEAP_SAMPLE_INTERVAL = 100_000;
+  private static final long MAX_HEAP_GROWTH_BYTES = 64L * 1024 * 1024;
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:16.8-alpine")
+          .withDatabaseName("test_db")
+          .withUsername("test_user")
+          .withPassword("test_password");
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+  }
+
+  @Autowired private BooksBulkService booksBulkService;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate.update(
+        """
+        INSERT INTO books (id, name, description, price, stock)
+        SELECT gen_random_uuid(), 'Book ' || n, 'Description of book ' || n, (n % 10000) / 100.0, n % 500
+        FROM generate_series(1, ?) AS n
+        """,
+        BOOKS_COUNT);
+  }
+
+  @AfterEach
+  void tearDown() {
+    jdbcTemplate.execute("TRUNCATE TABLE books");
+  }
+
+  @Test
+  void givenMillionBooks_whenExportBooks_thenAllBooksAreStreamedWithFlatHeap() throws IOException {
+    // Given
+    HeapSamplingOutputStream outputStream = new HeapSamplingOutputStream();
+
+    // When
+    booksBulkService.exportBooks(outputStream);
+
+    // Then
+    assertThat(outputStream.lines).isEqualTo(BOOKS_COUNT);
+    assertThat(outputStream.maxHeapUsed - outputStream.baselineHeapUsed)
+        .isLessThan(MAX_HEAP_GROWTH_BYTES);
+  }
+
+  /** Discards the export while sampling the live heap every {@link #HEAP_SAMPLE_INTERVAL} lines. */
+  private static class HeapSamplingOutputStream extends OutputStream {
+
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final long baselineHeapUsed = liveHeapUsed();
+    private long maxHeapUsed = baselineHeapUsed;
+    private long lines;
+
+    @Override
+    public void write(int b) {
+      if (b == '\n' && ++lines % HEAP_SAMPLE_INTERVAL == 0) {
+        maxHeapUsed = Math.max(maxHeapUsed, liveHeapUsed());
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      for (int i = off; i < off + len; i++) {
+        write(b[i]);
+      }
+    }
+
+    private long liveHeapUsed() {
+      memoryBean.gc();
+      return memoryBean.getHeapMemoryUsage().getUsed();
+    }
+  }
+}
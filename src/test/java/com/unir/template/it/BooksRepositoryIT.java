@@ -1,9 +1,18 @@
 package com.unir.template.it;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 import com.unir.template.model.Book;
+import com.unir.template.model.BookChange;
+import com.unir.template.model.BooksFilter;
+import com.unir.template.model.BooksSort;
+import com.unir.template.repository.BookChangesQuery;
+import com.unir.template.repository.BooksFilterQuery;
 import com.unir.template.repository.BooksRepository;
+import com.unir.template.repository.BooksRepositoryCustom.RankedBook;
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -11,6 +20,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -38,6 +49,7 @@ class BooksRepositoryIT {
   }
 
   @Autowired private BooksRepository booksRepository;
+  @Autowired private NamedParameterJdbcTemplate jdbcTemplate;
 
   @BeforeEach
   void setUp() {
@@ -194,4 +206,346 @@ class BooksRepositoryIT {
     assertThat(booksRepository.existsById(savedBook.getId())).isTrue();
     assertThat(booksRepository.existsById(UUID.randomUUID())).isFalse();
   }
+
+  @Test
+  void givenMultipleBooks_whenFindByIdGreaterThan_thenNextPageIsReturnedInIdOrder() {
+    // Given
+    List<Book> savedBooks =
+        booksRepository.saveAll(
+            List.of(
+                Book.builder().name("Book 1").price(10.0).stock(1).build(),
+                Book.builder().name("Book 2").price(20.0).stock(2).build(),
+                Book.builder().name("Book 3").price(30.0).stock(3).build()));
+    // PostgreSQL orders uuid values bytewise, which matches their lowercase text ordering
+    List<String> sortedIds =
+        savedBooks.stream().map(book -> book.getId().toString()).sorted().toList();
+
+    // When
+    List<Book> firstPage = booksRepository.findAllByOrderByIdAsc(Limit.of(2));
+    List<Book> secondPage =
+        booksRepository.findByIdGreaterThanOrderByIdAsc(firstPage.getLast().getId(), Limit.of(2));
+
+    // Then
+    assertThat(firstPage)
+        .extracting(book -> book.getId().toString())
+        .containsExactlyElementsOf(sortedIds.subList(0, 2));
+    assertThat(secondPage)
+        .extracting(book -> book.getId().toString())
+        .containsExactly(sortedIds.get(2));
+  }
+
+  @Test
+  void givenSavedBook_whenUpdateByIdAndVersion_thenOnlyMatchingVersionIsUpdated() {
+    // Given
+    Book savedBook =
+        booksRepository.save(Book.builder().name("Book 1").price(10.0).stock(1).build());
+    Book changes = Book.builder().name("Book 1 v2").price(15.0).stock(2).build();
+
+    // When
+    int staleUpdates = booksRepository.updateByIdAndVersion(savedBook.getId(), 5L, changes);
+    int updates =
+        booksRepository.updateByIdAndVersion(savedBook.getId(), savedBook.getVersion(), changes);
+
+    // Then
+    assertThat(staleUpdates).isZero();
+    assertThat(updates).isEqualTo(1);
+    assertThat(booksRepository.findVersionById(savedBook.getId()))
+        .contains(savedBook.getVersion() + 1);
+    assertThat(booksRepository.findById(savedBook.getId()))
+        .get()
+        .extracting(Book::getName)
+        .isEqualTo("Book 1 v2");
+  }
+
+  @Test
+  void givenSavedBook_whenSaveChanges_thenVersionIsIncremented() {
+    // Given
+    Book savedBook =
+        booksRepository.save(Book.builder().name("Book 1").price(10.0).stock(1).build());
+    savedBook.setStock(5);
+
+    // When
+    Book updatedBook = booksRepository.save(savedBook);
+
+    // Then
+    assertThat(savedBook.getVersion()).isZero();
+    assertThat(updatedBook.getVersion()).isEqualTo(1L);
+  }
+
+  @Test
+  void givenBooks_whenSearch_thenMatchesAreRankedByRelevance() {
+    // Given
+    Book nameMatch =
+        booksRepository.save(
+            Book.builder()
+                .name("Kubernetes Patterns")
+                .description("Reusable elements for cloud native applications")
+                .price(30.0)
+                .stock(1)
+                .build());
+    Book descriptionMatch =
+        booksRepository.save(
+            Book.builder()
+                .name("Cloud Native Java")
+                .description("Deploying services on Kubernetes clusters")
+                .price(40.0)
+                .stock(1)
+                .build());
+    booksRepository.save(
+        Book.builder().name("Effective Java").description("Best practices").price(45.0).build());
+
+    // When
+    List<RankedBook> firstPage = booksRepository.search("kubernetes", 0, null, 1);
+    List<RankedBook> results = booksRepository.search("kubernetes", 0, null, 10);
+
+    // Then
+    assertThat(results)
+        .extracting(result -> result.book().getId())
+        .containsExactly(nameMatch.getId(), descriptionMatch.getId());
+    assertThat(firstPage)
+        .extracting(result -> result.book().getId())
+        .containsExactly(nameMatch.getId());
+    assertThat(booksRepository.search("\"native applications\" -java", 0, null, 10))
+        .extracting(result -> result.book().getId())
+        .containsExactly(nameMatch.getId());
+  }
+
+  @Test
+  void givenEquallyRankedMatches_whenSearchAfterLastMatch_thenEveryMatchIsPagedOnce() {
+    // Given
+    for (int i = 0; i < 5; i++) {
+      booksRepository.save(Book.builder().name("Reactive Spring " + i).price(10.0).build());
+    }
+    booksRepository.save(Book.builder().name("Spring in Action").price(10.0).build());
+
+    // When
+    List<UUID> paged = new ArrayList<>();
+    RankedBook last = null;
+    List<RankedBook> page;
+    do {
+      page =
+          last == null
+              ? booksRepository.search("spring", 0, null, 2)
+              : booksRepository.search("spring", last.rank(), last.book().getId(), 2);
+      page.forEach(result -> paged.add(result.book().getId()));
+      last = page.isEmpty() ? null : page.getLast();
+    } while (page.size() == 2);
+
+    // Then
+    assertThat(paged)
+        .containsExactlyElementsOf(
+            booksRepository.search("spring", 0, null, 10).stream()
+                .map(result -> result.book().getId())
+                .toList())
+        .hasSize(6)
+        .doesNotHaveDuplicates();
+  }
+
+  @Test
+  void givenBooks_whenFindFiltered_thenMatchesArePagedInSortOrder() {
+    // Given
+    Book cheap = booksRepository.save(Book.builder().name("Spring A").price(10.0).stock(3).build());
+    Book middle =
+        booksRepository.save(Book.builder().name("Spring B").price(20.0).stock(0).build());
+    Book expensive =
+        booksRepository.save(Book.builder().name("Spring C").price(30.0).stock(8).build());
+    booksRepository.save(Book.builder().name("Spring D").stock(5).build());
+    booksRepository.save(Book.builder().name("Java E").price(25.0).stock(5).build());
+    BooksFilter springBooks = BooksFilter.builder().namePrefix("Spring").build();
+
+    // When
+    List<Book> firstPage =
+        booksRepository.findFiltered(springBooks, BooksSort.PRICE_DESC, null, null, 2);
+    List<Book> secondPage =
+        booksRepository.findFiltered(
+            springBooks, BooksSort.PRICE_DESC, BigDecimal.valueOf(20.0), middle.getId(), 2);
+    List<Book> inStock =
+        booksRepository.findFiltered(
+            BooksFilter.builder().namePrefix("Spring").minStock(1).maxPrice(25.0).build(),
+            BooksSort.ID,
+            null,
+            null,
+            10);
+
+    // Then
+    assertThat(firstPage)
+        .extracting(Book::getId)
+        .containsExactly(expensive.getId(), middle.getId());
+    assertThat(secondPage).extracting(Book::getId).containsExactly(cheap.getId());
+    assertThat(inStock).extracting(Book::getId).containsExactly(cheap.getId());
+    assertThat(
+            booksRepository.findFiltered(
+                BooksFilter.builder().namePrefix("Spring_").build(), BooksSort.ID, null, null, 10))
+        .isEmpty();
+  }
+
+  @Test
+  void givenManyBooks_whenExplainFilteredQueries_thenListIndexesAreUsed() {
+    // Given
+    jdbcTemplate
+        .getJdbcTemplate()
+        .execute(
+            "INSERT INTO books (id, name, description, price, stock) SELECT gen_random_uuid(),"
+                + " 'Book ' || i, 'Description ' || i,"
+                + " CASE WHEN i % 50 = 0 THEN NULL ELSE (i % 10000) / 100.0 END, i % 500"
+                + " FROM generate_series(1, 20000) AS i");
+    jdbcTemplate.getJdbcTemplate().execute("ANALYZE books");
+
+    try {
+      // When & Then
+      assertThat(
+              explain(
+                  BooksFilter.builder().minPrice(10.0).maxPrice(11.0).build(),
+                  BooksSort.PRICE,
+                  null,
+                  null))
+          .contains("idx_books_price_id")
+          .doesNotContain("Seq Scan");
+      assertThat(
+              explain(
+                  new BooksFilter(),
+                  BooksSort.PRICE_DESC,
+                  BigDecimal.valueOf(50.0),
+                  UUID.randomUUID()))
+          .contains("idx_books_price_id")
+          .doesNotContain("Seq Scan");
+      assertThat(
+              explain(
+                  BooksFilter.builder().minStock(490).build(), BooksSort.STOCK_DESC, null, null))
+          .contains("idx_books_stock_id")
+          .doesNotContain("Seq Scan");
+      assertThat(
+              explain(
+                  BooksFilter.builder().namePrefix("Book 1234").build(), BooksSort.ID, null, null))
+          .contains("idx_books_name_pattern")
+          .doesNotContain("Seq Scan");
+    } finally {
+      jdbcTemplate.getJdbcTemplate().execute("TRUNCATE books");
+    }
+  }
+
+  private String explain(BooksFilter filter, BooksSort sort, Object afterValue, UUID afterId) {
+    BooksFilterQuery query = BooksFilterQuery.of(filter, sort, afterValue, afterId, 51);
+    return jdbcTemplate.queryForObject(
+        "EXPLAIN (FORMAT JSON) " + query.sql(), query.parameters(), String.class);
+  }
+
+  @Test
+  void givenStock_whenReserveAndReleaseStock_thenStockNeverGoesNegative() {
+    // Given
+    Book savedBook =
+        booksRepository.save(Book.builder().name("Book 1").price(10.0).stock(3).build());
+
+    // When
+    Optional<Book> reserved = booksRepository.reserveStock(savedBook.getId(), 2);
+    Optional<Book> oversold = booksRepository.reserveStock(savedBook.getId(), 2);
+    Optional<Book> released = booksRepository.releaseStock(savedBook.getId(), 4);
+
+    // Then
+    assertThat(reserved).get().extracting(Book::getStock).isEqualTo(1);
+    assertThat(reserved).get().extracting(Book::getVersion).isEqualTo(savedBook.getVersion() + 1);
+    assertThat(oversold).isEmpty();
+    assertThat(released).get().extracting(Book::getStock).isEqualTo(5);
+    assertThat(booksRepository.reserveStock(UUID.randomUUID(), 1)).isEmpty();
+  }
+
+  @Test
+  void givenBooks_whenFindByIds_thenOnlyExistingBooksAreReturned() {
+    // Given
+    Book first = booksRepository.save(Book.builder().name("Book 1").price(10.0).build());
+    Book second = booksRepository.save(Book.builder().name("Book 2").price(20.0).build());
+    booksRepository.save(Book.builder().name("Book 3").price(30.0).build());
+
+    // When
+    List<Book> books =
+        booksRepository.findByIds(List.of(second.getId(), UUID.randomUUID(), first.getId()));
+
+    // Then
+    assertThat(books)
+        .extracting(Book::getName)
+        .containsExactlyInAnyOrder(first.getName(), second.getName());
+  }
+
+  @Test
+  void givenBooks_whenAddStock_thenEveryDeltaIsAppliedInOneStatement() {
+    // Given
+    Book first = booksRepository.save(Book.builder().name("Book 1").price(10.0).stock(10).build());
+    Book second = booksRepository.save(Book.builder().name("Book 2").price(20.0).build());
+
+    // When
+    int updated =
+        booksRepository.addStock(
+            List.of(first.getId(), second.getId(), UUID.randomUUID()), List.of(-4, 3, 1));
+
+    // Then
+    assertThat(updated).isEqualTo(2);
+    assertThat(booksRepository.findById(first.getId()))
+        .get()
+        .extracting(Book::getStock, Book::getVersion)
+        .containsExactly(6, first.getVersion() + 1);
+    assertThat(booksRepository.findById(second.getId()))
+        .get()
+        .extracting(Book::getStock)
+        .isEqualTo(3);
+  }
+
+  @Test
+  void givenWrites_whenFindChanges_thenLatestChangeOfEachBookIsReturnedInWriteOrder() {
+    // Given
+    jdbcTemplate.getJdbcTemplate().execute("TRUNCATE book_tombstones");
+    Book kept = booksRepository.save(Book.builder().name("Kept").price(10.0).stock(1).build());
+    Book deleted = booksRepository.save(Book.builder().name("Deleted").price(20.0).build());
+    booksRepository.reserveStock(kept.getId(), 1);
+    booksRepository.deleteById(deleted.getId());
+
+    // When
+    List<BookChange> changes = booksRepository.findChanges(0, null, 10);
+    BookChange first = changes.getFirst();
+    List<BookChange> afterFirst =
+        booksRepository.findChanges(first.getSequence(), first.getId(), 10);
+
+    // Then
+    assertThat(changes)
+        .extracting(BookChange::getId, BookChange::getType)
+        .containsExactly(
+            tuple(kept.getId(), BookChange.Type.UPSERTED),
+            tuple(deleted.getId(), BookChange.Type.DELETED));
+    assertThat(first.getBook().getStock()).isZero();
+    assertThat(changes.getLast().getBook()).isNull();
+    assertThat(first.getSequence()).isLessThan(changes.getLast().getSequence());
+    assertThat(afterFirst).containsExactly(changes.getLast());
+  }
+
+  @Test
+  void givenManyChanges_whenExplainChangesQuery_thenChangeSequenceIndexesAreUsed() {
+    // Given
+    jdbcTemplate
+        .getJdbcTemplate()
+        .execute(
+            "INSERT INTO books (id, name, price, stock) SELECT gen_random_uuid(), 'Book ' || i,"
+                + " 9.99, 1 FROM generate_series(1, 20000) AS i");
+    jdbcTemplate.getJdbcTemplate().execute("DELETE FROM books WHERE stock = 1 AND random() < 0.1");
+    jdbcTemplate.getJdbcTemplate().execute("ANALYZE books");
+    jdbcTemplate.getJdbcTemplate().execute("ANALYZE book_tombstones");
+    Long sequence =
+        jdbcTemplate
+            .getJdbcTemplate()
+            .queryForObject("SELECT max(change_seq) FROM books", Long.class);
+
+    try {
+      // When
+      BookChangesQuery query = BookChangesQuery.of(sequence - 1, UUID.randomUUID(), 101);
+      String plan =
+          jdbcTemplate.queryForObject(
+              "EXPLAIN (FORMAT JSON) " + query.sql(), query.parameters(), String.class);
+
+      // Then
+      assertThat(plan)
+          .contains("idx_books_change_seq_id")
+          .contains("idx_book_tombstones_change_seq_id")
+          .doesNotContain("Seq Scan");
+    } finally {
+      jdbcTemplate.getJdbcTemplate().execute("TRUNCATE books, book_tombstones");
+    }
+  }
 }
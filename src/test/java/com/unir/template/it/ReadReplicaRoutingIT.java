@@ -0,0 +1,185 @@
+package com.unir.template.it;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.unir.template.model.Book;
+import com.unir.template.service.BooksService;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.Transferable;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Runs against a primary and a streaming replica cloned from it with pg_basebackup, checking which
+ * of the two serves read-only and read-write transactions.
+ */
+@SpringBootTest(
+    properties = {
+      "read-replicas.enabled=true",
+      "read-replicas.max-lag=1s",
+      "read-replicas.lag-check-interval=200ms"
+    })
+@Testcontainers
+@ActiveProfiles("test")
+class ReadReplicaRoutingIT {
+
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+  private static final String PRIMARY_REPLICATION_SETUP =
+      """
+      psql -v ON_ERROR_STOP=1 -U "$POSTGRES_USER" -d "$POSTGRES_DB" \
+        -c "CREATE ROLE replicator WITH REPLICATION LOGIN PASSWORD 'replicator'"
+      echo "host replication replicator all scram-sha-256" >> "$PGDATA/pg_hba.conf"
+      """;
+
+  private static final String REPLICA_START =
+      """
+      until su-exec postgres pg_basebackup -h primary -U replicator -D "$PGDATA" -R -X stream; do
+        rm -rf "$PGDATA"/*
+        sleep 1
+      done
+      chmod 700 "$PGDATA"
+      exec su-exec postgres postgres
+      """;
+
+  static Network network = Network.newNetwork();
+
+  @Container
+  static PostgreSQLContainer<?> primary =
+      new PostgreSQLContainer<>("postgres:16.8-alpine")
+          .withDatabaseName("test_db")
+          .withUsername("test_user")
+          .withPassword("test_password")
+          .withNetwork(network)
+          .withNetworkAliases("primary")
+          .withCopyToContainer(
+              Transferable.of(PRIMARY_REPLICATION_SETUP),
+              "/docker-entrypoint-initdb.d/10-replication.sh");
+
+  @Container
+  static GenericContainer<?> replica =
+      new GenericContainer<>("postgres:16.8-alpine")
+          .dependsOn(primary)
+          .withNetwork(network)
+          .withEnv("PGPASSWORD", "replicator")
+          .withExposedPorts(PostgreSQLContainer.POSTGRESQL_PORT)
+          .withCreateContainerCmdModifier(cmd -> cmd.withEntrypoint("sh", "-c"))
+          .withCommand(REPLICA_START)
+          .waitingFor(
+              Wait.forLogMessage(".*ready to accept read-only connections.*\\n", 1)
+                  .withStartupTimeout(Duration.ofMinutes(2)));
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", primary::getJdbcUrl);
+    registry.add("spring.datasource.username", primary::getUsername);
+    registry.add("spring.datasource.password", primary::getPassword);
+    registry.add(
+        "read-replicas.urls",
+        () ->
+            "jdbc:postgresql://%s:%d/test_db"
+                .formatted(
+                    replica.getHost(), replica.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT)));
+  }
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private PlatformTransactionManager transactionManager;
+  @Autowired private BooksService booksService;
+
+  @AfterEach
+  void resumeReplay() throws Exception {
+    onReplica("SELECT pg_wal_replay_resume()");
+  }
+
+  @Test
+  void givenReplicaInSync_whenReadOnlyTransaction_thenReplicaServesIt() {
+    // When & Then
+    awaitTrue(() -> isServedByReplica(true));
+    assertThat(isServedByReplica(false)).isFalse();
+  }
+
+  @Test
+  void givenBookCreatedOnPrimary_whenReadThroughService_thenReplicaReturnsIt() {
+    // Given
+    awaitTrue(() -> isServedByReplica(true));
+    Book book =
+        booksService.createBook(Book.builder().name("Replicated").price(10.0).stock(1).build());
+
+    // When & Then
+    awaitTrue(() -> isPresent(book));
+    assertThat(booksService.getBookById(book.getId()).getName()).isEqualTo("Replicated");
+  }
+
+  @Test
+  void givenReplicaLaggingBehind_whenReadOnlyTransaction_thenPrimaryServesIt() throws Exception {
+    // Given
+    awaitTrue(() -> isServedByReplica(true));
+    onReplica("SELECT pg_wal_replay_pause()");
+
+    // When
+    booksService.createBook(Book.builder().name("Not replayed").price(10.0).stock(1).build());
+
+    // Then
+    awaitTrue(() -> !isServedByReplica(true));
+    onReplica("SELECT pg_wal_replay_resume()");
+    awaitTrue(() -> isServedByReplica(true));
+  }
+
+  private static void onReplica(String sql) throws Exception {
+    var result =
+        replica.execInContainer(
+            "su-exec", "postgres", "psql", "-U", "test_user", "-d", "test_db", "-c", sql);
+    assertThat(result.getExitCode()).as(result.getStderr()).isZero();
+  }
+
+  private boolean isServedByReplica(boolean readOnly) {
+    return Boolean.TRUE.equals(
+        inTransaction(
+            readOnly,
+            () -> jdbcTemplate.queryForObject("SELECT pg_is_in_recovery()", Boolean.class)));
+  }
+
+  private boolean isPresent(Book book) {
+    try {
+      booksService.getBookById(book.getId());
+      return true;
+    } catch (RuntimeException _) {
+      return false;
+    }
+  }
+
+  private <T> T inTransaction(boolean readOnly, Supplier<T> work) {
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setReadOnly(readOnly);
+    return transactionTemplate.execute(_ -> work.get());
+  }
+
+  private static void awaitTrue(BooleanSupplier condition) {
+    long deadline = System.nanoTime() + TIMEOUT.toNanos();
+    while (!condition.getAsBoolean()) {
+      assertThat(System.nanoTime()).as("condition met within %s", TIMEOUT).isLessThan(deadline);
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package com.unir.template.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BulkItemResult;
+import com.unir.template.service.BooksBulkService;
+import com.unir.template.service.BooksService;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/** Compares rows/sec of the bulk create path against one createBook call per book. */
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+class BooksBulkPerfTest {
+
+  private static final int SINGLE_ITEM_BOOKS = 5_000;
+  private static final int BULK_BOOKS = 50_000;
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:16.8-alpine")
+          .withDatabaseName("test_db")
+          .withUsername("test_user")
+          .withPassword("test_password");
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+  }
+
+  @Autowired private BooksService booksService;
+
+  @Autowired private BooksBulkService booksBulkService;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @AfterEach
+  void tearDown() {
+    jdbcTemplate.execute("TRUNCATE TABLE books");
+  }
+
+  @Test
+  void bulkCreateIsFasterThanSingleItemCreate() {
+    // Warm up both paths so that the measurement does not include JIT and pool start-up
+    books(1_000).forEach(booksService::createBook);
+    booksBulkService.createBooks(books(1_000));
+
+    long singleStart = System.nanoTime();
+    books(SINGLE_ITEM_BOOKS).forEach(booksService::createBook);
+    double singleRowsPerSecond = rowsPerSecond(SINGLE_ITEM_BOOKS, singleStart);
+
+    long bulkStart = System.nanoTime();
+    List<BulkItemResult> results = booksBulkService.createBooks(books(BULK_BOOKS));
+    double bulkRowsPerSecond = rowsPerSecond(BULK_BOOKS, bulkStart);
+
+    System.out.printf(
+        "Single-item create: %.0f rows/s, bulk create: %.0f rows/s (x%.1f)%n",
+        singleRowsPerSecond, bulkRowsPerSecond, bulkRowsPerSecond / singleRowsPerSecond);
+    assertThat(results).allMatch(result -> result.getStatus() == BulkItemResult.Status.CREATED);
+    assertThat(bulkRowsPerSecond).isGreaterThan(singleRowsPerSecond);
+  }
+
+  private static List<Book> books(int count) {
+    return IntStream.range(0, count)
+        .mapToObj(
+            i ->
+                Book.builder()
+                    .name("Book " + i)
+                    .description("Description of book " + i)
+                    .price(10.0 + i % 100)
+                    .stock(i % 50)
+                    .build())
+        .toList();
+  }
+
+  private static double rowsPerSecond(int rows, long startNanos) {
+    return rows / ((System.nanoTime() - startNanos) / 1_000_000_000.0);
+  }
+}
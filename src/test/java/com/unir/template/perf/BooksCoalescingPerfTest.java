@@ -0,0 +1,156 @@
+package com.unir.template.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.unir.template.config.BooksProperties;
+import com.unir.template.model.Book;
+import com.unir.template.model.BulkItemResult;
+import com.unir.template.repository.BooksRepository;
+import com.unir.template.service.BooksBulkService;
+import com.unir.template.service.BooksService;
+import com.unir.template.service.BooksServiceImpl;
+import com.unir.template.service.CoalescingBooksService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Closed-model load of concurrent book lookups by id, sent straight to the service and through the
+ * coalescing decorator. Queries per second are counted by PostgreSQL in pg_stat_statements, so the
+ * comparison shows how many statements the database actually ran for the same lookups.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@Testcontainers
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BooksCoalescingPerfTest {
+
+  private static final int BOOKS = 10_000;
+  private static final int CLIENTS = Integer.getInteger("perf.coalescing.clients", 200);
+  private static final Duration WARM_UP = Duration.ofSeconds(5);
+  private static final Duration MEASUREMENT =
+      Duration.parse(System.getProperty("perf.coalescing.duration", "PT15S"));
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:16.8-alpine")
+          .withDatabaseName("test_db")
+          .withUsername("test_user")
+          .withPassword("test_password")
+          .withCommand("postgres", "-c", "shared_preload_libraries=pg_stat_statements");
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+  }
+
+  @Autowired private BooksRepository booksRepository;
+
+  @Autowired private BooksBulkService booksBulkService;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private List<UUID> bookIds;
+
+  enum Lookup {
+    DIRECT,
+    COALESCED
+  }
+
+  @BeforeAll
+  void seedBooks() {
+    jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_stat_statements");
+    List<Book> books =
+        IntStream.range(0, BOOKS)
+            .mapToObj(i -> Book.builder().name("Book " + i).price(10.0).stock(i % 50).build())
+            .toList();
+    bookIds = booksBulkService.createBooks(books).stream().map(BulkItemResult::getId).toList();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Lookup.class)
+  void getBookById(Lookup lookup) throws InterruptedException {
+    BooksService booksService = booksService(lookup);
+    run(booksService, WARM_UP);
+    jdbcTemplate.execute("SELECT pg_stat_statements_reset()");
+    long lookups = run(booksService, MEASUREMENT);
+    long queries = bookQueries();
+
+    double seconds = MEASUREMENT.toNanos() / 1e9;
+    System.out.printf(
+        "%s, %d clients: %.0f lookups/s, %.0f queries/s, %.1f lookups per query%n",
+        lookup, CLIENTS, lookups / seconds, queries / seconds, (double) lookups / queries);
+    assertThat(lookups).isPositive();
+    if (lookup == Lookup.COALESCED) {
+      assertThat(queries).isLessThan(lookups);
+    }
+  }
+
+  private BooksService booksService(Lookup lookup) {
+    BooksService booksService = new BooksServiceImpl(booksRepository);
+    if (lookup == Lookup.DIRECT) {
+      return booksService;
+    }
+    BooksProperties.Coalescing properties = new BooksProperties.Coalescing();
+    properties.setEnabled(true);
+    return new CoalescingBooksService(booksService, properties, new SimpleMeterRegistry());
+  }
+
+  private long run(BooksService booksService, Duration duration) throws InterruptedException {
+    long deadline = System.nanoTime() + duration.toNanos();
+    LongAdder lookups = new LongAdder();
+    CountDownLatch done = new CountDownLatch(CLIENTS);
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int client = 0; client < CLIENTS; client++) {
+        executor.execute(
+            () -> {
+              try {
+                while (System.nanoTime() < deadline) {
+                  UUID id = bookIds.get(ThreadLocalRandom.current().nextInt(bookIds.size()));
+                  booksService.getBookById(id);
+                  lookups.increment();
+                }
+              } finally {
+                done.countDown();
+              }
+            });
+      }
+      done.await();
+    }
+    return lookups.sum();
+  }
+
+  /** Statements reading from the books table since the last reset of pg_stat_statements. */
+  private long bookQueries() {
+    Long calls =
+        jdbcTemplate.queryForObject(
+            """
+            SELECT coalesce(sum(calls), 0) FROM pg_stat_statements
+            WHERE query ILIKE '%from books%' AND query NOT ILIKE '%pg_stat_statements%'
+            """,
+            Long.class);
+    return calls == null ? 0 : calls;
+  }
+}
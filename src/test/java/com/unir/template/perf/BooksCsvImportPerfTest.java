@@ -0,0 +1,127 @@
+package com.unir.template.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BulkItemResult;
+import com.unir.template.model.CsvImportResult;
+import com.unir.template.service.BooksBulkService;
+import com.unir.template.service.BooksService;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Compares rows/sec of the CSV import against the JPA paths: one createBook call per book and the
+ * batched bulk create.
+ */
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+class BooksCsvImportPerfTest {
+
+  private static final int SINGLE_ITEM_BOOKS = 5_000;
+  private static final int BULK_BOOKS = 50_000;
+  private static final int IMPORT_BOOKS = 500_000;
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:16.8-alpine")
+          .withDatabaseName("test_db")
+          .withUsername("test_user")
+          .withPassword("test_password");
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+  }
+
+  @Autowired private BooksService booksService;
+
+  @Autowired private BooksBulkService booksBulkService;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @AfterEach
+  void tearDown() {
+    jdbcTemplate.execute("TRUNCATE TABLE books");
+  }
+
+  @Test
+  void csvImportIsFasterThanJpaCreate() throws IOException {
+    // Warm up every path so that the measurement does not include JIT and pool start-up
+    books(1_000).forEach(booksService::createBook);
+    booksBulkService.createBooks(books(1_000));
+    booksBulkService.importBooks(csv(1_000));
+
+    long singleStart = System.nanoTime();
+    books(SINGLE_ITEM_BOOKS).forEach(booksService::createBook);
+    double singleRowsPerSecond = rowsPerSecond(SINGLE_ITEM_BOOKS, singleStart);
+
+    long bulkStart = System.nanoTime();
+    List<BulkItemResult> bulkResults = booksBulkService.createBooks(books(BULK_BOOKS));
+    double bulkRowsPerSecond = rowsPerSecond(BULK_BOOKS, bulkStart);
+
+    InputStream csv = csv(IMPORT_BOOKS);
+    long importStart = System.nanoTime();
+    CsvImportResult importResult = booksBulkService.importBooks(csv);
+    double importRowsPerSecond = rowsPerSecond(IMPORT_BOOKS, importStart);
+
+    System.out.printf(
+        "Single-item create: %.0f rows/s, bulk create: %.0f rows/s, CSV import: %.0f rows/s"
+            + " (x%.1f over bulk create)%n",
+        singleRowsPerSecond,
+        bulkRowsPerSecond,
+        importRowsPerSecond,
+        importRowsPerSecond / bulkRowsPerSecond);
+    assertThat(bulkResults).allMatch(result -> result.getStatus() == BulkItemResult.Status.CREATED);
+    assertThat(importResult.getInserted()).isEqualTo(IMPORT_BOOKS);
+    assertThat(importRowsPerSecond).isGreaterThan(bulkRowsPerSecond);
+  }
+
+  private static List<Book> books(int count) {
+    return IntStream.range(0, count)
+        .mapToObj(
+            i ->
+                Book.builder()
+                    .name("Book " + i)
+                    .description("Description of book " + i)
+                    .price(10.0 + i % 100)
+                    .stock(i % 50)
+                    .build())
+        .toList();
+  }
+
+  /** The same books as {@link #books}, built before the measurement starts. */
+  private static InputStream csv(int count) {
+    String rows =
+        IntStream.range(0, count)
+            .mapToObj(
+                i ->
+                    ",Book %d,Description of book %d,%d,%d\n"
+                        .formatted(i, i, 10 + i % 100, i % 50))
+            .collect(Collectors.joining("", "id,name,description,price,stock\n", ""));
+    return new ByteArrayInputStream(rows.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static double rowsPerSecond(int rows, long startNanos) {
+    return rows / ((System.nanoTime() - startNanos) / 1_000_000_000.0);
+  }
+}
@@ -0,0 +1,230 @@
+package com.unir.template.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Closed-model load test: N clients each send GET /api/books/{id} back to back for a fixed time.
+ * Subclasses start the application with platform threads, virtual threads or the reactive stack so
+ * that throughput, p99 and memory can be compared at the same concurrency. Heap and thread peaks
+ * are sampled in the test JVM, so they include the clients, which are the same for every stack.
+ */
+@Testcontainers
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+abstract class BooksLoadPerfTestBase {
+
+  private static final int BOOKS = 10_000;
+  private static final Duration WARM_UP = Duration.ofSeconds(5);
+  private static final Duration MEASUREMENT =
+      Duration.parse(System.getProperty("perf.load.duration", "PT15S"));
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:16.8-alpine")
+          .withDatabaseName("test_db")
+          .withUsername("test_user")
+          .withPassword("test_password")
+          .withCommand("postgres", "-c", "max_connections=200");
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+    // Let every client hold a connection so the comparison is about request threads
+    registry.add("server.tomcat.max-connections", () -> 20_000);
+    registry.add("server.tomcat.accept-count", () -> 10_000);
+  }
+
+  @LocalServerPort private int port;
+
+  private List<String> bookIds;
+
+  abstract String mode();
+
+  /** Seeds the books in SQL, as the reactive stack has no JDBC beans to do it with. */
+  @BeforeAll
+  void seedBooks() throws SQLException {
+    bookIds = new ArrayList<>(BOOKS);
+    try (Connection connection = postgres.createConnection("");
+        Statement statement = connection.createStatement();
+        ResultSet ids =
+            statement.executeQuery(
+                """
+                INSERT INTO books (id, name, price, stock, version)
+                SELECT gen_random_uuid(), 'Book ' || i, 10.0, mod(i, 50), 0
+                FROM generate_series(0, %d) AS i
+                RETURNING id
+                """
+                    .formatted(BOOKS - 1))) {
+      while (ids.next()) {
+        bookIds.add(ids.getString(1));
+      }
+    }
+  }
+
+  @ParameterizedTest(name = "{0} concurrent clients")
+  @ValueSource(ints = {1_000, 5_000, 10_000})
+  void getBookById(int clients) throws InterruptedException {
+    run(clients, WARM_UP);
+    System.gc();
+    ResourcePeaks peaks = ResourcePeaks.start();
+    LoadResult result;
+    try {
+      result = run(clients, MEASUREMENT);
+    } finally {
+      peaks.stop();
+    }
+
+    System.out.printf(
+        "%s, %d clients: %.0f req/s, p50 %.1fms, p99 %.1fms, %d errors,"
+            + " peak heap %d MB, peak %d platform threads%n",
+        mode(),
+        clients,
+        result.completed() / (MEASUREMENT.toNanos() / 1e9),
+        result.percentileMillis(0.50),
+        result.percentileMillis(0.99),
+        result.errors(),
+        peaks.heapBytes() / (1024 * 1024),
+        peaks.threads());
+    assertThat(result.completed()).isPositive();
+  }
+
+  private LoadResult run(int clients, Duration duration) throws InterruptedException {
+    long deadline = System.nanoTime() + duration.toNanos();
+    List<LongStream.Builder> latencies = new ArrayList<>(clients);
+    AtomicLong errors = new AtomicLong();
+    CountDownLatch done = new CountDownLatch(clients);
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient httpClient =
+            HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build()) {
+      for (int client = 0; client < clients; client++) {
+        LongStream.Builder clientLatencies = LongStream.builder();
+        latencies.add(clientLatencies);
+        executor.execute(
+            () -> {
+              try {
+                while (System.nanoTime() < deadline) {
+                  long start = System.nanoTime();
+                  if (getRandomBook(httpClient)) {
+                    clientLatencies.add(System.nanoTime() - start);
+                  } else {
+                    errors.incrementAndGet();
+                  }
+                }
+              } finally {
+                done.countDown();
+              }
+            });
+      }
+      done.await();
+    }
+    return LoadResult.of(latencies, errors.get());
+  }
+
+  private boolean getRandomBook(HttpClient httpClient) {
+    String id = bookIds.get(ThreadLocalRandom.current().nextInt(bookIds.size()));
+    HttpRequest request =
+        HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books/" + id))
+            .timeout(Duration.ofSeconds(30))
+            .build();
+    try {
+      return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (Exception _) {
+      return false;
+    }
+  }
+
+  /** Highest heap use and platform thread count seen while the load runs. */
+  private static final class ResourcePeaks {
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final AtomicLong heapBytes = new AtomicLong();
+    private final AtomicLong threadCount = new AtomicLong();
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+
+    static ResourcePeaks start() {
+      ResourcePeaks peaks = new ResourcePeaks();
+      peaks.sampler.scheduleAtFixedRate(peaks::sample, 0, 100, TimeUnit.MILLISECONDS);
+      return peaks;
+    }
+
+    private void sample() {
+      heapBytes.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+      threadCount.accumulateAndGet(threads.getThreadCount(), Math::max);
+    }
+
+    void stop() {
+      sampler.shutdownNow();
+    }
+
+    long heapBytes() {
+      return heapBytes.get();
+    }
+
+    long threads() {
+      return threadCount.get();
+    }
+  }
+
+  /** Latencies of every successful request, sorted, plus the number of failed ones. */
+  private record LoadResult(long[] sortedNanos, long errors) {
+
+    static LoadResult of(List<LongStream.Builder> clientLatencies, long errors) {
+      long[] all =
+          clientLatencies.stream().flatMapToLong(LongStream.Builder::build).sorted().toArray();
+      return new LoadResult(all, errors);
+    }
+
+    long completed() {
+      return sortedNanos.length;
+    }
+
+    double percentileMillis(double percentile) {
+      if (sortedNanos.length == 0) {
+        return Double.NaN;
+      }
+      int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+      return sortedNanos[Math.max(index, 0)] / 1e6;
+    }
+  }
+}
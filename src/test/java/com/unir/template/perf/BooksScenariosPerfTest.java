@@ -0,0 +1,355 @@
+package com.unir.template.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Open-model load test of every BooksController endpoint, and of a mixed read/write profile, at the
+ * arrival rates of benchmarks/load-budgets.json. Each scenario fails when its coordinated-omission
+ * corrected p50, p99 or p99.9, or its error rate, exceeds the budget committed next to the rate.
+ * The percentile distributions and a summary are written to target/load-results.
+ *
+ * <p>Requests are drawn from a random seeded per scenario, so a run sends the same requests in the
+ * same order as the previous one. The generator runs in the test JVM, next to the application.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BooksScenariosPerfTest {
+
+  private static final int BOOKS = 10_000;
+  private static final int BATCH_SIZE = 100;
+  private static final int BATCH_GET_SIZE = 20;
+  private static final String[] WORDS = {"spring", "java", "postgres", "cloud", "data"};
+  private static final Path BUDGETS =
+      Path.of(System.getProperty("perf.scenarios.budgets", "benchmarks/load-budgets.json"));
+  private static final Path RESULTS = Path.of("target", "load-results");
+  private static final Duration WARM_UP =
+      Duration.parse(System.getProperty("perf.scenarios.warm-up", "PT10S"));
+  private static final Duration MEASUREMENT =
+      Duration.parse(System.getProperty("perf.scenarios.duration", "PT30S"));
+  private static final long SEED = Long.getLong("perf.scenarios.seed", 42);
+
+  /** Share of each scenario in the mixed profile, in percent: 90% reads and 10% writes. */
+  private static final List<Map.Entry<String, Integer>> MIXED_PROFILE =
+      List.of(
+          Map.entry("getBookById", 60),
+          Map.entry("listBooks", 10),
+          Map.entry("searchBooks", 10),
+          Map.entry("filterBooks", 5),
+          Map.entry("batchGetBooks", 5),
+          Map.entry("updateBook", 4),
+          Map.entry("reserveStock", 3),
+          Map.entry("createBook", 3));
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:16.8-alpine")
+          .withDatabaseName("test_db")
+          .withUsername("test_user")
+          .withPassword("test_password");
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+  }
+
+  @LocalServerPort private int port;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private final Map<String, Map<String, Object>> summary = new LinkedHashMap<>();
+  private Map<String, LoadBudget> budgets;
+  private List<UUID> bookIds;
+
+  @BeforeAll
+  void setUp() throws IOException {
+    budgets = LoadBudget.read(BUDGETS);
+    bookIds = seedBooks(BOOKS);
+    Files.createDirectories(RESULTS);
+  }
+
+  @AfterAll
+  void writeSummary() throws IOException {
+    new ObjectMapper()
+        .writerWithDefaultPrettyPrinter()
+        .writeValue(RESULTS.resolve("summary.json").toFile(), summary);
+  }
+
+  /** Every scenario, or only the comma-separated ones of the perf.scenarios property. */
+  Iterable<String> scenarios() {
+    String selected = System.getProperty("perf.scenarios");
+    return selected == null
+        ? List.of(
+            "getBookById",
+            "listBooks",
+            "filterBooks",
+            "searchBooks",
+            "batchGetBooks",
+            "exportBooks",
+            "createBook",
+            "bulkCreateBooks",
+            "bulkCreateBooksNdjson",
+            "importBooks",
+            "updateBook",
+            "reserveStock",
+            "releaseStock",
+            "deleteBook",
+            "mixed")
+        : Arrays.asList(selected.split(","));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @MethodSource("scenarios")
+  void scenario(String scenario) throws IOException, InterruptedException {
+    LoadBudget budget = budgets.get(scenario);
+    assertThat(budget).as("budget of %s in %s", scenario, BUDGETS).isNotNull();
+    long planned = (long) Math.ceil(budget.rate() * (WARM_UP.plus(MEASUREMENT).toMillis() / 1e3));
+    Supplier<HttpRequest> scenarioRequests =
+        requests(scenario, new SplittableRandom(SEED), planned + 2);
+
+    OpenModelLoadGenerator.Result result;
+    try (OpenModelLoadGenerator generator = new OpenModelLoadGenerator()) {
+      generator.run(scenarioRequests, budget.rate(), WARM_UP);
+      result = generator.run(scenarioRequests, budget.rate(), MEASUREMENT);
+    }
+
+    report(scenario, budget, result);
+    assertThat(budget.violations(result)).as("%s over its budget", scenario).isEmpty();
+  }
+
+  private Supplier<HttpRequest> requests(String scenario, SplittableRandom random, long count) {
+    return switch (scenario) {
+      case "getBookById" -> () -> get("/api/books/" + randomBookId(random));
+      case "listBooks" ->
+          () ->
+              get(
+                  "/api/books?limit=50&sort="
+                      + List.of("id", "price", "-price", "stock", "-stock").get(random.nextInt(5)));
+      case "filterBooks" ->
+          () -> {
+            int minPrice = random.nextInt(90);
+            return get(
+                "/api/books?limit=50&sort=-price&minPrice=%d&maxPrice=%d&minStock=%d"
+                    .formatted(minPrice, minPrice + 10, random.nextInt(1_000)));
+          };
+      case "searchBooks" ->
+          () -> get("/api/books/search?q=" + randomWord(random) + "+" + random.nextInt(BOOKS));
+      case "batchGetBooks" ->
+          () ->
+              post(
+                  "/api/books/_batchGet",
+                  "application/json",
+                  IntStream.range(0, BATCH_GET_SIZE)
+                      .mapToObj(_ -> "\"" + randomBookId(random) + "\"")
+                      .collect(Collectors.joining(",", "[", "]")));
+      case "exportBooks" -> () -> get("/api/books/export");
+      case "createBook" -> () -> post("/api/books", "application/json", bookJson(random));
+      case "bulkCreateBooks" ->
+          () ->
+              post(
+                  "/api/books/_bulk",
+                  "application/json",
+                  IntStream.range(0, BATCH_SIZE)
+                      .mapToObj(_ -> bookJson(random))
+                      .collect(Collectors.joining(",", "[", "]")));
+      case "bulkCreateBooksNdjson" ->
+          () ->
+              post(
+                  "/api/books/_bulk",
+                  "application/x-ndjson",
+                  IntStream.range(0, BATCH_SIZE)
+                      .mapToObj(_ -> bookJson(random) + "\n")
+                      .collect(Collectors.joining()));
+      case "importBooks" ->
+          // Half of the rows update existing books, the other half create new ones
+          () ->
+              post(
+                  "/api/books/_import",
+                  "text/csv",
+                  IntStream.range(0, BATCH_SIZE)
+                      .mapToObj(
+                          i ->
+                              "%s,%s %d,,%d.%02d,%d\n"
+                                  .formatted(
+                                      i % 2 == 0 ? randomBookId(random) : "",
+                                      randomWord(random),
+                                      random.nextInt(BOOKS),
+                                      random.nextInt(100),
+                                      random.nextInt(100),
+                                      1_000_000))
+                      .collect(Collectors.joining("", "id,name,description,price,stock\n", "")));
+      case "updateBook" ->
+          () ->
+              HttpRequest.newBuilder(uri("/api/books/" + randomBookId(random)))
+                  .timeout(Duration.ofSeconds(30))
+                  .header("Content-Type", "application/json")
+                  .PUT(HttpRequest.BodyPublishers.ofString(bookJson(random)))
+                  .build();
+      case "reserveStock" ->
+          () -> post("/api/books/" + randomBookId(random) + "/reserve?quantity=1", null, "");
+      case "releaseStock" ->
+          () -> post("/api/books/" + randomBookId(random) + "/release?quantity=1", null, "");
+      case "deleteBook" -> {
+        // Books of their own, as each one can only be deleted once
+        Deque<UUID> deletable = new ArrayDeque<>(seedBooks((int) count));
+        yield () ->
+            HttpRequest.newBuilder(uri("/api/books/" + deletable.pop()))
+                .timeout(Duration.ofSeconds(30))
+                .DELETE()
+                .build();
+      }
+      case "mixed" -> mixed(random);
+      default -> throw new IllegalArgumentException("Unknown scenario: " + scenario);
+    };
+  }
+
+  /** Draws each request from one of the scenarios of {@link #MIXED_PROFILE} by its share. */
+  private Supplier<HttpRequest> mixed(SplittableRandom random) {
+    NavigableMap<Integer, Supplier<HttpRequest>> byCumulativeShare = new TreeMap<>();
+    int total = 0;
+    for (Map.Entry<String, Integer> share : MIXED_PROFILE) {
+      byCumulativeShare.put(total, requests(share.getKey(), random, 0));
+      total += share.getValue();
+    }
+    int shares = total;
+    return () -> byCumulativeShare.floorEntry(random.nextInt(shares)).getValue().get();
+  }
+
+  /**
+   * Seeds the books in SQL, with enough stock for reservations never to run out. The names are
+   * made of one of {@link #WORDS} and a number, for the searches to match some of them.
+   */
+  private List<UUID> seedBooks(int count) {
+    return jdbcTemplate.queryForList(
+        """
+        INSERT INTO books (id, name, price, stock, version)
+        SELECT gen_random_uuid(), (ARRAY['%s'])[1 + mod(i, %d)] || ' ' || i,
+               mod(i, 100) + 0.99, 1000000, 0
+        FROM generate_series(0, ?) AS i
+        RETURNING id
+        """
+            .formatted(String.join("','", WORDS), WORDS.length),
+        UUID.class,
+        count - 1);
+  }
+
+  /** Writes the percentile distributions and the summary line of the scenario, in milliseconds. */
+  private void report(String scenario, LoadBudget budget, OpenModelLoadGenerator.Result result)
+      throws IOException {
+    writeDistribution(scenario + ".hgrm", result.corrected());
+    writeDistribution(scenario + "-uncorrected.hgrm", result.uncorrected());
+    Histogram corrected = result.corrected();
+    Histogram uncorrected = result.uncorrected();
+    System.out.printf(
+        "%s at %.0f req/s: p50 %.1fms, p99 %.1fms, p99.9 %.1fms, max %.1fms"
+            + " (uncorrected p99 %.1fms, p99.9 %.1fms), %d errors of %d requests%n",
+        scenario,
+        budget.rate(),
+        OpenModelLoadGenerator.Result.millis(corrected, 50),
+        OpenModelLoadGenerator.Result.millis(corrected, 99),
+        OpenModelLoadGenerator.Result.millis(corrected, 99.9),
+        corrected.getMaxValue() / 1e6,
+        OpenModelLoadGenerator.Result.millis(uncorrected, 99),
+        OpenModelLoadGenerator.Result.millis(uncorrected, 99.9),
+        result.errors(),
+        result.sent());
+    Map<String, Object> scenarioSummary = new LinkedHashMap<>();
+    scenarioSummary.put("rate", budget.rate());
+    scenarioSummary.put("sent", result.sent());
+    scenarioSummary.put("errors", result.errors());
+    scenarioSummary.put("p50Millis", OpenModelLoadGenerator.Result.millis(corrected, 50));
+    scenarioSummary.put("p99Millis", OpenModelLoadGenerator.Result.millis(corrected, 99));
+    scenarioSummary.put("p999Millis", OpenModelLoadGenerator.Result.millis(corrected, 99.9));
+    scenarioSummary.put("maxMillis", corrected.getMaxValue() / 1e6);
+    scenarioSummary.put(
+        "uncorrectedP99Millis", OpenModelLoadGenerator.Result.millis(uncorrected, 99));
+    scenarioSummary.put(
+        "uncorrectedP999Millis", OpenModelLoadGenerator.Result.millis(uncorrected, 99.9));
+    scenarioSummary.put("violations", budget.violations(result));
+    summary.put(scenario, scenarioSummary);
+  }
+
+  private static void writeDistribution(String file, Histogram latencies) throws IOException {
+    try (PrintStream out = new PrintStream(Files.newOutputStream(RESULTS.resolve(file)))) {
+      latencies.outputPercentileDistribution(out, 1e6);
+    }
+  }
+
+  private UUID randomBookId(SplittableRandom random) {
+    return bookIds.get(random.nextInt(bookIds.size()));
+  }
+
+  private static String randomWord(SplittableRandom random) {
+    return WORDS[random.nextInt(WORDS.length)];
+  }
+
+  private static String bookJson(SplittableRandom random) {
+    return """
+        {"name":"%s %d","description":"Load test book","price":%d.%02d,"stock":1000000}"""
+        .formatted(
+            randomWord(random),
+            random.nextInt(BOOKS),
+            random.nextInt(100),
+            random.nextInt(100));
+  }
+
+  private HttpRequest get(String path) {
+    return HttpRequest.newBuilder(uri(path)).timeout(Duration.ofSeconds(30)).build();
+  }
+
+  private HttpRequest post(String path, String contentType, String body) {
+    HttpRequest.Builder request =
+        HttpRequest.newBuilder(uri(path))
+            .timeout(Duration.ofSeconds(30))
+            .POST(HttpRequest.BodyPublishers.ofString(body));
+    if (contentType != null) {
+      request.header("Content-Type", contentType);
+    }
+    return request.build();
+  }
+
+  private URI uri(String path) {
+    return URI.create("http://localhost:" + port + path);
+  }
+}
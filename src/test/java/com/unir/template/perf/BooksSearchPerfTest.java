@@ -0,0 +1,97 @@
+package com.unir.template.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.unir.template.model.BooksPage;
+import com.unir.template.service.BooksService;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Search latency on a table of millions of books. Every name carries one of {@value #TOPICS} topic
+ * words and every description a few of {@value #WORDS} vocabulary words, so the queries below match
+ * from about a thousand books down to a handful.
+ */
+@SpringBootTest
+@Testcontainers
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BooksSearchPerfTest {
+
+  private static final int BOOKS = Integer.getInteger("perf.search.rows", 2_000_000);
+  private static final int TOPICS = 2_000;
+  private static final int WORDS = 50_000;
+  private static final int WARM_UP_QUERIES = 50;
+  private static final int MEASURED_QUERIES = 500;
+  private static final long P99_BUDGET_NANOS = 50_000_000;
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:16.8-alpine")
+          .withDatabaseName("test_db")
+          .withUsername("test_user")
+          .withPassword("test_password");
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+  }
+
+  @Autowired private BooksService booksService;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @BeforeAll
+  void seedBooks() {
+    jdbcTemplate.update(
+        """
+        INSERT INTO books (id, name, description, price, stock)
+        SELECT gen_random_uuid(),
+               'Book ' || i || ' about topic' || (i % ?),
+               'Covers word' || (i * 7 % ?) || ', word' || (i * 13 % ?) || ' and word' || (i * 31 % ?),
+               10 + i % 90,
+               i % 50
+        FROM generate_series(1, ?) AS i
+        """,
+        TOPICS, WORDS, WORDS, WORDS, BOOKS);
+    jdbcTemplate.execute("VACUUM ANALYZE books");
+  }
+
+  @ParameterizedTest(name = "q={0}")
+  @ValueSource(
+      strings = {"topic42", "word123", "topic42 or topic43", "\"about topic7\"", "topic42 -word9"})
+  void searchIsUnderBudget(String query) {
+    for (int i = 0; i < WARM_UP_QUERIES; i++) {
+      booksService.searchBooks(query, null, 20);
+    }
+    long[] latencies = new long[MEASURED_QUERIES];
+    BooksPage page = null;
+    for (int i = 0; i < MEASURED_QUERIES; i++) {
+      long start = System.nanoTime();
+      page = booksService.searchBooks(query, null, 20);
+      latencies[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(latencies);
+    long p50 = latencies[MEASURED_QUERIES / 2];
+    long p99 = latencies[(int) Math.ceil(MEASURED_QUERIES * 0.99) - 1];
+
+    System.out.printf(
+        "Search '%s' over %d books: p50 %.1fms, p99 %.1fms%n", query, BOOKS, p50 / 1e6, p99 / 1e6);
+    assertThat(page.getItems()).isNotEmpty();
+    assertThat(p99).isLessThan(P99_BUDGET_NANOS);
+  }
+}
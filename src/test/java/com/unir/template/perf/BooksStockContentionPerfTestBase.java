@@ -0,0 +1,134 @@
+package com.unir.template.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.unir.template.model.Book;
+import com.unir.template.service.BooksService;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Hundreds of buyers reserve one book at a time from the same hot book until it is sold out.
+ * Reports reservations per second and checks that exactly the initial stock was sold, no more.
+ * Subclasses run it against the direct single-statement update and the write-behind buffer.
+ */
+@Testcontainers
+abstract class BooksStockContentionPerfTestBase {
+
+  private static final int STOCK = Integer.getInteger("perf.stock.units", 20_000);
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:16.8-alpine")
+          .withDatabaseName("test_db")
+          .withUsername("test_user")
+          .withPassword("test_password");
+
+  @DynamicPropertySource
+  static void configureProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgres::getJdbcUrl);
+    registry.add("spring.datasource.username", postgres::getUsername);
+    registry.add("spring.datasource.password", postgres::getPassword);
+  }
+
+  @LocalServerPort private int port;
+
+  @Autowired private BooksService booksService;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  abstract String mode();
+
+  /** Waits until every accepted reservation is visible in the database. */
+  abstract void awaitStockWritten();
+
+  @ParameterizedTest(name = "{0} concurrent buyers")
+  @ValueSource(ints = {100, 300, 500})
+  void reservationsNeverOversell(int buyers) throws InterruptedException {
+    UUID id =
+        booksService
+            .createBook(Book.builder().name("Hot book").price(10.0).stock(STOCK).build())
+            .getId();
+    AtomicLong reserved = new AtomicLong();
+    AtomicLong soldOut = new AtomicLong();
+    AtomicLong errors = new AtomicLong();
+    CountDownLatch start = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(buyers);
+
+    long elapsed;
+    try (ExecutorService executor = Executors.newFixedThreadPool(buyers);
+        HttpClient httpClient = HttpClient.newBuilder().executor(executor).build()) {
+      HttpRequest reserve =
+          HttpRequest.newBuilder(
+                  URI.create("http://localhost:" + port + "/api/books/" + id + "/reserve"))
+              .POST(HttpRequest.BodyPublishers.noBody())
+              .timeout(Duration.ofSeconds(30))
+              .build();
+      for (int buyer = 0; buyer < buyers; buyer++) {
+        executor.execute(
+            () -> {
+              try {
+                start.await();
+                // Every buyer keeps buying until the book is sold out
+                while (true) {
+                  int status =
+                      httpClient.send(reserve, HttpResponse.BodyHandlers.discarding()).statusCode();
+                  if (status == 200) {
+                    reserved.incrementAndGet();
+                  } else if (status == 409) {
+                    soldOut.incrementAndGet();
+                    return;
+                  } else {
+                    errors.incrementAndGet();
+                  }
+                }
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              } catch (Exception _) {
+                errors.incrementAndGet();
+              } finally {
+                done.countDown();
+              }
+            });
+      }
+      long startNanos = System.nanoTime();
+      start.countDown();
+      done.await();
+      elapsed = System.nanoTime() - startNanos;
+    }
+
+    awaitStockWritten();
+    Integer remaining =
+        jdbcTemplate.queryForObject("SELECT stock FROM books WHERE id = ?", Integer.class, id);
+    System.out.printf(
+        "%s, %d buyers: %d reservations in %.1fs, %.0f reservations/s, %d errors%n",
+        mode(),
+        buyers,
+        reserved.get(),
+        elapsed / 1e9,
+        reserved.get() / (elapsed / 1e9),
+        errors.get());
+    assertThat(errors.get()).isZero();
+    assertThat(reserved.get()).isEqualTo(STOCK);
+    assertThat(soldOut.get()).isEqualTo(buyers);
+    assertThat(remaining).isZero();
+  }
+}
@@ -0,0 +1,22 @@
+package com.unir.template.perf;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/** Runs the contention test with one conditional row update per reservation. */
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "books.stock-write-behind.enabled=false")
+@ActiveProfiles("test")
+class DirectStockContentionPerfTest extends BooksStockContentionPerfTestBase {
+
+  @Override
+  String mode() {
+    return "Direct update";
+  }
+
+  @Override
+  void awaitStockWritten() {
+    // Every reservation was written before it was acknowledged
+  }
+}
@@ -0,0 +1,43 @@
+package com.unir.template.perf;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Arrival rate a load scenario is run at and the corrected latencies, in milliseconds, and error
+ * rate it must stay within, as committed in benchmarks/load-budgets.json by scenario name.
+ */
+record LoadBudget(
+    double rate, double p50Millis, double p99Millis, double p999Millis, double maxErrorRate) {
+
+  static Map<String, LoadBudget> read(Path file) throws IOException {
+    return new ObjectMapper().readValue(file.toFile(), new TypeReference<>() {});
+  }
+
+  /** Descriptions of the limits the result exceeds, empty when it is within budget. */
+  List<String> violations(OpenModelLoadGenerator.Result result) {
+    List<String> violations = new ArrayList<>();
+    Histogram latencies = result.corrected();
+    check(violations, "p50", OpenModelLoadGenerator.Result.millis(latencies, 50), p50Millis);
+    check(violations, "p99", OpenModelLoadGenerator.Result.millis(latencies, 99), p99Millis);
+    check(violations, "p99.9", OpenModelLoadGenerator.Result.millis(latencies, 99.9), p999Millis);
+    if (result.errorRate() > maxErrorRate) {
+      violations.add(
+          "error rate %.4f over %.4f (%d of %d requests)"
+              .formatted(result.errorRate(), maxErrorRate, result.errors(), result.sent()));
+    }
+    return violations;
+  }
+
+  private static void check(List<String> violations, String name, double millis, double budget) {
+    if (millis > budget) {
+      violations.add("%s %.1fms over %.1fms".formatted(name, millis, budget));
+    }
+  }
+}
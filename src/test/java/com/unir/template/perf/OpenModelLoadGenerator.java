@@ -0,0 +1,118 @@
+package com.unir.template.perf;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Open-model load generator: requests are started at a fixed rate on a precomputed schedule,
+ * whether the earlier ones completed or not, the way independent users would send them. A closed
+ * model, where each client waits for its previous response, sends less while the server stalls and
+ * so leaves the stall out of its latencies (coordinated omission).
+ *
+ * <p>Every successful request is recorded twice. The corrected latency runs from the time the
+ * schedule planned to start it, so time spent queued behind a slow server or a late generator
+ * counts. The uncorrected one runs from the time it was actually sent, which is what a naive
+ * client would report. Requests that fail or answer anything but 2xx are only counted as errors.
+ */
+final class OpenModelLoadGenerator implements AutoCloseable {
+
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+  private final HttpClient httpClient =
+      HttpClient.newBuilder().executor(executor).connectTimeout(REQUEST_TIMEOUT).build();
+
+  /**
+   * Sends the requests of the supplier at the given rate for the given time, then waits for the
+   * ones still in flight. The supplier is only called from the calling thread, so that a seeded
+   * supplier produces the same requests in the same order on every run.
+   */
+  Result run(Supplier<HttpRequest> requests, double ratePerSecond, Duration duration)
+      throws InterruptedException {
+    Histogram corrected = new ConcurrentHistogram(3);
+    Histogram uncorrected = new ConcurrentHistogram(3);
+    AtomicLong errors = new AtomicLong();
+    // Requests not counted yet, each removed exactly once by its completion or by the timeout
+    Set<Long> pending = ConcurrentHashMap.newKeySet();
+    // One more than the requests in flight until the last one is sent
+    AtomicLong inFlight = new AtomicLong(1);
+    CountDownLatch drained = new CountDownLatch(1);
+    long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+    long start = System.nanoTime();
+    long sent = 0;
+    for (long intendedStart = start;
+        intendedStart - start < duration.toNanos();
+        intendedStart = start + ++sent * intervalNanos) {
+      long wait = intendedStart - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      HttpRequest request = requests.get();
+      long sequence = sent;
+      long scheduledAt = intendedStart;
+      long sentAt = System.nanoTime();
+      pending.add(sequence);
+      inFlight.incrementAndGet();
+      httpClient
+          .sendAsync(request, HttpResponse.BodyHandlers.discarding())
+          .whenComplete(
+              (response, failure) -> {
+                long completedAt = System.nanoTime();
+                if (pending.remove(sequence)) {
+                  if (failure == null && response.statusCode() / 100 == 2) {
+                    corrected.recordValue(completedAt - scheduledAt);
+                    uncorrected.recordValue(completedAt - sentAt);
+                  } else {
+                    errors.incrementAndGet();
+                  }
+                }
+                if (inFlight.decrementAndGet() == 0) {
+                  drained.countDown();
+                }
+              });
+    }
+    if (inFlight.decrementAndGet() == 0) {
+      drained.countDown();
+    }
+    if (!drained.await(REQUEST_TIMEOUT.toNanos(), TimeUnit.NANOSECONDS)) {
+      // Requests still in flight past their own timeout are lost, and so counted as errors
+      for (Long sequence : pending) {
+        if (pending.remove(sequence)) {
+          errors.incrementAndGet();
+        }
+      }
+    }
+    return new Result(sent, errors.get(), corrected, uncorrected);
+  }
+
+  @Override
+  public void close() {
+    httpClient.close();
+    executor.close();
+  }
+
+  /** Latencies in nanoseconds of the successful requests among the sent ones. */
+  record Result(long sent, long errors, Histogram corrected, Histogram uncorrected) {
+
+    double errorRate() {
+      return sent == 0 ? 0 : (double) errors / sent;
+    }
+
+    static double millis(Histogram histogram, double percentile) {
+      return histogram.getValueAtPercentile(percentile) / 1e6;
+    }
+  }
+}
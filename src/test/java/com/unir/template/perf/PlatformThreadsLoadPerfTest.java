@@ -0,0 +1,17 @@
+package com.unir.template.perf;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/** Runs the load test on Tomcat's default platform-thread pool. */
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "spring.threads.virtual.enabled=false")
+@ActiveProfiles("test")
+class PlatformThreadsLoadPerfTest extends BooksLoadPerfTestBase {
+
+  @Override
+  String mode() {
+    return "Platform threads";
+  }
+}
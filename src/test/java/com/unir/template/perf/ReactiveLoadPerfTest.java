@@ -0,0 +1,34 @@
+package com.unir.template.perf;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Runs the load test on the WebFlux and R2DBC stack, with as many database connections as the
+ * default Hikari pool of the other runs.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "reactive"})
+class ReactiveLoadPerfTest extends BooksLoadPerfTestBase {
+
+  @DynamicPropertySource
+  static void configureR2dbc(DynamicPropertyRegistry registry) {
+    registry.add(
+        "spring.r2dbc.url",
+        () ->
+            "r2dbc:postgresql://%s:%d/%s"
+                .formatted(
+                    postgres.getHost(), postgres.getFirstMappedPort(), postgres.getDatabaseName()));
+    registry.add("spring.r2dbc.username", postgres::getUsername);
+    registry.add("spring.r2dbc.password", postgres::getPassword);
+    registry.add("spring.r2dbc.pool.initial-size", () -> 10);
+    registry.add("spring.r2dbc.pool.max-size", () -> 10);
+  }
+
+  @Override
+  String mode() {
+    return "Reactive";
+  }
+}
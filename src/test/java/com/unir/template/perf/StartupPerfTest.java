@@ -0,0 +1,242 @@
+package com.unir.template.perf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarFile;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Starts the packaged application as a separate JVM, the way the Dockerfile does, and reports the
+ * time from launch to the first served request and the resident memory after it, with and without
+ * Spring AOT and the JDK AOT cache, and the same for the native executable. Spring AOT needs a jar
+ * built with the aot profile, the AOT cache a JDK 24 or later and the native variant an executable
+ * built with the native profile; the variants that are not available are skipped.
+ */
+@Testcontainers
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StartupPerfTest {
+
+  private static final Path JAR =
+      Path.of(System.getProperty("perf.startup.jar", "target/spring-boot-template.jar"));
+  private static final Path NATIVE_EXECUTABLE =
+      Path.of(System.getProperty("perf.startup.native", "target/spring-boot-template"));
+  private static final Path WORK_DIR = Path.of("target", "startup-perf");
+  private static final int RUNS = Integer.getInteger("perf.startup.runs", 5);
+  private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+  private static final String SPRING_AOT_INITIALIZER =
+      "BOOT-INF/classes/com/unir/template/TemplateApplication__ApplicationContextInitializer.class";
+
+  @Container
+  static PostgreSQLContainer<?> postgres =
+      new PostgreSQLContainer<>("postgres:16.8-alpine")
+          .withDatabaseName("test_db")
+          .withUsername("test_user")
+          .withPassword("test_password");
+
+  private final String java = ProcessHandle.current().info().command().orElse("java");
+  private final HttpClient httpClient = HttpClient.newHttpClient();
+  private boolean springAotBuilt;
+  private boolean aotCacheSupported;
+
+  enum Startup {
+    DEFAULT(false, false, false),
+    SPRING_AOT(true, false, false),
+    AOT_CACHE(false, true, false),
+    SPRING_AOT_AND_AOT_CACHE(true, true, false),
+    NATIVE(true, false, true);
+
+    private final boolean springAot;
+    private final boolean aotCache;
+    private final boolean nativeImage;
+
+    Startup(boolean springAot, boolean aotCache, boolean nativeImage) {
+      this.springAot = springAot;
+      this.aotCache = aotCache;
+      this.nativeImage = nativeImage;
+    }
+  }
+
+  @BeforeAll
+  void prepare() throws Exception {
+    assertThat(JAR).as("packaged application, run mvn package first").exists();
+    try (JarFile jarFile = new JarFile(JAR.toFile())) {
+      springAotBuilt = jarFile.getEntry(SPRING_AOT_INITIALIZER) != null;
+    }
+    aotCacheSupported = Runtime.version().feature() >= 24;
+    Files.createDirectories(WORK_DIR);
+    run(
+        java,
+        "-Djarmode=tools",
+        "-jar",
+        JAR.toAbsolutePath().toString(),
+        "extract",
+        "--force",
+        "--destination",
+        ".");
+    if (aotCacheSupported) {
+      for (boolean springAot : new boolean[] {false, true}) {
+        if (springAot && !springAotBuilt) {
+          continue;
+        }
+        String cache = cacheName(springAot);
+        run(
+            java,
+            "-XX:AOTMode=record",
+            "-XX:AOTConfiguration=" + cache + "conf",
+            "-Dspring.aot.enabled=" + springAot,
+            "-Dspring.context.exit=onRefresh",
+            "-Dspring.profiles.active=training",
+            "-jar",
+            extractedJar());
+        run(
+            java,
+            "-XX:AOTMode=create",
+            "-XX:AOTConfiguration=" + cache + "conf",
+            "-XX:AOTCache=" + cache,
+            "-jar",
+            extractedJar());
+      }
+    }
+    // Applies the database migrations, so that no measured start pays for them
+    start(Startup.DEFAULT, "migrate").destroy();
+  }
+
+  @ParameterizedTest
+  @EnumSource(Startup.class)
+  void timeToFirstRequest(Startup startup) throws Exception {
+    assumeTrue(
+        !startup.nativeImage || Files.isExecutable(NATIVE_EXECUTABLE),
+        "native executable not built with the native profile");
+    assumeTrue(
+        startup.nativeImage || !startup.springAot || springAotBuilt,
+        "jar not built with the aot profile");
+    assumeTrue(!startup.aotCache || aotCacheSupported, "JDK AOT cache requires JDK 24");
+
+    long[] millis = new long[RUNS];
+    long[] rssKb = new long[RUNS];
+    for (int i = 0; i < RUNS; i++) {
+      StartedApplication application = start(startup, startup.name().toLowerCase() + "-" + i);
+      millis[i] = application.millisToFirstRequest();
+      rssKb[i] = residentSetKb(application.process());
+      application.destroy();
+    }
+    Arrays.sort(millis);
+    Arrays.sort(rssKb);
+
+    System.out.printf(
+        "%s: first request after %d ms (min %d, max %d), RSS %.0f MB%n",
+        startup, millis[RUNS / 2], millis[0], millis[RUNS - 1], rssKb[RUNS / 2] / 1024.0);
+    assertThat(millis[0]).isPositive();
+  }
+
+  private StartedApplication start(Startup startup, String name) throws Exception {
+    int port = freePort();
+    List<String> command = new ArrayList<>();
+    if (startup.nativeImage) {
+      command.add(NATIVE_EXECUTABLE.toAbsolutePath().toString());
+    } else {
+      command.add(java);
+      if (startup.aotCache) {
+        command.add("-XX:AOTCache=" + cacheName(startup.springAot));
+      }
+      command.addAll(List.of("-Dspring.aot.enabled=" + startup.springAot, "-jar", extractedJar()));
+    }
+    command.addAll(
+        List.of(
+            "--server.port=" + port,
+            "--management.server.port=" + freePort(),
+            "--spring.datasource.url=" + postgres.getJdbcUrl(),
+            "--spring.datasource.username=" + postgres.getUsername(),
+            "--spring.datasource.password=" + postgres.getPassword()));
+    long start = System.nanoTime();
+    Process process =
+        new ProcessBuilder(command)
+            .directory(WORK_DIR.toFile())
+            .redirectErrorStream(true)
+            .redirectOutput(WORK_DIR.resolve(name + ".log").toFile())
+            .start();
+    URI firstRequest = URI.create("http://localhost:" + port + "/api/books?limit=1");
+    long deadline = start + STARTUP_TIMEOUT.toNanos();
+    while (!isServed(firstRequest)) {
+      assertThat(process.isAlive()).as("application %s is running", name).isTrue();
+      assertThat(System.nanoTime()).as("application %s started in time", name).isLessThan(deadline);
+      Thread.sleep(5);
+    }
+    return new StartedApplication(process, (System.nanoTime() - start) / 1_000_000);
+  }
+
+  private boolean isServed(URI uri) throws InterruptedException {
+    try {
+      HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(5)).build();
+      return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+    } catch (IOException _) {
+      return false;
+    }
+  }
+
+  /** Resident set size of the process read from procfs, 0 where there is none. */
+  private static long residentSetKb(Process process) throws IOException {
+    Path status = Path.of("/proc", Long.toString(process.pid()), "status");
+    if (!Files.exists(status)) {
+      return 0;
+    }
+    return Files.readAllLines(status).stream()
+        .filter(line -> line.startsWith("VmRSS:"))
+        .map(line -> line.replaceAll("\\D", ""))
+        .mapToLong(Long::parseLong)
+        .findFirst()
+        .orElse(0);
+  }
+
+  private void run(String... command) throws Exception {
+    Process process =
+        new ProcessBuilder(command)
+            .directory(WORK_DIR.toFile())
+            .redirectErrorStream(true)
+            .redirectOutput(
+                ProcessBuilder.Redirect.appendTo(WORK_DIR.resolve("prepare.log").toFile()))
+            .start();
+    assertThat(process.waitFor()).as(String.join(" ", command)).isZero();
+  }
+
+  private static String extractedJar() {
+    return JAR.getFileName().toString();
+  }
+
+  private static String cacheName(boolean springAot) {
+    return springAot ? "app-spring-aot.aot" : "app.aot";
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  private record StartedApplication(Process process, long millisToFirstRequest) {
+
+    void destroy() throws InterruptedException {
+      process.destroy();
+      process.waitFor();
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package com.unir.template.perf;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/** Runs the load test with virtual threads and connection admission control. */
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "spring.threads.virtual.enabled=true")
+@ActiveProfiles("test")
+class VirtualThreadsLoadPerfTest extends BooksLoadPerfTestBase {
+
+  @Override
+  String mode() {
+    return "Virtual threads";
+  }
+}
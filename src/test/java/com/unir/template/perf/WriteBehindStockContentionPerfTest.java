@@ -0,0 +1,26 @@
+package com.unir.template.perf;
+
+import com.unir.template.service.StockDeltaBuffer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/** Runs the contention test with reservations buffered in memory and written in batches. */
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "books.stock-write-behind.enabled=true")
+@ActiveProfiles("test")
+class WriteBehindStockContentionPerfTest extends BooksStockContentionPerfTestBase {
+
+  @Autowired private StockDeltaBuffer stockDeltaBuffer;
+
+  @Override
+  String mode() {
+    return "Write-behind";
+  }
+
+  @Override
+  void awaitStockWritten() {
+    stockDeltaBuffer.flush();
+  }
+}
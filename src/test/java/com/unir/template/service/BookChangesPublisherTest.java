@@ -0,0 +1,176 @@
+package com.unir.template.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BookChange;
+import com.unir.template.model.BookChangesPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.instancio.Instancio;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class BookChangesPublisherTest {
+
+  @Mock private BooksService booksService;
+
+  private SimpleMeterRegistry registry;
+  private BookChangesPublisher publisher;
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+    // Polls are triggered by the tests rather than by the schedule
+    publisher = new BookChangesPublisher(booksService, Duration.ofHours(1), 2, registry);
+    publisher.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (publisher.isRunning()) {
+      publisher.stop();
+    }
+  }
+
+  @Test
+  void givenSubscribersAtSameCursor_whenPoll_thenFeedIsReadOnceForAll() throws Exception {
+    BookChangesPage page = page(false, upserted(1));
+    given(booksService.getChanges(null, 2)).willReturn(page);
+    RecordingSubscriber first = new RecordingSubscriber();
+    RecordingSubscriber second = new RecordingSubscriber();
+    publisher.subscribe(null, first);
+    publisher.subscribe(null, second);
+
+    publisher.poll();
+
+    assertEquals(page, first.next());
+    assertEquals(page, second.next());
+    verify(booksService, times(1)).getChanges(null, 2);
+  }
+
+  @Test
+  void givenMorePagesThanOne_whenPoll_thenSubscriberReadsUntilCaughtUp() throws Exception {
+    BookChangesPage firstPage = page(true, upserted(1), upserted(2));
+    BookChangesPage lastPage = page(false, upserted(3));
+    given(booksService.getChanges(null, 2)).willReturn(firstPage);
+    given(booksService.getChanges(firstPage.getNextCursor(), 2)).willReturn(lastPage);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(null, subscriber);
+
+    publisher.poll();
+
+    assertEquals(firstPage, subscriber.next());
+    assertEquals(lastPage, subscriber.next());
+  }
+
+  @Test
+  void givenNoChanges_whenPoll_thenNothingIsDelivered() throws Exception {
+    given(booksService.getChanges(null, 2)).willReturn(page(false));
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(null, subscriber);
+
+    publisher.poll();
+
+    assertNull(subscriber.pages.poll(100, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  void givenFailingSubscriber_whenPoll_thenSubscriptionIsDropped() throws Exception {
+    given(booksService.getChanges(null, 2)).willReturn(page(false, upserted(1)));
+    CountDownLatch failed = new CountDownLatch(1);
+    publisher.subscribe(
+        null,
+        new BookChangesPublisher.Subscriber() {
+          @Override
+          public void onChanges(BookChangesPage page) throws IOException {
+            failed.countDown();
+            throw new IOException("Broken pipe");
+          }
+
+          @Override
+          public void onComplete() {}
+        });
+
+    publisher.poll();
+
+    assertTrue(failed.await(5, TimeUnit.SECONDS));
+    awaitSubscribers(0);
+  }
+
+  @Test
+  void givenSubscriber_whenStop_thenSubscriptionIsCompleted() {
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(null, subscriber);
+
+    publisher.stop();
+
+    assertTrue(subscriber.completed);
+    assertEquals(0, registry.get("books.changes.subscribers").gauge().value());
+  }
+
+  @Test
+  void givenInvalidCursor_whenSubscribe_thenExceptionThrown() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> publisher.subscribe("not-a-cursor", new RecordingSubscriber()));
+  }
+
+  private static BookChange upserted(long sequence) {
+    return BookChange.upserted(sequence, Instant.now(), Instancio.create(Book.class));
+  }
+
+  private static BookChangesPage page(boolean hasMore, BookChange... changes) {
+    String nextCursor =
+        changes.length == 0 ? null : BookCursors.encodeChange(changes[changes.length - 1]);
+    return new BookChangesPage(List.of(changes), nextCursor, hasMore);
+  }
+
+  private void awaitSubscribers(int expected) throws InterruptedException {
+    for (int i = 0; i < 50; i++) {
+      if (registry.get("books.changes.subscribers").gauge().value() == expected) {
+        return;
+      }
+      Thread.sleep(100);
+    }
+    assertEquals(expected, registry.get("books.changes.subscribers").gauge().value());
+  }
+
+  private static final class RecordingSubscriber implements BookChangesPublisher.Subscriber {
+
+    private final BlockingQueue<BookChangesPage> pages = new LinkedBlockingQueue<>();
+    private volatile boolean completed;
+
+    @Override
+    public void onChanges(BookChangesPage page) {
+      pages.add(page);
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+
+    BookChangesPage next() throws InterruptedException {
+      return pages.poll(5, TimeUnit.SECONDS);
+    }
+  }
+}
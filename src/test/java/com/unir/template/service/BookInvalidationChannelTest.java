@@ -0,0 +1,162 @@
+package com.unir.template.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.unir.template.config.BooksProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class BookInvalidationChannelTest {
+
+  private static final String OTHER_INSTANCE = "other-instance";
+
+  @Mock private DataSource dataSource;
+  @Mock private BookChangeListener localListener;
+
+  private final AtomicInteger flushes = new AtomicInteger();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private BookInvalidationChannel channel;
+
+  @BeforeEach
+  void setUp() {
+    channel =
+        new BookInvalidationChannel(
+            dataSource,
+            localListener,
+            flushes::incrementAndGet,
+            new BooksProperties.Invalidation(),
+            meterRegistry);
+  }
+
+  @Test
+  void givenIds_whenEncodeAndDecode_thenMessageIsKept() {
+    Set<UUID> ids = new LinkedHashSet<>(List.of(UUID.randomUUID(), UUID.randomUUID()));
+
+    BookInvalidationChannel.Message message =
+        BookInvalidationChannel.decode(BookInvalidationChannel.encode(OTHER_INSTANCE, 7, ids));
+
+    assertEquals(OTHER_INSTANCE, message.instanceId());
+    assertEquals(7, message.sequence());
+    assertEquals(List.copyOf(ids), message.ids());
+  }
+
+  @Test
+  void givenNoIds_whenEncodeAndDecode_thenMessageHasNoIds() {
+    BookInvalidationChannel.Message message =
+        BookInvalidationChannel.decode(BookInvalidationChannel.encode(OTHER_INSTANCE, 3, Set.of()));
+
+    assertEquals(3, message.sequence());
+    assertEquals(List.of(), message.ids());
+  }
+
+  @Test
+  void givenFullMessage_whenEncode_thenPayloadFitsInNotification() {
+    Set<UUID> ids = new LinkedHashSet<>();
+    while (ids.size() < BookInvalidationChannel.MAX_IDS_PER_MESSAGE) {
+      ids.add(UUID.randomUUID());
+    }
+
+    String payload =
+        BookInvalidationChannel.encode(UUID.randomUUID().toString(), Long.MAX_VALUE, ids);
+
+    assertTrue(payload.length() < 8000);
+  }
+
+  @Test
+  void givenMalformedPayload_whenDecode_thenIllegalArgument() {
+    assertThrows(IllegalArgumentException.class, () -> BookInvalidationChannel.decode("oops"));
+    assertThrows(
+        IllegalArgumentException.class, () -> BookInvalidationChannel.decode("a:1:not-a-uuid"));
+  }
+
+  @Test
+  void givenConsecutiveMessages_whenReceive_thenBooksAreEvictedWithoutFlush() {
+    UUID first = UUID.randomUUID();
+    UUID second = UUID.randomUUID();
+
+    channel.receive(BookInvalidationChannel.encode(OTHER_INSTANCE, 1, Set.of(first)));
+    channel.receive(BookInvalidationChannel.encode(OTHER_INSTANCE, 2, Set.of(second)));
+
+    verify(localListener).onBookChanged(first);
+    verify(localListener).onBookChanged(second);
+    assertEquals(0, flushes.get());
+    assertEquals(2, meterRegistry.counter("books.invalidation.received").count());
+  }
+
+  @Test
+  void givenSkippedSequence_whenReceive_thenEveryBookIsFlushed() {
+    UUID id = UUID.randomUUID();
+    channel.receive(BookInvalidationChannel.encode(OTHER_INSTANCE, 1, Set.of(UUID.randomUUID())));
+
+    channel.receive(BookInvalidationChannel.encode(OTHER_INSTANCE, 3, Set.of(id)));
+
+    verify(localListener, never()).onBookChanged(id);
+    assertEquals(1, flushes.get());
+    assertEquals(1, meterRegistry.counter("books.invalidation.flushes", "reason", "gap").count());
+  }
+
+  @Test
+  void givenFirstMessagesOfSenderLost_whenReceive_thenEveryBookIsFlushed() {
+    UUID id = UUID.randomUUID();
+
+    channel.receive(BookInvalidationChannel.encode(OTHER_INSTANCE, 3, Set.of(id)));
+
+    verify(localListener, never()).onBookChanged(id);
+    assertEquals(1, flushes.get());
+  }
+
+  @Test
+  void givenFlushedSender_whenReceiveNextMessage_thenBooksAreEvictedWithoutFlush() {
+    UUID id = UUID.randomUUID();
+    channel.receive(BookInvalidationChannel.encode(OTHER_INSTANCE, 3, Set.of()));
+
+    channel.receive(BookInvalidationChannel.encode(OTHER_INSTANCE, 4, Set.of(id)));
+
+    verify(localListener).onBookChanged(id);
+    assertEquals(1, flushes.get());
+  }
+
+  @Test
+  void givenHeartbeatAfterLostMessage_whenReceive_thenEveryBookIsFlushed() {
+    channel.receive(BookInvalidationChannel.encode(OTHER_INSTANCE, 1, Set.of(UUID.randomUUID())));
+
+    channel.receive(BookInvalidationChannel.encode(OTHER_INSTANCE, 3, Set.of()));
+
+    assertEquals(1, flushes.get());
+  }
+
+  @Test
+  void givenHeartbeat_whenReceive_thenNothingIsEvicted() {
+    channel.receive(BookInvalidationChannel.encode(OTHER_INSTANCE, 1, Set.of(UUID.randomUUID())));
+
+    channel.receive(BookInvalidationChannel.encode(OTHER_INSTANCE, 2, Set.of()));
+
+    assertEquals(0, flushes.get());
+    assertEquals(1, meterRegistry.counter("books.invalidation.received").count());
+  }
+
+  @Test
+  void givenMalformedMessage_whenReceive_thenEveryBookIsFlushed() {
+    channel.receive("not a message");
+
+    verify(localListener, never()).onBookChanged(any());
+    assertEquals(1, flushes.get());
+  }
+}
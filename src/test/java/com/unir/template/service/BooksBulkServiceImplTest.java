@@ -0,0 +1,262 @@
+package com.unir.template.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unir.template.config.BooksProperties;
+import com.unir.template.model.Book;
+import com.unir.template.model.BulkItemResult;
+import com.unir.template.repository.BooksRepository;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+import org.instancio.Instancio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+@ExtendWith(MockitoExtension.class)
+class BooksBulkServiceImplTest {
+
+  @Mock private BooksRepository booksRepository;
+  @Mock private JdbcTemplate jdbcTemplate;
+  @Mock private PlatformTransactionManager transactionManager;
+  @Mock private BookChangeListener bookChangeListener;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final BooksProperties booksProperties = new BooksProperties();
+
+  private BooksBulkServiceImpl booksBulkService;
+
+  @BeforeEach
+  void setUp() {
+    lenient()
+        .when(transactionManager.getTransaction(any()))
+        .thenReturn(mock(TransactionStatus.class));
+    booksProperties.getBulk().setChunkSize(2);
+    booksBulkService =
+        new BooksBulkServiceImpl(
+            booksRepository,
+            jdbcTemplate,
+            transactionManager,
+            objectMapper,
+            booksProperties,
+            bookChangeListener);
+  }
+
+  @Test
+  void givenBooks_whenExportBooks_thenEveryBookIsWrittenAsOneJsonLine() throws IOException {
+    List<Book> books = Instancio.ofList(Book.class).size(3).create();
+    givenRows(books);
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    booksBulkService.exportBooks(outputStream);
+
+    String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(3, lines.length);
+    for (int i = 0; i < books.size(); i++) {
+      assertEquals(toJsonTree(books.get(i)), objectMapper.readTree(lines[i]));
+    }
+    verify(transactionManager).commit(any());
+  }
+
+  @Test
+  void givenBookWithoutPriceAndStock_whenExportBooks_thenNullsAreWritten() throws IOException {
+    Book book = Instancio.create(Book.class);
+    book.setPrice(null);
+    book.setStock(null);
+    givenRows(List.of(book));
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    booksBulkService.exportBooks(outputStream);
+
+    assertEquals(toJsonTree(book), objectMapper.readTree(outputStream.toByteArray()));
+  }
+
+  @Test
+  void givenFailingOutputStream_whenExportBooks_thenIOExceptionIsPropagated() {
+    givenRows(Instancio.ofList(Book.class).size(1).create());
+    OutputStream failingStream =
+        new OutputStream() {
+          @Override
+          public void write(int b) throws IOException {
+            throw new IOException("Broken pipe");
+          }
+
+          @Override
+          public void write(byte[] b, int off, int len) throws IOException {
+            throw new IOException("Broken pipe");
+          }
+        };
+
+    assertThrows(IOException.class, () -> booksBulkService.exportBooks(failingStream));
+  }
+
+  @Test
+  void givenValidBooks_whenCreateBooks_thenBooksAreSavedInChunks() {
+    List<Book> books = Instancio.ofList(Book.class).size(3).create();
+    givenSaveAllAssignsIds();
+
+    List<BulkItemResult> results = booksBulkService.createBooks(books);
+
+    assertEquals(3, results.size());
+    for (int i = 0; i < books.size(); i++) {
+      assertEquals(BulkItemResult.created(i, books.get(i).getId()), results.get(i));
+      verify(bookChangeListener).onBookChanged(books.get(i).getId());
+    }
+    verify(booksRepository, times(2)).saveAll(anyList());
+  }
+
+  @Test
+  void givenBookWithoutName_whenCreateBooks_thenOnlyThatItemFails() {
+    List<Book> books = Instancio.ofList(Book.class).size(2).create();
+    books.getFirst().setName(null);
+    givenSaveAllAssignsIds();
+
+    List<BulkItemResult> results = booksBulkService.createBooks(books);
+
+    assertEquals(BulkItemResult.failed(0, "Book name is required"), results.get(0));
+    assertEquals(BulkItemResult.created(1, books.get(1).getId()), results.get(1));
+  }
+
+  @Test
+  void givenFailingChunk_whenCreateBooks_thenItemsAreRetriedOneByOne() {
+    List<Book> books = Instancio.ofList(Book.class).size(2).create();
+    Book invalidBook = books.get(1);
+    given(booksRepository.saveAll(anyList())).willThrow(new RuntimeException("Chunk failed"));
+    given(booksRepository.save(any(Book.class)))
+        .willAnswer(
+            invocation -> {
+              Book book = invocation.getArgument(0);
+              if (book == invalidBook) {
+                throw new RuntimeException("value too long");
+              }
+              book.setId(UUID.randomUUID());
+              return book;
+            });
+
+    List<BulkItemResult> results = booksBulkService.createBooks(books);
+
+    assertEquals(BulkItemResult.created(0, books.get(0).getId()), results.get(0));
+    assertEquals(BulkItemResult.failed(1, "value too long"), results.get(1));
+  }
+
+  @Test
+  void givenNdjson_whenCreateBooks_thenEveryLineIsCreated() throws IOException {
+    String ndjson =
+        """
+        {"name": "Book 1", "price": 10.5, "stock": 1}
+        {"name": "Book 2", "price": 20.5, "stock": 2}
+        """;
+    givenSaveAllAssignsIds();
+
+    List<BulkItemResult> results =
+        booksBulkService.createBooks(
+            new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+    assertEquals(2, results.size());
+    assertEquals(BulkItemResult.Status.CREATED, results.get(0).getStatus());
+    assertEquals(BulkItemResult.Status.CREATED, results.get(1).getStatus());
+  }
+
+  @Test
+  void givenMalformedLine_whenCreateBooks_thenOnlyThatLineFails() throws IOException {
+    byte[] ndjson =
+        """
+        {"name": "Book 1"}
+        {"name": "Book 2"
+        {"name": "Book 3"}
+        """
+            .getBytes(StandardCharsets.UTF_8);
+    givenSaveAllAssignsIds();
+
+    List<BulkItemResult> results = booksBulkService.createBooks(new ByteArrayInputStream(ndjson));
+
+    assertEquals(3, results.size());
+    assertEquals(BulkItemResult.Status.CREATED, results.get(0).getStatus());
+    assertEquals(BulkItemResult.Status.FAILED, results.get(1).getStatus());
+    assertEquals(1, results.get(1).getIndex());
+    assertEquals(BulkItemResult.Status.CREATED, results.get(2).getStatus());
+  }
+
+  @Test
+  void givenMalformedLineAfterFullChunk_whenCreateBooks_thenChunkIsSavedBeforeTheBodyIsRead()
+      throws IOException {
+    byte[] ndjson =
+        """
+        {"name": "Book 1"}
+        {"name": "Book 2"}
+        {"""
+            .getBytes(StandardCharsets.UTF_8);
+    givenSaveAllAssignsIds();
+
+    List<BulkItemResult> results = booksBulkService.createBooks(new ByteArrayInputStream(ndjson));
+
+    verify(booksRepository).saveAll(anyList());
+    assertEquals(3, results.size());
+    assertEquals(BulkItemResult.Status.FAILED, results.get(2).getStatus());
+  }
+
+  private void givenSaveAllAssignsIds() {
+    given(booksRepository.saveAll(anyList()))
+        .willAnswer(
+            invocation -> {
+              List<Book> chunk = invocation.getArgument(0);
+              chunk.forEach(book -> book.setId(UUID.randomUUID()));
+              return chunk;
+            });
+  }
+
+  private void givenRows(List<Book> books) {
+    willAnswer(
+            invocation -> {
+              RowCallbackHandler handler = invocation.getArgument(1);
+              for (Book book : books) {
+                handler.processRow(row(book));
+              }
+              return null;
+            })
+        .given(jdbcTemplate)
+        .query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+  }
+
+  private static ResultSet row(Book book) throws SQLException {
+    ResultSet resultSet = mock(ResultSet.class);
+    given(resultSet.getString("id")).willReturn(book.getId().toString());
+    given(resultSet.getString("name")).willReturn(book.getName());
+    given(resultSet.getString("description")).willReturn(book.getDescription());
+    given(resultSet.getDouble("price")).willReturn(book.getPrice() == null ? 0 : book.getPrice());
+    given(resultSet.getInt("stock")).willReturn(book.getStock() == null ? 0 : book.getStock());
+    given(resultSet.wasNull()).willReturn(book.getPrice() == null, book.getStock() == null);
+    given(resultSet.getLong("version")).willReturn(book.getVersion());
+    return resultSet;
+  }
+
+  private JsonNode toJsonTree(Book book) throws IOException {
+    return objectMapper.readTree(objectMapper.writeValueAsBytes(book));
+  }
+}
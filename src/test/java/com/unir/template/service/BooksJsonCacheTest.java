@@ -0,0 +1,106 @@
+package com.unir.template.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unir.template.config.BooksProperties;
+import com.unir.template.model.Book;
+import com.unir.template.model.BooksPage;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.instancio.Instancio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BooksJsonCacheTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private BooksJsonCache booksJsonCache;
+
+  @BeforeEach
+  void setUp() {
+    BooksProperties.JsonCache properties = new BooksProperties.JsonCache();
+    properties.setEnabled(true);
+    booksJsonCache = new BooksJsonCache(objectMapper, properties);
+  }
+
+  @Test
+  void givenCachedBook_whenGetBook_thenSameBytesAreReturnedWithoutLoading() throws IOException {
+    Book book = Instancio.create(Book.class);
+    AtomicInteger loads = new AtomicInteger();
+
+    CachedJson first = booksJsonCache.getBook(book.getId(), _ -> load(book, loads));
+    CachedJson second = booksJsonCache.getBook(book.getId(), _ -> load(book, loads));
+
+    assertSame(first, second);
+    assertEquals(1, loads.get());
+    assertArrayEquals(objectMapper.writeValueAsBytes(book), first.json());
+    assertEquals(BookETags.of(book), first.eTag());
+  }
+
+  @Test
+  void givenCachedBook_whenBookChanged_thenBookIsSerializedAgain() {
+    Book book = Instancio.create(Book.class);
+    AtomicInteger loads = new AtomicInteger();
+    CachedJson first = booksJsonCache.getBook(book.getId(), _ -> load(book, loads));
+
+    booksJsonCache.onBookChanged(book.getId());
+    CachedJson second = booksJsonCache.getBook(book.getId(), _ -> load(book, loads));
+
+    assertNotSame(first, second);
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void givenCachedPage_whenAnyBookChanged_thenPageIsSerializedAgain() throws IOException {
+    BooksPage page = new BooksPage(Instancio.ofList(Book.class).size(2).create(), null);
+    AtomicInteger loads = new AtomicInteger();
+    CachedJson first = booksJsonCache.getPage(null, 10, () -> load(page, loads));
+    assertSame(first, booksJsonCache.getPage(null, 10, () -> load(page, loads)));
+
+    booksJsonCache.onBookChanged(UUID.randomUUID());
+    CachedJson second = booksJsonCache.getPage(null, 10, () -> load(page, loads));
+
+    assertNotSame(first, second);
+    assertEquals(2, loads.get());
+    assertArrayEquals(objectMapper.writeValueAsBytes(page), second.json());
+  }
+
+  @Test
+  void givenCachedBookAndPage_whenAllBooksChanged_thenBothAreSerializedAgain() {
+    Book book = Instancio.create(Book.class);
+    BooksPage page = new BooksPage(List.of(book), null);
+    AtomicInteger loads = new AtomicInteger();
+    booksJsonCache.getBook(book.getId(), _ -> load(book, loads));
+    booksJsonCache.getPage(null, 10, () -> load(page, loads));
+
+    booksJsonCache.onAllBooksChanged();
+    booksJsonCache.getBook(book.getId(), _ -> load(book, loads));
+    booksJsonCache.getPage(null, 10, () -> load(page, loads));
+
+    assertEquals(4, loads.get());
+  }
+
+  @Test
+  void givenDifferentPageParameters_whenGetPage_thenPagesAreCachedSeparately() {
+    AtomicInteger loads = new AtomicInteger();
+    BooksPage page = new BooksPage(List.of(), null);
+
+    booksJsonCache.getPage(null, 10, () -> load(page, loads));
+    booksJsonCache.getPage(null, 20, () -> load(page, loads));
+    booksJsonCache.getPage("cursor", 10, () -> load(page, loads));
+
+    assertEquals(3, loads.get());
+  }
+
+  private static <T> T load(T value, AtomicInteger loads) {
+    loads.incrementAndGet();
+    return value;
+  }
+}
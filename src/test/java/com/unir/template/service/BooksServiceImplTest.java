@@ -1,14 +1,26 @@
 package com.unir.template.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import com.unir.template.model.Book;
+import com.unir.template.model.BookChange;
+import com.unir.template.model.BookChangesPage;
+import com.unir.template.model.BooksFilter;
+import com.unir.template.model.BooksPage;
+import com.unir.template.model.BooksSort;
 import com.unir.template.repository.BooksRepository;
+import com.unir.template.repository.BooksRepositoryCustom.RankedBook;
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -18,17 +30,20 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 
 @ExtendWith(MockitoExtension.class)
 class BooksServiceImplTest {
 
   @Mock private BooksRepository booksRepository;
+  @Mock private BookChangeListener bookChangeListener;
 
   private BooksServiceImpl booksService;
 
   @BeforeEach
   void setUp() {
-    booksService = new BooksServiceImpl(booksRepository);
+    booksService = new BooksServiceImpl(booksRepository, bookChangeListener);
   }
 
   @Test
@@ -56,15 +71,116 @@ class BooksServiceImplTest {
   }
 
   @Test
-  void whenGetAllBooks_thenReturnListOfBooks() {
+  void givenIds_whenGetBooksByIds_thenFoundBooksAreReturnedInRequestOrder() {
+    List<Book> books = Instancio.ofList(Book.class).size(2).create();
+    UUID missingId = UUID.randomUUID();
+    UUID first = books.get(1).getId();
+    UUID second = books.get(0).getId();
+    given(booksRepository.findByIds(List.of(first, missingId, second))).willReturn(books);
+
+    List<Book> result = booksService.getBooksByIds(List.of(first, missingId, second, first));
+
+    assertEquals(List.of(books.get(1), books.get(0)), result);
+  }
+
+  @Test
+  void givenNoIds_whenGetBooksByIds_thenNothingIsQueried() {
+    List<Book> result = booksService.getBooksByIds(List.of());
+
+    assertEquals(List.of(), result);
+    verify(booksRepository, never()).findByIds(any());
+  }
+
+  @Test
+  void givenTooManyIds_whenGetBooksByIds_thenExceptionThrown() {
+    List<UUID> ids = Instancio.ofList(UUID.class).size(501).create();
+
+    assertThrows(IllegalArgumentException.class, () -> booksService.getBooksByIds(ids));
+    verify(booksRepository, never()).findByIds(any());
+  }
+
+  @Test
+  void givenNoCursor_whenGetAllBooks_thenReturnFirstPage() {
     List<Book> books = Instancio.ofList(Book.class).size(3).create();
-    given(booksRepository.findAll()).willReturn(books);
+    given(booksRepository.findAllByOrderByIdAsc(Limit.of(11))).willReturn(books);
 
-    List<Book> result = booksService.getAllBooks();
+    BooksPage result = booksService.getAllBooks(null, 10);
 
     assertNotNull(result);
-    assertEquals(3, result.size());
-    assertEquals(books, result);
+    assertEquals(books, result.getItems());
+    assertNull(result.getNextCursor());
+  }
+
+  @Test
+  void givenMoreBooksThanLimit_whenGetAllBooks_thenReturnNextCursor() {
+    List<Book> books = Instancio.ofList(Book.class).size(3).create();
+    given(booksRepository.findAllByOrderByIdAsc(Limit.of(3))).willReturn(books);
+
+    BooksPage result = booksService.getAllBooks(null, 2);
+
+    assertEquals(books.subList(0, 2), result.getItems());
+    assertEquals(books.get(1).getId().toString(), result.getNextCursor());
+  }
+
+  @Test
+  void givenCursor_whenGetAllBooks_thenReturnBooksAfterCursor() {
+    UUID after = UUID.randomUUID();
+    List<Book> books = Instancio.ofList(Book.class).size(2).create();
+    given(booksRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(3))).willReturn(books);
+
+    BooksPage result = booksService.getAllBooks(after.toString(), 2);
+
+    assertEquals(books, result.getItems());
+    assertNull(result.getNextCursor());
+  }
+
+  @Test
+  void givenLimitAboveMaximum_whenGetAllBooks_thenLimitIsCapped() {
+    given(booksRepository.findAllByOrderByIdAsc(Limit.of(BooksServiceImpl.MAX_PAGE_SIZE + 1)))
+        .willReturn(List.of());
+
+    BooksPage result = booksService.getAllBooks(null, 100_000);
+
+    assertEquals(List.of(), result.getItems());
+  }
+
+  @Test
+  void givenInvalidCursor_whenGetAllBooks_thenExceptionThrown() {
+    assertThrows(
+        IllegalArgumentException.class, () -> booksService.getAllBooks("not-a-cursor", 10));
+  }
+
+  @Test
+  void givenPriceSort_whenFindBooks_thenNextCursorResumesAfterLastPrice() {
+    BooksFilter filter = BooksFilter.builder().minStock(1).build();
+    List<Book> books = Instancio.ofList(Book.class).size(3).create();
+    given(booksRepository.findFiltered(filter, BooksSort.PRICE_DESC, null, null, 3))
+        .willReturn(books);
+    Book last = books.get(1);
+    given(
+            booksRepository.findFiltered(
+                filter, BooksSort.PRICE_DESC, BigDecimal.valueOf(last.getPrice()), last.getId(), 3))
+        .willReturn(List.of(books.get(2)));
+
+    BooksPage first = booksService.findBooks(filter, BooksSort.PRICE_DESC, null, 2);
+    BooksPage second =
+        booksService.findBooks(filter, BooksSort.PRICE_DESC, first.getNextCursor(), 2);
+
+    assertEquals(books.subList(0, 2), first.getItems());
+    assertEquals(List.of(books.get(2)), second.getItems());
+    assertNull(second.getNextCursor());
+  }
+
+  @Test
+  void givenCursorOfAnotherSort_whenFindBooks_thenExceptionThrown() {
+    BooksFilter filter = new BooksFilter();
+    List<Book> books = Instancio.ofList(Book.class).size(2).create();
+    given(booksRepository.findFiltered(filter, BooksSort.STOCK, null, null, 2)).willReturn(books);
+    String stockCursor = booksService.findBooks(filter, BooksSort.STOCK, null, 1).getNextCursor();
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> booksService.findBooks(filter, BooksSort.PRICE, stockCursor, 1));
   }
 
   @Test
@@ -76,6 +192,7 @@ class BooksServiceImplTest {
 
     assertNotNull(result);
     assertEquals(book, result);
+    verify(bookChangeListener).onBookChanged(book.getId());
   }
 
   @Test
@@ -84,7 +201,7 @@ class BooksServiceImplTest {
     Book existingBook = Instancio.create(Book.class);
     existingBook.setId(bookId);
     Book updatedData = Instancio.create(Book.class);
-    given(booksRepository.findById(bookId)).willReturn(Optional.of(existingBook));
+    given(booksRepository.findOnPrimaryById(bookId)).willReturn(Optional.of(existingBook));
     given(booksRepository.save(any(Book.class)))
         .willAnswer(invocation -> invocation.getArgument(0));
 
@@ -95,13 +212,14 @@ class BooksServiceImplTest {
     assertEquals(updatedData.getDescription(), result.getDescription());
     assertEquals(updatedData.getPrice(), result.getPrice());
     assertEquals(updatedData.getStock(), result.getStock());
+    verify(bookChangeListener).onBookChanged(bookId);
   }
 
   @Test
   void givenInvalidBookId_whenUpdateBook_thenExceptionThrown() {
     UUID bookId = UUID.randomUUID();
     Book updatedData = Instancio.create(Book.class);
-    given(booksRepository.findById(bookId)).willReturn(Optional.empty());
+    given(booksRepository.findOnPrimaryById(bookId)).willReturn(Optional.empty());
 
     RuntimeException exception =
         assertThrows(RuntimeException.class, () -> booksService.updateBook(bookId, updatedData));
@@ -114,23 +232,211 @@ class BooksServiceImplTest {
     UUID bookId = UUID.randomUUID();
     Book book = Instancio.create(Book.class);
     book.setId(bookId);
-    given(booksRepository.findById(bookId)).willReturn(Optional.of(book));
+    given(booksRepository.findOnPrimaryById(bookId)).willReturn(Optional.of(book));
 
     Book result = booksService.deleteBook(bookId);
 
     assertNotNull(result);
     assertEquals(book, result);
     verify(booksRepository).deleteById(bookId);
+    verify(bookChangeListener).onBookChanged(bookId);
   }
 
   @Test
   void givenInvalidBookId_whenDeleteBook_thenExceptionThrown() {
     UUID bookId = UUID.randomUUID();
-    given(booksRepository.findById(bookId)).willReturn(Optional.empty());
+    given(booksRepository.findOnPrimaryById(bookId)).willReturn(Optional.empty());
 
     RuntimeException exception =
         assertThrows(RuntimeException.class, () -> booksService.deleteBook(bookId));
 
     assertEquals("Book not found with id: " + bookId, exception.getMessage());
   }
+
+  @Test
+  void givenValidBookId_whenGetBookVersion_thenReturnVersion() {
+    UUID bookId = UUID.randomUUID();
+    given(booksRepository.findVersionById(bookId)).willReturn(Optional.of(3L));
+
+    assertEquals(3L, booksService.getBookVersion(bookId));
+  }
+
+  @Test
+  void givenMatchingVersion_whenConditionalUpdateBook_thenReturnUpdatedBook() {
+    UUID bookId = UUID.randomUUID();
+    Book updatedData = Instancio.create(Book.class);
+    Book updatedBook = Instancio.create(Book.class);
+    given(booksRepository.updateByIdAndVersion(bookId, 2L, updatedData)).willReturn(1);
+    given(booksRepository.findOnPrimaryById(bookId)).willReturn(Optional.of(updatedBook));
+
+    Book result = booksService.updateBook(bookId, updatedData, 2L);
+
+    assertEquals(updatedBook, result);
+    verify(bookChangeListener).onBookChanged(bookId);
+  }
+
+  @Test
+  void givenStaleVersion_whenConditionalUpdateBook_thenOptimisticLockingFailure() {
+    UUID bookId = UUID.randomUUID();
+    Book updatedData = Instancio.create(Book.class);
+    given(booksRepository.updateByIdAndVersion(bookId, 2L, updatedData)).willReturn(0);
+    given(booksRepository.existsOnPrimaryById(bookId)).willReturn(true);
+
+    assertThrows(
+        OptimisticLockingFailureException.class,
+        () -> booksService.updateBook(bookId, updatedData, 2L));
+
+    verify(bookChangeListener, never()).onBookChanged(bookId);
+  }
+
+  @Test
+  void givenInvalidBookId_whenConditionalDeleteBook_thenExceptionThrown() {
+    UUID bookId = UUID.randomUUID();
+    given(booksRepository.findOnPrimaryById(bookId)).willReturn(Optional.empty());
+
+    RuntimeException exception =
+        assertThrows(RuntimeException.class, () -> booksService.deleteBook(bookId, 2L));
+
+    assertEquals("Book not found with id: " + bookId, exception.getMessage());
+  }
+
+  @Test
+  void givenStaleVersion_whenConditionalDeleteBook_thenOptimisticLockingFailure() {
+    UUID bookId = UUID.randomUUID();
+    Book book = Instancio.create(Book.class);
+    given(booksRepository.findOnPrimaryById(bookId)).willReturn(Optional.of(book));
+    given(booksRepository.deleteByIdAndVersion(bookId, 2L)).willReturn(0);
+    given(booksRepository.existsOnPrimaryById(bookId)).willReturn(true);
+
+    assertThrows(
+        OptimisticLockingFailureException.class, () -> booksService.deleteBook(bookId, 2L));
+  }
+
+  @Test
+  void givenMoreMatchesThanLimit_whenSearchBooks_thenNextCursorResumesAfterLastMatch() {
+    List<Book> books = Instancio.ofList(Book.class).size(3).create();
+    List<RankedBook> matches =
+        List.of(
+            new RankedBook(books.get(0), 0.5f),
+            new RankedBook(books.get(1), 0.1f),
+            new RankedBook(books.get(2), 0.1f));
+    given(booksRepository.search("spring", 0, null, 3)).willReturn(matches);
+    given(booksRepository.search("spring", 0.1f, books.get(1).getId(), 3))
+        .willReturn(matches.subList(2, 3));
+
+    BooksPage firstPage = booksService.searchBooks("spring", null, 2);
+    BooksPage secondPage = booksService.searchBooks("spring", firstPage.getNextCursor(), 2);
+
+    assertEquals(books.subList(0, 2), firstPage.getItems());
+    assertEquals(books.subList(2, 3), secondPage.getItems());
+    assertNull(secondPage.getNextCursor());
+  }
+
+  @Test
+  void givenLastPage_whenSearchBooks_thenNoNextCursor() {
+    Book book = Instancio.create(Book.class);
+    given(booksRepository.search("spring", 0, null, 3))
+        .willReturn(List.of(new RankedBook(book, 0.3f)));
+
+    BooksPage result = booksService.searchBooks("spring", null, 2);
+
+    assertEquals(List.of(book), result.getItems());
+    assertNull(result.getNextCursor());
+  }
+
+  @Test
+  void givenBlankQuery_whenSearchBooks_thenExceptionThrown() {
+    assertThrows(IllegalArgumentException.class, () -> booksService.searchBooks(" ", null, 20));
+  }
+
+  @Test
+  void givenInvalidCursor_whenSearchBooks_thenExceptionThrown() {
+    assertThrows(
+        IllegalArgumentException.class, () -> booksService.searchBooks("spring", "20", 20));
+    assertThrows(
+        IllegalArgumentException.class, () -> booksService.searchBooks("spring", "abc", 20));
+  }
+
+  @Test
+  void givenMoreChangesThanLimit_whenGetChanges_thenNextCursorResumesAfterLastChange() {
+    List<BookChange> changes =
+        List.of(
+            BookChange.upserted(10, Instant.now(), Instancio.create(Book.class)),
+            BookChange.deleted(UUID.randomUUID(), 11, Instant.now()),
+            BookChange.upserted(12, Instant.now(), Instancio.create(Book.class)));
+    given(booksRepository.findChanges(0, null, 3)).willReturn(changes);
+    given(booksRepository.findChanges(11, changes.get(1).getId(), 3))
+        .willReturn(changes.subList(2, 3));
+
+    BookChangesPage firstPage = booksService.getChanges(null, 2);
+    BookChangesPage secondPage = booksService.getChanges(firstPage.getNextCursor(), 2);
+
+    assertEquals(changes.subList(0, 2), firstPage.getItems());
+    assertTrue(firstPage.isHasMore());
+    assertEquals(changes.subList(2, 3), secondPage.getItems());
+    assertFalse(secondPage.isHasMore());
+  }
+
+  @Test
+  void givenNoNewChanges_whenGetChanges_thenCursorIsKept() {
+    BookChange seen = BookChange.deleted(UUID.randomUUID(), 7, Instant.now());
+    String cursor = BookCursors.encodeChange(seen);
+    given(booksRepository.findChanges(7, seen.getId(), 101)).willReturn(List.of());
+
+    BookChangesPage result = booksService.getChanges(cursor, 100);
+
+    assertTrue(result.getItems().isEmpty());
+    assertEquals(cursor, result.getNextCursor());
+    assertFalse(result.isHasMore());
+  }
+
+  @Test
+  void givenCursorOfAnotherList_whenGetChanges_thenExceptionThrown() {
+    String sortCursor = BookCursors.encode(BooksSort.PRICE, Instancio.create(Book.class));
+
+    assertThrows(IllegalArgumentException.class, () -> booksService.getChanges(sortCursor, 20));
+    assertThrows(IllegalArgumentException.class, () -> booksService.getChanges("garbage", 20));
+  }
+
+  @Test
+  void givenEnoughStock_whenReserveStock_thenReturnBookWithRemainingStock() {
+    UUID bookId = UUID.randomUUID();
+    Book book = Instancio.create(Book.class);
+    given(booksRepository.reserveStock(bookId, 2)).willReturn(Optional.of(book));
+
+    Book result = booksService.reserveStock(bookId, 2);
+
+    assertEquals(book, result);
+    verify(bookChangeListener).onBookChanged(bookId);
+  }
+
+  @Test
+  void givenNotEnoughStock_whenReserveStock_thenOutOfStock() {
+    UUID bookId = UUID.randomUUID();
+    given(booksRepository.reserveStock(bookId, 5)).willReturn(Optional.empty());
+    given(booksRepository.existsOnPrimaryById(bookId)).willReturn(true);
+
+    assertThrows(OutOfStockException.class, () -> booksService.reserveStock(bookId, 5));
+    verify(bookChangeListener, never()).onBookChanged(bookId);
+  }
+
+  @Test
+  void givenInvalidBookId_whenReserveStock_thenExceptionThrown() {
+    UUID bookId = UUID.randomUUID();
+    given(booksRepository.reserveStock(bookId, 1)).willReturn(Optional.empty());
+    given(booksRepository.existsOnPrimaryById(bookId)).willReturn(false);
+
+    RuntimeException exception =
+        assertThrows(RuntimeException.class, () -> booksService.reserveStock(bookId, 1));
+
+    assertEquals("Book not found with id: " + bookId, exception.getMessage());
+  }
+
+  @Test
+  void givenNonPositiveQuantity_whenReleaseStock_thenExceptionThrown() {
+    UUID bookId = UUID.randomUUID();
+
+    assertThrows(IllegalArgumentException.class, () -> booksService.releaseStock(bookId, 0));
+    verify(booksRepository, never()).releaseStock(bookId, 0);
+  }
 }
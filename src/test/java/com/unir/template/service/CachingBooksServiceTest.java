@@ -0,0 +1,175 @@
+package com.unir.template.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.unir.template.model.Book;
+import java.util.List;
+import java.util.UUID;
+import org.instancio.Instancio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+@ExtendWith(MockitoExtension.class)
+class CachingBooksServiceTest {
+
+  @Mock private BooksService delegate;
+
+  private Cache<UUID, Book> cache;
+  private CachingBooksService booksService;
+
+  @BeforeEach
+  void setUp() {
+    cache = Caffeine.newBuilder().maximumSize(100).build();
+    booksService = new CachingBooksService(delegate, cache);
+  }
+
+  @Test
+  void givenCachedBook_whenGetBookById_thenDelegateIsCalledOnce() {
+    Book book = Instancio.create(Book.class);
+    given(delegate.getBookById(book.getId())).willReturn(book);
+
+    Book first = booksService.getBookById(book.getId());
+    Book second = booksService.getBookById(book.getId());
+
+    assertEquals(book, first);
+    assertEquals(book, second);
+    verify(delegate, times(1)).getBookById(book.getId());
+  }
+
+  @Test
+  void givenSomeCachedBooks_whenGetBooksByIds_thenOnlyMissingBooksAreFetched() {
+    Book cached = Instancio.create(Book.class);
+    Book missing = Instancio.create(Book.class);
+    given(delegate.getBookById(cached.getId())).willReturn(cached);
+    given(delegate.getBooksByIds(List.of(missing.getId()))).willReturn(List.of(missing));
+    booksService.getBookById(cached.getId());
+
+    List<Book> result = booksService.getBooksByIds(List.of(missing.getId(), cached.getId()));
+
+    assertEquals(List.of(missing, cached), result);
+    assertEquals(missing, cache.getIfPresent(missing.getId()));
+  }
+
+  @Test
+  void givenMissingBook_whenGetBookById_thenExceptionIsNotCached() {
+    UUID id = UUID.randomUUID();
+    given(delegate.getBookById(id)).willThrow(new RuntimeException("Not found"));
+
+    assertThrows(RuntimeException.class, () -> booksService.getBookById(id));
+    assertThrows(RuntimeException.class, () -> booksService.getBookById(id));
+
+    verify(delegate, times(2)).getBookById(id);
+  }
+
+  @Test
+  void whenCreateBook_thenCreatedBookIsCached() {
+    Book book = Instancio.create(Book.class);
+    given(delegate.createBook(book)).willReturn(book);
+
+    booksService.createBook(book);
+
+    assertEquals(book, cache.getIfPresent(book.getId()));
+  }
+
+  @Test
+  void givenCachedBook_whenUpdateBook_thenCachedEntryIsRefreshed() {
+    Book book = Instancio.create(Book.class);
+    book.setVersion(1L);
+    Book updatedBook = Instancio.create(Book.class);
+    updatedBook.setVersion(2L);
+    cache.put(book.getId(), book);
+    given(delegate.updateBook(book.getId(), updatedBook)).willReturn(updatedBook);
+
+    booksService.updateBook(book.getId(), updatedBook);
+
+    assertEquals(updatedBook, cache.getIfPresent(book.getId()));
+  }
+
+  @Test
+  void givenNewerCachedBook_whenOlderUpdateReturns_thenCachedEntryIsKept() {
+    Book newerBook = Instancio.create(Book.class);
+    newerBook.setVersion(5L);
+    Book olderBook = Instancio.create(Book.class);
+    olderBook.setVersion(4L);
+    cache.put(newerBook.getId(), newerBook);
+    given(delegate.updateBook(newerBook.getId(), olderBook)).willReturn(olderBook);
+
+    Book result = booksService.updateBook(newerBook.getId(), olderBook);
+
+    assertEquals(olderBook, result);
+    assertEquals(newerBook, cache.getIfPresent(newerBook.getId()));
+  }
+
+  @Test
+  void givenCachedBook_whenUpdateBookFails_thenCachedEntryIsInvalidated() {
+    Book book = Instancio.create(Book.class);
+    cache.put(book.getId(), book);
+    given(delegate.updateBook(book.getId(), book)).willThrow(new RuntimeException("Not found"));
+
+    assertThrows(RuntimeException.class, () -> booksService.updateBook(book.getId(), book));
+
+    assertNull(cache.getIfPresent(book.getId()));
+  }
+
+  @Test
+  void givenCachedBook_whenDeleteBook_thenCachedEntryIsInvalidated() {
+    Book book = Instancio.create(Book.class);
+    cache.put(book.getId(), book);
+    given(delegate.deleteBook(book.getId())).willReturn(book);
+
+    booksService.deleteBook(book.getId());
+
+    assertNull(cache.getIfPresent(book.getId()));
+  }
+
+  @Test
+  void givenCachedBook_whenGetBookVersion_thenDelegateIsNotCalled() {
+    Book book = Instancio.create(Book.class);
+    cache.put(book.getId(), book);
+
+    long version = booksService.getBookVersion(book.getId());
+
+    assertEquals(book.getVersion(), version);
+    verify(delegate, never()).getBookVersion(book.getId());
+  }
+
+  @Test
+  void givenCachedBook_whenConditionalUpdateFails_thenCachedEntryIsInvalidated() {
+    Book book = Instancio.create(Book.class);
+    cache.put(book.getId(), book);
+    given(delegate.updateBook(book.getId(), book, 1L))
+        .willThrow(new OptimisticLockingFailureException("Modified"));
+
+    assertThrows(
+        OptimisticLockingFailureException.class,
+        () -> booksService.updateBook(book.getId(), book, 1L));
+
+    assertNull(cache.getIfPresent(book.getId()));
+  }
+
+  @Test
+  void givenCachedBook_whenReserveStock_thenCachedEntryHasRemainingStock() {
+    Book book = Instancio.create(Book.class);
+    book.setVersion(1L);
+    cache.put(book.getId(), book);
+    Book reservedBook = Instancio.create(Book.class);
+    reservedBook.setVersion(2L);
+    given(delegate.reserveStock(book.getId(), 2)).willReturn(reservedBook);
+
+    booksService.reserveStock(book.getId(), 2);
+
+    assertEquals(reservedBook, cache.getIfPresent(book.getId()));
+  }
+}
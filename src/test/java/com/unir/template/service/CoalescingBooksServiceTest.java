@@ -0,0 +1,134 @@
+package com.unir.template.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.unir.template.config.BooksProperties;
+import com.unir.template.model.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.instancio.Instancio;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CoalescingBooksServiceTest {
+
+  @Mock private BooksService delegate;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void givenConcurrentLookups_whenGetBookById_thenBooksAreLoadedInOneBatch() throws Exception {
+    // Given
+    List<Book> books = Instancio.ofList(Book.class).size(3).create();
+    given(delegate.getBooksByIds(any())).willReturn(books);
+    CoalescingBooksService booksService = coalescingBooksService(Duration.ofMillis(200), 100);
+
+    // When
+    List<Future<Book>> results = new ArrayList<>();
+    for (Book book : books) {
+      results.add(executor.submit(() -> booksService.getBookById(book.getId())));
+    }
+
+    // Then
+    for (int i = 0; i < books.size(); i++) {
+      assertEquals(books.get(i), results.get(i).get());
+    }
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<UUID>> ids = ArgumentCaptor.forClass(List.class);
+    verify(delegate, times(1)).getBooksByIds(ids.capture());
+    assertEquals(Set.of(ids(books)), new HashSet<>(ids.getValue()));
+    assertEquals(1, meterRegistry.get("books.coalescing.batch.size").summary().count());
+  }
+
+  @Test
+  void givenMissingBook_whenGetBookById_thenNotFoundIsThrown() {
+    // Given
+    UUID id = UUID.randomUUID();
+    given(delegate.getBooksByIds(List.of(id))).willReturn(List.of());
+    CoalescingBooksService booksService = coalescingBooksService(Duration.ofMillis(1), 100);
+
+    // When
+    RuntimeException exception =
+        assertThrows(RuntimeException.class, () -> booksService.getBookById(id));
+
+    // Then
+    assertEquals(BooksServiceImpl.BOOK_NOT_FOUND_MESSAGE + id, exception.getMessage());
+  }
+
+  @Test
+  void givenFullBatch_whenGetBookById_thenBatchIsLoadedBeforeTheWindowEnds() {
+    // Given
+    List<Book> books = Instancio.ofList(Book.class).size(2).create();
+    given(delegate.getBooksByIds(any())).willReturn(books);
+    CoalescingBooksService booksService = coalescingBooksService(Duration.ofMinutes(1), 2);
+
+    // When & Then
+    assertTimeoutPreemptively(
+        Duration.ofSeconds(10),
+        () -> {
+          Future<Book> first =
+              executor.submit(() -> booksService.getBookById(books.get(0).getId()));
+          Future<Book> second =
+              executor.submit(() -> booksService.getBookById(books.get(1).getId()));
+          assertEquals(books.get(0), first.get());
+          assertEquals(books.get(1), second.get());
+        });
+  }
+
+  @Test
+  void givenFailingDelegate_whenGetBookById_thenEveryLookupOfTheBatchFails() {
+    // Given
+    List<Book> books = Instancio.ofList(Book.class).size(2).create();
+    IllegalStateException failure = new IllegalStateException("Database unavailable");
+    given(delegate.getBooksByIds(any())).willThrow(failure);
+    CoalescingBooksService booksService = coalescingBooksService(Duration.ofMillis(200), 100);
+
+    // When
+    Future<Book> first = executor.submit(() -> booksService.getBookById(books.get(0).getId()));
+    Future<Book> second = executor.submit(() -> booksService.getBookById(books.get(1).getId()));
+
+    // Then
+    assertSame(failure, assertThrows(ExecutionException.class, first::get).getCause());
+    assertSame(failure, assertThrows(ExecutionException.class, second::get).getCause());
+    verify(delegate, times(1)).getBooksByIds(any());
+  }
+
+  private CoalescingBooksService coalescingBooksService(Duration window, int maxBatchSize) {
+    BooksProperties.Coalescing properties = new BooksProperties.Coalescing();
+    properties.setEnabled(true);
+    properties.setWindow(window);
+    properties.setMaxBatchSize(maxBatchSize);
+    return new CoalescingBooksService(delegate, properties, meterRegistry);
+  }
+
+  private static UUID[] ids(List<Book> books) {
+    return books.stream().map(Book::getId).toArray(UUID[]::new);
+  }
+}
@@ -0,0 +1,243 @@
+package com.unir.template.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import com.unir.template.config.BooksProperties;
+import com.unir.template.config.ReplicaRoutingDataSource;
+import com.unir.template.model.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class HedgingBooksServiceTest {
+
+  /** Lookups needed before the hedging delay is known. */
+  private static final int WARM_UP_LOOKUPS = 128;
+
+  private static final Book BOOK =
+      Book.builder()
+          .id(UUID.randomUUID())
+          .name("Hedged")
+          .description("Read from the fastest pool")
+          .price(12.5)
+          .stock(3)
+          .version(2L)
+          .build();
+
+  @Mock private BooksService delegate;
+  @Mock private ReplicaRoutingDataSource pools;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void givenFastPool_whenGetBookById_thenBookIsReadWithoutHedging() throws SQLException {
+    // Given
+    DataSource pool = pool(foundStatement());
+    given(pools.select()).willReturn(pool);
+
+    // When
+    Book result = hedgingBooksService(0.1).getBookById(BOOK.getId());
+
+    // Then
+    assertEquals(BOOK, result);
+    verify(pools, never()).selectOther(any());
+    assertEquals(0, counter("books.hedging.hedges"));
+  }
+
+  @Test
+  void givenMissingBook_whenGetBookById_thenNotFoundIsThrown() throws SQLException {
+    // Given
+    PreparedStatement statement = mock(PreparedStatement.class);
+    ResultSet resultSet = mock(ResultSet.class);
+    given(statement.executeQuery()).willReturn(resultSet);
+    DataSource pool = pool(statement);
+    given(pools.select()).willReturn(pool);
+
+    // When
+    RuntimeException exception =
+        assertThrows(
+            RuntimeException.class, () -> hedgingBooksService(0.1).getBookById(BOOK.getId()));
+
+    // Then
+    assertTrue(exception.getMessage().contains(BOOK.getId().toString()));
+  }
+
+  @Test
+  void givenSlowPool_whenGetBookById_thenHedgeWinsAndSlowStatementIsCancelled()
+      throws SQLException {
+    // Given
+    HedgingBooksService booksService = hedgingBooksService(0.1);
+    DataSource fastPool = pool(foundStatement());
+    warmUp(booksService, fastPool);
+    PreparedStatement slowStatement = mock(PreparedStatement.class);
+    CountDownLatch cancelled = new CountDownLatch(1);
+    given(slowStatement.executeQuery())
+        .willAnswer(
+            _ -> {
+              cancelled.await(5, TimeUnit.SECONDS);
+              throw new SQLException("canceling statement due to user request", "57014");
+            });
+    willAnswer(
+            _ -> {
+              cancelled.countDown();
+              return null;
+            })
+        .given(slowStatement)
+        .cancel();
+    DataSource slowPool = pool(slowStatement);
+    given(pools.select()).willReturn(slowPool);
+    given(pools.selectOther(slowPool)).willReturn(fastPool);
+
+    // When
+    Book result = booksService.getBookById(BOOK.getId());
+
+    // Then
+    assertEquals(BOOK, result);
+    verify(slowStatement, timeout(1000)).cancel();
+    assertEquals(1, counter("books.hedging.hedges"));
+    assertEquals(1, counter("books.hedging.wins"));
+  }
+
+  @Test
+  void givenHedgesWon_whenGetBookById_thenLosersStillRaiseTheDelay() throws SQLException {
+    // Given
+    HedgingBooksService booksService = hedgingBooksService(1);
+    warmUp(booksService, pool(foundStatement()));
+    PreparedStatement hangingStatement = mock(PreparedStatement.class);
+    Semaphore cancels = new Semaphore(0);
+    given(hangingStatement.executeQuery())
+        .willAnswer(
+            _ -> {
+              cancels.tryAcquire(5, TimeUnit.SECONDS);
+              throw new SQLException("canceling statement due to user request", "57014");
+            });
+    willAnswer(
+            _ -> {
+              cancels.release();
+              return null;
+            })
+        .given(hangingStatement)
+        .cancel();
+    PreparedStatement hedgeStatement = foundStatement();
+    ResultSet resultSet = hedgeStatement.executeQuery();
+    given(hedgeStatement.executeQuery())
+        .willAnswer(
+            _ -> {
+              Thread.sleep(20);
+              return resultSet;
+            });
+    DataSource hangingPool = pool(hangingStatement);
+    given(pools.select()).willReturn(hangingPool);
+    given(pools.selectOther(hangingPool)).willReturn(pool(hedgeStatement));
+
+    // When
+    for (int i = 0; i < WARM_UP_LOOKUPS / 2; i++) {
+      booksService.getBookById(BOOK.getId());
+    }
+
+    // Then the losers, which took at least the 10ms delay and the 20ms hedge, were recorded too
+    assertTrue(meterRegistry.get("books.hedging.delay").gauge().value() >= 0.03);
+  }
+
+  @Test
+  void givenBudgetUsedUp_whenGetBookByIdIsSlow_thenFirstPoolIsAwaited() throws SQLException {
+    // Given
+    HedgingBooksService booksService = hedgingBooksService(0);
+    DataSource fastPool = pool(foundStatement());
+    warmUp(booksService, fastPool);
+    PreparedStatement slowStatement = foundStatement();
+    ResultSet resultSet = slowStatement.executeQuery();
+    given(slowStatement.executeQuery())
+        .willAnswer(
+            _ -> {
+              Thread.sleep(50);
+              return resultSet;
+            });
+    DataSource slowPool = pool(slowStatement);
+    DataSource otherPool = mock(DataSource.class);
+    given(pools.select()).willReturn(slowPool);
+    given(pools.selectOther(slowPool)).willReturn(otherPool);
+
+    // When
+    Book result = booksService.getBookById(BOOK.getId());
+
+    // Then
+    assertEquals(BOOK, result);
+    verify(otherPool, never()).getConnection();
+    assertEquals(0, counter("books.hedging.hedges"));
+    assertEquals(1, counter("books.hedging.budget.exhausted"));
+  }
+
+  private HedgingBooksService hedgingBooksService(double budget) {
+    BooksProperties.Hedging properties = new BooksProperties.Hedging();
+    properties.setEnabled(true);
+    properties.setMinDelay(Duration.ofMillis(10));
+    properties.setBudget(budget);
+    return new HedgingBooksService(delegate, pools, executor, properties, meterRegistry);
+  }
+
+  private void warmUp(HedgingBooksService booksService, DataSource pool) {
+    given(pools.select()).willReturn(pool);
+    for (int i = 0; i < WARM_UP_LOOKUPS; i++) {
+      booksService.getBookById(BOOK.getId());
+    }
+  }
+
+  private static DataSource pool(PreparedStatement statement) throws SQLException {
+    DataSource pool = mock(DataSource.class);
+    Connection connection = mock(Connection.class);
+    given(pool.getConnection()).willReturn(connection);
+    given(connection.prepareStatement(HedgingBooksService.SELECT_BOOK)).willReturn(statement);
+    return pool;
+  }
+
+  private static PreparedStatement foundStatement() throws SQLException {
+    PreparedStatement statement = mock(PreparedStatement.class);
+    ResultSet resultSet = mock(ResultSet.class);
+    given(statement.executeQuery()).willReturn(resultSet);
+    given(resultSet.next()).willReturn(true);
+    given(resultSet.getObject("id", UUID.class)).willReturn(BOOK.getId());
+    given(resultSet.getString("name")).willReturn(BOOK.getName());
+    given(resultSet.getString("description")).willReturn(BOOK.getDescription());
+    given(resultSet.getBigDecimal("price")).willReturn(BigDecimal.valueOf(BOOK.getPrice()));
+    given(resultSet.getObject("stock", Integer.class)).willReturn(BOOK.getStock());
+    given(resultSet.getLong("version")).willReturn(BOOK.getVersion());
+    return statement;
+  }
+
+  private double counter(String name) {
+    return meterRegistry.get(name).counter().count();
+  }
+}
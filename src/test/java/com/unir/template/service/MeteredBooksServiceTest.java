@@ -0,0 +1,71 @@
+package com.unir.template.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+
+import com.unir.template.model.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.UUID;
+import org.instancio.Instancio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class MeteredBooksServiceTest {
+
+  @Mock private BooksService delegate;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private MeteredBooksService booksService;
+
+  @BeforeEach
+  void setUp() {
+    booksService = new MeteredBooksService(delegate, meterRegistry);
+  }
+
+  @Test
+  void whenGetBookById_thenSuccessIsTimed() {
+    Book book = Instancio.create(Book.class);
+    given(delegate.getBookById(book.getId())).willReturn(book);
+
+    assertEquals(book, booksService.getBookById(book.getId()));
+
+    assertEquals(1, timerCount("getBookById", "success"));
+    assertEquals(0, timerCount("getBookById", "error"));
+  }
+
+  @Test
+  void givenMissingBook_whenGetBookById_thenErrorIsTimed() {
+    UUID id = UUID.randomUUID();
+    given(delegate.getBookById(id)).willThrow(new RuntimeException("Not found"));
+
+    assertThrows(RuntimeException.class, () -> booksService.getBookById(id));
+
+    assertEquals(1, timerCount("getBookById", "error"));
+  }
+
+  @Test
+  void whenConditionalUpdateBook_thenItIsTimedSeparately() {
+    Book book = Instancio.create(Book.class);
+    given(delegate.updateBook(book.getId(), book, 1L)).willReturn(book);
+
+    booksService.updateBook(book.getId(), book, 1L);
+
+    assertEquals(1, timerCount("conditionalUpdateBook", "success"));
+    assertEquals(0, timerCount("updateBook", "success"));
+  }
+
+  private long timerCount(String method, String outcome) {
+    return meterRegistry
+        .get(MeteredBooksService.TIMER_NAME)
+        .tag("method", method)
+        .tag("outcome", outcome)
+        .timer()
+        .count();
+  }
+}
@@ -0,0 +1,94 @@
+package com.unir.template.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import com.unir.template.model.Book;
+import java.util.List;
+import java.util.UUID;
+import org.instancio.Instancio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+@ExtendWith(MockitoExtension.class)
+class PrimaryReadsBooksServiceTest {
+
+  @Mock private BooksService delegate;
+  @Mock private PlatformTransactionManager transactionManager;
+
+  private PrimaryReadsBooksService booksService;
+
+  @BeforeEach
+  void setUp() {
+    booksService = new PrimaryReadsBooksService(delegate, transactionManager, true, false);
+  }
+
+  @Test
+  void givenBook_whenGetBookById_thenItIsReadInAReadWriteTransaction() {
+    given(transactionManager.getTransaction(any())).willReturn(mock(TransactionStatus.class));
+    Book book = Instancio.create(Book.class);
+    given(delegate.getBookById(book.getId())).willReturn(book);
+
+    Book result = booksService.getBookById(book.getId());
+
+    assertEquals(book, result);
+    ArgumentCaptor<TransactionDefinition> definition =
+        ArgumentCaptor.forClass(TransactionDefinition.class);
+    verify(transactionManager).getTransaction(definition.capture());
+    assertFalse(definition.getValue().isReadOnly());
+    verify(transactionManager).commit(any());
+  }
+
+  @Test
+  void givenMissingBook_whenGetBookById_thenTransactionIsRolledBack() {
+    given(transactionManager.getTransaction(any())).willReturn(mock(TransactionStatus.class));
+    UUID id = UUID.randomUUID();
+    given(delegate.getBookById(id)).willThrow(new RuntimeException("Book not found"));
+
+    assertThrows(RuntimeException.class, () -> booksService.getBookById(id));
+
+    verify(transactionManager).rollback(any());
+  }
+
+  @Test
+  void givenPagesNotCached_whenGetAllBooks_thenItIsLeftToTheReplicas() {
+    booksService.getAllBooks(null, 10);
+
+    verify(delegate).getAllBooks(null, 10);
+    verifyNoInteractions(transactionManager);
+  }
+
+  @Test
+  void givenBooksCached_whenGetBooksByIds_thenTheyAreReadInATransaction() {
+    given(transactionManager.getTransaction(any())).willReturn(mock(TransactionStatus.class));
+    List<UUID> ids = List.of(UUID.randomUUID());
+
+    booksService.getBooksByIds(ids);
+
+    verify(delegate).getBooksByIds(ids);
+    verify(transactionManager).commit(any());
+  }
+
+  @Test
+  void whenGetBookVersion_thenItIsLeftToTheReplicas() {
+    UUID id = UUID.randomUUID();
+
+    booksService.getBookVersion(id);
+
+    verify(delegate).getBookVersion(id);
+    verifyNoInteractions(transactionManager);
+  }
+}
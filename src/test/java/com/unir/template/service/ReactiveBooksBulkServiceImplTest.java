@@ -0,0 +1,128 @@
+package com.unir.template.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.unir.template.config.BooksProperties;
+import com.unir.template.model.Book;
+import com.unir.template.model.BulkItemResult;
+import com.unir.template.repository.ReactiveBooksRepository;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveBooksBulkServiceImplTest {
+
+  @Mock private ReactiveBooksRepository booksRepository;
+
+  private final BooksProperties booksProperties = new BooksProperties();
+
+  private ReactiveBooksBulkServiceImpl booksBulkService;
+
+  @BeforeEach
+  void setUp() {
+    booksProperties.getBulk().setChunkSize(2);
+    booksBulkService =
+        new ReactiveBooksBulkServiceImpl(booksRepository, booksProperties, new ObjectMapper());
+  }
+
+  @Test
+  void givenValidAndInvalidBooks_whenCreateBooks_thenEveryItemIsReportedInOrder() {
+    // Given
+    List<Book> books =
+        Arrays.asList(book("First"), null, Book.builder().description("No name").build());
+    given(booksRepository.insertAll(anyList())).willReturn(Mono.just(1L));
+
+    // When
+    List<BulkItemResult> results = booksBulkService.createBooks(books).collectList().block();
+
+    // Then
+    assertEquals(
+        List.of(
+            BulkItemResult.created(0, books.get(0).getId()),
+            BulkItemResult.failed(1, "Book name is required"),
+            BulkItemResult.failed(2, "Book name is required")),
+        results);
+    verify(booksRepository, times(1)).insertAll(List.of(books.get(0)));
+  }
+
+  @Test
+  void givenStreamOfBooks_whenCreateBooks_thenBooksAreInsertedOneChunkAtATime() {
+    // Given
+    Flux<Book> books = Flux.range(0, 5).map(i -> book("Book " + i));
+    given(booksRepository.insertAll(anyList()))
+        .willAnswer(invocation -> Mono.just((long) invocation.<List<?>>getArgument(0).size()));
+
+    // When
+    List<BulkItemResult> results = booksBulkService.createBooks(books).collectList().block();
+
+    // Then
+    assertEquals(5, results.size());
+    assertEquals(4, results.get(4).getIndex());
+    verify(booksRepository, times(3)).insertAll(anyList());
+  }
+
+  @Test
+  void givenFailingChunk_whenCreateBooks_thenItsItemsAreRetriedOneByOne() {
+    // Given
+    Book good = book("Good");
+    Book bad = book("Bad");
+    given(booksRepository.insertAll(anyList()))
+        .willReturn(Mono.error(new DataIntegrityViolationException("value too long")));
+    given(booksRepository.insert(any()))
+        .willAnswer(
+            invocation -> {
+              Book book = invocation.getArgument(0);
+              return book == bad
+                  ? Mono.error(new DataIntegrityViolationException("value too long"))
+                  : Mono.just(book);
+            });
+
+    // When
+    List<BulkItemResult> results =
+        booksBulkService.createBooks(List.of(good, bad)).collectList().block();
+
+    // Then
+    assertEquals(BulkItemResult.created(0, good.getId()), results.get(0));
+    assertEquals(BulkItemResult.failed(1, "value too long"), results.get(1));
+  }
+
+  @Test
+  void givenMalformedLine_whenCreateBooksFromNdjson_thenOnlyThatLineFails() {
+    // Given
+    Flux<String> lines =
+        Flux.just("{\"name\": \"Book 1\"}", "{\"name\": ", "{\"name\": \"Book 3\"}");
+    given(booksRepository.insertAll(anyList()))
+        .willAnswer(invocation -> Mono.just((long) invocation.<List<?>>getArgument(0).size()));
+
+    // When
+    List<BulkItemResult> results =
+        booksBulkService.createBooksFromNdjson(lines).collectList().block();
+
+    // Then
+    assertEquals(3, results.size());
+    assertEquals(BulkItemResult.Status.CREATED, results.get(0).getStatus());
+    assertEquals(BulkItemResult.Status.FAILED, results.get(1).getStatus());
+    assertEquals(1, results.get(1).getIndex());
+    assertEquals(BulkItemResult.Status.CREATED, results.get(2).getStatus());
+    verify(booksRepository, times(2)).insertAll(argThat(books -> books.size() == 1));
+  }
+
+  private static Book book(String name) {
+    return Book.builder().name(name).price(10.0).stock(1).build();
+  }
+}
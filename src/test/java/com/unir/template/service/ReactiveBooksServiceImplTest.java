@@ -0,0 +1,235 @@
+package com.unir.template.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyFloat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.unir.template.model.Book;
+import com.unir.template.model.BookChange;
+import com.unir.template.model.BookChangesPage;
+import com.unir.template.model.BooksFilter;
+import com.unir.template.model.BooksPage;
+import com.unir.template.model.BooksSort;
+import com.unir.template.repository.ReactiveBooksRepository;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.instancio.Instancio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveBooksServiceImplTest {
+
+  @Mock private ReactiveBooksRepository booksRepository;
+
+  private ReactiveBooksServiceImpl booksService;
+
+  @BeforeEach
+  void setUp() {
+    booksService = new ReactiveBooksServiceImpl(booksRepository);
+  }
+
+  @Test
+  void givenValidBookId_whenGetBookById_thenReturnBook() {
+    // Given
+    Book book = Instancio.create(Book.class);
+    given(booksRepository.findById(book.getId())).willReturn(Mono.just(book));
+
+    // When & Then
+    StepVerifier.create(booksService.getBookById(book.getId())).expectNext(book).verifyComplete();
+  }
+
+  @Test
+  void givenInvalidBookId_whenGetBookById_thenNotFoundIsSignalled() {
+    // Given
+    UUID id = UUID.randomUUID();
+    given(booksRepository.findById(id)).willReturn(Mono.empty());
+
+    // When & Then
+    StepVerifier.create(booksService.getBookById(id))
+        .expectErrorMessage(BooksServiceImpl.BOOK_NOT_FOUND_MESSAGE + id)
+        .verify();
+  }
+
+  @Test
+  void givenMoreBooksThanLimit_whenGetAllBooks_thenReturnNextCursor() {
+    // Given
+    List<Book> books = Instancio.ofList(Book.class).size(3).create();
+    given(booksRepository.findFiltered(new BooksFilter(), BooksSort.ID, null, null, 3))
+        .willReturn(Flux.fromIterable(books));
+
+    // When
+    BooksPage page = booksService.getAllBooks(null, 2).block();
+
+    // Then
+    assertPage(books.subList(0, 2), books.get(1).getId().toString(), page);
+  }
+
+  @Test
+  void givenInvalidCursor_whenGetAllBooks_thenErrorIsSignalled() {
+    // When & Then
+    StepVerifier.create(booksService.getAllBooks("not-a-cursor", 10))
+        .expectError(IllegalArgumentException.class)
+        .verify();
+  }
+
+  @Test
+  void givenPriceSort_whenFindBooks_thenNextCursorResumesAfterLastPrice() {
+    // Given
+    BooksFilter filter = BooksFilter.builder().minStock(1).build();
+    List<Book> books = Instancio.ofList(Book.class).size(3).create();
+    given(booksRepository.findFiltered(filter, BooksSort.PRICE_DESC, null, null, 3))
+        .willReturn(Flux.fromIterable(books));
+    Book last = books.get(1);
+    given(
+            booksRepository.findFiltered(
+                filter, BooksSort.PRICE_DESC, BigDecimal.valueOf(last.getPrice()), last.getId(), 3))
+        .willReturn(Flux.just(books.get(2)));
+
+    // When
+    BooksPage first = booksService.findBooks(filter, BooksSort.PRICE_DESC, null, 2).block();
+    BooksPage second =
+        booksService.findBooks(filter, BooksSort.PRICE_DESC, first.getNextCursor(), 2).block();
+
+    // Then
+    assertPage(books.subList(0, 2), first.getNextCursor(), first);
+    assertPage(List.of(books.get(2)), null, second);
+  }
+
+  @Test
+  void givenMoreChangesThanLimit_whenGetChanges_thenNextCursorResumesAfterLastChange() {
+    // Given
+    List<BookChange> changes =
+        List.of(
+            BookChange.upserted(10, Instant.now(), Instancio.create(Book.class)),
+            BookChange.deleted(UUID.randomUUID(), 11, Instant.now()),
+            BookChange.upserted(12, Instant.now(), Instancio.create(Book.class)));
+    given(booksRepository.findChanges(0, null, 3)).willReturn(Flux.fromIterable(changes));
+    given(booksRepository.findChanges(11, changes.get(1).getId(), 3))
+        .willReturn(Flux.just(changes.get(2)));
+
+    // When
+    BookChangesPage first = booksService.getChanges(null, 2).block();
+    BookChangesPage second = booksService.getChanges(first.getNextCursor(), 2).block();
+
+    // Then
+    assertEquals(changes.subList(0, 2), first.getItems());
+    assertTrue(first.isHasMore());
+    assertEquals(List.of(changes.get(2)), second.getItems());
+    assertFalse(second.isHasMore());
+  }
+
+  @Test
+  void givenInvalidCursor_whenGetChanges_thenErrorIsSignalled() {
+    // When & Then
+    StepVerifier.create(booksService.getChanges("not-a-cursor", 10))
+        .expectError(IllegalArgumentException.class)
+        .verify();
+  }
+
+  @Test
+  void givenBlankQuery_whenSearchBooks_thenErrorIsSignalled() {
+    // When & Then
+    StepVerifier.create(booksService.searchBooks(" ", null, 10))
+        .expectError(IllegalArgumentException.class)
+        .verify();
+    verify(booksRepository, never()).search(any(), anyFloat(), any(), anyInt());
+  }
+
+  @Test
+  void givenIds_whenGetBooksByIds_thenFoundBooksAreReturnedInRequestOrder() {
+    // Given
+    List<Book> books = Instancio.ofList(Book.class).size(2).create();
+    UUID missing = UUID.randomUUID();
+    List<UUID> ids = List.of(books.get(1).getId(), missing, books.get(0).getId());
+    given(booksRepository.findByIds(ids)).willReturn(Flux.fromIterable(books));
+
+    // When & Then
+    StepVerifier.create(booksService.getBooksByIds(ids))
+        .expectNext(books.get(1), books.get(0))
+        .verifyComplete();
+  }
+
+  @Test
+  void whenCreateBook_thenBookIsInsertedWithGeneratedId() {
+    // Given
+    Book book = Instancio.create(Book.class);
+    book.setId(null);
+    given(booksRepository.insert(book)).willReturn(Mono.just(book));
+
+    // When
+    Book result = booksService.createBook(book).block();
+
+    // Then
+    assertNotNull(result.getId());
+  }
+
+  @Test
+  void givenStaleVersion_whenConditionalUpdateBook_thenOptimisticLockingFailure() {
+    // Given
+    Book book = Instancio.create(Book.class);
+    given(booksRepository.updateByIdAndVersion(book.getId(), 1L, book)).willReturn(Mono.empty());
+    given(booksRepository.existsById(book.getId())).willReturn(Mono.just(true));
+
+    // When & Then
+    StepVerifier.create(booksService.updateBook(book.getId(), book, 1L))
+        .expectError(OptimisticLockingFailureException.class)
+        .verify();
+  }
+
+  @Test
+  void givenInvalidBookId_whenConditionalDeleteBook_thenNotFoundIsSignalled() {
+    // Given
+    UUID id = UUID.randomUUID();
+    given(booksRepository.deleteByIdAndVersion(id, 1L)).willReturn(Mono.empty());
+    given(booksRepository.existsById(id)).willReturn(Mono.just(false));
+
+    // When & Then
+    StepVerifier.create(booksService.deleteBook(id, 1L))
+        .expectErrorMessage(BooksServiceImpl.BOOK_NOT_FOUND_MESSAGE + id)
+        .verify();
+  }
+
+  @Test
+  void givenNotEnoughStock_whenReserveStock_thenOutOfStock() {
+    // Given
+    UUID id = UUID.randomUUID();
+    given(booksRepository.reserveStock(id, 5)).willReturn(Mono.empty());
+    given(booksRepository.existsById(id)).willReturn(Mono.just(true));
+
+    // When & Then
+    StepVerifier.create(booksService.reserveStock(id, 5))
+        .expectError(OutOfStockException.class)
+        .verify();
+  }
+
+  @Test
+  void givenNonPositiveQuantity_whenReleaseStock_thenErrorIsSignalled() {
+    // When & Then
+    StepVerifier.create(booksService.releaseStock(UUID.randomUUID(), 0))
+        .expectError(IllegalArgumentException.class)
+        .verify();
+    verify(booksRepository, never()).releaseStock(any(), anyInt());
+  }
+
+  private static void assertPage(List<Book> items, String nextCursor, BooksPage page) {
+    assertEquals(items, page.getItems());
+    assertEquals(nextCursor, page.getNextCursor());
+  }
+}
@@ -0,0 +1,202 @@
+package com.unir.template.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.unir.template.config.BooksProperties;
+import com.unir.template.model.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.instancio.Instancio;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class SingleFlightBooksServiceTest {
+
+  private static final int CALLERS = 100;
+
+  @Mock private BooksService delegate;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void givenSimultaneousCallers_whenGetBookById_thenOneQueryIsShared() throws Exception {
+    // Given
+    Book book = Instancio.create(Book.class);
+    given(delegate.getBookById(book.getId()))
+        .willAnswer(
+            _ -> {
+              awaitSharedLookups(CALLERS - 1);
+              return book;
+            });
+    SingleFlightBooksService booksService = singleFlightBooksService(10_000);
+
+    // When
+    List<Future<Book>> results = callConcurrently(() -> booksService.getBookById(book.getId()));
+
+    // Then
+    for (Future<Book> result : results) {
+      assertEquals(book, result.get());
+    }
+    verify(delegate, times(1)).getBookById(book.getId());
+    assertEquals(1, lookups("executed"));
+    assertEquals(CALLERS - 1, lookups("shared"));
+    assertEquals(
+        (CALLERS - 1) / (double) CALLERS,
+        meterRegistry.get("books.singleflight.dedup.ratio").gauge().value());
+  }
+
+  @Test
+  void givenFailingQuery_whenGetBookById_thenEveryCallerGetsTheError() throws Exception {
+    // Given
+    Book book = Instancio.create(Book.class);
+    RuntimeException notFound = new RuntimeException("Book not found with id: " + book.getId());
+    given(delegate.getBookById(book.getId()))
+        .willAnswer(
+            _ -> {
+              awaitSharedLookups(CALLERS - 1);
+              throw notFound;
+            });
+    SingleFlightBooksService booksService = singleFlightBooksService(10_000);
+
+    // When
+    List<Future<Book>> results = callConcurrently(() -> booksService.getBookById(book.getId()));
+
+    // Then
+    for (Future<Book> result : results) {
+      assertSame(notFound, assertThrows(ExecutionException.class, result::get).getCause());
+    }
+    verify(delegate, times(1)).getBookById(book.getId());
+  }
+
+  @Test
+  void givenQueryFailingWithError_whenGetBookById_thenEveryCallerGetsTheError() throws Exception {
+    // Given
+    Book book = Instancio.create(Book.class);
+    StackOverflowError error = new StackOverflowError();
+    given(delegate.getBookById(book.getId()))
+        .willAnswer(
+            _ -> {
+              awaitSharedLookups(CALLERS - 1);
+              throw error;
+            });
+    SingleFlightBooksService booksService = singleFlightBooksService(10_000);
+
+    // When
+    List<Future<Book>> results = callConcurrently(() -> booksService.getBookById(book.getId()));
+
+    // Then
+    for (Future<Book> result : results) {
+      assertSame(error, assertThrows(ExecutionException.class, result::get).getCause());
+    }
+    verify(delegate, times(1)).getBookById(book.getId());
+    assertEquals(0, meterRegistry.get("books.singleflight.inflight").gauge().value());
+  }
+
+  @Test
+  void givenCompletedLookup_whenGetBookByIdAgain_thenQueryIsRepeated() {
+    // Given
+    Book book = Instancio.create(Book.class);
+    given(delegate.getBookById(book.getId())).willReturn(book);
+    SingleFlightBooksService booksService = singleFlightBooksService(10_000);
+
+    // When
+    booksService.getBookById(book.getId());
+    booksService.getBookById(book.getId());
+
+    // Then
+    verify(delegate, times(2)).getBookById(book.getId());
+    assertEquals(0, meterRegistry.get("books.singleflight.inflight").gauge().value());
+  }
+
+  @Test
+  void givenTooManyLookupsInFlight_whenGetBookById_thenLookupBypassesSingleFlight()
+      throws Exception {
+    // Given
+    Book slowBook = Instancio.create(Book.class);
+    Book book = Instancio.create(Book.class);
+    CountDownLatch slowStarted = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    given(delegate.getBookById(slowBook.getId()))
+        .willAnswer(
+            _ -> {
+              slowStarted.countDown();
+              release.await(5, TimeUnit.SECONDS);
+              return slowBook;
+            });
+    given(delegate.getBookById(book.getId())).willReturn(book);
+    SingleFlightBooksService booksService = singleFlightBooksService(1);
+    Future<Book> slow = executor.submit(() -> booksService.getBookById(slowBook.getId()));
+    assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+
+    // When
+    Book result = booksService.getBookById(book.getId());
+
+    // Then
+    assertEquals(book, result);
+    assertEquals(1, lookups("bypassed"));
+    release.countDown();
+    assertEquals(slowBook, slow.get());
+  }
+
+  private SingleFlightBooksService singleFlightBooksService(int maxInFlight) {
+    BooksProperties.SingleFlight properties = new BooksProperties.SingleFlight();
+    properties.setEnabled(true);
+    properties.setMaxInFlight(maxInFlight);
+    return new SingleFlightBooksService(delegate, properties, meterRegistry);
+  }
+
+  private List<Future<Book>> callConcurrently(Callable<Book> lookup) throws InterruptedException {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Book>> results = new ArrayList<>();
+    for (int i = 0; i < CALLERS; i++) {
+      results.add(
+          executor.submit(
+              () -> {
+                start.await();
+                return lookup.call();
+              }));
+    }
+    start.countDown();
+    return results;
+  }
+
+  /** Holds the query until the other callers wait for it, so that none of them comes too late. */
+  private void awaitSharedLookups(int expected) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (lookups("shared") < expected && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+  }
+
+  private double lookups(String outcome) {
+    return meterRegistry
+        .get("books.singleflight.lookups")
+        .tag("outcome", outcome)
+        .counter()
+        .count();
+  }
+}
@@ -0,0 +1,265 @@
+package com.unir.template.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.unir.template.model.Book;
+import com.unir.template.repository.BooksRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+@ExtendWith(MockitoExtension.class)
+class StockDeltaBufferTest {
+
+  @Mock private BooksRepository booksRepository;
+  @Mock private BookChangeListener bookChangeListener;
+
+  private StockDeltaBuffer stockDeltaBuffer;
+
+  @BeforeEach
+  void setUp() {
+    stockDeltaBuffer =
+        new StockDeltaBuffer(
+            booksRepository, bookChangeListener, Duration.ofMillis(50), new SimpleMeterRegistry());
+  }
+
+  @Test
+  void givenEnoughStock_whenReserve_thenRemainingStockIsReturnedWithoutWriting() {
+    UUID id = givenBookWithStock(5);
+
+    Book book = stockDeltaBuffer.reserve(id, 2);
+
+    assertEquals(3, book.getStock());
+    verify(booksRepository, never()).addStock(anyList(), anyList());
+  }
+
+  @Test
+  void givenNotEnoughStock_whenReserve_thenOutOfStock() {
+    UUID id = givenBookWithStock(2);
+    stockDeltaBuffer.reserve(id, 2);
+
+    assertThrows(OutOfStockException.class, () -> stockDeltaBuffer.reserve(id, 1));
+    assertEquals(1, stockDeltaBuffer.release(id, 1).getStock());
+  }
+
+  @Test
+  void givenReservationsAndReleases_whenFlush_thenNetDeltaIsWrittenOnce() {
+    UUID id = givenBookWithStock(10);
+    stockDeltaBuffer.reserve(id, 3);
+    stockDeltaBuffer.reserve(id, 4);
+    stockDeltaBuffer.release(id, 2);
+
+    stockDeltaBuffer.flush();
+    stockDeltaBuffer.flush();
+
+    verify(booksRepository, times(1)).addStock(List.of(id), List.of(-5));
+    verify(bookChangeListener).onBookChanged(id);
+  }
+
+  @Test
+  void givenIdleLedger_whenFlush_thenStockIsReloadedOnNextReservation() {
+    UUID id = givenBookWithStock(10);
+    stockDeltaBuffer.reserve(id, 1);
+
+    stockDeltaBuffer.flush();
+    stockDeltaBuffer.flush();
+    Book book = stockDeltaBuffer.reserve(id, 1);
+
+    assertEquals(9, book.getStock());
+    verify(booksRepository, times(2)).findOnPrimaryById(id);
+  }
+
+  @Test
+  void givenFailedWrite_whenFlushAgain_thenDeltaIsRetried() {
+    UUID id = givenBookWithStock(10);
+    stockDeltaBuffer.reserve(id, 3);
+    given(booksRepository.addStock(List.of(id), List.of(-3)))
+        .willThrow(new DataAccessResourceFailureException("Database down"))
+        .willReturn(1);
+
+    assertThrows(DataAccessResourceFailureException.class, stockDeltaBuffer::flush);
+    stockDeltaBuffer.flush();
+
+    verify(booksRepository, times(2)).addStock(List.of(id), List.of(-3));
+  }
+
+  @Test
+  void givenPendingDelta_whenForget_thenDeltaIsWrittenAndLedgerDropped() {
+    UUID id = givenBookWithStock(10);
+    stockDeltaBuffer.reserve(id, 4);
+
+    stockDeltaBuffer.forget(id);
+    stockDeltaBuffer.flush();
+
+    verify(booksRepository, times(1)).addStock(List.of(id), List.of(-4));
+  }
+
+  @Test
+  void givenConcurrentBuyers_whenReserve_thenStockIsNeverOversold() throws InterruptedException {
+    UUID id = givenBookWithStock(1_000);
+    AtomicInteger reserved = new AtomicInteger();
+
+    try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+      for (int i = 0; i < 3_000; i++) {
+        executor.execute(
+            () -> {
+              try {
+                stockDeltaBuffer.reserve(id, 1);
+                reserved.incrementAndGet();
+              } catch (OutOfStockException _) {
+                // Sold out
+              }
+            });
+      }
+    }
+    stockDeltaBuffer.flush();
+
+    assertEquals(1_000, reserved.get());
+    verify(booksRepository).addStock(List.of(id), List.of(-1_000));
+  }
+
+  @Test
+  void givenConcurrentForget_whenReserveAndRelease_thenEveryChangeIsWrittenOnce() {
+    UUID id = UUID.randomUUID();
+    AtomicInteger stockInDatabase = new AtomicInteger(100_000);
+    given(booksRepository.findOnPrimaryById(id))
+        .willAnswer(
+            _ ->
+                Optional.of(
+                    Book.builder()
+                        .id(id)
+                        .name("Hot book")
+                        .stock(stockInDatabase.get())
+                        .version(0L)
+                        .build()));
+    given(booksRepository.addStock(anyList(), anyList()))
+        .willAnswer(
+            invocation -> {
+              List<Integer> deltas = invocation.getArgument(1);
+              stockInDatabase.addAndGet(deltas.getFirst());
+              return 1;
+            });
+    AtomicInteger reserved = new AtomicInteger();
+    AtomicInteger released = new AtomicInteger();
+
+    try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+      for (int i = 0; i < 20_000; i++) {
+        int task = i;
+        executor.execute(
+            () -> {
+              if (task % 50 == 0) {
+                stockDeltaBuffer.forget(id);
+              } else if (task % 3 == 0) {
+                stockDeltaBuffer.release(id, 2);
+                released.addAndGet(2);
+              } else {
+                stockDeltaBuffer.reserve(id, 1);
+                reserved.incrementAndGet();
+              }
+            });
+      }
+    }
+    stockDeltaBuffer.flush();
+
+    assertEquals(100_000 - reserved.get() + released.get(), stockInDatabase.get());
+  }
+
+  @Test
+  void givenReservationDuringUpdate_whenUpdateLowersStock_thenReservationSeesTheNewStock()
+      throws Exception {
+    UUID id = UUID.randomUUID();
+    AtomicInteger stockInDatabase = new AtomicInteger(10);
+    given(booksRepository.findOnPrimaryById(id))
+        .willAnswer(
+            _ ->
+                Optional.of(
+                    Book.builder()
+                        .id(id)
+                        .name("Hot book")
+                        .stock(stockInDatabase.get())
+                        .version(0L)
+                        .build()));
+    stockDeltaBuffer.reserve(id, 1);
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch commit = new CountDownLatch(1);
+
+    try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+      Future<?> update =
+          executor.submit(
+              () ->
+                  stockDeltaBuffer.writeBook(
+                      id,
+                      () -> {
+                        writing.countDown();
+                        await(commit);
+                        stockInDatabase.set(2);
+                        return null;
+                      }));
+      writing.await();
+      Future<Book> reservation = executor.submit(() -> stockDeltaBuffer.reserve(id, 5));
+      Thread.sleep(50);
+      assertFalse(reservation.isDone());
+      commit.countDown();
+      update.get();
+
+      ExecutionException failure = assertThrows(ExecutionException.class, reservation::get);
+      assertInstanceOf(OutOfStockException.class, failure.getCause());
+    }
+    verify(booksRepository).addStock(List.of(id), List.of(-1));
+  }
+
+  @Test
+  void givenPendingAndWrittenDeltas_whenReserve_thenBookHasTheVersionOfItsWrite() {
+    UUID id = givenBookWithStock(10);
+
+    assertEquals(1L, stockDeltaBuffer.reserve(id, 1).getVersion());
+    assertEquals(1L, stockDeltaBuffer.reserve(id, 1).getVersion());
+    stockDeltaBuffer.flush();
+    assertEquals(2L, stockDeltaBuffer.reserve(id, 1).getVersion());
+  }
+
+  @Test
+  void givenNonPositiveQuantity_whenReserve_thenExceptionThrown() {
+    UUID id = UUID.randomUUID();
+
+    assertThrows(IllegalArgumentException.class, () -> stockDeltaBuffer.reserve(id, 0));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private UUID givenBookWithStock(int stock) {
+    UUID id = UUID.randomUUID();
+    Book book = Book.builder().id(id).name("Hot book").price(10.0).stock(stock).version(0L).build();
+    given(booksRepository.findOnPrimaryById(id)).willReturn(Optional.of(book));
+    return id;
+  }
+}
@@ -0,0 +1,61 @@
+package com.unir.template.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.unir.template.model.Book;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.instancio.Instancio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class WriteBehindStockBooksServiceTest {
+
+  @Mock private BooksService delegate;
+  @Mock private StockDeltaBuffer stockDeltaBuffer;
+
+  private WriteBehindStockBooksService booksService;
+
+  @BeforeEach
+  void setUp() {
+    booksService = new WriteBehindStockBooksService(delegate, stockDeltaBuffer);
+  }
+
+  @Test
+  void whenReserveStock_thenBufferIsUsedInsteadOfDelegate() {
+    Book book = Instancio.create(Book.class);
+    given(stockDeltaBuffer.reserve(book.getId(), 2)).willReturn(book);
+
+    Book result = booksService.reserveStock(book.getId(), 2);
+
+    assertEquals(book, result);
+    verify(delegate, never()).reserveStock(book.getId(), 2);
+  }
+
+  @Test
+  void whenUpdateBook_thenItIsWrittenThroughTheBuffer() {
+    UUID id = UUID.randomUUID();
+    Book book = Instancio.create(Book.class);
+    given(stockDeltaBuffer.writeBook(eq(id), any()))
+        .willAnswer(invocation -> invocation.<Supplier<Book>>getArgument(1).get());
+    given(delegate.updateBook(id, book, 3L)).willReturn(book);
+
+    Book result = booksService.updateBook(id, book, 3L);
+
+    assertEquals(book, result);
+    InOrder inOrder = inOrder(stockDeltaBuffer, delegate);
+    inOrder.verify(stockDeltaBuffer).writeBook(eq(id), any());
+    inOrder.verify(delegate).updateBook(id, book, 3L);
+  }
+}